@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from 'react';
-import { customerAPI, loanAPI } from '../services/api';
+import { dashboardAPI } from '../services/api';
 
 const AccountDetails = ({ user }) => {
   const [accountData, setAccountData] = useState(null);
@@ -13,13 +13,13 @@ const AccountDetails = ({ user }) => {
       try {
         setLoading(true);
         
-        const [accountResponse, loansResponse] = await Promise.all([
-          customerAPI.getAccount(user.customerId),
-          loanAPI.getAll(user.customerId)
-        ]);
+        const { data } = await dashboardAPI.get();
 
-        setAccountData(accountResponse.data.account || accountResponse.data);
-        setLoans(loansResponse.data || []);
+        setAccountData(data.account || null);
+        setLoans(data.loans || []);
+        if (data.partial) {
+          setError('Some account data is temporarily unavailable. Please refresh in a moment.');
+        }
       } catch (error) {
         setError('Failed to load account data');
         console.error('Account error:', error);
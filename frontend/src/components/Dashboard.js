@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { Link } from 'react-router-dom';
-import { customerAPI, loanAPI } from '../services/api';
+import { dashboardAPI } from '../services/api';
 
 const Dashboard = ({ user }) => {
   const [accountData, setAccountData] = useState(null);
@@ -13,14 +13,14 @@ const Dashboard = ({ user }) => {
       try {
         setLoading(true);
         
-        // Fetch account details and loans in parallel
-        const [accountResponse, loansResponse] = await Promise.all([
-          customerAPI.getAccount(user.customerId),
-          loanAPI.getAll(user.customerId)
-        ]);
-
-        setAccountData(accountResponse.data.account || accountResponse.data);
-        setLoans(loansResponse.data || []);
+        // One request; the server reads account and loans in parallel
+        const { data } = await dashboardAPI.get();
+
+        setAccountData(data.account || null);
+        setLoans(data.loans || []);
+        if (data.partial) {
+          setError('Some dashboard data is temporarily unavailable. Please refresh in a moment.');
+        }
       } catch (error) {
         setError('Failed to load dashboard data');
         console.error('Dashboard error:', error);
@@ -1,4 +1,4 @@
-import React, { useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { loanAPI } from '../services/api';
 
@@ -13,6 +13,9 @@ const LoanApplication = ({ user }) => {
   const [error, setError] = useState('');
   const [success, setSuccess] = useState('');
   const [emiCalculation, setEmiCalculation] = useState(null);
+  const [quoteGrid, setQuoteGrid] = useState(null);
+  // One key per application, reused if the submit is retried
+  const idempotencyKey = useRef(crypto.randomUUID());
   const navigate = useNavigate();
 
   const loanTypes = [
@@ -31,6 +34,30 @@ const LoanApplication = ({ user }) => {
     { value: '60', label: '5 years' }
   ];
 
+  // Tenures shown in the comparison table; the grid itself covers every month from 6 to 360
+  const comparisonTenures = [6, 12, 24, 36, 60, 120, 180, 240, 360];
+
+  // Refresh the comparison grid once typing pauses; one request covers all rates and tenures
+  useEffect(() => {
+    const amount = parseFloat(formData.amount);
+    if (!(amount > 0)) {
+      setQuoteGrid(null);
+      return undefined;
+    }
+    const rate = parseFloat(formData.interestRate);
+    const rates = rate > 0 ? [rate - 1, rate, rate + 1].filter(r => r > 0).map(r => r.toFixed(2)) : undefined;
+    let cancelled = false;
+    const timer = setTimeout(() => {
+      loanAPI.quoteGrid(amount, rates)
+        .then(response => { if (!cancelled) setQuoteGrid(response.data); })
+        .catch(() => { if (!cancelled) setQuoteGrid(null); });
+    }, 300);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [formData.amount, formData.interestRate]);
+
   const handleChange = (e) => {
     const { name, value } = e.target;
     setFormData({
@@ -97,7 +124,8 @@ const LoanApplication = ({ user }) => {
         termMonths: parseInt(formData.termMonths)
       };
 
-      await loanAPI.apply(user.customerId, loanData);
+      await loanAPI.apply(user.customerId, loanData, idempotencyKey.current);
+      idempotencyKey.current = crypto.randomUUID();
       
       setSuccess('Loan application submitted successfully! You will be notified once it\'s processed.');
       
@@ -262,6 +290,38 @@ const LoanApplication = ({ user }) => {
             </div>
           )}
 
+          {/* EMI comparison across rates and tenures */}
+          {quoteGrid && (
+            <div className="card" style={{ marginBottom: '1.5rem', overflowX: 'auto' }}>
+              <h4 style={{ color: '#667eea', marginBottom: '1rem' }}>
+                📈 Compare EMIs
+              </h4>
+              <table style={{ width: '100%', textAlign: 'right' }}>
+                <thead>
+                  <tr>
+                    <th style={{ textAlign: 'left' }}>Term</th>
+                    {quoteGrid.quotes.map(quote => (
+                      <th key={quote.interestRate}>{quote.interestRate}%</th>
+                    ))}
+                  </tr>
+                </thead>
+                <tbody>
+                  {comparisonTenures.map(months => {
+                    const index = quoteGrid.tenures.indexOf(months);
+                    return index < 0 ? null : (
+                      <tr key={months}>
+                        <td style={{ textAlign: 'left' }}>{months} months</td>
+                        {quoteGrid.quotes.map(quote => (
+                          <td key={quote.interestRate}>{formatCurrency(quote.emis[index])}</td>
+                        ))}
+                      </tr>
+                    );
+                  })}
+                </tbody>
+              </table>
+            </div>
+          )}
+
           <button 
             type="submit" 
             className="btn" 
@@ -50,9 +50,20 @@ export const customerAPI = {
 };
 
 export const loanAPI = {
-  apply: (customerId, loanData) => api.post('/loans/apply', loanData),
+  // Retries with the same idempotencyKey return the original application instead of a duplicate
+  apply: (customerId, loanData, idempotencyKey) => api.post('/loans/apply', loanData,
+    idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined),
   getAll: (customerId) => api.get('/loans/applied'),
   getById: (customerId, loanId) => api.get(`/loans/${loanId}`),
+  // EMIs for every tenure in the range at each rate, in one request
+  quoteGrid: (amount, rates) => api.get('/loans/quote-grid', {
+    params: { amount, rates: rates?.join(',') },
+  }),
+};
+
+// Profile, account and loans in one round-trip; 'unavailable' lists any part that timed out
+export const dashboardAPI = {
+  get: () => api.get('/dashboard'),
 };
 
 export default api;
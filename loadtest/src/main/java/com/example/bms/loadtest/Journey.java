@@ -0,0 +1,176 @@
+package com.example.bms.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One customer's path through the API:
+ * register -> login -> /loans/types -> /loans/apply -> poll its status URL until the
+ * application is decided -> /loans/applied -> /loans/{id}.
+ * Every step is asynchronous, so a slow server never blocks the arrival schedule.
+ * The first failing step ends the journey and is counted against that endpoint.
+ * An application is given one request timeout to be decided; the time from the 202 to
+ * the decision is recorded as {@code decision}, and anything but ACCEPTED is an error.
+ *
+ * Latency is measured from when a request was due, not from when it was sent: the first
+ * step from the journey's scheduled arrival, every later step from the moment the step
+ * before it finished. A generator that falls behind its schedule therefore adds the delay
+ * to the results instead of hiding it (coordinated omission). A completed journey records
+ * its total as {@code journey}, also from the scheduled arrival.
+ */
+public class Journey {
+
+    private static final String[] LOAN_TYPES = {"PERSONAL_LOAN", "CAR_LOAN", "HOME_LOAN", "EDUCATION_LOAN"};
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final HttpClient client;
+    private final ObjectMapper mapper;
+    private final LoadStats stats;
+    private final URI baseUrl;
+    private final Duration timeout;
+    private final String runId;
+
+    public Journey(HttpClient client, ObjectMapper mapper, LoadStats stats, URI baseUrl, Duration timeout, String runId) {
+        this.client = client;
+        this.mapper = mapper;
+        this.stats = stats;
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.runId = runId;
+    }
+
+    // Completes normally whether or not the journey succeeded; failures are already recorded.
+    // scheduledAt is the System.nanoTime() the arrival schedule gave this journey
+    public CompletableFuture<Boolean> start(long scheduledAt) {
+        long n = SEQUENCE.incrementAndGet();
+        String loginId = "lt" + runId + "u" + n;
+        String password = "pw" + n;
+
+        Map<String, Object> register = new LinkedHashMap<>();
+        register.put("name", "Load Test " + n);
+        register.put("accountNumber", "LT" + runId + String.format("%08d", n));
+        register.put("email", loginId + "@loadtest.local");
+        register.put("phoneNumber", String.format("9%09d", n % 1_000_000_000L));
+        register.put("address", n + " Test Street");
+        register.put("state", "Karnataka");
+        register.put("country", "India");
+        register.put("panNumber", "PAN" + runId + n);
+        register.put("dob", "1990-01-01");
+        register.put("accountType", "SAVINGS");
+        register.put("loginId", loginId);
+        register.put("password", password);
+
+        Map<String, Object> application = new LinkedHashMap<>();
+        application.put("loanType", LOAN_TYPES[ThreadLocalRandom.current().nextInt(LOAN_TYPES.length)]);
+        application.put("amount", 50_000 + ThreadLocalRandom.current().nextInt(20) * 25_000);
+        application.put("tenureMonths", 12 * (1 + ThreadLocalRandom.current().nextInt(10)));
+
+        return call("register", post("/register", register, null), 201, scheduledAt)
+                .thenCompose(r -> call("login", post("/login", Map.of("loginId", loginId, "password", password), null), 200))
+                .thenCompose(login -> {
+                    String token = login.path("bearerToken").asText();
+                    return call("loanTypes", get("/loans/types", null), 200)
+                            .thenCompose(r -> call("apply", post("/loans/apply", application, token), 202))
+                            .thenCompose(queued -> awaitDecision(queued.path("statusUrl").asText(), token,
+                                    System.nanoTime(), System.nanoTime() + timeout.toNanos()))
+                            .thenCompose(accepted -> call("applied", get("/loans/applied", token), 200)
+                                    .thenApply(r -> accepted.path("loanDetails").path("loanId").asText()))
+                            .thenCompose(loanId -> call("loanDetails", get("/loans/" + loanId, token), 200));
+                })
+                .handle((r, failure) -> {
+                    if (failure == null) {
+                        stats.recordLatency("journey", System.nanoTime() - scheduledAt);
+                    }
+                    return failure == null;
+                });
+    }
+
+    // Polls the status URL until the application leaves QUEUED; completes with the ACCEPTED status body
+    private CompletableFuture<JsonNode> awaitDecision(String statusUrl, String token, long queuedAt, long deadline) {
+        return call("applicationStatus", get(statusUrl, token), 200).thenCompose(status -> {
+            String state = status.path("status").asText();
+            if ("QUEUED".equals(state)) {
+                if (System.nanoTime() >= deadline) {
+                    return failed("decision", "timeout");
+                }
+                return CompletableFuture.runAsync(() -> { },
+                                CompletableFuture.delayedExecutor(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS))
+                        .thenCompose(r -> awaitDecision(statusUrl, token, queuedAt, deadline));
+            }
+            stats.recordLatency("decision", System.nanoTime() - queuedAt);
+            return "ACCEPTED".equals(state) ? CompletableFuture.completedFuture(status) : failed("decision", state);
+        });
+    }
+
+    private CompletableFuture<JsonNode> failed(String endpoint, String reason) {
+        stats.recordError(endpoint, reason);
+        return CompletableFuture.failedFuture(new IllegalStateException(endpoint + " " + reason));
+    }
+
+    // A step that follows another is due as soon as it is called
+    private CompletableFuture<JsonNode> call(String endpoint, HttpRequest request, int expectedStatus) {
+        return call(endpoint, request, expectedStatus, System.nanoTime());
+    }
+
+    private CompletableFuture<JsonNode> call(String endpoint, HttpRequest request, int expectedStatus, long dueAt) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    stats.recordLatency(endpoint, System.nanoTime() - dueAt);
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause() : failure;
+                        stats.recordError(endpoint, cause.getClass().getSimpleName());
+                        throw new CompletionException(cause);
+                    }
+                    if (response.statusCode() != expectedStatus) {
+                        stats.recordError(endpoint, "status=" + response.statusCode());
+                        throw new CompletionException(new IllegalStateException(endpoint + " returned " + response.statusCode()));
+                    }
+                    try {
+                        return mapper.readTree(response.body());
+                    } catch (Exception e) {
+                        stats.recordError(endpoint, "unparseable-body");
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private HttpRequest post(String path, Object body, String token) {
+        try {
+            return builder(path, token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not serialise request for " + path, e);
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        return builder(path, token).GET().build();
+    }
+
+    private HttpRequest.Builder builder(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (token != null) {
+            builder.header("Authorization", token);
+        }
+        return builder;
+    }
+}
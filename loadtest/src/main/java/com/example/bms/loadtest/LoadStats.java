@@ -0,0 +1,104 @@
+package com.example.bms.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency recorders and error counters. Latencies are recorded in
+ * microseconds. Each interval is appended to {@code <endpoint>.hlog} so runs can be
+ * compared with the standard HdrHistogram tools.
+ */
+public class LoadStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> totals = new TreeMap<>();
+    private final Map<String, HistogramLogWriter> writers = new TreeMap<>();
+    private final Map<String, PrintStream> logFiles = new TreeMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Path outputDir;
+    private final long startMillis = System.currentTimeMillis();
+
+    public LoadStats(Path outputDir) throws IOException {
+        this.outputDir = outputDir;
+        Files.createDirectories(outputDir);
+    }
+
+    public void recordLatency(String endpoint, long nanos) {
+        recorders.computeIfAbsent(endpoint, e -> new Recorder(MAX_LATENCY_MICROS, 3))
+                .recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos))));
+    }
+
+    public void recordError(String endpoint, String reason) {
+        errors.computeIfAbsent(endpoint + " " + reason, k -> new LongAdder()).increment();
+    }
+
+    public synchronized void rollInterval(PrintStream out) throws FileNotFoundException {
+        StringBuilder line = new StringBuilder(String.format("[%6.1fs]", (System.currentTimeMillis() - startMillis) / 1000.0));
+        for (Map.Entry<String, Recorder> entry : new TreeMap<>(recorders).entrySet()) {
+            Histogram interval = entry.getValue().getIntervalHistogram();
+            interval.setTag(entry.getKey());
+            totals.computeIfAbsent(entry.getKey(), k -> new Histogram(MAX_LATENCY_MICROS, 3)).add(interval);
+            writerFor(entry.getKey()).outputIntervalHistogram(interval);
+            line.append(String.format(" %s n=%d p99=%.1fms", entry.getKey(), interval.getTotalCount(),
+                    interval.getValueAtPercentile(99) / 1000.0));
+        }
+        out.println(line);
+    }
+
+    public synchronized void printSummary(PrintStream out) {
+        out.println();
+        out.printf("%-12s %9s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "errors");
+        for (Map.Entry<String, Histogram> entry : totals.entrySet()) {
+            Histogram h = entry.getValue();
+            long endpointErrors = errors.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(entry.getKey() + " "))
+                    .mapToLong(e -> e.getValue().sum())
+                    .sum();
+            out.printf("%-12s %9d %9.2f %9.2f %9.2f %9.2f %9.2f %9d%n", entry.getKey(), h.getTotalCount(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()), endpointErrors);
+        }
+        if (!errors.isEmpty()) {
+            out.println();
+            out.println("Errors:");
+            new TreeMap<>(errors).forEach((key, count) -> out.printf("  %-50s %d%n", key, count.sum()));
+        }
+        logFiles.values().forEach(PrintStream::close);
+        out.println();
+        out.println("Histogram logs written to " + outputDir.toAbsolutePath());
+    }
+
+    private HistogramLogWriter writerFor(String endpoint) throws FileNotFoundException {
+        HistogramLogWriter writer = writers.get(endpoint);
+        if (writer == null) {
+            PrintStream file = new PrintStream(outputDir.resolve(endpoint + ".hlog").toFile());
+            logFiles.put(endpoint, file);
+            writer = new HistogramLogWriter(file);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(startMillis);
+            writer.setBaseTime(startMillis);
+            writer.outputLegend();
+            writers.put(endpoint, writer);
+        }
+        return writer;
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bms.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for the register, login and loan application flows.
+ * Journeys start on a fixed schedule (Poisson or constant inter-arrival times), so
+ * a slow server builds up in-flight work instead of quietly lowering the offered
+ * load. Start the application with the {@code embedded} profile to run fully offline.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        LoadStats stats = new LoadStats(config.outputDir);
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.timeout)
+                .executor(httpExecutor)
+                .build();
+        String runId = Long.toString(System.currentTimeMillis() % 100_000_000L, 36);
+        Journey journey = new Journey(client, new ObjectMapper(), stats, config.baseUrl, config.timeout, runId);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        LongAdder started = new LongAdder();
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder dropped = new LongAdder();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long intervalMs = config.interval.toMillis();
+        reporter.scheduleAtFixedRate(() -> {
+            try {
+                stats.rollInterval(System.out);
+            } catch (Exception e) {
+                System.err.println("Could not write interval histograms: " + e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        System.out.printf("Target %s, run id %s%n", config.baseUrl, runId);
+        long next = System.nanoTime();
+        for (LoadTestConfig.Stage stage : config.stages) {
+            System.out.printf("Stage: %.1f journeys/s for %ds (%s arrivals)%n",
+                    stage.rate, stage.duration.toSeconds(), config.poisson ? "poisson" : "constant");
+            long stageEnd = next + stage.duration.toNanos();
+            double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / stage.rate;
+            while (next < stageEnd) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                // Arrival times are fixed up front; falling behind fires the backlog immediately,
+                // and the journeys measure from these times, so the lag shows in their latencies
+                if (inFlight.get() >= config.maxInFlight) {
+                    dropped.increment();
+                } else {
+                    inFlight.incrementAndGet();
+                    started.increment();
+                    journey.start(next).whenComplete((ok, failure) -> {
+                        inFlight.decrementAndGet();
+                        (Boolean.TRUE.equals(ok) ? completed : failed).increment();
+                    });
+                }
+                double gap = config.poisson
+                        ? -Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos
+                        : meanGapNanos;
+                next += (long) gap;
+            }
+        }
+
+        System.out.println("Arrivals finished, draining in-flight journeys...");
+        long drainDeadline = System.nanoTime() + config.timeout.toNanos() * 7;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        reporter.shutdown();
+        reporter.awaitTermination(intervalMs, TimeUnit.MILLISECONDS);
+        stats.rollInterval(System.out);
+        stats.printSummary(System.out);
+        System.out.printf("%nJourneys: started=%d completed=%d failed=%d dropped=%d abandoned=%d%n",
+                started.sum(), completed.sum(), failed.sum(), dropped.sum(), inFlight.get());
+        httpExecutor.shutdownNow();
+        System.exit(failed.sum() + dropped.sum() > 0 ? 1 : 0);
+    }
+}
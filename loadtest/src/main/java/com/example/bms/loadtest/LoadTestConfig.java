@@ -0,0 +1,93 @@
+package com.example.bms.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line options. Arrival rates are journeys per second and are open-model:
+ * new journeys start on schedule whether or not earlier ones have finished.
+ *
+ * <pre>
+ * --base-url http://localhost:8080/api/v1/bms
+ * --rate 20 --duration 60s           constant arrival rate
+ * --stages 10/30s,50/60s,100/60s     stepped arrival rates (overrides --rate/--duration)
+ * --arrivals poisson|constant        inter-arrival distribution (default poisson)
+ * --max-in-flight 2000               journeys beyond this are dropped and counted, never queued
+ * --timeout 10s                      per-request timeout
+ * --interval 5s                      progress and histogram log interval
+ * --out target/loadtest              directory for .hlog files
+ * </pre>
+ */
+public class LoadTestConfig {
+
+    public static final class Stage {
+        final double rate;
+        final Duration duration;
+
+        Stage(double rate, Duration duration) {
+            this.rate = rate;
+            this.duration = duration;
+        }
+    }
+
+    URI baseUrl = URI.create("http://localhost:8080/api/v1/bms");
+    List<Stage> stages = new ArrayList<>();
+    boolean poisson = true;
+    int maxInFlight = 2000;
+    Duration timeout = Duration.ofSeconds(10);
+    Duration interval = Duration.ofSeconds(5);
+    Path outputDir = Paths.get("target", "loadtest");
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        double rate = 10;
+        Duration duration = Duration.ofSeconds(60);
+        String stages = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--base-url" -> config.baseUrl = URI.create(stripSlash(value));
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--duration" -> duration = parseDuration(value);
+                case "--stages" -> stages = value;
+                case "--arrivals" -> config.poisson = !"constant".equals(value);
+                case "--max-in-flight" -> config.maxInFlight = Integer.parseInt(value);
+                case "--timeout" -> config.timeout = parseDuration(value);
+                case "--interval" -> config.interval = parseDuration(value);
+                case "--out" -> config.outputDir = Paths.get(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            i++;
+        }
+        if (stages != null) {
+            for (String stage : stages.split(",")) {
+                String[] parts = stage.split("/");
+                config.stages.add(new Stage(Double.parseDouble(parts[0]), parseDuration(parts[1])));
+            }
+        } else {
+            config.stages.add(new Stage(rate, duration));
+        }
+        return config;
+    }
+
+    static Duration parseDuration(String text) {
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -2,12 +2,20 @@ package com.example.bms;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BmsApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BmsApplication.class, args);
+		SpringApplication application = new SpringApplication(BmsApplication.class);
+		// Startup steps are only buffered when asked for, see StartupTimingReport
+		if (Boolean.getBoolean("bms.startup.report")) {
+			application.setApplicationStartup(new BufferingApplicationStartup(10_000));
+		}
+		application.run(args);
 	}
 
 }
@@ -1,28 +1,61 @@
 package com.example.bms.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.bms.models.Account;
 import com.example.bms.models.Customer;
 import com.example.bms.models.Loan;
+import com.example.bms.models.LoanApplication;
+import com.example.bms.models.LoanScenario;
+import com.example.bms.models.LoanSummary;
 import com.example.bms.models.LoginRequest;
 import com.example.bms.models.RegisterRequest;
+import com.example.bms.services.AuditTrail;
 import com.example.bms.services.CustomerService;
+import com.example.bms.services.DashboardService;
+import com.example.bms.services.DatabaseGuard;
+import com.example.bms.services.EmiQuoteService;
+import com.example.bms.services.IdempotencyService;
+import com.example.bms.services.LoanImportService;
+import com.example.bms.services.LoanIntakePipeline;
+import com.example.bms.services.LoanSimulator;
+import com.example.bms.services.LoanVersionTracker;
+import com.example.bms.services.LoginIdFilter;
+import com.example.bms.services.PortfolioService;
+import com.example.bms.services.SessionRegistry;
+import com.example.bms.utils.AuditLog;
 import com.example.bms.utils.JwtUtil;
+import com.example.bms.utils.Money;
+import com.example.bms.utils.RejectedCallException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Optional;
 
+// Built at startup even in fast-start mode so the first request doesn't pay for it
+@Lazy(false)
 @RestController
 @RequestMapping
 @CrossOrigin(origins = "*")
@@ -31,6 +64,42 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private LoanImportService loanImportService;
+
+    @Autowired
+    private LoanVersionTracker loanVersionTracker;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private EmiQuoteService emiQuoteService;
+
+    @Autowired
+    private LoanSimulator loanSimulator;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Autowired
+    private LoanIntakePipeline loanIntakePipeline;
+
+    @Autowired
+    private LoginIdFilter loginIdFilter;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -39,18 +108,21 @@ public class CustomerController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Customer registered successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid input data"),
-        @ApiResponse(responseCode = "409", description = "Customer already exists")
+        @ApiResponse(responseCode = "409", description = "Customer already exists"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @PostMapping("/register")
     public ResponseEntity<Map<String, Object>> registerCustomer(@RequestBody RegisterRequest registerRequest) {
         Map<String, Object> response = new HashMap<>();
         try {
-            Customer customer = customerService.registerCustomer(registerRequest);
+            Customer customer = databaseGuard.call("register", () -> customerService.registerCustomer(registerRequest));
             response.put("success", true);
             response.put("message", "Customer registered successfully");
             response.put("customerId", customer.getId());
             response.put("accountNumber", customer.getAccountNumber());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Registration failed: " + e.getMessage());
@@ -62,20 +134,23 @@ public class CustomerController {
     @Operation(summary = "Login a customer", description = "Authenticates customer and returns bearer token with customer details")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Login successful"),
-        @ApiResponse(responseCode = "401", description = "Invalid credentials")
+        @ApiResponse(responseCode = "401", description = "Invalid credentials"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @PostMapping("/login")
     public ResponseEntity<Map<String, Object>> loginCustomer(@RequestBody LoginRequest loginRequest) {
         Map<String, Object> response = new HashMap<>();
         try {
-            Customer customer = customerService.authenticateCustomer(loginRequest);
+            Customer customer = authenticate(loginRequest);
             if (customer != null) {
-                // Generate JWT token with customer ID
-                String jwtToken = jwtUtil.generateToken(customer.getId().toString());
+                // Start a tracked session and tie the JWT token to it
+                SessionRegistry.Session session = databaseGuard.call("login", () -> sessionRegistry.open(customer, loginRequest.getLoginId()));
+                String jwtToken = jwtUtil.generateToken(customer.getId().toString(), session.getId(), session.getExpiresAtMs());
+                auditTrail.record(customer.getId().toString(), AuditLog.Action.LOGIN, "session " + session.getId());
                 
                 // Set customer details in login request
                 loginRequest.setCustomerDetails(
-                    customer.getId().toString(),
+                    customer.getId(),
                     customer.getName(),
                     customer.getEmail(),
                     "CUSTOMER"
@@ -83,8 +158,8 @@ public class CustomerController {
                 loginRequest.setBearerToken(jwtToken);
                 loginRequest.setTokenActive(true);
                 loginRequest.setLoginTimestamp(LocalDateTime.now());
-                loginRequest.setTokenIssuedAt(LocalDateTime.now());
-                loginRequest.setTokenExpiresAt(LocalDateTime.now().plusHours(24)); // 24 hours expiry
+                loginRequest.setTokenIssuedAt(toLocalDateTime(session.getIssuedAtMs()));
+                loginRequest.setTokenExpiresAt(toLocalDateTime(session.getExpiresAtMs()));
                 
                 response.put("success", true);
                 response.put("message", "Login successful");
@@ -103,6 +178,8 @@ public class CustomerController {
                 response.put("message", "Invalid credentials");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Login failed: " + e.getMessage());
@@ -110,12 +187,23 @@ public class CustomerController {
         }
     }
 
+    // Never-registered loginIds are turned away before the login bulkhead, so stuffing them
+    // cannot take its permits; they take about as long as a real lookup
+    private Customer authenticate(LoginRequest loginRequest) {
+        if (!loginIdFilter.mightExist(loginRequest.getLoginId())) {
+            loginIdFilter.delayLikeLookup();
+            return null;
+        }
+        return databaseGuard.call("login", () -> customerService.authenticateCustomer(loginRequest));
+    }
+
     // 3. UPDATE CUSTOMER DETAILS ENDPOINT
     @Operation(summary = "Update customer details", description = "Updates customer information (requires authentication)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Customer details updated successfully"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
-        @ApiResponse(responseCode = "404", description = "Customer not found")
+        @ApiResponse(responseCode = "404", description = "Customer not found"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @PutMapping("/customer/{customerId}")
     public ResponseEntity<Map<String, Object>> updateCustomerDetails(
@@ -132,8 +220,11 @@ public class CustomerController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
             
-            Customer updatedCustomer = customerService.updateCustomerDetails(customerId, customerUpdate);
+            auditTrail.record(extractCustomerIdFromToken(bearerToken), AuditLog.Action.PROFILE_UPDATE, "customer " + customerId);
+            Customer updatedCustomer = databaseGuard.call("customer-update",
+                    () -> customerService.updateCustomerDetails(customerId, customerUpdate));
             if (updatedCustomer != null) {
+                databaseGuard.remember("customer", customerId, updatedCustomer);
                 response.put("success", true);
                 response.put("message", "Customer details updated successfully");
                 response.put("customer", updatedCustomer);
@@ -143,6 +234,8 @@ public class CustomerController {
                 response.put("message", "Customer not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Update failed: " + e.getMessage());
@@ -159,6 +252,7 @@ public class CustomerController {
     public ResponseEntity<Map<String, Object>> getLoanTypes() {
         Map<String, Object> response = new HashMap<>();
         try {
+            // Built from the LoanType enum: no database call, so nothing to guard
             List<Map<String, Object>> loanTypes = customerService.getAllLoanTypes();
             response.put("success", true);
             response.put("message", "Loan types retrieved successfully");
@@ -172,15 +266,20 @@ public class CustomerController {
     }
 
     // 5. APPLY FOR LOAN ENDPOINT
-    @Operation(summary = "Apply for a loan", description = "Submit a new loan application (requires authentication)")
+    @Operation(summary = "Apply for a loan", description = "Queues a new loan application for validation, pricing and saving; poll the status URL for the outcome (requires authentication)")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "201", description = "Loan application submitted successfully"),
+        @ApiResponse(responseCode = "202", description = "Loan application queued; Location is its status URL"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
-        @ApiResponse(responseCode = "400", description = "Invalid loan application data")
+        @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still in progress"),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different application"),
+        @ApiResponse(responseCode = "429", description = "Too many applications queued; retry after Retry-After"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @PostMapping("/loans/apply")
     public ResponseEntity<Map<String, Object>> applyForLoan(
             @RequestHeader("Authorization") String bearerToken,
+            @Parameter(description = "Client-generated key; retries with the same key return the original response")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody Loan loanApplication) {
         
         Map<String, Object> response = new HashMap<>();
@@ -194,18 +293,21 @@ public class CustomerController {
             
             // Extract customer ID from token
             String customerId = extractCustomerIdFromToken(bearerToken);
-            
-            Loan appliedLoan = customerService.applyForLoan(customerId, loanApplication);
-            response.put("success", true);
-            response.put("message", "Loan application submitted successfully");
-            response.put("loanDetails", Map.of(
-                "loanId", appliedLoan.getLoanId(),
-                "amount", appliedLoan.getAmount(),
-                "loanType", appliedLoan.getLoanType(),
-                "baseInterestRate", appliedLoan.getBaseInterestRate(),
-                "offeredInterestRate", appliedLoan.getOfferedInterestRate()
-            ));
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            // The application is recorded before it is validated, so it must fit the amount column
+            if (loanApplication.getAmount() != null && loanApplication.getAmount().compareTo(Money.MAX_AMOUNT) > 0) {
+                response.put("success", false);
+                response.put("message", "Loan application failed: amount must not exceed " + Money.MAX_AMOUNT.toPlainString());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+            if (idempotencyKey == null) {
+                return submitLoanApplication(customerId, loanApplication, null);
+            }
+            String requestHash = IdempotencyService.fingerprint(loanApplication.getLoanType(), loanApplication.getAmount(),
+                    loanApplication.getTenureMonths(), loanApplication.getOfferedInterestRate(), loanApplication.getPurpose());
+            return idempotencyService.execute(customerId, idempotencyKey, requestHash,
+                    () -> submitLoanApplication(customerId, loanApplication, idempotencyKey));
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Loan application failed: " + e.getMessage());
@@ -213,16 +315,47 @@ public class CustomerController {
         }
     }
 
+    private ResponseEntity<Map<String, Object>> submitLoanApplication(String customerId, Loan loanApplication, String idempotencyKey) {
+        Map<String, Object> response = new HashMap<>();
+        Optional<LoanIntakePipeline.Application> application;
+        try {
+            application = loanIntakePipeline.submit(customerId, loanApplication, idempotencyKey);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        }
+        if (application.isEmpty()) {
+            auditTrail.record(customerId, AuditLog.Action.LOAN_APPLY, "rejected");
+            response.put("success", false);
+            response.put("message", "Too many loan applications in progress, please retry shortly");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response);
+        }
+        String applicationId = application.get().getApplicationId();
+        String statusUrl = "/loans/applications/" + applicationId;
+        response.put("success", true);
+        response.put("message", "Loan application accepted for processing");
+        response.put("applicationId", applicationId);
+        response.put("status", LoanApplication.Status.QUEUED);
+        response.put("statusUrl", statusUrl);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, statusUrl)
+                .body(response);
+    }
+
     // 6. GET APPLIED LOANS FOR CUSTOMER ENDPOINT
     @Operation(summary = "Get customer's applied loans", description = "Returns all loans applied by the customer (requires authentication)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Applied loans retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Loans unchanged since the ETag in If-None-Match"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
-        @ApiResponse(responseCode = "404", description = "No loans found for customer")
+        @ApiResponse(responseCode = "404", description = "No loans found for customer"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @GetMapping("/loans/applied")
     public ResponseEntity<Map<String, Object>> getAppliedLoans(
-            @RequestHeader("Authorization") String bearerToken) {
+            @RequestHeader("Authorization") String bearerToken,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         
         Map<String, Object> response = new HashMap<>();
         try {
@@ -235,13 +368,24 @@ public class CustomerController {
             
             // Extract customer ID from token
             String customerId = extractCustomerIdFromToken(bearerToken);
+            auditTrail.record(customerId, AuditLog.Action.LOAN_READ, null);
+            
+            // Unchanged since the client's copy: skip the query and serialization
+            String eTag = loanVersionTracker.currentETag(customerId);
+            if (LoanVersionTracker.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
             
-            List<Loan> appliedLoans = customerService.getCustomerLoans(customerId);
+            // Tagged with the version read alongside the loans, which a lagging replica may hold back
+            LoanVersionTracker.Tagged<List<LoanSummary>> appliedLoans = databaseGuard.call("loans-applied",
+                    () -> customerService.getTaggedLoanSummaries(customerId));
             response.put("success", true);
             response.put("message", "Applied loans retrieved successfully");
-            response.put("totalLoans", appliedLoans.size());
-            response.put("loans", appliedLoans);
-            return ResponseEntity.ok(response);
+            response.put("totalLoans", appliedLoans.value().size());
+            response.put("loans", appliedLoans.value());
+            return withETag(ResponseEntity.ok(), appliedLoans.eTag()).body(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Failed to retrieve loans: " + e.getMessage());
@@ -254,7 +398,8 @@ public class CustomerController {
     @GetMapping("/loans/{loanId}")
     public ResponseEntity<Map<String, Object>> getLoanDetails(
             @Parameter(description = "Loan ID") @PathVariable String loanId,
-            @RequestHeader("Authorization") String bearerToken) {
+            @RequestHeader("Authorization") String bearerToken,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         
         Map<String, Object> response = new HashMap<>();
         try {
@@ -266,18 +411,29 @@ public class CustomerController {
             }
             
             String customerId = extractCustomerIdFromToken(bearerToken);
-            Loan loan = customerService.getLoanDetails(customerId, loanId);
+            auditTrail.record(customerId, AuditLog.Action.LOAN_READ, loanId);
             
-            if (loan != null) {
+            // A loan only changes when its customer's version does
+            String eTag = loanVersionTracker.currentETag(customerId);
+            if (LoanVersionTracker.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            
+            LoanVersionTracker.Tagged<Loan> loan = databaseGuard.call("loan-details",
+                    () -> customerService.getTaggedLoanDetails(customerId, loanId));
+            
+            if (loan.value() != null) {
                 response.put("success", true);
                 response.put("message", "Loan details retrieved successfully");
-                response.put("loan", loan);
-                return ResponseEntity.ok(response);
+                response.put("loan", loan.value());
+                return withETag(ResponseEntity.ok(), loan.eTag()).body(response);
             } else {
                 response.put("success", false);
                 response.put("message", "Loan not found or unauthorized access");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Failed to retrieve loan details: " + e.getMessage());
@@ -289,7 +445,8 @@ public class CustomerController {
     @Operation(summary = "Logout customer", description = "Invalidates customer session and clears authentication token")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Logout successful"),
-        @ApiResponse(responseCode = "401", description = "Invalid token")
+        @ApiResponse(responseCode = "401", description = "Invalid token"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @PostMapping("/logout")
     public ResponseEntity<Map<String, Object>> logoutCustomer(
@@ -307,15 +464,20 @@ public class CustomerController {
             // Extract login ID from token
             String loginId = extractCustomerIdFromToken(bearerToken);
             
-            // Invalidate session in database (if using database session management)
-            // For now, we'll just return success as JWT tokens are stateless
-            // In a production system, you might want to maintain a blacklist of tokens
+            // End the session; its token is rejected from now on
+            Long sessionId = jwtUtil.extractSessionId(bearerToken.substring(7));
+            auditTrail.record(loginId, AuditLog.Action.LOGOUT, sessionId == null ? null : "session " + sessionId);
+            if (sessionId != null) {
+                databaseGuard.call("logout", () -> sessionRegistry.end(sessionId));
+            }
             
             response.put("success", true);
             response.put("message", "Logout successful. Session invalidated.");
             response.put("loginId", loginId);
             
             return ResponseEntity.ok(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Logout failed: " + e.getMessage());
@@ -323,19 +485,284 @@ public class CustomerController {
         }
     }
 
+    // 9. BULK LOAN IMPORT ENDPOINT
+    @Operation(summary = "Bulk import loan applications", description = "Streams newline-delimited JSON loan applications, one per line, and inserts them in JDBC batches. Every row must name the authenticated customer (requires authentication)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished; the report counts the rows and lists the failed ones"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
+    })
+    @PostMapping(value = "/loans/import", consumes = {"application/x-ndjson", "application/json", "text/plain"})
+    public ResponseEntity<Map<String, Object>> importLoans(
+            @RequestHeader("Authorization") String bearerToken,
+            HttpServletRequest request) {
+        
+        Map<String, Object> response = new HashMap<>();
+        try {
+            // Validate bearer token
+            if (!isValidBearerToken(bearerToken)) {
+                response.put("success", false);
+                response.put("message", "Invalid or expired token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+            
+            String customerId = extractCustomerIdFromToken(bearerToken);
+            auditTrail.record(customerId, AuditLog.Action.LOAN_IMPORT, null);
+            Map<String, Object> report = databaseGuard.call("loans-import", () -> importFrom(request, customerId));
+            response.put("success", true);
+            response.put("message", "Loan import completed");
+            response.putAll(report);
+            return ResponseEntity.ok(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Loan import failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    // 10. EMI QUOTE GRID ENDPOINT
+    @Operation(summary = "Get an EMI quote grid", description = "Returns monthly EMIs for one amount across several interest rates and every tenure in a range, in one response")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Quote grid calculated successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid amount, rates or tenure range")
+    })
+    @GetMapping("/loans/quote-grid")
+    public ResponseEntity<Map<String, Object>> getQuoteGrid(
+            @Parameter(description = "Loan amount") @RequestParam BigDecimal amount,
+            @Parameter(description = "Annual interest rates in percent; defaults to every loan type's base rate")
+            @RequestParam(required = false) List<BigDecimal> rates,
+            @RequestParam(defaultValue = "6") int minTenureMonths,
+            @RequestParam(defaultValue = "360") int maxTenureMonths,
+            @RequestParam(defaultValue = "1") int stepMonths) {
+        
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<BigDecimal> quotedRates = rates != null && !rates.isEmpty() ? rates
+                    : Arrays.stream(Loan.LoanType.values())
+                        .map(type -> BigDecimal.valueOf(type.getBaseInterestRate()))
+                        .distinct()
+                        .sorted()
+                        .toList();
+            Map<String, Object> grid = emiQuoteService.quoteGrid(amount, quotedRates,
+                    minTenureMonths, maxTenureMonths, stepMonths);
+            response.put("success", true);
+            response.put("message", "Quote grid calculated successfully");
+            response.putAll(grid);
+            // Depends only on the query string, so browsers may reuse it
+            return ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofHours(1))).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "Invalid quote request: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    // 11. PREPAYMENT / RATE CHANGE SIMULATION ENDPOINT
+    @Operation(summary = "Simulate prepayments and rate changes", description = "Applies each scenario's prepayments, rate changes and EMI changes to the loan's schedule and returns the resulting EMI, tenure and interest side by side (requires authentication)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Scenarios simulated successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid scenario"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
+        @ApiResponse(responseCode = "404", description = "Loan not found"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
+    })
+    @PostMapping("/loans/{loanId}/simulate")
+    public ResponseEntity<Map<String, Object>> simulateLoan(
+            @Parameter(description = "Loan ID") @PathVariable String loanId,
+            @RequestHeader("Authorization") String bearerToken,
+            @RequestBody List<LoanScenario> scenarios) {
+        
+        Map<String, Object> response = new HashMap<>();
+        try {
+            // Validate bearer token
+            if (!isValidBearerToken(bearerToken)) {
+                response.put("success", false);
+                response.put("message", "Invalid or expired token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+            
+            String customerId = extractCustomerIdFromToken(bearerToken);
+            auditTrail.record(customerId, AuditLog.Action.LOAN_SIMULATE, loanId);
+            Loan loan = databaseGuard.call("loans-simulate", () -> customerService.getLoanDetails(customerId, loanId));
+            if (loan == null) {
+                response.put("success", false);
+                response.put("message", "Loan not found or unauthorized access");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            
+            response.put("success", true);
+            response.put("message", "Scenarios simulated successfully");
+            response.putAll(loanSimulator.simulate(loan, scenarios));
+            return ResponseEntity.ok(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "Invalid scenario: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Simulation failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 12. DASHBOARD ENDPOINT
+    @Operation(summary = "Get dashboard data", description = "Returns the customer's profile, account and loans in one response; reads run in parallel and a slow one is reported under 'unavailable' instead of failing the page (requires authentication)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Dashboard data retrieved, possibly partial"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
+        @ApiResponse(responseCode = "404", description = "Customer not found"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
+    })
+    @GetMapping("/dashboard")
+    public ResponseEntity<Map<String, Object>> getDashboard(@RequestHeader("Authorization") String bearerToken) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            // Validate bearer token once for all three reads
+            if (!isValidBearerToken(bearerToken)) {
+                response.put("success", false);
+                response.put("message", "Invalid or expired token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+            
+            String customerId = extractCustomerIdFromToken(bearerToken);
+            auditTrail.record(customerId, AuditLog.Action.DASHBOARD_READ, null);
+            Map<String, Object> dashboard = databaseGuard.call("dashboard", () -> dashboardService.load(customerId));
+            if (dashboard == null) {
+                response.put("success", false);
+                response.put("message", "Customer not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            
+            response.put("success", true);
+            response.put("message", Boolean.TRUE.equals(dashboard.get("partial"))
+                    ? "Dashboard data partially retrieved" : "Dashboard data retrieved successfully");
+            response.putAll(dashboard);
+            return ResponseEntity.ok(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to retrieve dashboard: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 13. ACTIVE SESSIONS ENDPOINT
+    @Operation(summary = "List active sessions", description = "Lists the customer's active login sessions, oldest first; logging in beyond the per-customer limit ends the oldest (requires authentication)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Sessions retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token")
+    })
+    @GetMapping("/sessions")
+    public ResponseEntity<Map<String, Object>> getActiveSessions(@RequestHeader("Authorization") String bearerToken) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            if (!isValidBearerToken(bearerToken)) {
+                response.put("success", false);
+                response.put("message", "Invalid or expired token");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+            
+            String customerId = extractCustomerIdFromToken(bearerToken);
+            auditTrail.record(customerId, AuditLog.Action.SESSIONS_READ, null);
+            Long currentSessionId = jwtUtil.extractSessionId(bearerToken.substring(7));
+            List<Map<String, Object>> sessions = new ArrayList<>();
+            for (SessionRegistry.Session session : sessionRegistry.sessionsOf(customerId)) {
+                sessions.add(Map.of(
+                    "sessionId", session.getId(),
+                    "issuedAt", toLocalDateTime(session.getIssuedAtMs()),
+                    "expiresAt", toLocalDateTime(session.getExpiresAtMs()),
+                    "current", currentSessionId != null && currentSessionId == session.getId()
+                ));
+            }
+            
+            response.put("success", true);
+            response.put("message", "Sessions retrieved successfully");
+            response.put("sessions", sessions);
+            return ResponseEntity.ok(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to retrieve sessions: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // 14. LOAN APPLICATION STATUS ENDPOINT
+    @Operation(summary = "Get loan application status", description = "Outcome of an application queued by /loans/apply; ACCEPTED includes the loan details (requires authentication)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Application status retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
+        @ApiResponse(responseCode = "404", description = "Unknown application"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
+    })
+    @GetMapping("/loans/applications/{applicationId}")
+    public ResponseEntity<Map<String, Object>> getLoanApplicationStatus(
+            @Parameter(description = "Application ID returned by /loans/apply") @PathVariable String applicationId,
+            @RequestHeader("Authorization") String bearerToken) {
+        
+        Map<String, Object> response = new HashMap<>();
+        if (!isValidBearerToken(bearerToken)) {
+            response.put("success", false);
+            response.put("message", "Invalid or expired token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        String customerId = extractCustomerIdFromToken(bearerToken);
+        Optional<LoanApplication> found;
+        try {
+            found = databaseGuard.call("loan-application-status", () -> loanIntakePipeline.find(customerId, applicationId));
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        }
+        if (found.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Loan application not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        
+        LoanApplication application = found.get();
+        LoanApplication.Status status = application.getStatus();
+        response.put("success", true);
+        response.put("applicationId", applicationId);
+        response.put("status", status);
+        if (status == LoanApplication.Status.ACCEPTED) {
+            response.put("message", "Loan application submitted successfully");
+            response.put("loanDetails", Map.of(
+                "loanId", application.getLoanId(),
+                "amount", application.getAmount(),
+                "loanType", application.getLoanType(),
+                "baseInterestRate", application.getLoanType().getBaseInterestRate(),
+                "offeredInterestRate", application.getOfferedInterestRate()
+            ));
+        } else if (status == LoanApplication.Status.QUEUED) {
+            response.put("message", "Loan application is being processed");
+        } else {
+            response.put("message", "Loan application failed: " + application.getMessage());
+        }
+        return ResponseEntity.ok(response);
+    }
+
     // GET CUSTOMER DETAILS BY ID
     @Operation(summary = "Get customer details", description = "Retrieves customer details by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Customer details retrieved successfully"),
-        @ApiResponse(responseCode = "404", description = "Customer not found")
+        @ApiResponse(responseCode = "404", description = "Customer not found"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @GetMapping("/customers/{customerId}")
     public ResponseEntity<Map<String, Object>> getCustomerById(@PathVariable Long customerId) {
         Map<String, Object> response = new HashMap<>();
         try {
-            Optional<Customer> customerOpt = customerService.getCustomerById(customerId);
+            Optional<Customer> customerOpt = databaseGuard.call("customer", () -> customerService.getCustomerById(customerId));
             if (customerOpt.isPresent()) {
                 Customer customer = customerOpt.get();
+                databaseGuard.remember("customer", customerId, customer);
                 response.put("success", true);
                 response.put("customer", customer);
                 return ResponseEntity.ok(response);
@@ -344,6 +771,15 @@ public class CustomerController {
                 response.put("message", "Customer not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
+        } catch (RejectedCallException e) {
+            Optional<Customer> lastKnown = databaseGuard.lastKnown("customer", customerId);
+            if (lastKnown.isEmpty()) {
+                return unavailable(response, e);
+            }
+            response.put("success", true);
+            response.put("degraded", true);
+            response.put("customer", lastKnown.get());
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error: " + e.getMessage());
@@ -352,24 +788,43 @@ public class CustomerController {
     }
 
     // GET CUSTOMER ACCOUNT DETAILS
-    @Operation(summary = "Get customer account details", description = "Retrieves account information for a customer")
+    @Operation(summary = "Get customer account details", description = "Retrieves account information for a customer, with their accounts and the total balance of the active ones")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Account details retrieved successfully"),
-        @ApiResponse(responseCode = "404", description = "Customer not found")
+        @ApiResponse(responseCode = "404", description = "Customer not found"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
     })
     @GetMapping("/customers/{customerId}/account")
     public ResponseEntity<Map<String, Object>> getCustomerAccount(@PathVariable Long customerId) {
         Map<String, Object> response = new HashMap<>();
         try {
-            Optional<Customer> customerOpt = customerService.getCustomerById(customerId);
+            Optional<Customer> customerOpt = databaseGuard.call("customer-account", () -> customerService.getCustomerWithAccounts(customerId));
             if (customerOpt.isPresent()) {
                 Customer customer = customerOpt.get();
                 
                 // Create account info object
+                BigDecimal balance = BigDecimal.ZERO;
+                List<Map<String, Object>> accounts = new ArrayList<>();
+                for (Account account : customer.getAccounts()) {
+                    // A missing balance counts as zero, as on the dashboard
+                    BigDecimal accountBalance = account.getBalance() != null ? account.getBalance() : BigDecimal.ZERO;
+                    if (account.isActive()) {
+                        balance = balance.add(accountBalance);
+                    }
+                    // A HashMap, since the account type may be missing too
+                    Map<String, Object> accountEntry = new HashMap<>();
+                    accountEntry.put("accountNumber", account.getAccountNumber());
+                    accountEntry.put("accountType", account.getAccountType());
+                    accountEntry.put("balance", accountBalance);
+                    accountEntry.put("active", account.isActive());
+                    accounts.add(accountEntry);
+                }
                 Map<String, Object> accountInfo = new HashMap<>();
                 accountInfo.put("accountNumber", customer.getAccountNumber());
                 accountInfo.put("accountType", customer.getAccountType());
-                accountInfo.put("balance", 10000.0); // Mock balance for demo
+                // Mock balance for demo until the customer has an account row, as on the dashboard
+                accountInfo.put("balance", accounts.isEmpty() ? DashboardService.DEMO_BALANCE : balance);
+                accountInfo.put("accounts", accounts);
                 accountInfo.put("customerName", customer.getName());
                 accountInfo.put("customerId", customer.getId());
                 
@@ -381,6 +836,80 @@ public class CustomerController {
                 response.put("message", "Customer not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // HIGH-VALUE LOANS ACROSS ALL CUSTOMERS
+    @Operation(summary = "Get high-value loans", description = "Loans of every customer above the threshold, largest first, merged from every shard (operators only)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Loans retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
+        @ApiResponse(responseCode = "403", description = "Not a portfolio operator"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
+    })
+    @GetMapping("/portfolio/high-value-loans")
+    public ResponseEntity<Map<String, Object>> getHighValueLoans(
+            @RequestHeader(value = "Authorization", required = false) String bearerToken,
+            @RequestParam BigDecimal threshold) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ResponseEntity<Map<String, Object>> refused = refuseUnlessOperator(bearerToken, response);
+            if (refused != null) {
+                return refused;
+            }
+            List<LoanSummary> loans = databaseGuard.call("portfolio", () -> portfolioService.highValueLoans(threshold));
+            response.put("success", true);
+            response.put("loans", loans);
+            response.put("totalLoans", loans.size());
+            return ResponseEntity.ok(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // ACCOUNTS BY BALANCE RANGE ACROSS ALL CUSTOMERS
+    @Operation(summary = "Get accounts by balance range", description = "Accounts of every customer with a balance in [minBalance, maxBalance], lowest first, merged from every shard (operators only)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Accounts retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "minBalance is above maxBalance"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid token"),
+        @ApiResponse(responseCode = "403", description = "Not a portfolio operator"),
+        @ApiResponse(responseCode = "503", description = "Database overloaded or unavailable; retry after Retry-After")
+    })
+    @GetMapping("/portfolio/accounts")
+    public ResponseEntity<Map<String, Object>> getAccountsByBalanceRange(
+            @RequestHeader(value = "Authorization", required = false) String bearerToken,
+            @RequestParam BigDecimal minBalance,
+            @RequestParam BigDecimal maxBalance) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ResponseEntity<Map<String, Object>> refused = refuseUnlessOperator(bearerToken, response);
+            if (refused != null) {
+                return refused;
+            }
+            if (minBalance.compareTo(maxBalance) > 0) {
+                response.put("success", false);
+                response.put("message", "minBalance must not be above maxBalance");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+            List<Account> accounts = databaseGuard.call("portfolio",
+                    () -> portfolioService.accountsByBalanceRange(minBalance, maxBalance));
+            response.put("success", true);
+            response.put("accounts", accounts);
+            response.put("totalAccounts", accounts.size());
+            return ResponseEntity.ok(response);
+        } catch (RejectedCallException e) {
+            return unavailable(response, e);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error: " + e.getMessage());
@@ -389,12 +918,70 @@ public class CustomerController {
     }
 
     // UTILITY METHODS
+    // 401 without a valid token, 403 for customers who are not portfolio operators, null to go ahead
+    private ResponseEntity<Map<String, Object>> refuseUnlessOperator(String bearerToken, Map<String, Object> response) {
+        if (!isValidBearerToken(bearerToken)) {
+            response.put("success", false);
+            response.put("message", "Invalid or expired token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        String customerId = extractCustomerIdFromToken(bearerToken);
+        if (!databaseGuard.call("portfolio", () -> portfolioService.isOperator(customerId))) {
+            response.put("success", false);
+            response.put("message", "Portfolio queries are limited to operators");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        return null;
+    }
+
+    // Browsers keep the copy but revalidate it with If-None-Match on every poll
+    private ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, String eTag) {
+        builder.cacheControl(CacheControl.noCache().cachePrivate());
+        return eTag != null ? builder.eTag(eTag) : builder;
+    }
+    
+    private ResponseEntity<Map<String, Object>> notModified(String eTag) {
+        return withETag(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag).build();
+    }
+    
+    // Turned away before reaching the database: tell the client when to come back
+    // A rejection outside an endpoint's own try, such as a session lookup while validating the token
+    @ExceptionHandler(RejectedCallException.class)
+    public ResponseEntity<Map<String, Object>> rejected(RejectedCallException e) {
+        return unavailable(new HashMap<>(), e);
+    }
+    
+    private ResponseEntity<Map<String, Object>> unavailable(Map<String, Object> response, RejectedCallException e) {
+        response.put("success", false);
+        response.put("message", "Service temporarily unavailable: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (e.getRetryAfterMs() + 999) / 1000)))
+                .body(response);
+    }
+    
+    private Map<String, Object> importFrom(HttpServletRequest request, String customerId) {
+        try {
+            return loanImportService.importLoans(request.getInputStream(), customerId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+    
     private boolean isValidBearerToken(String bearerToken) {
         if (bearerToken == null || !bearerToken.startsWith("Bearer ")) {
             return false;
         }
         String token = bearerToken.substring(7);
-        return jwtUtil.validateToken(token);
+        if (!jwtUtil.validateToken(token)) {
+            return false;
+        }
+        // Tokens issued without a session are only bounded by their expiry
+        Long sessionId = jwtUtil.extractSessionId(token);
+        return sessionId == null || sessionRegistry.isActive(sessionId, jwtUtil.extractUsername(token));
+    }
+    
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
     }
     
     private String extractCustomerIdFromToken(String bearerToken) {
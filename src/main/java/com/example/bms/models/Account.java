@@ -1,11 +1,16 @@
 package com.example.bms.models;
 
+import com.example.bms.utils.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+    @Index(name = "idx_accounts_customer_ref", columnList = "customer_ref")
+})
 public class Account {
     
     @Id
@@ -18,8 +23,18 @@ public class Account {
     @Column(name = "balance", precision = 15, scale = 2)
     private BigDecimal balance;
     
+    // Numeric key of the owning customer; see CustomerKeyBackfill for rows written before it existed
+    @Column(name = "customer_ref")
+    private Long customerId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_ref", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_accounts_customer"))
+    private Customer customer;
+    
+    // Legacy text copy of customerId, still written for instances that read it; dropped once the backfill is done
     @Column(name = "customer_id", nullable = false)
-    private String customerId;
+    private String legacyCustomerId;
     
     @Column(name = "account_type")
     @Enumerated(EnumType.STRING)
@@ -49,10 +64,10 @@ public class Account {
         this.updatedAt = LocalDateTime.now();
     }
     
-    public Account(String accountNumber, String customerId, AccountType accountType) {
+    public Account(String accountNumber, Long customerId, AccountType accountType) {
         this();
         this.accountNumber = accountNumber;
-        this.customerId = customerId;
+        setCustomerId(customerId);
         this.accountType = accountType;
     }
 
@@ -82,22 +97,39 @@ public class Account {
         this.updatedAt = LocalDateTime.now();
     }
     
-    // Legacy method for backward compatibility
+    @JsonIgnore
+    public long getBalanceInPaise() {
+        return balance != null ? Money.toPaise(balance) : 0L;
+    }
+    
+    public void setBalanceInPaise(long balanceInPaise) {
+        setBalance(Money.fromPaise(balanceInPaise));
+    }
+    
+    // Legacy method for backward compatibility; prefer getBalanceInPaise()
+    @Deprecated
     public double getBalanceAsDouble() {
         return balance != null ? balance.doubleValue() : 0.0;
     }
     
+    @Deprecated
     public void setBalance(double balance) {
-        this.balance = BigDecimal.valueOf(balance);
-        this.updatedAt = LocalDateTime.now();
+        setBalance(Money.of(BigDecimal.valueOf(balance)).toBigDecimal());
     }
     
-    public String getCustomerId() {
+    public Long getCustomerId() {
         return customerId;
     }
     
-    public void setCustomerId(String customerId) {
+    public void setCustomerId(Long customerId) {
         this.customerId = customerId;
+        this.legacyCustomerId = customerId != null ? customerId.toString() : null;
+    }
+    
+    // Lazy; only loaded within a transaction or through a fetch plan
+    @JsonIgnore
+    public Customer getCustomer() {
+        return customer;
     }
     
     public AccountType getAccountType() {
@@ -135,16 +167,23 @@ public class Account {
     
     // Utility methods
     public void deposit(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) > 0) {
-            this.balance = this.balance.add(amount);
-            this.updatedAt = LocalDateTime.now();
+        deposit(Money.toPaise(amount));
+    }
+    
+    public void deposit(long amountInPaise) {
+        if (amountInPaise > 0) {
+            setBalanceInPaise(Math.addExact(getBalanceInPaise(), amountInPaise));
         }
     }
     
     public boolean withdraw(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) > 0 && this.balance.compareTo(amount) >= 0) {
-            this.balance = this.balance.subtract(amount);
-            this.updatedAt = LocalDateTime.now();
+        return withdraw(Money.toPaise(amount));
+    }
+    
+    public boolean withdraw(long amountInPaise) {
+        long current = getBalanceInPaise();
+        if (amountInPaise > 0 && current >= amountInPaise) {
+            setBalanceInPaise(current - amountInPaise);
             return true;
         }
         return false;
@@ -0,0 +1,30 @@
+package com.example.bms.models;
+
+import java.math.BigDecimal;
+
+// One row of an account list: only the columns list views show, selected straight into this object (never managed)
+public final class AccountSummary {
+
+    private final String accountNumber;
+    private final Account.AccountType accountType;
+    private final BigDecimal balance;
+
+    // Argument order is the select list of the projection queries in AccountRepository
+    public AccountSummary(String accountNumber, Account.AccountType accountType, BigDecimal balance) {
+        this.accountNumber = accountNumber;
+        this.accountType = accountType;
+        this.balance = balance;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public Account.AccountType getAccountType() {
+        return accountType;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
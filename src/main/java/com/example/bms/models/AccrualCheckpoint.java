@@ -0,0 +1,170 @@
+package com.example.bms.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Progress of one id-range partition of a daily interest accrual run
+@Entity
+@Table(name = "accrual_checkpoints", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_accrual_run_partition", columnNames = {"run_date", "partition_no"})
+})
+public class AccrualCheckpoint {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    // Inclusive loan id range
+    @Column(name = "range_start", nullable = false)
+    private Long rangeStart;
+
+    @Column(name = "range_end", nullable = false)
+    private Long rangeEnd;
+
+    @Column(name = "last_processed_id", nullable = false)
+    private Long lastProcessedId;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(name = "loans_processed", nullable = false)
+    private Long loansProcessed;
+
+    @Column(name = "interest_accrued_paise", nullable = false)
+    private Long interestAccruedPaise;
+
+    @Column(name = "elapsed_ms", nullable = false)
+    private Long elapsedMs;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public AccrualCheckpoint() {
+        this.status = Status.PENDING;
+        this.loansProcessed = 0L;
+        this.interestAccruedPaise = 0L;
+        this.elapsedMs = 0L;
+    }
+
+    public AccrualCheckpoint(LocalDate runDate, int partitionNo, long rangeStart, long rangeEnd) {
+        this();
+        this.runDate = runDate;
+        this.partitionNo = partitionNo;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.lastProcessedId = rangeStart - 1;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getRunDate() {
+        return runDate;
+    }
+
+    public void setRunDate(LocalDate runDate) {
+        this.runDate = runDate;
+    }
+
+    public Integer getPartitionNo() {
+        return partitionNo;
+    }
+
+    public void setPartitionNo(Integer partitionNo) {
+        this.partitionNo = partitionNo;
+    }
+
+    public Long getRangeStart() {
+        return rangeStart;
+    }
+
+    public void setRangeStart(Long rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+
+    public Long getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public void setRangeEnd(Long rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+
+    public Long getLastProcessedId() {
+        return lastProcessedId;
+    }
+
+    public void setLastProcessedId(Long lastProcessedId) {
+        this.lastProcessedId = lastProcessedId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getLoansProcessed() {
+        return loansProcessed;
+    }
+
+    public void setLoansProcessed(Long loansProcessed) {
+        this.loansProcessed = loansProcessed;
+    }
+
+    public Long getInterestAccruedPaise() {
+        return interestAccruedPaise;
+    }
+
+    public void setInterestAccruedPaise(Long interestAccruedPaise) {
+        this.interestAccruedPaise = interestAccruedPaise;
+    }
+
+    public Long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(Long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
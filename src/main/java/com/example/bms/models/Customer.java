@@ -1,19 +1,32 @@
 package com.example.bms.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "customers")
+// Fetch plans for the customer-to-loans and customer-to-accounts views: one join instead of a query per row
+@NamedEntityGraph(name = Customer.WITH_LOANS, attributeNodes = @NamedAttributeNode("loans"))
+@NamedEntityGraph(name = Customer.WITH_ACCOUNTS, attributeNodes = @NamedAttributeNode("accounts"))
 public class Customer {
+    public static final String WITH_LOANS = "Customer.withLoans";
+    public static final String WITH_ACCOUNTS = "Customer.withAccounts";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedCustomerId
     private Long id;
 
     @Column(name = "name", nullable = false)
@@ -60,6 +73,27 @@ public class Customer {
     @Column(name = "password", nullable = false)
     private String password;
 
+    // Bumped with plain SQL by LoanVersionTracker; never written back from a loaded entity
+    @Column(name = "loan_version", nullable = false, updatable = false)
+    private long loanVersion;
+
+    // Registration time; customer tenure for loan pricing is measured from here
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // Read-only views of the rows that reference this customer; lazy unless a fetch plan asks for them
+    @OneToMany(mappedBy = "customer")
+    @OrderBy("id")
+    private List<Loan> loans = new ArrayList<>();
+
+    @OneToMany(mappedBy = "customer")
+    @OrderBy("id")
+    private List<Account> accounts = new ArrayList<>();
+
+    public Customer() {
+        this.createdAt = LocalDateTime.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -163,4 +197,18 @@ public class Customer {
     public void setDob(String dob) {
         this.dob = dob;
     }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @JsonIgnore
+    public List<Loan> getLoans() {
+        return loans;
+    }
+
+    @JsonIgnore
+    public List<Account> getAccounts() {
+        return accounts;
+    }
 }
@@ -0,0 +1,35 @@
+package com.example.bms.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Named counters handed out in blocks by LoanIdAllocator
+@Entity
+@Table(name = "id_sequences")
+public class IdSequence {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "next_val", nullable = false)
+    private Long nextVal;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getNextVal() {
+        return nextVal;
+    }
+
+    public void setNextVal(Long nextVal) {
+        this.nextVal = nextVal;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bms.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Outcome of a request sent with an Idempotency-Key; written and read by IdempotencyService
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_expiry", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+
+    public enum Status {
+        PENDING,
+        COMPLETED
+    }
+
+    // Customer ID and client key, so keys never collide across customers
+    @Id
+    @Column(name = "id", length = 255)
+    private String id;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", length = 4000)
+    private String responseBody;
+
+    // Where the created resource can be read; replayed as the Location header
+    @Column(name = "response_location", length = 500)
+    private String responseLocation;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public String getResponseLocation() {
+        return responseLocation;
+    }
+
+    public void setResponseLocation(String responseLocation) {
+        this.responseLocation = responseLocation;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bms.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Which instance runs a scheduled job, until when; kept on the home shard and written by JobLeases
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    @Id
+    @Column(name = "job", length = 100)
+    private String job;
+
+    @Column(name = "owner", nullable = false)
+    private String owner;
+
+    @Column(name = "leased_until", nullable = false)
+    private LocalDateTime leasedUntil;
+
+    public String getJob() {
+        return job;
+    }
+
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getLeasedUntil() {
+        return leasedUntil;
+    }
+
+    public void setLeasedUntil(LocalDateTime leasedUntil) {
+        this.leasedUntil = leasedUntil;
+    }
+}
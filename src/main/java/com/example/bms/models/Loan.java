@@ -1,11 +1,17 @@
 package com.example.bms.models;
 
+import com.example.bms.utils.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+    @Index(name = "idx_loans_customer_ref", columnList = "customer_ref")
+})
 public class Loan {
     
     public enum LoanType {
@@ -51,8 +57,18 @@ public class Loan {
     @Column(name = "offered_interest_rate", precision = 5, scale = 2)
     private BigDecimal offeredInterestRate;
     
+    // Numeric key of the owning customer; see CustomerKeyBackfill for rows written before it existed
+    @Column(name = "customer_ref")
+    private Long customerId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_ref", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_loans_customer"))
+    private Customer customer;
+    
+    // Legacy text copy of customerId, still written for instances that read it; dropped once the backfill is done
     @Column(name = "customer_id", nullable = false)
-    private String customerId;
+    private String legacyCustomerId;
     
     @Column(name = "loan_status")
     @Enumerated(EnumType.STRING)
@@ -82,6 +98,9 @@ public class Loan {
     @Column(name = "outstanding_amount", precision = 15, scale = 2)
     private BigDecimal outstandingAmount;
     
+    @Column(name = "last_accrual_date")
+    private LocalDate lastAccrualDate;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -122,14 +141,24 @@ public class Loan {
         this.updatedAt = LocalDateTime.now();
     }
     
-    // Legacy method for backward compatibility
+    @JsonIgnore
+    public long getAmountInPaise() {
+        return amount != null ? Money.toPaise(amount) : 0L;
+    }
+    
+    public void setAmountInPaise(long amountInPaise) {
+        setAmount(Money.fromPaise(amountInPaise));
+    }
+    
+    // Legacy method for backward compatibility; prefer getAmountInPaise()
+    @Deprecated
     public double getAmountAsDouble() {
         return amount != null ? amount.doubleValue() : 0.0;
     }
     
+    @Deprecated
     public void setAmount(double amount) {
-        this.amount = BigDecimal.valueOf(amount);
-        this.updatedAt = LocalDateTime.now();
+        setAmount(Money.of(BigDecimal.valueOf(amount)).toBigDecimal());
     }
 
     public LoanType getLoanType() {
@@ -150,6 +179,11 @@ public class Loan {
         this.updatedAt = LocalDateTime.now();
     }
     
+    @JsonIgnore
+    public long getOfferedInterestRateInBasisPoints() {
+        return offeredInterestRate != null ? Money.toBasisPoints(offeredInterestRate) : 0L;
+    }
+    
     // Legacy method for backward compatibility
     public double getOfferedInterestRateAsDouble() {
         return offeredInterestRate != null ? offeredInterestRate.doubleValue() : 0.0;
@@ -160,12 +194,19 @@ public class Loan {
         this.updatedAt = LocalDateTime.now();
     }
     
-    public String getCustomerId() {
+    public Long getCustomerId() {
         return customerId;
     }
     
-    public void setCustomerId(String customerId) {
+    public void setCustomerId(Long customerId) {
         this.customerId = customerId;
+        this.legacyCustomerId = customerId != null ? customerId.toString() : null;
+    }
+    
+    // Lazy; only loaded within a transaction or through a fetch plan
+    @JsonIgnore
+    public Customer getCustomer() {
+        return customer;
     }
     
     public LoanStatus getLoanStatus() {
@@ -259,6 +300,14 @@ public class Loan {
         this.updatedAt = LocalDateTime.now();
     }
     
+    public LocalDate getLastAccrualDate() {
+        return lastAccrualDate;
+    }
+    
+    public void setLastAccrualDate(LocalDate lastAccrualDate) {
+        this.lastAccrualDate = lastAccrualDate;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -281,20 +330,14 @@ public class Loan {
     
     // Utility methods
     public BigDecimal calculateEmi() {
+        return Money.fromPaise(calculateEmiInPaise());
+    }
+    
+    public long calculateEmiInPaise() {
         if (amount != null && offeredInterestRate != null && tenureMonths != null && tenureMonths > 0) {
-            double principal = amount.doubleValue();
-            double monthlyRate = offeredInterestRate.doubleValue() / 12 / 100;
-            
-            if (monthlyRate == 0) {
-                return BigDecimal.valueOf(principal / tenureMonths);
-            }
-            
-            double emi = (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths)) / 
-                        (Math.pow(1 + monthlyRate, tenureMonths) - 1);
-            
-            return BigDecimal.valueOf(emi).setScale(2, java.math.RoundingMode.HALF_UP);
+            return Money.emiPaise(getAmountInPaise(), getOfferedInterestRateInBasisPoints(), tenureMonths);
         }
-        return BigDecimal.ZERO;
+        return 0L;
     }
     
     public void updateEmi() {
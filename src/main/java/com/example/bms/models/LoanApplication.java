@@ -0,0 +1,184 @@
+package com.example.bms.models;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// An application queued by /loans/apply, saved before it is acknowledged; written by LoanIntakePipeline
+@Entity
+@Table(name = "loan_applications", indexes = {
+    @Index(name = "idx_loan_application_queued", columnList = "status, updated_at")
+}, uniqueConstraints = {
+    // A retry whose key claim was taken over finds the original here instead of applying twice
+    @UniqueConstraint(name = "uk_loan_application_key", columnNames = {"customer_id", "idempotency_key"})
+})
+public class LoanApplication {
+
+    public enum Status {
+        QUEUED,
+        ACCEPTED,
+        REJECTED,
+        FAILED
+    }
+
+    @Id
+    @Column(name = "application_id", length = 36)
+    private String applicationId;
+
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    @Column(name = "loan_type")
+    @Enumerated(EnumType.STRING)
+    private Loan.LoanType loanType;
+
+    @Column(name = "amount", precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "tenure_months")
+    private Integer tenureMonths;
+
+    // As requested until the application is accepted, then as priced
+    @Column(name = "offered_interest_rate", precision = 5, scale = 2)
+    private BigDecimal offeredInterestRate;
+
+    @Column(name = "purpose")
+    private String purpose;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    // Why it was rejected or failed
+    @Column(name = "message", length = 500)
+    private String message;
+
+    @Column(name = "loan_id")
+    private String loanId;
+
+    // Cleared when the application fails, so the client can retry with the same key
+    @Column(name = "idempotency_key", length = 200)
+    private String idempotencyKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Also when a queued application was last picked up; see LoanIntakePipeline#recoverStalled
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public void setApplicationId(String applicationId) {
+        this.applicationId = applicationId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public Loan.LoanType getLoanType() {
+        return loanType;
+    }
+
+    public void setLoanType(Loan.LoanType loanType) {
+        this.loanType = loanType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Integer getTenureMonths() {
+        return tenureMonths;
+    }
+
+    public void setTenureMonths(Integer tenureMonths) {
+        this.tenureMonths = tenureMonths;
+    }
+
+    public BigDecimal getOfferedInterestRate() {
+        return offeredInterestRate;
+    }
+
+    public void setOfferedInterestRate(BigDecimal offeredInterestRate) {
+        this.offeredInterestRate = offeredInterestRate;
+    }
+
+    public String getPurpose() {
+        return purpose;
+    }
+
+    public void setPurpose(String purpose) {
+        this.purpose = purpose;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getLoanId() {
+        return loanId;
+    }
+
+    public void setLoanId(String loanId) {
+        this.loanId = loanId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // The loan this application asks for, ready to be priced again after a restart
+    public Loan toLoan() {
+        Loan loan = new Loan();
+        loan.setLoanType(loanType);
+        loan.setAmount(amount);
+        loan.setTenureMonths(tenureMonths);
+        loan.setOfferedInterestRate(offeredInterestRate);
+        loan.setPurpose(purpose);
+        return loan;
+    }
+}
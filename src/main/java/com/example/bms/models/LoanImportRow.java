@@ -0,0 +1,62 @@
+package com.example.bms.models;
+
+import java.math.BigDecimal;
+
+// One line of an NDJSON bulk loan import file
+public class LoanImportRow {
+
+    private String customerId;
+    private Loan.LoanType loanType;
+    private BigDecimal amount;
+    private Integer tenureMonths;
+    private BigDecimal offeredInterestRate;
+    private String purpose;
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public Loan.LoanType getLoanType() {
+        return loanType;
+    }
+
+    public void setLoanType(Loan.LoanType loanType) {
+        this.loanType = loanType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Integer getTenureMonths() {
+        return tenureMonths;
+    }
+
+    public void setTenureMonths(Integer tenureMonths) {
+        this.tenureMonths = tenureMonths;
+    }
+
+    public BigDecimal getOfferedInterestRate() {
+        return offeredInterestRate;
+    }
+
+    public void setOfferedInterestRate(BigDecimal offeredInterestRate) {
+        this.offeredInterestRate = offeredInterestRate;
+    }
+
+    public String getPurpose() {
+        return purpose;
+    }
+
+    public void setPurpose(String purpose) {
+        this.purpose = purpose;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.bms.models;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A named what-if for an existing loan: events applied to its repayment schedule.
+ * Event months are instalment numbers; an event at month {@code m} takes effect
+ * after the m-th EMI has been paid.
+ */
+public class LoanScenario {
+
+    public enum EventType {
+        PREPAYMENT,
+        RATE_CHANGE,
+        EMI_CHANGE
+    }
+
+    // What gives way after a prepayment or rate change: the remaining tenure or the EMI
+    public enum Adjust {
+        TENURE,
+        EMI
+    }
+
+    private String name;
+    private List<Event> events = new ArrayList<>();
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<Event> events) {
+        this.events = events;
+    }
+
+    public static class Event {
+
+        private int month;
+        private EventType type;
+        // Prepayment amount or new EMI, in rupees
+        private BigDecimal amount;
+        // New annual interest rate in percent
+        private BigDecimal interestRate;
+        private Adjust adjust = Adjust.TENURE;
+
+        public int getMonth() {
+            return month;
+        }
+
+        public void setMonth(int month) {
+            this.month = month;
+        }
+
+        public EventType getType() {
+            return type;
+        }
+
+        public void setType(EventType type) {
+            this.type = type;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public BigDecimal getInterestRate() {
+            return interestRate;
+        }
+
+        public void setInterestRate(BigDecimal interestRate) {
+            this.interestRate = interestRate;
+        }
+
+        public Adjust getAdjust() {
+            return adjust;
+        }
+
+        public void setAdjust(Adjust adjust) {
+            this.adjust = adjust;
+        }
+    }
+}
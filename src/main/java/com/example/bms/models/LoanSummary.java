@@ -0,0 +1,92 @@
+package com.example.bms.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row of a loan list: only the columns list views show, selected straight into this object (never managed)
+public final class LoanSummary {
+
+    private final Long id;
+    private final String loanId;
+    private final Long customerId;
+    private final Loan.LoanType loanType;
+    private final BigDecimal amount;
+    private final BigDecimal offeredInterestRate;
+    private final Loan.LoanStatus loanStatus;
+    private final Integer tenureMonths;
+    private final BigDecimal monthlyEmi;
+    private final BigDecimal outstandingAmount;
+    private final LocalDateTime applicationDate;
+
+    // Argument order is the select list of the projection queries in LoanRepository
+    public LoanSummary(Long id, String loanId, Long customerId, Loan.LoanType loanType, BigDecimal amount,
+                       BigDecimal offeredInterestRate, Loan.LoanStatus loanStatus, Integer tenureMonths,
+                       BigDecimal monthlyEmi, BigDecimal outstandingAmount, LocalDateTime applicationDate) {
+        this.id = id;
+        this.loanId = loanId;
+        this.customerId = customerId;
+        this.loanType = loanType;
+        this.amount = amount;
+        this.offeredInterestRate = offeredInterestRate;
+        this.loanStatus = loanStatus;
+        this.tenureMonths = tenureMonths;
+        this.monthlyEmi = monthlyEmi;
+        this.outstandingAmount = outstandingAmount;
+        this.applicationDate = applicationDate;
+    }
+
+    // For loans already loaded whole, such as those read back from the archive
+    public static LoanSummary of(Loan loan) {
+        return new LoanSummary(loan.getId(), loan.getLoanId(), loan.getCustomerId(), loan.getLoanType(), loan.getAmount(),
+                loan.getOfferedInterestRate(), loan.getLoanStatus(), loan.getTenureMonths(), loan.getMonthlyEmi(),
+                loan.getOutstandingAmount(), loan.getApplicationDate());
+    }
+
+    // Row id, for ordering only; clients address loans by loanId
+    @JsonIgnore
+    public Long getId() {
+        return id;
+    }
+
+    public String getLoanId() {
+        return loanId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Loan.LoanType getLoanType() {
+        return loanType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getOfferedInterestRate() {
+        return offeredInterestRate;
+    }
+
+    public Loan.LoanStatus getLoanStatus() {
+        return loanStatus;
+    }
+
+    public Integer getTenureMonths() {
+        return tenureMonths;
+    }
+
+    public BigDecimal getMonthlyEmi() {
+        return monthlyEmi;
+    }
+
+    public BigDecimal getOutstandingAmount() {
+        return outstandingAmount;
+    }
+
+    public LocalDateTime getApplicationDate() {
+        return applicationDate;
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.bms.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "login_requests")
+@Table(name = "login_requests", indexes = {
+    @Index(name = "idx_login_requests_session", columnList = "session_id", unique = true),
+    @Index(name = "idx_login_requests_customer_ref", columnList = "customer_ref")
+})
 public class LoginRequest {
 
     @Id
@@ -23,8 +28,18 @@ public class LoginRequest {
     @Column(name = "bearer_token")
     private String bearerToken;
     
+    // Numeric key of the customer; see CustomerKeyBackfill for rows written before it existed
+    @Column(name = "customer_ref")
+    private Long customerId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_ref", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_login_requests_customer"))
+    private Customer customer;
+    
+    // Legacy text copy of customerId, still written for instances that read it; dropped once the backfill is done
     @Column(name = "customer_id")
-    private String customerId;
+    private String legacyCustomerId;
     
     @Column(name = "customer_name")
     private String customerName;
@@ -49,6 +64,9 @@ public class LoginRequest {
     
     @Column(name = "last_activity")
     private LocalDateTime lastActivity;
+    
+    @Column(name = "session_id")
+    private Long sessionId;
 
     // Getters and setters
     public Long getId() {
@@ -91,12 +109,19 @@ public class LoginRequest {
         this.bearerToken = bearerToken;
     }
     
-    public String getCustomerId() {
+    public Long getCustomerId() {
         return customerId;
     }
     
-    public void setCustomerId(String customerId) {
+    public void setCustomerId(Long customerId) {
         this.customerId = customerId;
+        this.legacyCustomerId = customerId != null ? customerId.toString() : null;
+    }
+    
+    // Lazy; only loaded within a transaction or through a fetch plan
+    @JsonIgnore
+    public Customer getCustomer() {
+        return customer;
     }
     
     public String getCustomerName() {
@@ -163,6 +188,14 @@ public class LoginRequest {
         this.lastActivity = lastActivity;
     }
     
+    public Long getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+    
     // Utility methods for JWT token management
     public boolean isTokenExpired() {
         return tokenExpiresAt != null && LocalDateTime.now().isAfter(tokenExpiresAt);
@@ -191,8 +224,8 @@ public class LoginRequest {
     }
     
     // Method to set customer details for the session
-    public void setCustomerDetails(String customerId, String customerName, String customerEmail, String customerRole) {
-        this.customerId = customerId;
+    public void setCustomerDetails(Long customerId, String customerName, String customerEmail, String customerRole) {
+        setCustomerId(customerId);
         this.customerName = customerName;
         this.customerEmail = customerEmail;
         this.customerRole = customerRole;
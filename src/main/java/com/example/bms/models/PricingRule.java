@@ -0,0 +1,137 @@
+package com.example.bms.models;
+
+import com.example.bms.utils.Money;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One pricing rule: when every condition that is set holds, {@code adjustmentBps} is
+ * added to the loan type's base rate. Lower bounds are inclusive, upper bounds are
+ * exclusive, and an unset bound is open. Customer tenure is -1 when unknown, so only
+ * rules without a customer-tenure condition apply to such customers.
+ */
+public class PricingRule {
+
+    private String name;
+    private List<Loan.LoanType> loanTypes;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private Integer minTenureMonths;
+    private Integer maxTenureMonths;
+    private Integer minCustomerTenureMonths;
+    private Integer maxCustomerTenureMonths;
+    private BigDecimal minExposure;
+    private BigDecimal maxExposure;
+    private int adjustmentBps;
+
+    // Straightforward per-request check; the engine compiles rules instead and uses this as a reference
+    public boolean matches(Loan.LoanType loanType, long amountPaise, int tenureMonths,
+                           int customerTenureMonths, long exposurePaise) {
+        return (loanTypes == null || loanTypes.isEmpty() || loanTypes.contains(loanType))
+                && within(amountPaise, paise(minAmount), paise(maxAmount))
+                && within(tenureMonths, asLong(minTenureMonths), asLong(maxTenureMonths))
+                && within(customerTenureMonths, asLong(minCustomerTenureMonths), asLong(maxCustomerTenureMonths))
+                && within(exposurePaise, paise(minExposure), paise(maxExposure));
+    }
+
+    private static boolean within(long value, Long min, Long max) {
+        return (min == null || value >= min) && (max == null || value < max);
+    }
+
+    private static Long paise(BigDecimal rupees) {
+        return rupees == null ? null : Money.toPaise(rupees);
+    }
+
+    private static Long asLong(Integer value) {
+        return value == null ? null : value.longValue();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<Loan.LoanType> getLoanTypes() {
+        return loanTypes;
+    }
+
+    public void setLoanTypes(List<Loan.LoanType> loanTypes) {
+        this.loanTypes = loanTypes;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Integer getMinTenureMonths() {
+        return minTenureMonths;
+    }
+
+    public void setMinTenureMonths(Integer minTenureMonths) {
+        this.minTenureMonths = minTenureMonths;
+    }
+
+    public Integer getMaxTenureMonths() {
+        return maxTenureMonths;
+    }
+
+    public void setMaxTenureMonths(Integer maxTenureMonths) {
+        this.maxTenureMonths = maxTenureMonths;
+    }
+
+    public Integer getMinCustomerTenureMonths() {
+        return minCustomerTenureMonths;
+    }
+
+    public void setMinCustomerTenureMonths(Integer minCustomerTenureMonths) {
+        this.minCustomerTenureMonths = minCustomerTenureMonths;
+    }
+
+    public Integer getMaxCustomerTenureMonths() {
+        return maxCustomerTenureMonths;
+    }
+
+    public void setMaxCustomerTenureMonths(Integer maxCustomerTenureMonths) {
+        this.maxCustomerTenureMonths = maxCustomerTenureMonths;
+    }
+
+    public BigDecimal getMinExposure() {
+        return minExposure;
+    }
+
+    public void setMinExposure(BigDecimal minExposure) {
+        this.minExposure = minExposure;
+    }
+
+    public BigDecimal getMaxExposure() {
+        return maxExposure;
+    }
+
+    public void setMaxExposure(BigDecimal maxExposure) {
+        this.maxExposure = maxExposure;
+    }
+
+    public int getAdjustmentBps() {
+        return adjustmentBps;
+    }
+
+    public void setAdjustmentBps(int adjustmentBps) {
+        this.adjustmentBps = adjustmentBps;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.bms.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A versioned set of pricing rules as loaded from JSON; compiled by PricingEngine
+public class PricingRuleSet {
+
+    private String version;
+    private long minRateBps = 0;
+    private long maxRateBps = 10_000;
+    private List<PricingRule> rules = new ArrayList<>();
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public long getMinRateBps() {
+        return minRateBps;
+    }
+
+    public void setMinRateBps(long minRateBps) {
+        this.minRateBps = minRateBps;
+    }
+
+    public long getMaxRateBps() {
+        return maxRateBps;
+    }
+
+    public void setMaxRateBps(long maxRateBps) {
+        this.maxRateBps = maxRateBps;
+    }
+
+    public List<PricingRule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<PricingRule> rules) {
+        this.rules = rules;
+    }
+}
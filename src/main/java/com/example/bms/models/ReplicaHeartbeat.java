@@ -0,0 +1,36 @@
+package com.example.bms.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Single row stamped on the primary by ReplicaLagMonitor; its age on a replica is that replica's lag
+@Entity
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    // Epoch milliseconds of the last stamp
+    @Column(name = "beat_at_ms", nullable = false)
+    private Long beatAtMs;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getBeatAtMs() {
+        return beatAtMs;
+    }
+
+    public void setBeatAtMs(Long beatAtMs) {
+        this.beatAtMs = beatAtMs;
+    }
+}
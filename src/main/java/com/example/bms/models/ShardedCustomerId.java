@@ -0,0 +1,17 @@
+package com.example.bms.models;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import com.example.bms.services.CustomerIdGenerator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Customer IDs are chosen by the application so that each one names the shard its customer lives on
+@IdGeneratorType(CustomerIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ShardedCustomerId {
+}
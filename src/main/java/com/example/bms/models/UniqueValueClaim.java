@@ -0,0 +1,46 @@
+package com.example.bms.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A customer's account number, email or PAN, claimed on the home shard; written by UniqueValueClaims
+@Entity
+@Table(name = "unique_value_claims")
+public class UniqueValueClaim {
+
+    // Kind and value, e.g. "email:someone@example.com"
+    @Id
+    @Column(name = "claim", length = 300)
+    private String claim;
+
+    // The customer it was claimed for; their shard follows from it
+    @Column(name = "login_id", nullable = false)
+    private String loginId;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+
+    public String getClaim() {
+        return claim;
+    }
+
+    public void setClaim(String claim) {
+        this.claim = claim;
+    }
+
+    public String getLoginId() {
+        return loginId;
+    }
+
+    public void setLoginId(String loginId) {
+        this.loginId = loginId;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(LocalDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+}
@@ -1,32 +1,41 @@
 package com.example.bms.repositories;
 
 import com.example.bms.models.Account;
+import com.example.bms.models.AccountSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
+// Declared queries run read-only (and so may go to a replica); inherited save/delete stay read-write
 @Repository
+@Transactional(readOnly = true)
 public interface AccountRepository extends JpaRepository<Account, Long> {
     
     // Find by account number
     Optional<Account> findByAccountNumber(String accountNumber);
     
     // Find accounts by customer ID
-    List<Account> findByCustomerId(String customerId);
+    List<Account> findByCustomerId(Long customerId);
     
     // Find active accounts by customer ID
-    List<Account> findByCustomerIdAndIsActive(String customerId, boolean isActive);
+    List<Account> findByCustomerIdAndIsActive(Long customerId, boolean isActive);
+    
+    // List view of a customer's active accounts, in id order
+    @Query("SELECT new com.example.bms.models.AccountSummary(a.accountNumber, a.accountType, a.balance) "
+            + "FROM Account a WHERE a.customerId = :customerId AND a.isActive = true ORDER BY a.id")
+    List<AccountSummary> findActiveSummariesByCustomerId(@Param("customerId") Long customerId);
     
     // Find by account type
     List<Account> findByAccountType(Account.AccountType accountType);
     
     // Find accounts by customer and account type
-    List<Account> findByCustomerIdAndAccountType(String customerId, Account.AccountType accountType);
+    List<Account> findByCustomerIdAndAccountType(Long customerId, Account.AccountType accountType);
     
     // Find accounts with balance greater than specified amount
     List<Account> findByBalanceGreaterThan(BigDecimal amount);
@@ -37,11 +46,11 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     
     // Get total balance for a customer
     @Query("SELECT SUM(a.balance) FROM Account a WHERE a.customerId = :customerId AND a.isActive = true")
-    BigDecimal getTotalBalanceByCustomerId(@Param("customerId") String customerId);
+    BigDecimal getTotalBalanceByCustomerId(@Param("customerId") Long customerId);
     
     // Count active accounts by customer
     @Query("SELECT COUNT(a) FROM Account a WHERE a.customerId = :customerId AND a.isActive = true")
-    long countActiveAccountsByCustomerId(@Param("customerId") String customerId);
+    long countActiveAccountsByCustomerId(@Param("customerId") Long customerId);
     
     // Find high balance accounts
     @Query("SELECT a FROM Account a WHERE a.balance > :threshold ORDER BY a.balance DESC")
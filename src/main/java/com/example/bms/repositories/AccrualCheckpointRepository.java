@@ -0,0 +1,20 @@
+package com.example.bms.repositories;
+
+import com.example.bms.models.AccrualCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AccrualCheckpointRepository extends JpaRepository<AccrualCheckpoint, Long> {
+
+    // Partitions of one run, in order
+    List<AccrualCheckpoint> findByRunDateOrderByPartitionNoAsc(LocalDate runDate);
+
+    // Run dates that still have unfinished partitions
+    @Query("SELECT DISTINCT c.runDate FROM AccrualCheckpoint c WHERE c.status <> com.example.bms.models.AccrualCheckpoint.Status.COMPLETED ORDER BY c.runDate")
+    List<LocalDate> findIncompleteRunDates();
+}
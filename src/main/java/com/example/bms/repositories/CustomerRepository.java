@@ -2,15 +2,20 @@
 package com.example.bms.repositories;
 
 import com.example.bms.models.Customer;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// Declared queries run read-only (and so may go to a replica); inherited save/delete stay read-write
 @Repository
+@Transactional(readOnly = true)
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     
     // Find by login ID
@@ -48,6 +53,20 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     @Query("SELECT c FROM Customer c WHERE c.email LIKE %:domain%")
     List<Customer> findByEmailDomain(@Param("domain") String domain);
     
+    // Customer with their loans, in one query
+    @EntityGraph(Customer.WITH_LOANS)
+    @Query("SELECT c FROM Customer c WHERE c.id = :customerId")
+    Optional<Customer> findWithLoansById(@Param("customerId") Long customerId);
+    
+    // Customer with their accounts, in one query
+    @EntityGraph(Customer.WITH_ACCOUNTS)
+    @Query("SELECT c FROM Customer c WHERE c.id = :customerId")
+    Optional<Customer> findWithAccountsById(@Param("customerId") Long customerId);
+    
+    // Registration times of several customers, as [id, createdAt] rows
+    @Query("SELECT c.id, c.createdAt FROM Customer c WHERE c.id IN :customerIds")
+    List<Object[]> findCreatedAtByIds(@Param("customerIds") Collection<Long> customerIds);
+    
     // Find customers registered after a certain date
     @Query("SELECT c FROM Customer c WHERE c.id > :customerId")
     List<Customer> findCustomersRegisteredAfter(@Param("customerId") Long customerId);
@@ -0,0 +1,27 @@
+package com.example.bms.repositories;
+
+import com.example.bms.models.LoanApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Reads only; LoanIntakePipeline writes the rows with batched JDBC statements
+@Repository
+@Transactional(readOnly = true)
+public interface LoanApplicationRepository extends JpaRepository<LoanApplication, String> {
+
+    // An application, only if it belongs to the customer
+    Optional<LoanApplication> findByApplicationIdAndCustomerId(String applicationId, String customerId);
+
+    // The application a customer sent with an Idempotency-Key
+    Optional<LoanApplication> findByCustomerIdAndIdempotencyKey(String customerId, String idempotencyKey);
+
+    // Applications in a status untouched since before the cutoff, oldest first
+    List<LoanApplication> findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(LoanApplication.Status status,
+                                                                            LocalDateTime cutoff, Pageable pageable);
+}
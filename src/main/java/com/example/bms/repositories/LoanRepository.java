@@ -1,49 +1,86 @@
 package com.example.bms.repositories;
 
 import com.example.bms.models.Loan;
+import com.example.bms.models.LoanSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// Declared queries run read-only (and so may go to a replica); inherited save/delete stay read-write
 @Repository
+@Transactional(readOnly = true)
 public interface LoanRepository extends JpaRepository<Loan, Long> {
     
+    // Select list of the LoanSummary projections, in constructor order
+    String SUMMARY = "SELECT new com.example.bms.models.LoanSummary(l.id, l.loanId, l.customerId, l.loanType, l.amount, "
+            + "l.offeredInterestRate, l.loanStatus, l.tenureMonths, l.monthlyEmi, l.outstandingAmount, l.applicationDate) "
+            + "FROM Loan l ";
+    
     // Find by loan ID (string)
     Optional<Loan> findByLoanId(String loanId);
     
     // Find loans by customer ID
-    List<Loan> findByCustomerId(String customerId);
+    List<Loan> findByCustomerId(Long customerId);
     
     // Find loans by loan type
     List<Loan> findByLoanType(Loan.LoanType loanType);
     
     // Find loans by amount range
     @Query("SELECT l FROM Loan l WHERE l.amount BETWEEN :minAmount AND :maxAmount")
-    List<Loan> findByAmountRange(@Param("minAmount") double minAmount, @Param("maxAmount") double maxAmount);
+    List<Loan> findByAmountRange(@Param("minAmount") BigDecimal minAmount, @Param("maxAmount") BigDecimal maxAmount);
     
     // Find loans by interest rate range
     @Query("SELECT l FROM Loan l WHERE l.offeredInterestRate BETWEEN :minRate AND :maxRate")
     List<Loan> findByInterestRateRange(@Param("minRate") double minRate, @Param("maxRate") double maxRate);
     
     // Find loans above certain amount
-    List<Loan> findByAmountGreaterThan(double amount);
+    List<Loan> findByAmountGreaterThan(BigDecimal amount);
     
     // Find loans by customer and loan type
-    List<Loan> findByCustomerIdAndLoanType(String customerId, Loan.LoanType loanType);
+    List<Loan> findByCustomerIdAndLoanType(Long customerId, Loan.LoanType loanType);
     
     // Count loans by customer
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.customerId = :customerId")
-    long countLoansByCustomerId(@Param("customerId") String customerId);
+    long countLoansByCustomerId(@Param("customerId") Long customerId);
     
     // Get total loan amount by customer
     @Query("SELECT SUM(l.amount) FROM Loan l WHERE l.customerId = :customerId")
-    Double getTotalLoanAmountByCustomerId(@Param("customerId") String customerId);
+    BigDecimal getTotalLoanAmountByCustomerId(@Param("customerId") Long customerId);
+
+    // Get total amount of a customer's loans in the given statuses (existing exposure for pricing)
+    @Query("SELECT COALESCE(SUM(l.amount), 0) FROM Loan l WHERE l.customerId = :customerId AND l.loanStatus IN :statuses")
+    BigDecimal getExposureByCustomerId(@Param("customerId") Long customerId,
+                                       @Param("statuses") Collection<Loan.LoanStatus> statuses);
+    
+    // Exposure of several customers in one query, as [customerId, total] rows; none for a customer without any
+    @Query("SELECT l.customerId, SUM(l.amount) FROM Loan l WHERE l.customerId IN :customerIds AND l.loanStatus IN :statuses "
+            + "GROUP BY l.customerId")
+    List<Object[]> getExposuresByCustomerIds(@Param("customerIds") Collection<Long> customerIds,
+                                             @Param("statuses") Collection<Loan.LoanStatus> statuses);
+    
+    // List view of a customer's loans, in id order
+    @Query(SUMMARY + "WHERE l.customerId = :customerId ORDER BY l.id")
+    List<LoanSummary> findSummariesByCustomerId(@Param("customerId") Long customerId);
+    
+    // List view of high-value loans, largest first
+    @Query(SUMMARY + "WHERE l.amount > :threshold ORDER BY l.amount DESC")
+    List<LoanSummary> findHighValueLoanSummaries(@Param("threshold") BigDecimal threshold);
     
     // Find high-value loans (above specified amount)
     @Query("SELECT l FROM Loan l WHERE l.amount > :threshold ORDER BY l.amount DESC")
-    List<Loan> findHighValueLoans(@Param("threshold") double threshold);
+    List<Loan> findHighValueLoans(@Param("threshold") BigDecimal threshold);
+    
+    // Next page, in id order, of loans in status and last changed before the cutoff (archive candidates)
+    @Query("SELECT l FROM Loan l WHERE l.loanStatus = :status AND l.updatedAt < :before AND l.id > :afterId ORDER BY l.id")
+    List<Loan> findArchiveCandidates(@Param("status") Loan.LoanStatus status, @Param("before") LocalDateTime before,
+                                     @Param("afterId") long afterId, Pageable page);
 }
@@ -35,7 +35,7 @@ public interface LoginRequestRepository extends JpaRepository<LoginRequest, Long
     List<LoginRequest> findExpiredTokens(@Param("currentTime") LocalDateTime currentTime);
     
     // Find by customer ID
-    List<LoginRequest> findByCustomerId(String customerId);
+    List<LoginRequest> findByCustomerId(Long customerId);
     
     // Clean up expired tokens
     @Query("UPDATE LoginRequest lr SET lr.isTokenActive = false WHERE lr.tokenExpiresAt <= :currentTime")
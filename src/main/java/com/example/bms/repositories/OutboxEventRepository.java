@@ -0,0 +1,34 @@
+package com.example.bms.repositories;
+
+import com.example.bms.models.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Oldest undispatched events first
+    List<OutboxEvent> findByDispatchedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    // Oldest undispatched event, used for the backlog age gauge
+    Optional<OutboxEvent> findFirstByDispatchedAtIsNullOrderByIdAsc();
+
+    // Count undispatched events
+    long countByDispatchedAtIsNull();
+
+    // Mark a drained batch as dispatched
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.dispatchedAt = :dispatchedAt WHERE e.id IN :ids")
+    int markDispatched(@Param("ids") Collection<Long> ids, @Param("dispatchedAt") LocalDateTime dispatchedAt);
+}
@@ -0,0 +1,120 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.utils.AuditLog;
+import com.example.bms.utils.AuditLogReader;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Compliance record of every authenticated action, kept in an {@link AuditLog} rather
+ * than the database so it adds no write load there. Recording only queues the entry;
+ * it reaches disk with the next group sync, within {@code bms.audit.sync-interval-ms}.
+ * Search the directory with {@link AuditLogReader}.
+ */
+@Service
+public class AuditTrail {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bms.audit.directory:audit}")
+    private String directory;
+
+    @Value("${bms.audit.ring-capacity:65536}")
+    private int ringCapacity;
+
+    @Value("${bms.audit.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Value("${bms.audit.sync-interval-ms:20}")
+    private long syncIntervalMs;
+
+    @Value("${bms.audit.sync-bytes:262144}")
+    private int syncBytes;
+
+    @Value("${bms.audit.max-stall-ms:50}")
+    private long maxStallMs;
+
+    private AuditLog auditLog;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        auditLog = new AuditLog(Paths.get(directory), ringCapacity, segmentBytes, syncIntervalMs, syncBytes, maxStallMs);
+        Gauge.builder("bms.audit.backlog", auditLog, AuditLog::backlog)
+                .description("Audit entries queued but not yet written")
+                .register(meterRegistry);
+        FunctionCounter.builder("bms.audit.dropped", auditLog, AuditLog::dropped)
+                .description("Audit entries given up on because the log could not keep up")
+                .register(meterRegistry);
+        FunctionCounter.builder("bms.audit.failed", auditLog, AuditLog::failed)
+                .description("Audit entries skipped after repeated write failures")
+                .register(meterRegistry);
+        FunctionCounter.builder("bms.audit.syncs", auditLog, AuditLog::syncs)
+                .description("Group syncs of the audit log to disk")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        if (auditLog != null) {
+            auditLog.close();
+        }
+    }
+
+    // customerId is the token subject; anything unparseable is recorded as customer 0
+    public void record(String customerId, AuditLog.Action action, String detail) {
+        if (auditLog == null) {
+            return;
+        }
+        long customerKey;
+        try {
+            customerKey = Long.parseLong(customerId);
+        } catch (NumberFormatException e) {
+            customerKey = 0;
+        }
+        auditLog.append(customerKey, action, detail);
+    }
+
+    // Entries of one customer in [fromMs, toMs), in time order; only what has been written so far.
+    // A customerId that is not a number is the caller's mistake: IllegalArgumentException, a 400
+    public List<AuditLog.Entry> search(String customerId, long fromMs, long toMs) throws IOException {
+        long customerKey;
+        try {
+            customerKey = Long.parseLong(customerId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("customerId must be a number: " + customerId);
+        }
+        if (fromMs > toMs) {
+            throw new IllegalArgumentException("fromMs must not be after toMs");
+        }
+        if (auditLog == null) {
+            return List.of();
+        }
+        return AuditLogReader.search(auditLog.directory(), customerKey, fromMs, toMs);
+    }
+
+    /** Waits until everything recorded so far is on disk. */
+    public void flush() throws InterruptedException {
+        if (auditLog != null) {
+            auditLog.flush();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.bms.services;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.PricingRule;
+import com.example.bms.models.PricingRuleSet;
+import com.example.bms.utils.Money;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * A {@link PricingRuleSet} compiled into a bitmap decision table. Each input dimension
+ * is cut into intervals at every rule bound, and each interval stores a bit mask of the
+ * rules it satisfies. Pricing a loan is one binary search per dimension, an AND of five
+ * masks and a sum over the surviving rules: no allocation, no per-rule branching.
+ * Instances are immutable, so PricingEngine can swap them atomically.
+ */
+public final class CompiledPricingRules {
+
+    private final String version;
+    private final long minRateBps;
+    private final long maxRateBps;
+    private final int[] adjustments;
+    private final long[] baseRateBps;
+    private final long[][] loanTypeMasks;
+    private final Dimension amount;
+    private final Dimension tenure;
+    private final Dimension customerTenure;
+    private final Dimension exposure;
+
+    private CompiledPricingRules(PricingRuleSet ruleSet) {
+        List<PricingRule> rules = ruleSet.getRules();
+        int words = Math.max(1, (rules.size() + 63) / 64);
+        this.version = ruleSet.getVersion();
+        this.minRateBps = ruleSet.getMinRateBps();
+        this.maxRateBps = ruleSet.getMaxRateBps();
+        this.adjustments = rules.stream().mapToInt(PricingRule::getAdjustmentBps).toArray();
+
+        Loan.LoanType[] types = Loan.LoanType.values();
+        this.baseRateBps = new long[types.length];
+        this.loanTypeMasks = new long[types.length][words];
+        for (Loan.LoanType type : types) {
+            baseRateBps[type.ordinal()] = Money.toBasisPoints(type.getBaseInterestRate());
+            for (int r = 0; r < rules.size(); r++) {
+                List<Loan.LoanType> allowed = rules.get(r).getLoanTypes();
+                if (allowed == null || allowed.isEmpty() || allowed.contains(type)) {
+                    loanTypeMasks[type.ordinal()][r >>> 6] |= 1L << r;
+                }
+            }
+        }
+        this.amount = new Dimension(rules, words, r -> paise(r.getMinAmount()), r -> paise(r.getMaxAmount()));
+        this.tenure = new Dimension(rules, words, r -> asLong(r.getMinTenureMonths()), r -> asLong(r.getMaxTenureMonths()));
+        this.customerTenure = new Dimension(rules, words,
+                r -> asLong(r.getMinCustomerTenureMonths()), r -> asLong(r.getMaxCustomerTenureMonths()));
+        this.exposure = new Dimension(rules, words, r -> paise(r.getMinExposure()), r -> paise(r.getMaxExposure()));
+    }
+
+    public static CompiledPricingRules compile(PricingRuleSet ruleSet) {
+        if (ruleSet.getMinRateBps() > ruleSet.getMaxRateBps()) {
+            throw new IllegalArgumentException("minRateBps must not exceed maxRateBps");
+        }
+        for (PricingRule rule : ruleSet.getRules()) {
+            if (rule.getName() == null || rule.getName().isBlank()) {
+                throw new IllegalArgumentException("Every pricing rule needs a name");
+            }
+        }
+        return new CompiledPricingRules(ruleSet);
+    }
+
+    public long offeredRateBps(Loan.LoanType loanType, long amountPaise, int tenureMonths,
+                               int customerTenureMonths, long exposurePaise) {
+        long[] typeMask = loanTypeMasks[loanType.ordinal()];
+        long[] amountMask = amount.masks[amount.interval(amountPaise)];
+        long[] tenureMask = tenure.masks[tenure.interval(tenureMonths)];
+        long[] customerMask = customerTenure.masks[customerTenure.interval(customerTenureMonths)];
+        long[] exposureMask = exposure.masks[exposure.interval(exposurePaise)];
+        long rate = baseRateBps[loanType.ordinal()];
+        for (int w = 0; w < typeMask.length; w++) {
+            long matched = typeMask[w] & amountMask[w] & tenureMask[w] & customerMask[w] & exposureMask[w];
+            while (matched != 0) {
+                rate += adjustments[(w << 6) + Long.numberOfTrailingZeros(matched)];
+                matched &= matched - 1;
+            }
+        }
+        return Math.max(minRateBps, Math.min(maxRateBps, rate));
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int getRuleCount() {
+        return adjustments.length;
+    }
+
+    // One input dimension: sorted cut points and, per interval, the rules that interval satisfies
+    private static final class Dimension {
+        final long[] cuts;
+        final long[][] masks;
+
+        Dimension(List<PricingRule> rules, int words, Function<PricingRule, Long> min, Function<PricingRule, Long> max) {
+            TreeSet<Long> points = new TreeSet<>();
+            for (PricingRule rule : rules) {
+                if (min.apply(rule) != null) {
+                    points.add(min.apply(rule));
+                }
+                if (max.apply(rule) != null) {
+                    points.add(max.apply(rule));
+                }
+            }
+            this.cuts = points.stream().mapToLong(Long::longValue).toArray();
+            // Interval i covers [cuts[i - 1], cuts[i]); interval 0 and the last one are open-ended
+            this.masks = new long[cuts.length + 1][words];
+            for (int i = 0; i <= cuts.length; i++) {
+                Long lower = i == 0 ? null : cuts[i - 1];
+                Long upper = i == cuts.length ? null : cuts[i];
+                for (int r = 0; r < rules.size(); r++) {
+                    Long ruleMin = min.apply(rules.get(r));
+                    Long ruleMax = max.apply(rules.get(r));
+                    boolean aboveMin = ruleMin == null || (lower != null && lower >= ruleMin);
+                    boolean belowMax = ruleMax == null || (upper != null && upper <= ruleMax);
+                    if (aboveMin && belowMax) {
+                        masks[i][r >>> 6] |= 1L << r;
+                    }
+                }
+            }
+        }
+
+        int interval(long value) {
+            int found = Arrays.binarySearch(cuts, value);
+            return found >= 0 ? found + 1 : -found - 1;
+        }
+    }
+
+    private static Long paise(BigDecimal rupees) {
+        return rupees == null ? null : Money.toPaise(rupees);
+    }
+
+    private static Long asLong(Integer value) {
+        return value == null ? null : value.longValue();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.bms.utils.ShardRouter;
+
+/**
+ * Chooses IDs for new customers. A number {@code n} from the {@code customer_id}
+ * sequence becomes {@code n * shards + shard}, where shard is the one the customer's
+ * loginId hashes to, so the ID alone says where the customer lives.
+ *
+ * Registrations are rare next to loan traffic, so blocks are small and the gaps left
+ * by restarts stay small too.
+ */
+@Component
+public class CustomerIdAllocator {
+
+    static final String SEQUENCE_NAME = "customer_id";
+
+    @Autowired
+    private IdSequences idSequences;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${bms.customer-id.block-size:20}")
+    private int blockSize;
+
+    private long next;
+    private long limit;
+
+    public long nextCustomerId(String loginId) {
+        return nextSequence() * shardRouter.shardCount() + shardRouter.shardOfLoginId(loginId);
+    }
+
+    private synchronized long nextSequence() {
+        if (next >= limit) {
+            next = idSequences.reserveBlock(SEQUENCE_NAME, blockSize, this::firstUnused);
+            limit = next + blockSize;
+        }
+        return next++;
+    }
+
+    // Starts above every existing customer ID, including those handed out by the old identity column
+    private long firstUnused() {
+        long highest = shardRouter.onEveryShard(
+                        () -> jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM customers", Long.class))
+                .stream().mapToLong(Long::longValue).max().orElse(0L);
+        return highest / shardRouter.shardCount() + 1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bms.services;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.example.bms.models.Customer;
+
+import java.util.EnumSet;
+
+/**
+ * ID generator behind {@link com.example.bms.models.ShardedCustomerId}. Hibernate creates
+ * it through Spring ({@code hibernate.cdi.extensions}), so the allocator is this
+ * context's own.
+ */
+public class CustomerIdGenerator implements BeforeExecutionGenerator {
+
+    // Resolved on first insert: the allocator's transaction manager needs the EntityManagerFactory being built
+    @Autowired
+    private ObjectProvider<CustomerIdAllocator> customerIdAllocator;
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return customerIdAllocator.getObject().nextCustomerId(((Customer) owner).getLoginId());
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
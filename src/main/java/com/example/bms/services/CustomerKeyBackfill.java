@@ -0,0 +1,236 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the numeric {@code customer_ref} column of loans, accounts and login_requests
+ * from the text {@code customer_id} they were keyed by before, for rows written before
+ * {@code customer_ref} existed or by instances that do not know it yet.
+ *
+ * The backfill is online: it walks rows still missing the key in id order, a chunk per
+ * short transaction with a pause in between, so the tables stay writable and replicas
+ * keep up. It runs once at startup, ahead of the listeners that read customer_ref, and
+ * then every {@code bms.customer-key.backfill-interval-ms} for rows old instances write
+ * during a rolling deploy. Rows naming a customer that does not exist are left without a
+ * key (the foreign key would reject them) and counted as orphaned.
+ *
+ * Each table on each shard keeps the highest id a sweep has read, and the next sweep
+ * starts above it, so orphans are not read (or counted) again every interval. A row
+ * whose transaction commits after a sweep has passed its id would be skipped that way,
+ * so every {@code bms.customer-key.full-sweep-interval-ms} a sweep starts from the
+ * beginning again; it counts only the orphans above the old mark.
+ *
+ * Once a run reports nothing left to fill and no older instance is running, finish the
+ * migration per table (shard): {@code ALTER TABLE loans MODIFY customer_ref BIGINT NOT
+ * NULL, DROP COLUMN customer_id, ALGORITHM=INPLACE, LOCK=NONE}, and then remove the
+ * legacy field from the entity.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Service
+public class CustomerKeyBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerKeyBackfill.class);
+
+    private static final List<String> TABLES = List.of("loans", "accounts", "login_requests");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.customer-key.backfill-chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${bms.customer-key.backfill-pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${bms.customer-key.full-sweep-interval-ms:3600000}")
+    private long fullSweepIntervalMs;
+
+    // Highest id read so far, by shard and table
+    private final Map<String, Long> scannedUpTo = new HashMap<>();
+    private long lastFullSweepNanos;
+
+    // Before the session registry and the accrual resume read customer_ref
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfill();
+    }
+
+    @Scheduled(initialDelayString = "${bms.customer-key.backfill-interval-ms:60000}",
+            fixedDelayString = "${bms.customer-key.backfill-interval-ms:60000}")
+    public void sweep() {
+        backfill();
+    }
+
+    // Returns how many rows got their key
+    public synchronized long backfill() {
+        long started = System.nanoTime();
+        long filled = 0;
+        long orphaned = 0;
+        boolean full = scannedUpTo.isEmpty()
+                || TimeUnit.NANOSECONDS.toMillis(started - lastFullSweepNanos) >= fullSweepIntervalMs;
+        if (full) {
+            lastFullSweepNanos = started;
+        }
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            for (String table : TABLES) {
+                String key = shard + "/" + table;
+                long mark = scannedUpTo.getOrDefault(key, 0L);
+                long[] counts = shardRouter.onShard(shard, () -> backfillTable(table, full ? 0 : mark, mark));
+                filled += counts[0];
+                orphaned += counts[1];
+                scannedUpTo.put(key, Math.max(mark, counts[2]));
+            }
+        }
+        if (filled > 0 || orphaned > 0) {
+            log.info("Customer key backfill filled {} rows in {} ms; {} new rows name no existing customer",
+                    filled, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), orphaned);
+        }
+        return filled;
+    }
+
+    // Filled and orphaned row counts for one table on the currently bound shard, reading rows above
+    // afterId, and the last id read. Orphans up to countedUpTo were counted by an earlier sweep
+    private long[] backfillTable(String table, long afterId, long countedUpTo) {
+        String selectChunk = "SELECT id, customer_id FROM " + table
+                + " WHERE customer_ref IS NULL AND id > ? ORDER BY id LIMIT ?";
+        String fill = "UPDATE " + table + " SET customer_ref = ? WHERE id = ? AND customer_ref IS NULL";
+        long filled = 0;
+        long orphaned = 0;
+        while (true) {
+            List<long[]> rows = new ArrayList<>(chunkSize);
+            int[] read = {0};
+            int[] uncounted = {0};
+            long[] lastId = {afterId};
+            jdbcTemplate.query(selectChunk, rs -> {
+                read[0]++;
+                lastId[0] = rs.getLong(1);
+                if (lastId[0] > countedUpTo) {
+                    uncounted[0]++;
+                }
+                // Unparseable text ids are orphans too; -1 matches no customer
+                Long customerId = parseId(rs.getString(2));
+                rows.add(new long[] {lastId[0], customerId != null ? customerId : -1L});
+            }, afterId, chunkSize);
+            if (read[0] == 0) {
+                break;
+            }
+            afterId = lastId[0];
+
+            Set<Long> existing = existingCustomers(rows);
+            List<long[]> linkable = new ArrayList<>(rows.size());
+            for (long[] row : rows) {
+                if (existing.contains(row[1])) {
+                    linkable.add(row);
+                }
+            }
+            if (!linkable.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(fill, linkable, linkable.size(),
+                        (ps, row) -> {
+                            ps.setLong(1, row[1]);
+                            ps.setLong(2, row[0]);
+                        }));
+            }
+            long newOrphans = uncounted[0];
+            for (long[] row : linkable) {
+                if (row[0] > countedUpTo) {
+                    newOrphans--;
+                }
+            }
+            filled += linkable.size();
+            orphaned += newOrphans;
+            count(table, "filled", linkable.size());
+            count(table, "orphaned", newOrphans);
+            if (read[0] < chunkSize) {
+                break;
+            }
+            pause();
+        }
+        return new long[] {filled, orphaned, afterId};
+    }
+
+    private Set<Long> existingCustomers(List<long[]> rows) {
+        Set<Long> ids = new HashSet<>();
+        for (long[] row : rows) {
+            ids.add(row[1]);
+        }
+        Set<Long> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        namedJdbcTemplate.query("SELECT id FROM customers WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    existing.add(rs.getLong(1));
+                });
+        return existing;
+    }
+
+    private void count(String table, String outcome, long rows) {
+        Counter.builder("bms.backfill.customer_key")
+                .description("Rows whose numeric customer key was filled in, or that name no existing customer")
+                .tag("table", table)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Long parseId(String customerId) {
+        try {
+            return customerId == null ? null : Long.valueOf(customerId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,16 +1,32 @@
 package com.example.bms.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 
 import com.example.bms.models.Customer;
 import com.example.bms.models.Loan;
+import com.example.bms.models.LoanSummary;
+import com.example.bms.models.OutboxEvent;
 import com.example.bms.repositories.CustomerRepository;
 import com.example.bms.repositories.LoanRepository;
 import com.example.bms.models.LoginRequest;
 import com.example.bms.models.RegisterRequest;
+import com.example.bms.utils.Money;
+import com.example.bms.utils.ReadYourWrites;
+import com.example.bms.utils.ShardRouter;
+import com.example.bms.utils.SingleFlight;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -22,13 +38,57 @@ public class CustomerService {
     @Autowired
     private LoanRepository loanRepository;
 
+    @Autowired
+    private LoanIdAllocator loanIdAllocator;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private LoanVersionTracker loanVersionTracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private LoginIdFilter loginIdFilter;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private LoanArchive loanArchive;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UniqueValueClaims uniqueValueClaims;
+
+    // Loans that still count towards a customer's existing exposure when pricing a new one
+    private static final Set<Loan.LoanStatus> EXPOSURE_STATUSES = EnumSet.of(
+            Loan.LoanStatus.PENDING, Loan.LoanStatus.APPROVED, Loan.LoanStatus.DISBURSED);
+
+    // Concurrent identical reads (several tabs, duplicate polls) share one query
+    private SingleFlight<Long, Optional<Customer>> customerReads;
+    private SingleFlight<String, LoanVersionTracker.Tagged<List<LoanSummary>>> loanListReads;
+
+    @PostConstruct
+    void initReadCoalescing() {
+        customerReads = new SingleFlight<>("customer", meterRegistry);
+        loanListReads = new SingleFlight<>("customer_loans", meterRegistry);
+    }
+
     public Customer registerCustomer(RegisterRequest registerRequest) {
-        // Check if customer already exists
-        Customer existingCustomer = customerRepository.findByLoginId(registerRequest.getLoginId());
-        if (existingCustomer != null) {
-            throw new RuntimeException("Customer with this login ID already exists");
-        }
-        
         Customer customer = new Customer();
         customer.setName(registerRequest.getName());
         customer.setAccountNumber(registerRequest.getAccountNumber());
@@ -42,22 +102,94 @@ public class CustomerService {
         customer.setAccountType(Customer.AccountType.valueOf(registerRequest.getAccountType().name()));
         customer.setLoginId(registerRequest.getLoginId());
         customer.setPassword(registerRequest.getPassword());
-        return customerRepository.save(customer);
+        // Account number, email and PAN could collide with a customer on another shard
+        Map<String, String> uniqueValues = UniqueValueClaims.of(customer.getAccountNumber(), customer.getEmail(),
+                customer.getPanNumber());
+        uniqueValueClaims.claim(customer.getLoginId(), uniqueValues);
+        // The duplicate check reads the primary, inside the same transaction as the insert, on
+        // the loginId's shard: loginIds are unique because each can only ever land on that shard
+        Customer savedCustomer;
+        try {
+            savedCustomer = shardRouter.onShard(shardRouter.shardOfLoginId(customer.getLoginId()),
+                    () -> transactionTemplate.execute(status -> {
+                        // Check if customer already exists
+                        if (customerRepository.findByLoginId(customer.getLoginId()) != null) {
+                            throw new RuntimeException("Customer with this login ID already exists");
+                        }
+                        return customerRepository.save(customer);
+                    }));
+        } catch (RuntimeException e) {
+            uniqueValueClaims.release(customer.getLoginId(), uniqueValues);
+            throw e;
+        }
+        loginIdFilter.registered(savedCustomer.getLoginId());
+        // So the first login right after registering does not miss on a lagging replica
+        readYourWrites.wrote(savedCustomer.getLoginId());
+        return savedCustomer;
     }
 
+    // Callers check LoginIdFilter#mightExist first; this always queries the loginId's shard
     public Customer authenticateCustomer(LoginRequest loginRequest) {
-        Customer customer = customerRepository.findByLoginId(loginRequest.getLoginId());
-        if (customer != null && customer.getPassword().equals(loginRequest.getPassword())) {
+        long started = System.nanoTime();
+        Customer customer = shardRouter.onShard(shardRouter.shardOfLoginId(loginRequest.getLoginId()),
+                () -> readYourWrites.readFor(loginRequest.getLoginId(),
+                        () -> customerRepository.findByLoginId(loginRequest.getLoginId())));
+        loginIdFilter.recordLookup(System.nanoTime() - started);
+        if (customer == null) {
+            loginIdFilter.lookupMissed();
+            return null;
+        }
+        if (customer.getPassword().equals(loginRequest.getPassword())) {
             return customer;
         }
         return null;
     }
     
+    // Read-only callers only: the returned entity may be shared with concurrent callers
     public Optional<Customer> getCustomerById(Long customerId) {
-        return customerRepository.findById(customerId);
+        return customerReads.execute(customerId,
+                () -> shardRouter.forCustomer(customerId.toString(),
+                        () -> readYourWrites.readFor(customerId.toString(), () -> customerRepository.findById(customerId))));
+    }
+    
+    // Customer with their accounts loaded by the same query
+    public Optional<Customer> getCustomerWithAccounts(Long customerId) {
+        return shardRouter.forCustomer(customerId.toString(),
+                () -> readYourWrites.readFor(customerId.toString(), () -> customerRepository.findWithAccountsById(customerId)));
     }
     
+    // One read-write transaction, so the row being updated is read from the primary. A new
+    // email is claimed first and the old one released once the update has committed.
     public Customer updateCustomerDetails(Long customerId, Customer customerUpdate) {
+        if (customerUpdate.getEmail() == null) {
+            return shardRouter.forCustomer(customerId.toString(),
+                    () -> transactionTemplate.execute(status -> applyCustomerUpdate(customerId, customerUpdate)));
+        }
+        Optional<Customer> current = getCustomerById(customerId);
+        if (current.isEmpty()) {
+            return null;
+        }
+        String loginId = current.get().getLoginId();
+        String previousEmail = current.get().getEmail();
+        Map<String, String> newEmail = Map.of(UniqueValueClaims.EMAIL, customerUpdate.getEmail());
+        uniqueValueClaims.claim(loginId, newEmail);
+        Customer updated;
+        try {
+            updated = shardRouter.forCustomer(customerId.toString(),
+                    () -> transactionTemplate.execute(status -> applyCustomerUpdate(customerId, customerUpdate)));
+        } catch (RuntimeException e) {
+            uniqueValueClaims.release(loginId, newEmail);
+            throw e;
+        }
+        if (updated == null) {
+            uniqueValueClaims.release(loginId, newEmail);
+        } else if (previousEmail != null && !previousEmail.equalsIgnoreCase(customerUpdate.getEmail())) {
+            uniqueValueClaims.release(loginId, Map.of(UniqueValueClaims.EMAIL, previousEmail));
+        }
+        return updated;
+    }
+
+    private Customer applyCustomerUpdate(Long customerId, Customer customerUpdate) {
         Optional<Customer> existingCustomerOpt = customerRepository.findById(customerId);
         if (existingCustomerOpt.isPresent()) {
             Customer existingCustomer = existingCustomerOpt.get();
@@ -77,7 +209,10 @@ public class CustomerService {
             }
             // Note: Sensitive fields like account number, PAN, DOB should not be updated easily
             
-            return customerRepository.save(existingCustomer);
+            Customer savedCustomer = customerRepository.save(existingCustomer);
+            readYourWrites.wrote(customerId.toString());
+            customerReads.forget(customerId);
+            return savedCustomer;
         }
         return null;
     }
@@ -97,38 +232,223 @@ public class CustomerService {
     }
     
     public Loan applyForLoan(String customerId, Loan loanApplication) {
-        // Generate unique loan ID
-        String loanId = "LOAN" + System.currentTimeMillis();
-        loanApplication.setLoanId(loanId);
-        
-        // Set customer ID
-        loanApplication.setCustomerId(customerId);
+        prepareApplications(customerId, List.of(loanApplication), 0);
         
-        // Set base interest rate from loan type
-        if (loanApplication.getLoanType() != null) {
-            // If no offered rate is set, use base rate
-            if (loanApplication.getOfferedInterestRate() == null || 
-                loanApplication.getOfferedInterestRate().compareTo(BigDecimal.ZERO) == 0) {
-                loanApplication.setOfferedInterestRate(BigDecimal.valueOf(loanApplication.getLoanType().getBaseInterestRate()));
+        // Save to database together with its outbox event, on the customer's shard
+        Loan savedLoan = shardRouter.forCustomer(customerId, () -> transactionTemplate.execute(status -> {
+            Loan loan = loanRepository.save(loanApplication);
+            outboxService.recordLoanStatusChange(loan, null);
+            loanVersionTracker.customerChanged(customerId);
+            return loan;
+        }));
+        readYourWrites.wrote(customerId);
+        loanListReads.forget(customerId);
+        return savedLoan;
+    }
+
+    // Gives one customer's applications their loan IDs, rates and EMIs, in order: each is priced
+    // as if the ones before it were already saved. pendingExposurePaise is what the customer has
+    // applied for but not saved yet, which the exposure query cannot see
+    public void prepareApplications(String customerId, List<Loan> applications, long pendingExposurePaise) {
+        if (applications.stream().anyMatch(CustomerService::needsPricing)) {
+            prepare(customerId, applications, currentExposurePaise(customerId) + pendingExposurePaise,
+                    customerTenureMonths(customerId));
+        } else {
+            prepare(customerId, applications, 0, -1);
+        }
+    }
+
+    // The same for the applications of several customers on one shard, reading every customer's
+    // exposure and registration date with one query each, from the primary so that loans saved a
+    // moment ago count. pendingExposurePaise is per customer ID
+    public void prepareApplications(Map<String, List<Loan>> applicationsByCustomer, Map<String, Long> pendingExposurePaise) {
+        List<Long> customerKeys = new ArrayList<>(applicationsByCustomer.size());
+        for (String customerId : applicationsByCustomer.keySet()) {
+            customerKeys.add(Long.valueOf(customerId));
+        }
+        Map<Long, Long> exposures = new HashMap<>();
+        Map<Long, Integer> tenures = new HashMap<>();
+        shardRouter.forCustomer(customerKeys.get(0).toString(), () -> transactionTemplate.execute(status -> {
+            for (Object[] row : loanRepository.getExposuresByCustomerIds(customerKeys, EXPOSURE_STATUSES)) {
+                exposures.put((Long) row[0], Money.toPaise((BigDecimal) row[1]));
             }
+            for (Object[] row : customerRepository.findCreatedAtByIds(customerKeys)) {
+                tenures.put((Long) row[0], tenureMonthsSince((LocalDateTime) row[1]));
+            }
+            return null;
+        }));
+        for (Map.Entry<String, List<Loan>> customer : applicationsByCustomer.entrySet()) {
+            Long customerKey = Long.valueOf(customer.getKey());
+            prepare(customer.getKey(), customer.getValue(),
+                    exposures.getOrDefault(customerKey, 0L) + pendingExposurePaise.getOrDefault(customer.getKey(), 0L),
+                    tenures.getOrDefault(customerKey, -1));
         }
-        
-        // Calculate and set EMI
-        loanApplication.updateEmi();
-        
-        // Save to database
-        return loanRepository.save(loanApplication);
+    }
+
+    private void prepare(String customerId, List<Loan> applications, long exposurePaise, int customerTenureMonths) {
+        Long customerKey = Long.valueOf(customerId);
+        for (Loan loanApplication : applications) {
+            // Generate unique loan ID before taking a connection: a block refill needs its own
+            // connection, and callers parked on the allocator must not be holding the rest of the pool
+            loanApplication.setLoanId(loanIdAllocator.nextLoanId());
+            loanApplication.setCustomerId(customerKey);
+            
+            // Price the loan from the active rule set
+            if (needsPricing(loanApplication)) {
+                loanApplication.setOfferedInterestRate(Money.fromBasisPoints(
+                        priceLoan(loanApplication, customerTenureMonths, exposurePaise)));
+            }
+            
+            // Calculate and set EMI
+            loanApplication.updateEmi();
+            if (loanApplication.getAmount() != null) {
+                exposurePaise += loanApplication.getAmountInPaise();
+            }
+        }
+    }
+
+    // If no offered rate is set, let the pricing rules decide
+    private static boolean needsPricing(Loan loanApplication) {
+        return loanApplication.getLoanType() != null
+                && (loanApplication.getOfferedInterestRate() == null
+                    || loanApplication.getOfferedInterestRate().compareTo(BigDecimal.ZERO) == 0);
+    }
+
+    // Saves prepared applications, all of customers on one shard, the way the bulk import does:
+    // loans and outbox events in two batched inserts and one transaction, so all of them are
+    // saved or none. The loans' database ids are not read back
+    public void saveApplications(List<Loan> applications) {
+        Set<String> customerIds = new LinkedHashSet<>();
+        List<OutboxEvent> events = new ArrayList<>(applications.size());
+        for (Loan application : applications) {
+            String customerId = application.getCustomerId().toString();
+            customerIds.add(customerId);
+            events.add(outboxService.loanStatusChanged(application.getLoanId(), customerId, null,
+                    application.getLoanStatus(), LocalDateTime.now()));
+        }
+        shardRouter.forCustomer(customerIds.iterator().next(), () -> transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(LoanImportService.INSERT_SQL, applications, applications.size(), CustomerService::bindApplication);
+            jdbcTemplate.batchUpdate(LoanImportService.OUTBOX_SQL, events, events.size(), LoanImportService::bindEvent);
+            loanVersionTracker.customersChanged(customerIds);
+            return null;
+        }));
+        for (String customerId : customerIds) {
+            readYourWrites.wrote(customerId);
+            loanListReads.forget(customerId);
+        }
+    }
+
+    private static void bindApplication(PreparedStatement ps, Loan loan) throws SQLException {
+        ps.setString(1, loan.getLoanId());
+        ps.setBigDecimal(2, loan.getAmount());
+        ps.setString(3, loan.getLoanType().name());
+        ps.setBigDecimal(4, loan.getOfferedInterestRate());
+        ps.setString(5, loan.getCustomerId().toString());
+        ps.setString(6, loan.getLoanStatus().name());
+        ps.setInt(7, loan.getTenureMonths());
+        ps.setString(8, loan.getPurpose());
+        ps.setBigDecimal(9, loan.getMonthlyEmi());
+        ps.setTimestamp(10, Timestamp.valueOf(loan.getApplicationDate()));
+        ps.setTimestamp(11, Timestamp.valueOf(loan.getCreatedAt()));
+        ps.setTimestamp(12, Timestamp.valueOf(loan.getUpdatedAt()));
+        ps.setLong(13, loan.getCustomerId());
+    }
+    
+    private long currentExposurePaise(String customerId) {
+        BigDecimal exposure = shardRouter.forCustomer(customerId, () -> readYourWrites.readFor(customerId,
+                () -> loanRepository.getExposureByCustomerId(Long.valueOf(customerId), EXPOSURE_STATUSES)));
+        return Money.toPaise(exposure);
+    }
+
+    private long priceLoan(Loan loanApplication, int customerTenureMonths, long exposurePaise) {
+        long amountPaise = loanApplication.getAmount() == null ? 0 : loanApplication.getAmountInPaise();
+        int tenureMonths = loanApplication.getTenureMonths() == null ? 0 : loanApplication.getTenureMonths();
+        return pricingEngine.offeredRateBps(loanApplication.getLoanType(), amountPaise, tenureMonths,
+                customerTenureMonths, exposurePaise);
+    }
+
+    // Whole months since registration, or -1 when the customer or their registration date is unknown
+    private int customerTenureMonths(String customerId) {
+        Optional<Customer> customer;
+        try {
+            customer = getCustomerById(Long.parseLong(customerId));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        return tenureMonthsSince(customer.map(Customer::getCreatedAt).orElse(null));
+    }
+
+    private static int tenureMonthsSince(LocalDateTime createdAt) {
+        return createdAt == null ? -1 : (int) ChronoUnit.MONTHS.between(createdAt, LocalDateTime.now());
+    }
+    
+    public Loan changeLoanStatus(String loanId, Loan.LoanStatus newStatus) {
+        // Loan IDs do not say whose loan it is, so the shard holding it is found by asking them all
+        List<Long> owners = shardRouter.onEveryShard(() -> loanRepository.findByLoanId(loanId)
+                .map(Loan::getCustomerId)
+                .orElse(null));
+        Long owner = owners.stream().filter(Objects::nonNull).findFirst().orElse(null);
+        if (owner == null) {
+            if (loanArchive.contains(loanId)) {
+                throw new RuntimeException("Loan is archived and can no longer change: " + loanId);
+            }
+            throw new RuntimeException("Loan not found: " + loanId);
+        }
+        return shardRouter.forCustomer(owner.toString(),
+                () -> transactionTemplate.execute(status -> applyLoanStatus(loanId, newStatus)));
+    }
+
+    private Loan applyLoanStatus(String loanId, Loan.LoanStatus newStatus) {
+        Loan loan = loanRepository.findByLoanId(loanId)
+                .orElseThrow(() -> new RuntimeException("Loan not found: " + loanId));
+        Loan.LoanStatus previousStatus = loan.getLoanStatus();
+        if (previousStatus == newStatus) {
+            return loan;
+        }
+        loan.setLoanStatus(newStatus);
+        Loan savedLoan = loanRepository.save(loan);
+        outboxService.recordLoanStatusChange(savedLoan, previousStatus);
+        String customerId = savedLoan.getCustomerId().toString();
+        loanVersionTracker.customerChanged(customerId);
+        readYourWrites.wrote(customerId);
+        loanListReads.forget(customerId);
+        return savedLoan;
     }
     
     public List<Loan> getCustomerLoans(String customerId) {
-        return loanRepository.findByCustomerId(customerId);
+        return shardRouter.forCustomer(customerId,
+                () -> loanArchive.withArchived(customerId,
+                        readYourWrites.readFor(customerId, () -> loanRepository.findByCustomerId(Long.valueOf(customerId)))));
+    }
+
+    // What loan lists show: the list columns only, never attached to the persistence context
+    public List<LoanSummary> getLoanSummaries(String customerId) {
+        return getTaggedLoanSummaries(customerId).value();
+    }
+
+    // The same with the ETag of the version they were read at; coalesced callers share both
+    public LoanVersionTracker.Tagged<List<LoanSummary>> getTaggedLoanSummaries(String customerId) {
+        return loanListReads.execute(customerId,
+                () -> loanVersionTracker.readTagged(customerId,
+                        () -> loanArchive.withArchivedSummaries(customerId,
+                                loanRepository.findSummariesByCustomerId(Long.valueOf(customerId)))));
+    }
+
+    // A loan with the ETag of the version it was read at; null value if it is not the customer's
+    public LoanVersionTracker.Tagged<Loan> getTaggedLoanDetails(String customerId, String loanId) {
+        return loanVersionTracker.readTagged(customerId, () -> getLoanDetails(customerId, loanId));
     }
     
     public Loan getLoanDetails(String customerId, String loanId) {
-        Optional<Loan> loanOpt = loanRepository.findByLoanId(loanId);
-        if (loanOpt.isPresent() && loanOpt.get().getCustomerId().equals(customerId)) {
+        Long customerKey = Long.valueOf(customerId);
+        Optional<Loan> loanOpt = shardRouter.forCustomer(customerId,
+                () -> readYourWrites.readFor(customerId, () -> loanRepository.findByLoanId(loanId)));
+        if (loanOpt.isPresent() && customerKey.equals(loanOpt.get().getCustomerId())) {
             return loanOpt.get();
         }
+        if (loanOpt.isEmpty()) {
+            return loanArchive.findLoan(customerId, loanId).orElse(null);
+        }
         return null;
     }
     
@@ -0,0 +1,199 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.models.AccountSummary;
+import com.example.bms.models.Customer;
+import com.example.bms.models.LoanSummary;
+import com.example.bms.repositories.AccountRepository;
+import com.example.bms.utils.ReadYourWrites;
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads everything the dashboard shows (profile, account, loans) in one call.
+ *
+ * The three reads run concurrently on a small bounded pool and share one deadline
+ * ({@code bms.dashboard.branch-timeout-ms}). A branch that is late, fails, or finds
+ * the pool full is left out and named under {@code unavailable}, so one slow query
+ * degrades the page instead of failing it.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+
+    // Placeholder shown before the customer has an account row, as on the account endpoint
+    public static final double DEMO_BALANCE = 10000.0;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.dashboard.workers:8}")
+    private int workers;
+
+    @Value("${bms.dashboard.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${bms.dashboard.branch-timeout-ms:1500}")
+    private long branchTimeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> load(String customerId) {
+        long customerKey;
+        try {
+            customerKey = Long.parseLong(customerId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid customer ID: " + customerId);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(branchTimeoutMs);
+
+        CompletableFuture<Optional<Customer>> customer = submit(() -> customerService.getCustomerById(customerKey));
+        CompletableFuture<List<AccountSummary>> accounts = submit(() -> shardRouter.forCustomer(customerId,
+                () -> readYourWrites.readFor(customerId,
+                        () -> accountRepository.findActiveSummariesByCustomerId(customerKey))));
+        CompletableFuture<List<LoanSummary>> loans = submit(() -> customerService.getLoanSummaries(customerId));
+
+        List<String> unavailable = new ArrayList<>();
+        Optional<Customer> customerResult = await("customer", customer, deadline, unavailable);
+        List<AccountSummary> accountResult = await("account", accounts, deadline, unavailable);
+        List<LoanSummary> loanResult = await("loans", loans, deadline, unavailable);
+
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        if (customerResult != null) {
+            if (customerResult.isEmpty()) {
+                return null;
+            }
+            dashboard.put("customer", profile(customerResult.get()));
+        }
+        if (accountResult != null && (!accountResult.isEmpty() || customerResult != null)) {
+            dashboard.put("account", account(accountResult, customerResult == null ? null : customerResult.get()));
+        } else if (accountResult != null) {
+            // Without the profile there is nothing to describe an account-less customer with
+            unavailable.add("account");
+        }
+        if (loanResult != null) {
+            dashboard.put("totalLoans", loanResult.size());
+            dashboard.put("loans", loanResult);
+        }
+        dashboard.put("partial", !unavailable.isEmpty());
+        dashboard.put("unavailable", unavailable);
+        return dashboard;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> branch) {
+        try {
+            return CompletableFuture.supplyAsync(branch, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Waits for one branch until the shared deadline; null means the branch is left out
+    private <T> T await(String branch, CompletableFuture<T> future, long deadline, List<String> unavailable) {
+        String outcome = "ok";
+        try {
+            return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            // Frees the queue slot if the branch has not started; a running query finishes on its own
+            future.cancel(true);
+        } catch (ExecutionException e) {
+            outcome = e.getCause() instanceof RejectedExecutionException ? "rejected" : "error";
+            log.warn("Dashboard {} branch failed", branch, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+        } finally {
+            meterRegistry.counter("bms.dashboard.branches", "branch", branch, "outcome", outcome).increment();
+        }
+        unavailable.add(branch);
+        return null;
+    }
+
+    // The dashboard needs contact details, not credentials
+    private static Map<String, Object> profile(Customer customer) {
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("id", customer.getId());
+        profile.put("name", customer.getName());
+        profile.put("email", customer.getEmail());
+        profile.put("phoneNumber", customer.getPhoneNumber());
+        profile.put("address", customer.getAddress());
+        profile.put("state", customer.getState());
+        profile.put("country", customer.getCountry());
+        profile.put("loginId", customer.getLoginId());
+        return profile;
+    }
+
+    private static Map<String, Object> account(List<AccountSummary> accounts, Customer customer) {
+        Map<String, Object> accountInfo = new HashMap<>();
+        if (!accounts.isEmpty()) {
+            AccountSummary primary = accounts.get(0);
+            accountInfo.put("accountNumber", primary.getAccountNumber());
+            accountInfo.put("accountType", primary.getAccountType());
+            accountInfo.put("balance", accounts.stream()
+                    .map(AccountSummary::getBalance)
+                    .filter(balance -> balance != null)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+        } else {
+            accountInfo.put("accountNumber", customer.getAccountNumber());
+            accountInfo.put("accountType", customer.getAccountType());
+            accountInfo.put("balance", DEMO_BALANCE);
+        }
+        return accountInfo;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.example.bms.utils.Bulkhead;
+import com.example.bms.utils.CircuitBreaker;
+import com.example.bms.utils.RejectedCallException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a slow or failing database from taking every request thread with it.
+ *
+ * Each endpoint's service call runs inside its own bulkhead
+ * ({@code bms.bulkhead.<endpoint>.max-concurrent}, else {@code bms.bulkhead.max-concurrent}),
+ * so one endpoint stuck on the database holds at most that many threads and the others
+ * keep answering. Inside it, every call passes one circuit breaker for the database that
+ * counts data-access errors and slow calls; once it opens, calls fail fast with
+ * {@link RejectedCallException} until a few trial calls succeed.
+ *
+ * Endpoints that can answer from the last good result remember it here, keyed per
+ * endpoint in a bounded LRU, and serve it (flagged as degraded) while calls are rejected.
+ */
+@Service
+public class DatabaseGuard {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.bulkhead.max-concurrent:40}")
+    private int defaultMaxConcurrent;
+
+    @Value("${bms.bulkhead.max-wait-ms:0}")
+    private long maxWaitMs;
+
+    @Value("${bms.circuit.database.window-size:50}")
+    private int windowSize;
+
+    @Value("${bms.circuit.database.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${bms.circuit.database.failure-rate-percent:50}")
+    private int failurePercent;
+
+    @Value("${bms.circuit.database.slow-call-ms:2000}")
+    private long slowCallMs;
+
+    @Value("${bms.circuit.database.open-ms:10000}")
+    private long openMs;
+
+    @Value("${bms.circuit.database.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    @Value("${bms.degraded.max-entries:10000}")
+    private int maxLastKnownEntries;
+
+    private CircuitBreaker database;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, Map<Object, Object>> lastKnown = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        database = new CircuitBreaker("database", windowSize, minimumCalls, failurePercent, slowCallMs, openMs,
+                halfOpenCalls, DatabaseGuard::isDatabaseFailure, meterRegistry);
+    }
+
+    public <T> T call(String endpoint, Supplier<T> work) {
+        return bulkheads.computeIfAbsent(endpoint, this::newBulkhead).execute(() -> database.execute(work));
+    }
+
+    public CircuitBreaker.State databaseState() {
+        return database.state();
+    }
+
+    // Keeps value as the last good answer of endpoint for key
+    public void remember(String endpoint, Object key, Object value) {
+        if (value != null) {
+            lastKnown.computeIfAbsent(endpoint, name -> lruOf(maxLastKnownEntries)).put(key, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> lastKnown(String endpoint, Object key) {
+        Map<Object, Object> values = lastKnown.get(endpoint);
+        return values == null ? Optional.empty() : Optional.ofNullable((T) values.get(key));
+    }
+
+    private Bulkhead newBulkhead(String endpoint) {
+        int maxConcurrent = environment.getProperty("bms.bulkhead." + endpoint + ".max-concurrent", Integer.class,
+                defaultMaxConcurrent);
+        return new Bulkhead(endpoint, maxConcurrent, maxWaitMs, meterRegistry);
+    }
+
+    // Errors that say the database is unreachable, overloaded or timing out, not that the
+    // request was wrong (a duplicate key, a missing row)
+    static boolean isDatabaseFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof NonTransientDataAccessResourceException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<Object, Object> lruOf(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.utils.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds EMI comparison grids (rates x tenures) for one principal.
+ *
+ * Annuity factors depend only on rate and tenure, so each rate's row for tenures
+ * 1..360 is computed once with {@link Money#annuityFactors} and kept; a grid cell is
+ * then a single fixed-point multiply. The cache holds at most
+ * {@code bms.emi.quote.cached-rates} rows (about 3 KB each); rates beyond that are
+ * computed per request and not kept.
+ */
+@Service
+public class EmiQuoteService {
+
+    public static final int MIN_TENURE_MONTHS = 1;
+    public static final int MAX_TENURE_MONTHS = 360;
+    public static final int MAX_RATES = 10;
+
+    @Value("${bms.emi.quote.cached-rates:512}")
+    private int cachedRates;
+
+    private final ConcurrentHashMap<Long, long[]> factorRows = new ConcurrentHashMap<>();
+
+    public Map<String, Object> quoteGrid(BigDecimal amount, List<BigDecimal> ratesPercent,
+                                         int minTenureMonths, int maxTenureMonths, int stepMonths) {
+        if (amount == null || amount.signum() <= 0 || amount.compareTo(Money.MAX_AMOUNT) > 0) {
+            throw new IllegalArgumentException("Amount must be positive and at most " + Money.MAX_AMOUNT.toPlainString());
+        }
+        if (ratesPercent.isEmpty() || ratesPercent.size() > MAX_RATES) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_RATES + " rates are allowed");
+        }
+        // Checked before conversion: a rate too large for basis points would not fit a long
+        for (BigDecimal rate : ratesPercent) {
+            if (rate == null || rate.signum() < 0 || rate.compareTo(Money.MAX_RATE_PERCENT) > 0) {
+                throw new IllegalArgumentException("Rates must lie within 0.." + Money.MAX_RATE_PERCENT + "%");
+            }
+        }
+        if (minTenureMonths < MIN_TENURE_MONTHS || maxTenureMonths > MAX_TENURE_MONTHS
+                || minTenureMonths > maxTenureMonths || stepMonths < 1) {
+            throw new IllegalArgumentException("Tenures must lie within " + MIN_TENURE_MONTHS + ".."
+                    + MAX_TENURE_MONTHS + " months with a positive step");
+        }
+        long principalPaise = Money.toPaise(amount);
+
+        List<Integer> tenures = new ArrayList<>();
+        for (int months = minTenureMonths; months <= maxTenureMonths; months += stepMonths) {
+            tenures.add(months);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (BigDecimal rate : ratesPercent) {
+            long rateBps = Money.toBasisPoints(rate);
+            long[] factors = rateBps == 0L ? null : factorsFor(rateBps);
+            List<BigDecimal> emis = new ArrayList<>(tenures.size());
+            for (int months : tenures) {
+                // Zero-rate loans split the principal evenly; there is no annuity factor
+                long emi = factors == null ? Money.emiPaise(principalPaise, 0L, months)
+                        : Money.emiPaise(principalPaise, factors[months]);
+                emis.add(Money.fromPaise(emi));
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("interestRate", Money.fromBasisPoints(rateBps));
+            row.put("emis", emis);
+            rows.add(row);
+        }
+
+        Map<String, Object> grid = new LinkedHashMap<>();
+        grid.put("amount", Money.fromPaise(principalPaise));
+        grid.put("tenures", tenures);
+        grid.put("quotes", rows);
+        return grid;
+    }
+
+    private long[] factorsFor(long rateBps) {
+        long[] cached = factorRows.get(rateBps);
+        if (cached != null) {
+            return cached;
+        }
+        // Validates the rate as well
+        long[] factors = Money.annuityFactors(rateBps, MAX_TENURE_MONTHS);
+        if (factorRows.size() < cachedRates) {
+            factorRows.putIfAbsent(rateBps, factors);
+        }
+        return factors;
+    }
+}
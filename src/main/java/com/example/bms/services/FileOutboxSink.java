@@ -0,0 +1,59 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.bms.models.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Appends each batch to a local NDJSON file and forces it to disk before acknowledging
+@Component
+@ConditionalOnProperty(name = "bms.outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOutboxSink implements OutboxSink {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${bms.outbox.file-path:outbox/loan-events.ndjson}")
+    private String filePath;
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        Path path = Paths.get(filePath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            for (OutboxEvent event : events) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("id", event.getId());
+                line.put("aggregateType", event.getAggregateType());
+                line.put("aggregateId", event.getAggregateId());
+                line.put("eventType", event.getEventType());
+                line.put("createdAt", event.getCreatedAt().toString());
+                line.put("payload", objectMapper.readTree(event.getPayload()));
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.write('\n');
+            }
+            writer.flush();
+            channel.force(false);
+        }
+    }
+}
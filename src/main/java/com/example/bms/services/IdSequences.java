@@ -0,0 +1,60 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.utils.ShardRouter;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters in the {@code id_sequences} table on the home shard, handed out in
+ * blocks. Each reservation is its own short transaction on a second pooled
+ * connection, so it is safe to call while another transaction is open.
+ */
+@Component
+public class IdSequences {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // First number of a new block of blockSize; seed supplies the first number if the counter is new
+    public long reserveBlock(String name, int blockSize, LongSupplier seed) {
+        try {
+            return reserveBlockOnce(name, blockSize, seed);
+        } catch (DuplicateKeyException e) {
+            // Another node seeded the row first; its row now exists, so lock and bump it
+            return reserveBlockOnce(name, blockSize, seed);
+        }
+    }
+
+    private long reserveBlockOnce(String name, int blockSize, LongSupplier seed) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return shardRouter.onHomeShard(() -> tx.execute(status -> {
+            List<Long> current = jdbcTemplate.queryForList(
+                    "SELECT next_val FROM id_sequences WHERE name = ? FOR UPDATE", Long.class, name);
+            long start;
+            if (current.isEmpty()) {
+                start = seed.getAsLong();
+                jdbcTemplate.update("INSERT INTO id_sequences (name, next_val) VALUES (?, ?)", name, start + blockSize);
+            } else {
+                start = current.get(0);
+                jdbcTemplate.update("UPDATE id_sequences SET next_val = ? WHERE name = ?", start + blockSize, name);
+            }
+            return start;
+        }));
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.models.IdempotencyRecord;
+import com.example.bms.utils.RejectedCallException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes a POST safe to retry when the client sends an {@code Idempotency-Key}.
+ *
+ * The first request for a customer and key claims a PENDING row in
+ * {@code idempotency_keys}, runs, and stores its 2xx response there. Later requests
+ * with the same key get that response replayed. A duplicate that arrives while the
+ * first is still running waits for it: in memory on the same instance, by polling
+ * the row on another. Completed responses are also kept in memory as compact JSON
+ * bytes until the TTL, bounded by {@code bms.idempotency.max-entries}. Failed or
+ * non-2xx attempts release the key so the client can retry. The Location header is kept
+ * with the body; a body too large for the row is stored as a reference to that location
+ * instead, so the key still never runs the request twice.
+ *
+ * The response is stored after the request's own work has committed, so the two can
+ * come apart: if storing it fails, the key stays PENDING and is taken over after
+ * {@code bms.idempotency.lock-timeout-seconds}. Work guarded here must therefore also
+ * recognise a repeat on its own, as loan applications do by their key.
+ *
+ * Every statement on the table goes through the {@code idempotency} bulkhead and the
+ * database circuit breaker; a rejected claim throws {@link RejectedCallException}
+ * before the request runs.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 200;
+    private static final int MAX_BODY_LENGTH = 4000;
+    private static final int MAX_LOCATION_LENGTH = 500;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Value("${bms.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${bms.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${bms.idempotency.wait-ms:30000}")
+    private long waitMs;
+
+    @Value("${bms.idempotency.lock-timeout-seconds:60}")
+    private long lockTimeoutSeconds;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final String requestHash;
+        final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        volatile long expiresAtMillis = Long.MAX_VALUE;
+
+        Entry(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static final class StoredResponse {
+        final int status;
+        final byte[] body;
+        final String location;
+
+        StoredResponse(int status, byte[] body, String location) {
+            this.status = status;
+            this.body = body;
+            this.location = location;
+        }
+    }
+
+    public ResponseEntity<Map<String, Object>> execute(String customerId, String key, String requestHash,
+                                                       Supplier<ResponseEntity<Map<String, Object>>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = customerId + ":" + key;
+        Entry mine = new Entry(requestHash);
+        Entry existing = entries.putIfAbsent(id, mine);
+        while (existing != null && existing.expiresAtMillis < System.currentTimeMillis()) {
+            entries.remove(id, existing);
+            existing = entries.putIfAbsent(id, mine);
+        }
+        if (existing != null) {
+            if (!existing.requestHash.equals(requestHash)) {
+                return count("mismatch", mismatch());
+            }
+            return count("joined", await(existing));
+        }
+
+        StoredResponse outcome = null;
+        try {
+            IdempotencyRecord stored = claim(id, requestHash);
+            if (stored == null) {
+                outcome = run(id, action);
+                count("executed", null);
+            } else if (!stored.getRequestHash().equals(requestHash)) {
+                return count("mismatch", mismatch());
+            } else if (stored.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                outcome = new StoredResponse(stored.getResponseStatus(),
+                        stored.getResponseBody().getBytes(StandardCharsets.UTF_8), stored.getResponseLocation());
+                count("replayed", null);
+            } else {
+                return count("conflict", inProgress());
+            }
+            return toResponse(outcome, stored != null);
+        } finally {
+            mine.result.complete(outcome);
+            if (outcome == null || !HttpStatus.valueOf(outcome.status).is2xxSuccessful() || entries.size() > maxEntries) {
+                // Not worth remembering here: a failed attempt, or the store is full and the row has it
+                entries.remove(id, mine);
+            } else {
+                mine.expiresAtMillis = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(ttlHours);
+            }
+        }
+    }
+
+    // SHA-256 of the fields that make two requests "the same request"
+    public static String fingerprint(Object... parts) {
+        StringBuilder text = new StringBuilder();
+        for (Object part : parts) {
+            Object normalised = part instanceof BigDecimal ? ((BigDecimal) part).stripTrailingZeros().toPlainString() : part;
+            text.append(normalised).append('\u001f');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Forgets the response stored for customerId and key, so a retry with the key runs
+     * again. For work that is acknowledged first and fails later. Must run unbound to a
+     * shard: the keys live on the home shard.
+     */
+    public void forget(String customerId, String key) {
+        String id = customerId + ":" + key;
+        entries.remove(id);
+        guarded(() -> jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ?", id));
+    }
+
+    @Scheduled(fixedDelayString = "${bms.idempotency.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(e -> e.expiresAtMillis < now);
+        int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?",
+                Timestamp.valueOf(LocalDateTime.now()));
+        if (deleted > 0) {
+            log.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    // Returns null when this request now owns the key, otherwise the row that already holds it
+    private IdempotencyRecord claim(String id, String requestHash) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                guarded(() -> jdbcTemplate.update("INSERT INTO idempotency_keys (id, request_hash, status, created_at, expires_at) "
+                                + "VALUES (?, ?, ?, ?, ?)",
+                        id, requestHash, IdempotencyRecord.Status.PENDING.name(), Timestamp.valueOf(now),
+                        Timestamp.valueOf(now.plusHours(ttlHours))));
+                return null;
+            } catch (DuplicateKeyException e) {
+                IdempotencyRecord row = load(id);
+                if (row == null) {
+                    continue;
+                }
+                if (row.getExpiresAt().isBefore(now)) {
+                    guarded(() -> jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND expires_at < ?", id, Timestamp.valueOf(now)));
+                    continue;
+                }
+                if (row.getStatus() == IdempotencyRecord.Status.COMPLETED || !row.getRequestHash().equals(requestHash)) {
+                    return row;
+                }
+                // The owner died mid-request: take the key over once its lock has timed out
+                if (row.getCreatedAt().isBefore(now.minusSeconds(lockTimeoutSeconds))
+                        && guarded(() -> jdbcTemplate.update("UPDATE idempotency_keys SET created_at = ? WHERE id = ? AND status = ? AND created_at = ?",
+                                Timestamp.valueOf(now), id, IdempotencyRecord.Status.PENDING.name(),
+                                Timestamp.valueOf(row.getCreatedAt()))) == 1) {
+                    return null;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    return row;
+                }
+                sleep();
+            }
+        }
+    }
+
+    private StoredResponse run(String id, Supplier<ResponseEntity<Map<String, Object>>> action) {
+        ResponseEntity<Map<String, Object>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(id);
+            throw e;
+        }
+        byte[] body = serialize(response.getBody());
+        String location = response.getHeaders().getFirst(HttpHeaders.LOCATION);
+        if (location != null && location.length() > MAX_LOCATION_LENGTH) {
+            location = null;
+        }
+        if (response.getStatusCode().is2xxSuccessful()) {
+            byte[] stored = body.length <= MAX_BODY_LENGTH ? body : reference(location);
+            String storedLocation = location;
+            try {
+                guarded(() -> jdbcTemplate.update("UPDATE idempotency_keys SET status = ?, response_status = ?, response_body = ?, "
+                                + "response_location = ? WHERE id = ?",
+                        IdempotencyRecord.Status.COMPLETED.name(), response.getStatusCode().value(),
+                        new String(stored, StandardCharsets.UTF_8), storedLocation, id));
+            } catch (RejectedCallException e) {
+                // The action already ran; its response still goes to the client, and the key stays PENDING
+                log.warn("Could not store the response for idempotency key {}: {}", id, e.getMessage());
+            }
+        } else {
+            release(id);
+        }
+        return new StoredResponse(response.getStatusCode().value(), body, location);
+    }
+
+    // Stands in for a body too large to store: where to read the result, when there is one
+    private byte[] reference(String location) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", true);
+        body.put("message", location != null
+                ? "Request already processed; the result is at the Location URL"
+                : "Request already processed");
+        if (location != null) {
+            body.put("location", location);
+        }
+        return serialize(body);
+    }
+
+    private void release(String id) {
+        guarded(() -> jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id = ? AND status = ?", id,
+                IdempotencyRecord.Status.PENDING.name()));
+    }
+
+    private <T> T guarded(Supplier<T> statement) {
+        return databaseGuard.call("idempotency", statement);
+    }
+
+    private IdempotencyRecord load(String id) {
+        List<IdempotencyRecord> rows = guarded(() -> jdbcTemplate.query(
+                "SELECT request_hash, status, response_status, response_body, created_at, expires_at, response_location "
+                        + "FROM idempotency_keys WHERE id = ?",
+                (rs, rowNum) -> {
+                    IdempotencyRecord row = new IdempotencyRecord();
+                    row.setId(id);
+                    row.setRequestHash(rs.getString(1));
+                    row.setStatus(IdempotencyRecord.Status.valueOf(rs.getString(2)));
+                    row.setResponseStatus(rs.getObject(3) != null ? rs.getInt(3) : null);
+                    row.setResponseBody(rs.getString(4));
+                    row.setCreatedAt(rs.getTimestamp(5).toLocalDateTime());
+                    row.setExpiresAt(rs.getTimestamp(6).toLocalDateTime());
+                    row.setResponseLocation(rs.getString(7));
+                    return row;
+                }, id));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private ResponseEntity<Map<String, Object>> await(Entry entry) {
+        try {
+            StoredResponse outcome = entry.result.get(waitMs, TimeUnit.MILLISECONDS);
+            // The first attempt threw; nothing was stored, so the client should retry
+            return outcome != null ? toResponse(outcome, true) : error(HttpStatus.CONFLICT,
+                    "The original request with this Idempotency-Key failed; retry it");
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> toResponse(StoredResponse outcome, boolean replayed) {
+        try {
+            Map<String, Object> body = objectMapper.readValue(outcome.body, new TypeReference<Map<String, Object>>() {});
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(outcome.status);
+            if (replayed) {
+                builder.header("Idempotent-Replayed", "true");
+            }
+            if (outcome.location != null) {
+                builder.header(HttpHeaders.LOCATION, outcome.location);
+            }
+            return builder.body(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not read stored response", e);
+        }
+    }
+
+    private byte[] serialize(Map<String, Object> body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not store response", e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> mismatch() {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request");
+    }
+
+    private ResponseEntity<Map<String, Object>> inProgress() {
+        return error(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed");
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+
+    private <T> T count(String outcome, T value) {
+        meterRegistry.counter("bms.idempotency.requests", "outcome", outcome).increment();
+        return value;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight request", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bms.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.bms.models.OutboxEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Keeps published events in memory; intended for tests and local runs
+@Component
+@ConditionalOnProperty(name = "bms.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxEvent> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        published.addAll(events);
+    }
+
+    public List<OutboxEvent> getPublished() {
+        return new ArrayList<>(published);
+    }
+
+    public void clear() {
+        published.clear();
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.models.AccrualCheckpoint;
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.AccrualCheckpointRepository;
+import com.example.bms.utils.Money;
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily interest accrual over {@code DISBURSED} loans.
+ *
+ * A run splits the loan id space into fixed ranges and stores them as
+ * {@link AccrualCheckpoint} rows before any work starts, so a restarted run sees the
+ * same partitions. Each partition is walked in id order in chunks; a chunk's loan
+ * updates and its checkpoint advance commit together. Loans also carry
+ * {@code last_accrual_date}, so a chunk that is replayed after a crash cannot accrue
+ * the same day twice. Unfinished runs are resumed when the application starts.
+ *
+ * A run for a day that already has a plan adds a partition for loans disbursed since,
+ * above the last planned id; a day with nothing disbursed stores no plan at all, so the
+ * next run that day plans from scratch. Disbursed loans without an outstanding amount
+ * are left untouched and counted as {@code bms.accrual.skipped}, since accruing on
+ * zero would overwrite the missing value with 0.00.
+ *
+ * With sharding each shard plans and checkpoints its own loans, and the partitions of
+ * all shards share one worker pool.
+ *
+ * The daily run and the startup resume fire on every instance; only the one that takes
+ * the {@code interest-accrual} lease from {@link JobLeases} plans or resumes. A
+ * checkpoint advances by the loans its chunk's updates actually changed, so a chunk
+ * that overlaps another run's work is not counted twice.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Service
+public class InterestAccrualJob {
+
+    private static final Logger log = LoggerFactory.getLogger(InterestAccrualJob.class);
+
+    private static final String SELECT_CHUNK = "SELECT id, outstanding_amount, offered_interest_rate, customer_ref FROM loans "
+            + "WHERE loan_status = ? AND id > ? AND id <= ? "
+            + "AND (last_accrual_date IS NULL OR last_accrual_date < ?) ORDER BY id LIMIT ?";
+    private static final String LEASE = "interest-accrual";
+
+    private static final String UPDATE_LOAN = "UPDATE loans SET outstanding_amount = ?, last_accrual_date = ?, updated_at = ? "
+            + "WHERE id = ? AND (last_accrual_date IS NULL OR last_accrual_date < ?)";
+    private static final String ADVANCE_CHECKPOINT = "UPDATE accrual_checkpoints SET last_processed_id = ?, "
+            + "loans_processed = loans_processed + ?, interest_accrued_paise = interest_accrued_paise + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccrualCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private LoanVersionTracker loanVersionTracker;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Value("${bms.accrual.partitions:16}")
+    private int partitions;
+
+    @Value("${bms.accrual.workers:4}")
+    private int workers;
+
+    @Value("${bms.accrual.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${bms.accrual.lease-ms:3600000}")
+    private long leaseMs;
+
+    private Counter skipped;
+
+    @PostConstruct
+    void registerMetrics() {
+        skipped = Counter.builder("bms.accrual.skipped")
+                .description("Disbursed loans left unaccrued because their outstanding amount is missing")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${bms.accrual.cron:0 30 0 * * *}")
+    public void runDaily() {
+        if (!jobLeases.tryAcquire(LEASE, Duration.ofMillis(leaseMs))) {
+            log.info("Skipping the daily interest accrual run: another instance holds the lease");
+            return;
+        }
+        run(LocalDate.now());
+    }
+
+    // Resumes off the startup thread so readiness is not held up by a long run
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeIncompleteRuns() {
+        Set<LocalDate> incomplete = new TreeSet<>();
+        shardRouter.onEveryShard(checkpointRepository::findIncompleteRunDates).forEach(incomplete::addAll);
+        if (incomplete.isEmpty()) {
+            return;
+        }
+        if (!jobLeases.tryAcquire(LEASE, Duration.ofMillis(leaseMs))) {
+            log.info("Leaving incomplete interest accrual runs {} to the instance holding the lease", incomplete);
+            return;
+        }
+        Thread resume = new Thread(() -> {
+            for (LocalDate runDate : incomplete) {
+                try {
+                    log.info("Resuming interest accrual run for {}", runDate);
+                    run(runDate);
+                } catch (Exception e) {
+                    log.error("Resumed interest accrual run for {} failed", runDate, e);
+                }
+            }
+        }, "accrual-resume");
+        resume.setDaemon(true);
+        resume.start();
+    }
+
+    public synchronized List<AccrualCheckpoint> run(LocalDate runDate) {
+        List<List<AccrualCheckpoint>> plans = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            plans.add(shardRouter.onShard(shard, () -> {
+                List<AccrualCheckpoint> plan = new ArrayList<>(checkpointRepository.findByRunDateOrderByPartitionNoAsc(runDate));
+                plan.addAll(checkpointRepository.saveAll(planPartitions(runDate, plan)));
+                return plan;
+            }));
+        }
+
+        long started = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int shard = 0; shard < plans.size(); shard++) {
+                int target = shard;
+                for (AccrualCheckpoint checkpoint : plans.get(shard)) {
+                    if (checkpoint.getStatus() != AccrualCheckpoint.Status.COMPLETED) {
+                        futures.add(pool.submit(() -> shardRouter.runOnShard(target, () -> runPartition(checkpoint, runDate))));
+                    }
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Interest accrual for " + runDate + " failed; it will resume from its checkpoints", e);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<AccrualCheckpoint> result = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            result.addAll(shardRouter.onShard(shard, () -> checkpointRepository.findByRunDateOrderByPartitionNoAsc(runDate)));
+        }
+        log.info("Interest accrual for {} finished in {} ms over {} partitions",
+                runDate, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), result.size());
+        return result;
+    }
+
+    // Partitions to add to the existing plan: the whole id range for a new day, else one
+    // for loans above the last planned id; none while nothing new is disbursed
+    private List<AccrualCheckpoint> planPartitions(LocalDate runDate, List<AccrualCheckpoint> existing) {
+        long plannedUpTo = existing.stream().mapToLong(AccrualCheckpoint::getRangeEnd).max().orElse(0L);
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM loans WHERE loan_status = ? AND id > ?",
+                Loan.LoanStatus.DISBURSED.name(), plannedUpTo);
+        List<AccrualCheckpoint> plan = new ArrayList<>();
+        if (bounds.get("min_id") == null) {
+            return plan;
+        }
+        long minId = ((Number) bounds.get("min_id")).longValue();
+        long maxId = ((Number) bounds.get("max_id")).longValue();
+        int partitionNo = existing.size();
+        if (!existing.isEmpty()) {
+            plan.add(new AccrualCheckpoint(runDate, partitionNo, minId, maxId));
+            return plan;
+        }
+        long span = Math.max(1L, (maxId - minId + partitions) / partitions);
+        for (long start = minId; start <= maxId; start += span) {
+            plan.add(new AccrualCheckpoint(runDate, partitionNo++, start, Math.min(maxId, start + span - 1)));
+        }
+        return plan;
+    }
+
+    private void runPartition(AccrualCheckpoint checkpoint, LocalDate runDate) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long started = System.nanoTime();
+        jdbcTemplate.update("UPDATE accrual_checkpoints SET status = ?, started_at = COALESCE(started_at, ?) WHERE id = ?",
+                AccrualCheckpoint.Status.RUNNING.name(), LocalDateTime.now(), checkpoint.getId());
+
+        long cursor = checkpoint.getLastProcessedId();
+        Date accrualDate = Date.valueOf(runDate);
+        while (true) {
+            Set<String> customers = new HashSet<>();
+            List<Long> unknownOutstanding = new ArrayList<>();
+            List<long[]> chunk = jdbcTemplate.query(SELECT_CHUNK,
+                    (rs, rowNum) -> {
+                        if (rs.getBigDecimal(2) == null) {
+                            unknownOutstanding.add(rs.getLong(1));
+                            return new long[] { rs.getLong(1) };
+                        }
+                        customers.add(rs.getString(4));
+                        long outstanding = Money.toPaise(rs.getBigDecimal(2));
+                        long rateBps = rs.getBigDecimal(3) != null ? Money.toBasisPoints(rs.getBigDecimal(3)) : 0L;
+                        return new long[] { rs.getLong(1), outstanding, Money.dailyInterestPaise(outstanding, rateBps) };
+                    },
+                    Loan.LoanStatus.DISBURSED.name(), cursor, checkpoint.getRangeEnd(), accrualDate, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            long lastId = chunk.get(chunk.size() - 1)[0];
+            int fetched = chunk.size();
+            if (!unknownOutstanding.isEmpty()) {
+                skipped.increment(unknownOutstanding.size());
+                log.warn("Skipped accruing {} disbursed loans with no outstanding amount: ids {}",
+                        unknownOutstanding.size(), unknownOutstanding);
+                chunk.removeIf(row -> row.length == 1);
+            }
+            accrueChunk(checkpoint.getId(), chunk, lastId, accrualDate, customers);
+            cursor = lastId;
+            if (fetched < chunkSize) {
+                break;
+            }
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        jdbcTemplate.update("UPDATE accrual_checkpoints SET status = ?, completed_at = ?, elapsed_ms = elapsed_ms + ? WHERE id = ?",
+                AccrualCheckpoint.Status.COMPLETED.name(), LocalDateTime.now(), elapsedMs, checkpoint.getId());
+        sample.stop(Timer.builder("bms.accrual.partition")
+                .description("Wall time to accrue one loan id partition")
+                .register(meterRegistry));
+        log.info("Accrual partition {} [{}..{}] for {} done in {} ms",
+                checkpoint.getPartitionNo(), checkpoint.getRangeStart(), checkpoint.getRangeEnd(), runDate, elapsedMs);
+    }
+
+    // Applies one chunk of {id, outstanding, interest} rows and advances the checkpoint to lastId in the
+    // same transaction, counting only the loans whose update matched: one already accrued for the day
+    // since the chunk was read is neither processed nor accrued again
+    void accrueChunk(Long checkpointId, List<long[]> chunk, long lastId, Date accrualDate, Set<String> customers) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            int[][] updated = jdbcTemplate.batchUpdate(UPDATE_LOAN, chunk, chunk.size(), (ps, row) -> {
+                ps.setBigDecimal(1, Money.fromPaise(row[1] + row[2]));
+                ps.setDate(2, accrualDate);
+                ps.setObject(3, now);
+                ps.setLong(4, row[0]);
+                ps.setDate(5, accrualDate);
+            });
+            int processed = 0;
+            long interest = 0L;
+            int row = 0;
+            for (int[] batch : updated) {
+                for (int count : batch) {
+                    if (count > 0) {
+                        processed++;
+                        interest += chunk.get(row)[2];
+                    }
+                    row++;
+                }
+            }
+            jdbcTemplate.update(ADVANCE_CHECKPOINT, lastId, processed, interest, checkpointId);
+            loanVersionTracker.customersChanged(customers);
+        });
+    }
+}
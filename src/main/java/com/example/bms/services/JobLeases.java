@@ -0,0 +1,59 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.utils.ShardRouter;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Leases in {@code job_leases} on the home shard, so a scheduled job that fires on every
+ * instance runs on one. Taking a lease is a single conditional UPDATE (or the INSERT of
+ * a job's first lease), so two instances can never both hold it. A lease is not released
+ * early: it runs out, and a crashed holder only delays the job until then. Expiry is
+ * judged by the instances' clocks, which must agree to well within the lease.
+ */
+@Service
+public class JobLeases {
+
+    // This instance, as the owner of its leases
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // True if this instance now holds the job's lease for the given time, taking or renewing it
+    public boolean tryAcquire(String job, Duration lease) {
+        return tryAcquire(job, instanceId, lease);
+    }
+
+    boolean tryAcquire(String job, String owner, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp until = Timestamp.valueOf(now.plus(lease));
+        return shardRouter.onHomeShard(() -> {
+            int taken = jdbcTemplate.update(
+                    "UPDATE job_leases SET owner = ?, leased_until = ? WHERE job = ? AND (owner = ? OR leased_until < ?)",
+                    owner, until, job, owner, Timestamp.valueOf(now));
+            if (taken == 1) {
+                return true;
+            }
+            try {
+                jdbcTemplate.update("INSERT INTO job_leases (job, owner, leased_until) VALUES (?, ?, ?)", job, owner, until);
+                return true;
+            } catch (DuplicateKeyException e) {
+                // Another instance holds it
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanSummary;
+import com.example.bms.repositories.LoanRepository;
+import com.example.bms.utils.LoanSegment;
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cold tier for {@code CLOSED} loans: once a loan has been closed for
+ * {@code bms.archive.retention-days}, the nightly run copies it into an immutable
+ * {@link LoanSegment} file and the hot {@code loans} table no longer holds it. Loan
+ * reads look in both tiers, the hot one first.
+ *
+ * Rows are only purged from the table {@code bms.archive.purge-delay-ms} after their
+ * segment was written, so other instances sharing the directory have picked the segment
+ * up by then. A {@code .pending} marker, created before the segment, records that the
+ * purge is still owed; a crash anywhere leaves either the rows or the segment in place,
+ * and a loan that ends up in both tiers (or in two segments) is served from the hot
+ * table or the newest segment. The purge only deletes rows still closed and unchanged
+ * since they were copied. MySQL keeps the freed pages until {@code OPTIMIZE TABLE loans}.
+ *
+ * Every instance reads the segments. The nightly run fires everywhere, but only the instance
+ * that takes the {@code loan-archive} lease from {@link JobLeases} archives; the lease lasts
+ * {@code bms.archive.lease-ms}, past the moment the others' cron fires.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Service
+public class LoanArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanArchive.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("loans-(\\d+)-(\\d+)\\.(seg|pending|tmp)");
+    private static final String PURGE_SQL = "DELETE FROM loans WHERE loan_id = ? AND loan_status = ? AND updated_at <= ?";
+    private static final int PURGE_BATCH = 500;
+    private static final String LEASE = "loan-archive";
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Value("${bms.archive.directory:archive/loans}")
+    private String directory;
+
+    @Value("${bms.archive.retention-days:365}")
+    private int retentionDays;
+
+    @Value("${bms.archive.segment-max-loans:50000}")
+    private int segmentMaxLoans;
+
+    @Value("${bms.archive.records-per-block:64}")
+    private int recordsPerBlock;
+
+    @Value("${bms.archive.purge-delay-ms:120000}")
+    private long purgeDelayMs;
+
+    @Value("${bms.archive.lease-ms:3600000}")
+    private long leaseMs;
+
+    // Newest first; replaced as a whole when a segment is added
+    private volatile List<Segment> segments = List.of();
+    private long lastStamp;
+    private Counter archived;
+    private Counter purged;
+
+    @PostConstruct
+    void init() {
+        archived = Counter.builder("bms.archive.loans")
+                .description("Loans copied to the archive, and hot rows purged after the copy")
+                .tag("action", "archived")
+                .register(meterRegistry);
+        purged = Counter.builder("bms.archive.loans")
+                .description("Loans copied to the archive, and hot rows purged after the copy")
+                .tag("action", "purged")
+                .register(meterRegistry);
+        Gauge.builder("bms.archive.segments", this, archive -> archive.segments.size())
+                .description("Loan archive segments open for reads")
+                .register(meterRegistry);
+        loadSegments();
+    }
+
+    // Loans of one customer from the archive merged into their hot loans, by loan id
+    public List<Loan> withArchived(String customerId, List<Loan> hot) {
+        return merge(customerId, hot, Loan::getLoanId, Loan::getId, loan -> loan);
+    }
+
+    // Same for a list view of the hot loans
+    public List<LoanSummary> withArchivedSummaries(String customerId, List<LoanSummary> hot) {
+        return merge(customerId, hot, LoanSummary::getLoanId, LoanSummary::getId, LoanSummary::of);
+    }
+
+    private <T> List<T> merge(String customerId, List<T> hot, Function<T, String> loanIdOf, Function<T, Long> idOf,
+                              Function<Loan, T> fromArchive) {
+        Map<String, Loan> byLoanId = new LinkedHashMap<>();
+        for (Segment segment : segmentsOf(shardRouter.shardOfCustomer(customerId))) {
+            for (Loan loan : segment.data.findByCustomerId(Long.parseLong(customerId))) {
+                byLoanId.putIfAbsent(loan.getLoanId(), loan);
+            }
+        }
+        if (byLoanId.isEmpty()) {
+            return hot;
+        }
+        List<T> merged = new ArrayList<>(hot);
+        for (T loan : hot) {
+            byLoanId.remove(loanIdOf.apply(loan));
+        }
+        for (Loan loan : byLoanId.values()) {
+            merged.add(fromArchive.apply(loan));
+        }
+        merged.sort(Comparator.comparing(idOf));
+        return merged;
+    }
+
+    public Optional<Loan> findLoan(String customerId, String loanId) {
+        for (Segment segment : segmentsOf(shardRouter.shardOfCustomer(customerId))) {
+            Optional<Loan> loan = segment.data.findByLoanId(loanId);
+            if (loan.isPresent()) {
+                return loan.filter(found -> found.getCustomerId().toString().equals(customerId));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // For callers that do not know whose loan it is; looks through every segment
+    public boolean contains(String loanId) {
+        for (Segment segment : segments) {
+            if (segment.data.findByLoanId(loanId).isPresent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Scheduled(cron = "${bms.archive.cron:0 0 3 * * *}")
+    public void runNightly() {
+        // Held until it runs out, not released, so an instance whose cron fires a little later skips the night
+        if (!jobLeases.tryAcquire(LEASE, Duration.ofMillis(leaseMs))) {
+            log.info("Skipping the nightly archive run: another instance holds the lease");
+            return;
+        }
+        archive(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    // Copies loans closed before the cutoff into new segments; returns how many were copied
+    public synchronized int archive(LocalDateTime closedBefore) {
+        int copied = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            int target = shard;
+            copied += shardRouter.onShard(shard, () -> archiveShard(target, closedBefore));
+        }
+        return copied;
+    }
+
+    private int archiveShard(int shard, LocalDateTime closedBefore) {
+        int copied = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Loan> batch = loanRepository.findArchiveCandidates(Loan.LoanStatus.CLOSED, closedBefore, afterId,
+                    PageRequest.of(0, segmentMaxLoans));
+            if (batch.isEmpty()) {
+                break;
+            }
+            writeSegment(shard, batch);
+            copied += batch.size();
+            afterId = batch.get(batch.size() - 1).getId();
+            if (batch.size() < segmentMaxLoans) {
+                break;
+            }
+        }
+        return copied;
+    }
+
+    private void writeSegment(int shard, List<Loan> loans) {
+        long stamp = Math.max(System.currentTimeMillis(), lastStamp + 1);
+        lastStamp = stamp;
+        Path dir = Paths.get(directory);
+        String name = "loans-" + shard + "-" + stamp;
+        Path tmp = dir.resolve(name + ".tmp");
+        Path target = dir.resolve(name + ".seg");
+        try {
+            Files.createDirectories(dir);
+            // Before the segment exists, so there is never a segment whose purge could be forgotten
+            Files.createFile(dir.resolve(name + ".pending"));
+            LoanSegment.write(tmp, loans, recordsPerBlock);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            register(new Segment(shard, stamp, LoanSegment.open(target)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write loan archive segment " + target, e);
+        }
+        archived.increment(loans.size());
+        log.info("Archived {} closed loans of shard {} to {}", loans.size(), shard, target);
+    }
+
+    // Shares the archiver's lock, so a segment being written is never mistaken for an abandoned one
+    @Scheduled(fixedDelayString = "${bms.archive.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        loadSegments();
+        purgeArchived(System.currentTimeMillis() - purgeDelayMs);
+    }
+
+    // Opens segments written since the last look, by this or another instance
+    private synchronized void loadSegments() {
+        Set<Path> known = new HashSet<>();
+        for (Segment segment : segments) {
+            known.add(segment.data.path());
+        }
+        for (Path file : list(".seg")) {
+            if (known.contains(file)) {
+                continue;
+            }
+            Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+            name.matches();
+            try {
+                register(new Segment(Integer.parseInt(name.group(1)), Long.parseLong(name.group(2)), LoanSegment.open(file)));
+            } catch (IOException e) {
+                log.error("Skipping unreadable loan archive segment {}", file, e);
+            }
+        }
+    }
+
+    private synchronized void register(Segment segment) {
+        List<Segment> next = new ArrayList<>(segments);
+        next.add(segment);
+        next.sort(Comparator.comparingLong((Segment s) -> s.stamp).reversed());
+        segments = List.copyOf(next);
+    }
+
+    private void purgeArchived(long writtenBefore) {
+        for (Path marker : list(".pending")) {
+            Matcher name = SEGMENT_NAME.matcher(marker.getFileName().toString());
+            name.matches();
+            int shard = Integer.parseInt(name.group(1));
+            long stamp = Long.parseLong(name.group(2));
+            if (stamp > writtenBefore) {
+                continue;
+            }
+            Optional<Segment> segment = segments.stream()
+                    .filter(s -> s.shard == shard && s.stamp == stamp)
+                    .findFirst();
+            try {
+                if (segment.isPresent()) {
+                    int deleted = shardRouter.onShard(shard, () -> purge(segment.get().data));
+                    purged.increment(deleted);
+                    log.info("Purged {} archived loans of shard {} from the hot table", deleted, shard);
+                } else {
+                    // The write never completed, so the rows were not copied and stay where they are
+                    Files.deleteIfExists(marker.resolveSibling("loans-" + shard + "-" + stamp + ".tmp"));
+                }
+                Files.deleteIfExists(marker);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not purge archived loans for {}; will retry", marker, e);
+            }
+        }
+    }
+
+    private int purge(LoanSegment segment) {
+        List<Loan> loans = segment.readAll();
+        int deleted = 0;
+        for (int start = 0; start < loans.size(); start += PURGE_BATCH) {
+            List<Loan> chunk = loans.subList(start, Math.min(loans.size(), start + PURGE_BATCH));
+            int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(PURGE_SQL, chunk, chunk.size(),
+                    (ps, loan) -> {
+                        ps.setString(1, loan.getLoanId());
+                        ps.setString(2, Loan.LoanStatus.CLOSED.name());
+                        ps.setObject(3, loan.getUpdatedAt());
+                    }));
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    deleted += Math.max(count, 0);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private List<Segment> segmentsOf(int shard) {
+        List<Segment> ofShard = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.shard == shard) {
+                ofShard.add(segment);
+            }
+        }
+        return ofShard;
+    }
+
+    private List<Path> list(String suffix) {
+        Path dir = Paths.get(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(suffix) && SEGMENT_NAME.matcher(fileName).matches()) {
+                    files.add(file);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing archived yet
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list loan archive directory " + dir, e);
+        }
+        return files;
+    }
+
+    private static final class Segment {
+        final int shard;
+        final long stamp;
+        final LoanSegment data;
+
+        Segment(int shard, long stamp, LoanSegment data) {
+            this.shard = shard;
+            this.stamp = stamp;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out unique loan IDs from blocks reserved in the {@code id_sequences} table.
+ *
+ * One short transaction reserves {@code blockSize} numbers, after which IDs are
+ * served from memory. Unused numbers in a block are lost on restart, which is fine
+ * for identifiers that only need to be unique. Call it outside any transaction: a
+ * refill takes a second pooled connection while other callers wait on this monitor.
+ */
+@Component
+public class LoanIdAllocator {
+
+    static final String SEQUENCE_NAME = "loan_id";
+    private static final String PREFIX = "LOAN";
+
+    @Autowired
+    private IdSequences idSequences;
+
+    @Value("${bms.loan-id.block-size:1000}")
+    private int blockSize;
+
+    private long next;
+    private long limit;
+
+    public synchronized String nextLoanId() {
+        if (next >= limit) {
+            // Seeded above the old LOAN<epoch millis> IDs so both schemes never collide
+            next = idSequences.reserveBlock(SEQUENCE_NAME, blockSize, System::currentTimeMillis);
+            limit = next + blockSize;
+        }
+        return PREFIX + next++;
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanImportRow;
+import com.example.bms.models.OutboxEvent;
+import com.example.bms.utils.Money;
+import com.example.bms.utils.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Streams NDJSON loan applications into the loans table with JDBC batch inserts.
+ * Each loan's outbox event is batched into the same transaction.
+ *
+ * Rows are parsed and validated one line at a time, and the report keeps counts plus
+ * only the failed rows (at most max-reported-failures of them), so memory use is bounded
+ * by the batch size rather than the file size. A customer may only import loans for
+ * themselves: rows naming any other customerId fail. Each batch is committed in its own
+ * transaction; if a batch is rejected its rows are retried one by one so the report
+ * can say exactly which rows failed. With sharding a batch is split by customer shard
+ * and each part is committed on its own shard.
+ *
+ * Rows are priced the way loan applications are, by CustomerService.prepareApplications:
+ * a row's own offeredInterestRate is kept, and rows without one are priced by the
+ * PricingEngine, with each customer's exposure and tenure read once per batch.
+ */
+@Service
+public class LoanImportService {
+
+    static final String INSERT_SQL = "INSERT INTO loans (loan_id, amount, loan_type, offered_interest_rate, "
+            + "customer_id, loan_status, tenure_months, purpose, monthly_emi, application_date, created_at, updated_at, customer_ref) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String OUTBOX_SQL = "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    static final int MAX_TENURE_MONTHS = 480;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private LoanVersionTracker loanVersionTracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${bms.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${bms.import.max-reported-failures:1000}")
+    private int maxReportedFailures;
+
+    /** Imports the rows of ndjson on behalf of customerId, which every row must name. */
+    public Map<String, Object> importLoans(InputStream ndjson, String customerId) throws IOException {
+        Failures failures = new Failures(maxReportedFailures);
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        int totalRows = 0;
+        int imported = 0;
+        int lineNumber = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            totalRows++;
+            try {
+                LoanImportRow row = objectMapper.readValue(line, LoanImportRow.class);
+                validate(row, customerId);
+                batch.add(new PendingRow(lineNumber, row));
+            } catch (Exception e) {
+                failures.add(lineNumber, e.getMessage());
+            }
+            if (batch.size() >= batchSize) {
+                imported += flush(batch, failures);
+            }
+        }
+        imported += flush(batch, failures);
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("totalRows", totalRows);
+        report.put("imported", imported);
+        report.put("failed", totalRows - imported);
+        report.put("failures", failures.sorted());
+        report.put("failuresTruncated", failures.truncated);
+        return report;
+    }
+
+    private void validate(LoanImportRow row, String customerId) {
+        if (row.getCustomerId() == null || row.getCustomerId().isBlank()) {
+            throw new IllegalArgumentException("customerId is required");
+        }
+        if (!row.getCustomerId().equals(customerId)) {
+            throw new IllegalArgumentException("customerId " + row.getCustomerId() + " is not the authenticated customer");
+        }
+        if (row.getLoanType() == null) {
+            throw new IllegalArgumentException("loanType is required");
+        }
+        if (row.getAmount() == null || row.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("amount must be positive");
+        }
+        if (row.getAmount().compareTo(Money.MAX_AMOUNT) > 0) {
+            throw new IllegalArgumentException("amount must not exceed " + Money.MAX_AMOUNT.toPlainString());
+        }
+        if (row.getTenureMonths() == null || row.getTenureMonths() <= 0 || row.getTenureMonths() > MAX_TENURE_MONTHS) {
+            throw new IllegalArgumentException("tenureMonths must be between 1 and " + MAX_TENURE_MONTHS);
+        }
+        if (row.getOfferedInterestRate() != null && row.getOfferedInterestRate().signum() < 0) {
+            throw new IllegalArgumentException("offeredInterestRate must not be negative");
+        }
+    }
+
+    private int flush(List<PendingRow> batch, Failures failures) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<PendingRow>> byShard = new TreeMap<>();
+        for (PendingRow pending : batch) {
+            byShard.computeIfAbsent(shardRouter.shardOfCustomer(pending.row.getCustomerId()), shard -> new ArrayList<>())
+                    .add(pending);
+        }
+        batch.clear();
+        int inserted = 0;
+        for (Map.Entry<Integer, List<PendingRow>> shard : byShard.entrySet()) {
+            inserted += shardRouter.onShard(shard.getKey(), () -> flushShard(shard.getValue(), failures));
+        }
+        return inserted;
+    }
+
+    // All rows belong to customers on the currently bound shard
+    private int flushShard(List<PendingRow> batch, Failures failures) {
+        Set<String> knownCustomers = findExistingCustomers(batch);
+        List<PendingRow> known = new ArrayList<>(batch.size());
+        Map<String, List<Loan>> loansByCustomer = new LinkedHashMap<>();
+        for (PendingRow pending : batch) {
+            if (!knownCustomers.contains(pending.row.getCustomerId())) {
+                failures.add(pending.lineNumber, "Unknown customerId " + pending.row.getCustomerId());
+                continue;
+            }
+            known.add(pending);
+            loansByCustomer.computeIfAbsent(pending.row.getCustomerId(), customerId -> new ArrayList<>()).add(pending.loan);
+        }
+        if (known.isEmpty()) {
+            return 0;
+        }
+        try {
+            // Rows are already-validated loans of existing customers; nothing about them is pending elsewhere
+            customerService.prepareApplications(loansByCustomer, Collections.emptyMap());
+        } catch (RuntimeException e) {
+            for (PendingRow pending : known) {
+                failures.add(pending.lineNumber, "Could not price the loan: " + e.getMessage());
+            }
+            return 0;
+        }
+
+        List<PendingRow> insertable = new ArrayList<>(known.size());
+        for (PendingRow pending : known) {
+            try {
+                pending.event = outboxService.loanStatusChanged(pending.loan.getLoanId(), pending.row.getCustomerId(),
+                        null, Loan.LoanStatus.PENDING, LocalDateTime.now());
+                insertable.add(pending);
+            } catch (Exception e) {
+                failures.add(pending.lineNumber, e.getMessage());
+            }
+        }
+
+        int inserted = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, insertable, insertable.size(), PendingRow::bind);
+                jdbcTemplate.batchUpdate(OUTBOX_SQL, insertable, insertable.size(), PendingRow::bindEvent);
+                loanVersionTracker.customersChanged(insertable.stream().map(pending -> pending.row.getCustomerId()).toList());
+            });
+            inserted = insertable.size();
+        } catch (Exception batchFailure) {
+            // Find the offending rows by replaying the batch one row at a time
+            for (PendingRow pending : insertable) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(INSERT_SQL, ps -> PendingRow.bind(ps, pending));
+                        jdbcTemplate.update(OUTBOX_SQL, ps -> PendingRow.bindEvent(ps, pending));
+                        loanVersionTracker.customerChanged(pending.row.getCustomerId());
+                    });
+                    inserted++;
+                } catch (Exception e) {
+                    failures.add(pending.lineNumber, e.getMessage());
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private Set<String> findExistingCustomers(List<PendingRow> batch) {
+        Set<Long> ids = new HashSet<>();
+        for (PendingRow pending : batch) {
+            try {
+                ids.add(Long.valueOf(pending.row.getCustomerId()));
+            } catch (NumberFormatException ignored) {
+                // Reported as an unknown customer below
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> existing = new HashSet<>();
+        namedJdbcTemplate.query("SELECT id FROM customers WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    existing.add(Long.toString(rs.getLong(1)));
+                });
+        return existing;
+    }
+
+    // The first few failed rows, by line; past the limit only the count in the report grows
+    private static final class Failures {
+        final int limit;
+        final List<Map<String, Object>> rows = new ArrayList<>();
+        boolean truncated;
+
+        Failures(int limit) {
+            this.limit = limit;
+        }
+
+        void add(int lineNumber, String error) {
+            if (rows.size() >= limit) {
+                truncated = true;
+                return;
+            }
+            Map<String, Object> failure = new HashMap<>();
+            failure.put("line", lineNumber);
+            failure.put("error", error);
+            rows.add(failure);
+        }
+
+        List<Map<String, Object>> sorted() {
+            rows.sort(Comparator.comparingInt(r -> (Integer) r.get("line")));
+            return rows;
+        }
+    }
+
+    private static final class PendingRow {
+        final int lineNumber;
+        final LoanImportRow row;
+        // Given its loan ID, rate and EMI by CustomerService.prepareApplications
+        final Loan loan = new Loan();
+        OutboxEvent event;
+
+        PendingRow(int lineNumber, LoanImportRow row) {
+            this.lineNumber = lineNumber;
+            this.row = row;
+            loan.setLoanType(row.getLoanType());
+            loan.setAmountInPaise(Money.toPaise(row.getAmount()));
+            loan.setTenureMonths(row.getTenureMonths());
+            loan.setOfferedInterestRate(row.getOfferedInterestRate());
+            loan.setPurpose(row.getPurpose());
+        }
+
+        static void bind(PreparedStatement ps, PendingRow pending) throws SQLException {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            ps.setString(1, pending.loan.getLoanId());
+            ps.setBigDecimal(2, pending.loan.getAmount());
+            ps.setString(3, pending.row.getLoanType().name());
+            ps.setBigDecimal(4, pending.loan.getOfferedInterestRate());
+            ps.setString(5, pending.row.getCustomerId());
+            ps.setString(6, Loan.LoanStatus.PENDING.name());
+            ps.setInt(7, pending.row.getTenureMonths());
+            ps.setString(8, pending.row.getPurpose());
+            ps.setBigDecimal(9, pending.loan.getMonthlyEmi());
+            ps.setTimestamp(10, now);
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+            // Only rows of known customers get here, so the id parses
+            ps.setLong(13, Long.parseLong(pending.row.getCustomerId()));
+        }
+
+        static void bindEvent(PreparedStatement ps, PendingRow pending) throws SQLException {
+            LoanImportService.bindEvent(ps, pending.event);
+        }
+    }
+
+    static void bindEvent(PreparedStatement ps, OutboxEvent event) throws SQLException {
+        ps.setString(1, event.getAggregateType());
+        ps.setString(2, event.getAggregateId());
+        ps.setString(3, event.getEventType());
+        ps.setString(4, event.getPayload());
+        ps.setTimestamp(5, Timestamp.valueOf(event.getCreatedAt()));
+    }
+}
@@ -0,0 +1,705 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanApplication;
+import com.example.bms.models.LoanApplication.Status;
+import com.example.bms.repositories.LoanApplicationRepository;
+import com.example.bms.utils.AuditLog;
+import com.example.bms.utils.ReadYourWrites;
+import com.example.bms.utils.RejectedCallException;
+import com.example.bms.utils.RingBuffer;
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Takes loan applications off the request thread. {@link #submit} checks the ring has
+ * room, saves the application as a QUEUED row in {@code loan_applications} on the
+ * customer's shard and queues it; four stages, one thread each, then move it along
+ * bounded {@link RingBuffer}s:
+ *
+ * validate (the checks the import applies) → price (loan ID, rate, EMI; exposure and
+ * registration dates read once per shard in the batch) → persist (up to
+ * {@code bms.loan-intake.batch-size} applications per shard as batched inserts in one
+ * transaction, as the bulk import writes them) → notify (publish the outcome, audit it).
+ *
+ * A stage whose next ring is full waits for it, so a slow database backs up into the
+ * intake ring and {@link #submit} starts refusing instead of growing a queue. If a batch
+ * fails, its applications are retried one by one so a single bad row only fails itself;
+ * while the database circuit is open, the persist stage waits for it rather than failing
+ * the batch.
+ *
+ * The row is the record of the application: its outcome is written to it (ACCEPTED in
+ * the transaction that saves the loan), and {@link #find} reads it, so any instance can
+ * answer for it for as long as the row is kept. The rings are only a work queue. What is
+ * in them when the instance dies, or still queued when {@link #stop} gives up, stays
+ * QUEUED in the table, and {@link #recoverStalled} on any instance queues it again once
+ * it has not been touched for {@code bms.loan-intake.recover-after-ms}. An application
+ * may therefore be processed twice; the outcome is only written while the row is still
+ * QUEUED, and the loan is only saved under that same check, so it takes effect once;
+ * only the instance whose write moved the row out of QUEUED counts, audits and publishes it.
+ *
+ * The row keeps the Idempotency-Key it was sent with, unique per customer, so a retry
+ * that gets past {@link IdempotencyService} (its stored response was lost and the key
+ * taken over) is answered with the original application instead of queuing a second.
+ * A FAILED application forgets its key, here and in {@code idempotency_keys}, so the
+ * client can send it again with the same key; REJECTED ones would fail the same way
+ * again and keep it.
+ *
+ * Metrics: {@code bms.loan-intake.backlog} (per stage), {@code bms.loan-intake.applications}
+ * (outcome=accepted|rejected|failed|refused), {@code bms.loan-intake.batch.size} and
+ * {@code bms.loan-intake.latency} (submit to outcome).
+ */
+// Never lazy: the stages should be running before the first application arrives
+@Lazy(false)
+@Service
+public class LoanIntakePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanIntakePipeline.class);
+
+    // An idle stage sleeps until woken by its producer; the timeout only bounds how late it notices a stop
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    // An application on its way through the stages
+    public static final class Application {
+        private final String applicationId;
+        private final String customerId;
+        private final Loan loan;
+        private final String idempotencyKey;
+        private final long submittedAtNanos = System.nanoTime();
+        private volatile Status status = Status.QUEUED;
+        private volatile String message;
+        // Set by the stage that decides the outcome; the notify stage publishes it
+        private Status outcome;
+        private String reason;
+        private long pendingExposurePaise;
+        // The stage it was last handed to; null once published
+        private Stage at;
+
+        Application(String applicationId, String customerId, Loan loan, String idempotencyKey) {
+            this.applicationId = applicationId;
+            this.customerId = customerId;
+            this.loan = loan;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        // One already in the table, as last written there
+        static Application existing(LoanApplication row) {
+            Application application = new Application(row.getApplicationId(), row.getCustomerId(), row.toLoan(),
+                    row.getIdempotencyKey());
+            application.status = row.getStatus();
+            application.message = row.getMessage();
+            return application;
+        }
+
+        public String getApplicationId() {
+            return applicationId;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        // Only complete once the status is ACCEPTED
+        public Loan getLoan() {
+            return loan;
+        }
+
+        // As this instance last saw it; the row has the last word
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${bms.loan-intake.ring-capacity:1024}")
+    private int ringCapacity;
+
+    @Value("${bms.loan-intake.batch-size:128}")
+    private int batchSize;
+
+    @Value("${bms.loan-intake.recover-after-ms:60000}")
+    private long recoverAfterMs;
+
+    @Value("${bms.loan-intake.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private Stage validator;
+    private Stage pricer;
+    private Stage persister;
+    private Stage notifier;
+    // Applications somewhere in this instance's rings, which recovery must not queue twice
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Amounts priced but not yet saved, per customer, so a burst of applications is priced on its total.
+    // Released after the commit: a loan may count twice for a moment, never not at all
+    private final Map<String, Long> pendingExposure = new ConcurrentHashMap<>();
+    private volatile boolean stopping;
+
+    private Counter accepted;
+    private Counter rejected;
+    private Counter failed;
+    private Counter refused;
+    private DistributionSummary batchSizes;
+    private Timer latency;
+
+    @PostConstruct
+    void start() {
+        accepted = outcomeCounter("accepted", "Applications saved as loans");
+        rejected = outcomeCounter("rejected", "Applications that failed validation");
+        failed = outcomeCounter("failed", "Applications that could not be priced or saved");
+        refused = outcomeCounter("refused", "Applications turned away because the intake ring was full");
+        batchSizes = DistributionSummary.builder("bms.loan-intake.batch.size")
+                .description("Applications saved per transaction")
+                .register(meterRegistry);
+        latency = Timer.builder("bms.loan-intake.latency")
+                .description("Time from submission to the published outcome")
+                .register(meterRegistry);
+
+        validator = new Stage("validate", null, this::validate);
+        pricer = new Stage("price", validator, this::price);
+        persister = new Stage("persist", pricer, this::persist);
+        notifier = new Stage("notify", persister, this::notify);
+    }
+
+    // Stops taking applications and lets the stages finish the ones already queued
+    @PreDestroy
+    void stop() throws InterruptedException {
+        stopping = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        for (Stage stage : List.of(validator, pricer, persister, notifier)) {
+            stage.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        int unfinished = backlog();
+        if (unfinished > 0) {
+            log.warn("Loan intake stopped with {} applications still queued; they will be recovered from the table", unfinished);
+        }
+    }
+
+    /**
+     * Saves and queues an application for customerId; idempotencyKey is the request's
+     * key, if it had one. Empty when the intake ring is full (or the pipeline is
+     * stopping): the caller should push back and let the client retry. Throws
+     * {@link RejectedCallException} when the database will not take the row.
+     */
+    public Optional<Application> submit(String customerId, Loan loanApplication, String idempotencyKey) {
+        if (stopping || validator.input.size() >= validator.input.capacity()) {
+            refused.increment();
+            return Optional.empty();
+        }
+        Application application = new Application(UUID.randomUUID().toString(), customerId, loanApplication, idempotencyKey);
+        try {
+            databaseGuard.call("loan-apply", () -> {
+                record(application);
+                return null;
+            });
+        } catch (DuplicateKeyException e) {
+            // Sent before with this key, and the stored response was lost: answer with that application
+            return shardRouter.forCustomer(customerId, () -> loanApplicationRepository
+                    .findByCustomerIdAndIdempotencyKey(customerId, idempotencyKey))
+                    .map(Application::existing);
+        }
+        readYourWrites.wrote(customerId);
+        if (!enqueue(application) && withdraw(application)) {
+            // Lost the last slot to another request after the check above
+            refused.increment();
+            return Optional.empty();
+        }
+        return Optional.of(application);
+    }
+
+    // Deletes a just-saved application that could not be queued, so refusing it leaves nothing behind.
+    // False if the row stays (it could not be deleted, or was already taken); recovery then queues it
+    private boolean withdraw(Application application) {
+        try {
+            return shardRouter.forCustomer(application.customerId, () -> jdbcTemplate.update(
+                    "DELETE FROM loan_applications WHERE application_id = ? AND status = ?",
+                    application.applicationId, Status.QUEUED.name())) == 1;
+        } catch (RuntimeException e) {
+            log.warn("Could not withdraw unqueued loan application {}; recovery will queue it: {}",
+                    application.applicationId, e.getMessage());
+            return false;
+        }
+    }
+
+    // Empty if there is no such application, or it is not the customer's
+    public Optional<LoanApplication> find(String customerId, String applicationId) {
+        return shardRouter.forCustomer(customerId, () -> readYourWrites.readFor(customerId,
+                () -> loanApplicationRepository.findByApplicationIdAndCustomerId(applicationId, customerId)));
+    }
+
+    /**
+     * Queues again the applications still QUEUED in the table but untouched for
+     * {@code bms.loan-intake.recover-after-ms}: left behind by an instance that died or
+     * stopped, or whose outcome could not be written. Each is claimed by moving its
+     * updated_at forward while it still holds the value read, so only one instance takes it.
+     */
+    @Scheduled(fixedDelayString = "${bms.loan-intake.recovery-interval-ms:30000}",
+            initialDelayString = "${bms.loan-intake.recovery-interval-ms:30000}")
+    public void recoverStalled() {
+        int room = validator.input.capacity() - validator.input.size();
+        if (stopping || room <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(recoverAfterMs));
+        int recovered = 0;
+        for (List<Application> claimed : shardRouter.onEveryShard(() -> claimStalled(cutoff, room))) {
+            for (Application application : claimed) {
+                if (enqueue(application)) {
+                    recovered++;
+                }
+            }
+        }
+        if (recovered > 0) {
+            log.info("Recovered {} stalled loan applications", recovered);
+        }
+    }
+
+    // On the shard bound by the caller
+    private List<Application> claimStalled(LocalDateTime cutoff, int limit) {
+        List<Application> claimed = new ArrayList<>();
+        for (LoanApplication row : loanApplicationRepository.findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+                Status.QUEUED, cutoff, PageRequest.of(0, limit))) {
+            if (inFlight.contains(row.getApplicationId())) {
+                continue;
+            }
+            int taken = jdbcTemplate.update("UPDATE loan_applications SET updated_at = ? "
+                            + "WHERE application_id = ? AND status = ? AND updated_at = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), row.getApplicationId(),
+                    Status.QUEUED.name(), Timestamp.valueOf(row.getUpdatedAt()));
+            if (taken == 1) {
+                claimed.add(new Application(row.getApplicationId(), row.getCustomerId(), row.toLoan(), row.getIdempotencyKey()));
+            }
+        }
+        return claimed;
+    }
+
+    private boolean enqueue(Application application) {
+        inFlight.add(application.applicationId);
+        application.at = validator;
+        if (!validator.input.offer(application)) {
+            inFlight.remove(application.applicationId);
+            return false;
+        }
+        validator.wake();
+        return true;
+    }
+
+    private void record(Application application) {
+        Loan loan = application.loan;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        shardRouter.forCustomer(application.customerId, () -> jdbcTemplate.update(
+                "INSERT INTO loan_applications (application_id, customer_id, loan_type, amount, tenure_months, "
+                        + "offered_interest_rate, purpose, status, idempotency_key, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                application.applicationId, application.customerId,
+                loan.getLoanType() != null ? loan.getLoanType().name() : null, loan.getAmount(), loan.getTenureMonths(),
+                loan.getOfferedInterestRate(), loan.getPurpose(), Status.QUEUED.name(),
+                application.idempotencyKey, now, now));
+    }
+
+    // Applications queued in any stage; a snapshot
+    public int backlog() {
+        return validator.input.size() + pricer.input.size() + persister.input.size() + notifier.input.size();
+    }
+
+    private void validate(List<Application> batch) {
+        for (Application application : batch) {
+            String error = validationError(application.loan);
+            if (error == null) {
+                handOff(pricer, application);
+            } else {
+                decide(application, Status.REJECTED, error);
+            }
+        }
+    }
+
+    // One exposure and one registration query per shard in the batch, however many customers applied
+    private void price(List<Application> batch) {
+        for (List<Application> shard : byShard(batch).values()) {
+            Map<String, List<Loan>> loansByCustomer = new LinkedHashMap<>();
+            for (Application application : shard) {
+                loansByCustomer.computeIfAbsent(application.customerId, customerId -> new ArrayList<>()).add(application.loan);
+            }
+            try {
+                customerService.prepareApplications(loansByCustomer, pendingExposure);
+            } catch (RuntimeException e) {
+                for (Application application : shard) {
+                    decide(application, Status.FAILED, "Could not price the loan: " + e.getMessage());
+                }
+                continue;
+            }
+            for (Application application : shard) {
+                application.pendingExposurePaise = application.loan.getAmountInPaise();
+                pendingExposure.merge(application.customerId, application.pendingExposurePaise, Long::sum);
+                handOff(persister, application);
+            }
+        }
+    }
+
+    private void persist(List<Application> batch) {
+        for (List<Application> shard : byShard(batch).values()) {
+            save(shard);
+        }
+    }
+
+    private Map<Integer, List<Application>> byShard(List<Application> batch) {
+        Map<Integer, List<Application>> byShard = new TreeMap<>();
+        for (Application application : batch) {
+            byShard.computeIfAbsent(shardRouter.shardOfCustomer(application.customerId), shard -> new ArrayList<>())
+                    .add(application);
+        }
+        return byShard;
+    }
+
+    // All applications are on one shard
+    private void save(List<Application> applications) {
+        try {
+            Set<String> stillQueued = saveWhenDatabaseAllows(applications);
+            batchSizes.record(stillQueued.size());
+            for (Application application : applications) {
+                if (stillQueued.contains(application.applicationId)) {
+                    saved(application, Status.ACCEPTED, null);
+                } else {
+                    // Another instance recovered it and got there first
+                    releaseExposure(application);
+                    inFlight.remove(application.applicationId);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (applications.size() == 1) {
+                log.warn("Could not save loan application {}: {}", applications.get(0).applicationId, e.getMessage());
+                saved(applications.get(0), Status.FAILED, "Could not save the loan: " + e.getMessage());
+                return;
+            }
+            // The transaction rolled back; find the applications it failed on
+            for (Application application : applications) {
+                save(List.of(application));
+            }
+        }
+    }
+
+    // Returns the IDs of the applications it saved: those still QUEUED when their rows were locked
+    private Set<String> saveWhenDatabaseAllows(List<Application> applications) {
+        while (true) {
+            try {
+                return databaseGuard.call("loan-intake", () -> shardRouter.forCustomer(applications.get(0).customerId,
+                        () -> transactionTemplate.execute(status -> saveQueued(applications))));
+            } catch (RejectedCallException e) {
+                if (stopping) {
+                    throw e;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(e.getRetryAfterMs()));
+            }
+        }
+    }
+
+    // Inside the transaction: the loans and their applications' ACCEPTED status commit together
+    private Set<String> saveQueued(List<Application> applications) {
+        List<String> ids = new ArrayList<>(applications.size());
+        for (Application application : applications) {
+            ids.add(application.applicationId);
+        }
+        Set<String> stillQueued = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT application_id FROM loan_applications WHERE application_id IN (:ids) AND status = :queued FOR UPDATE",
+                new MapSqlParameterSource("ids", ids).addValue("queued", Status.QUEUED.name()),
+                String.class));
+        List<Application> saving = new ArrayList<>(stillQueued.size());
+        List<Loan> loans = new ArrayList<>(stillQueued.size());
+        for (Application application : applications) {
+            if (stillQueued.contains(application.applicationId)) {
+                saving.add(application);
+                loans.add(application.loan);
+            }
+        }
+        if (saving.isEmpty()) {
+            return stillQueued;
+        }
+        customerService.saveApplications(loans);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("UPDATE loan_applications SET status = ?, loan_id = ?, offered_interest_rate = ?, updated_at = ? "
+                        + "WHERE application_id = ?", saving, saving.size(), (ps, application) -> {
+                    ps.setString(1, Status.ACCEPTED.name());
+                    ps.setString(2, application.loan.getLoanId());
+                    ps.setBigDecimal(3, application.loan.getOfferedInterestRate());
+                    ps.setTimestamp(4, now);
+                    ps.setString(5, application.applicationId);
+                });
+        return stillQueued;
+    }
+
+    private void saved(Application application, Status outcome, String reason) {
+        releaseExposure(application);
+        decide(application, outcome, reason);
+    }
+
+    private void releaseExposure(Application application) {
+        pendingExposure.computeIfPresent(application.customerId,
+                (customerId, pending) -> pending == application.pendingExposurePaise ? null : pending - application.pendingExposurePaise);
+    }
+
+    private void decide(Application application, Status outcome, String reason) {
+        application.outcome = outcome;
+        application.reason = reason;
+        handOff(notifier, application);
+    }
+
+    private void notify(List<Application> batch) {
+        Set<String> decided = recordOutcomes(batch);
+        for (Application application : batch) {
+            if (!decided.contains(application.applicationId)) {
+                // Still QUEUED, or decided by another instance: the row has the outcome, if there is one yet
+                inFlight.remove(application.applicationId);
+                application.at = null;
+                continue;
+            }
+            application.message = application.reason;
+            application.status = application.outcome;
+            inFlight.remove(application.applicationId);
+            latency.record(System.nanoTime() - application.submittedAtNanos, TimeUnit.NANOSECONDS);
+            switch (application.outcome) {
+                case ACCEPTED -> accepted.increment();
+                case REJECTED -> rejected.increment();
+                default -> failed.increment();
+            }
+            auditTrail.record(application.customerId, AuditLog.Action.LOAN_APPLY,
+                    application.outcome == Status.ACCEPTED ? application.loan.getLoanId() : "rejected");
+            application.at = null;
+        }
+    }
+
+    // A stage threw on a batch: whatever it had not passed on yet fails, rather than staying QUEUED holding its exposure
+    private void strand(Stage stage, List<Application> batch, RuntimeException e) {
+        for (Application application : batch) {
+            if (application.at != stage) {
+                continue;
+            }
+            if (stage == notifier) {
+                // Its outcome is already recorded; only this instance's view of it is left
+                application.status = application.outcome;
+                application.at = null;
+                inFlight.remove(application.applicationId);
+            } else {
+                saved(application, Status.FAILED, "Could not process the application: " + e.getMessage());
+            }
+        }
+    }
+
+    // ACCEPTED was written with the loan; rejections and failures are written here. One that
+    // cannot be written stays QUEUED and is decided again after recovery, and one another
+    // instance decided first keeps that outcome. Returns the IDs of the applications whose
+    // outcome this batch wrote
+    private Set<String> recordOutcomes(List<Application> batch) {
+        Set<String> decided = new HashSet<>();
+        List<Application> unsaved = new ArrayList<>();
+        for (Application application : batch) {
+            if (application.outcome == Status.ACCEPTED) {
+                decided.add(application.applicationId);
+            } else {
+                unsaved.add(application);
+            }
+        }
+        for (List<Application> shard : byShard(unsaved).values()) {
+            int[][] updated;
+            try {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                updated = shardRouter.forCustomer(shard.get(0).customerId, () -> jdbcTemplate.batchUpdate(
+                        "UPDATE loan_applications SET status = ?, message = ?, idempotency_key = ?, updated_at = ? "
+                                + "WHERE application_id = ? AND status = ?",
+                        shard, shard.size(), (ps, application) -> {
+                            ps.setString(1, application.outcome.name());
+                            ps.setString(2, truncate(application.reason, 500));
+                            ps.setString(3, application.outcome == Status.FAILED ? null : application.idempotencyKey);
+                            ps.setTimestamp(4, now);
+                            ps.setString(5, application.applicationId);
+                            ps.setString(6, Status.QUEUED.name());
+                        }));
+            } catch (RuntimeException e) {
+                log.warn("Could not record the outcome of {} loan applications: {}", shard.size(), e.getMessage());
+                continue;
+            }
+            int row = 0;
+            for (int[] counts : updated) {
+                for (int count : counts) {
+                    Application application = shard.get(row++);
+                    if (count == 0) {
+                        continue;
+                    }
+                    decided.add(application.applicationId);
+                    readYourWrites.wrote(application.customerId);
+                    if (application.outcome == Status.FAILED && application.idempotencyKey != null) {
+                        forgetIdempotencyKey(application);
+                    }
+                }
+            }
+        }
+        return decided;
+    }
+
+    private void forgetIdempotencyKey(Application application) {
+        try {
+            idempotencyService.forget(application.customerId, application.idempotencyKey);
+        } catch (RuntimeException e) {
+            log.warn("Could not release the Idempotency-Key of failed loan application {}: {}",
+                    application.applicationId, e.getMessage());
+        }
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text == null || text.length() <= maxLength ? text : text.substring(0, maxLength);
+    }
+
+    // Waits for room: backpressure travels upstream until the intake ring fills and submit refuses
+    private static void handOff(Stage next, Application application) {
+        application.at = next;
+        while (!next.input.offer(application)) {
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        next.wake();
+    }
+
+    // Same rules as a row of a bulk import
+    private static String validationError(Loan loan) {
+        if (loan.getLoanType() == null) {
+            return "loanType is required";
+        }
+        if (loan.getAmount() == null || loan.getAmount().signum() <= 0) {
+            return "amount must be positive";
+        }
+        if (loan.getTenureMonths() == null || loan.getTenureMonths() <= 0
+                || loan.getTenureMonths() > LoanImportService.MAX_TENURE_MONTHS) {
+            return "tenureMonths must be between 1 and " + LoanImportService.MAX_TENURE_MONTHS;
+        }
+        if (loan.getOfferedInterestRate() != null && loan.getOfferedInterestRate().signum() < 0) {
+            return "offeredInterestRate must not be negative";
+        }
+        return null;
+    }
+
+    // One thread draining one ring
+    private final class Stage {
+        final RingBuffer<Application> input = new RingBuffer<>(ringCapacity);
+        final Thread thread;
+        private volatile boolean idle;
+
+        Stage(String name, Stage upstream, Consumer<List<Application>> work) {
+            Gauge.builder("bms.loan-intake.backlog", input, RingBuffer::size)
+                    .description("Applications waiting for the stage")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            thread = new Thread(() -> {
+                List<Application> batch = new ArrayList<>(batchSize);
+                while (true) {
+                    if (input.drainTo(batch, batchSize) == 0) {
+                        // Done once nothing more can arrive: stopping, upstream finished and the ring empty
+                        if (stopping && (upstream == null || !upstream.thread.isAlive()) && input.size() == 0) {
+                            return;
+                        }
+                        idle = true;
+                        // Checked again after announcing it: an item offered before then is seen here,
+                        // one offered after finds the stage idle and wakes it
+                        if (input.size() == 0) {
+                            LockSupport.parkNanos(IDLE_PARK_NANOS);
+                        }
+                        idle = false;
+                        continue;
+                    }
+                    try {
+                        work.accept(batch);
+                    } catch (RuntimeException e) {
+                        log.error("Loan intake stage {} failed on a batch of {}", name, batch.size(), e);
+                        strand(this, batch, e);
+                    }
+                    batch.clear();
+                }
+            }, "loan-intake-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void wake() {
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    private Counter outcomeCounter(String outcome, String description) {
+        return Counter.builder("bms.loan-intake.applications")
+                .description(description)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
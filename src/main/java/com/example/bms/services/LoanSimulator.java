@@ -0,0 +1,223 @@
+package com.example.bms.services;
+
+import org.springframework.stereotype.Service;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanScenario;
+import com.example.bms.utils.Money;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What-if simulation of prepayments, rate resets and EMI changes on a loan's
+ * original reducing-balance schedule (principal, offered rate and tenure as applied).
+ *
+ * The untouched schedule is amortized once per call and kept as running balance and
+ * interest arrays. Every scenario starts from the baseline at its first event and only
+ * re-amortizes the tail from there, so scenarios that change late in the loan are
+ * cheap and several can be compared in one call. Amounts stay in paise throughout and
+ * each month's interest is rounded half-up, as in {@link Money#monthlyInterestPaise}.
+ */
+@Service
+public class LoanSimulator {
+
+    public static final int MAX_SCENARIOS = 10;
+    public static final int MAX_EVENTS = 60;
+    // A scenario whose EMI barely covers interest must still end
+    public static final int MAX_MONTHS = 1200;
+
+    public Map<String, Object> simulate(Loan loan, List<LoanScenario> scenarios) {
+        if (loan.getAmount() == null || loan.getOfferedInterestRate() == null
+                || loan.getTenureMonths() == null || loan.getTenureMonths() <= 0) {
+            throw new IllegalArgumentException("Loan has no amount, rate or tenure to simulate");
+        }
+        if (scenarios == null || scenarios.isEmpty() || scenarios.size() > MAX_SCENARIOS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_SCENARIOS + " scenarios are allowed");
+        }
+        Baseline baseline = new Baseline(loan.getAmountInPaise(), loan.getOfferedInterestRateInBasisPoints(),
+                loan.getTenureMonths());
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (LoanScenario scenario : scenarios) {
+            Schedule schedule = run(baseline, scenario);
+            Map<String, Object> result = summary(schedule.emi, schedule.month, schedule.interestPaise);
+            result.put("name", scenario.getName());
+            result.put("totalPrepaid", Money.fromPaise(schedule.prepaidPaise));
+            result.put("interestSaved", Money.fromPaise(baseline.totalInterest() - schedule.interestPaise));
+            result.put("monthsSaved", baseline.tenure - schedule.month);
+            results.add(result);
+        }
+
+        Map<String, Object> simulation = new LinkedHashMap<>();
+        simulation.put("loanId", loan.getLoanId());
+        simulation.put("baseline", summary(baseline.emi, baseline.tenure, baseline.totalInterest()));
+        simulation.put("scenarios", results);
+        return simulation;
+    }
+
+    private Schedule run(Baseline baseline, LoanScenario scenario) {
+        List<LoanScenario.Event> events = new ArrayList<>(scenario.getEvents() == null ? List.of() : scenario.getEvents());
+        if (events.size() > MAX_EVENTS) {
+            throw new IllegalArgumentException("At most " + MAX_EVENTS + " events per scenario");
+        }
+        events.sort(Comparator.comparingInt(LoanScenario.Event::getMonth));
+
+        // Everything before the first event is the baseline; start the tail from there
+        int start = events.isEmpty() ? baseline.tenure : Math.min(events.get(0).getMonth(), baseline.tenure);
+        if (start < 0) {
+            throw new IllegalArgumentException("Event months must not be negative");
+        }
+        Schedule schedule = new Schedule(baseline, start);
+        for (LoanScenario.Event event : events) {
+            schedule.advanceTo(event.getMonth());
+            if (schedule.balance == 0L) {
+                break;
+            }
+            schedule.apply(event);
+        }
+        schedule.advanceTo(MAX_MONTHS);
+        if (schedule.balance != 0L) {
+            throw new IllegalArgumentException("Scenario '" + scenario.getName()
+                    + "' does not repay the loan within " + MAX_MONTHS + " months");
+        }
+        return schedule;
+    }
+
+    private static Map<String, Object> summary(long emiPaise, int tenureMonths, long interestPaise) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("emi", Money.fromPaise(emiPaise));
+        summary.put("tenureMonths", tenureMonths);
+        summary.put("totalInterest", Money.fromPaise(interestPaise));
+        return summary;
+    }
+
+    // The loan as applied for: balance and cumulative interest after each instalment
+    private static final class Baseline {
+        final long rateBps;
+        final long emi;
+        final int tenure;
+        final long[] balance;
+        final long[] interest;
+
+        Baseline(long principal, long rateBps, int tenure) {
+            this.rateBps = rateBps;
+            this.emi = Money.emiPaise(principal, rateBps, tenure);
+            this.tenure = tenure;
+            this.balance = new long[tenure + 1];
+            this.interest = new long[tenure + 1];
+            balance[0] = principal;
+            for (int m = 1; m <= tenure; m++) {
+                long due = Money.monthlyInterestPaise(balance[m - 1], rateBps);
+                interest[m] = interest[m - 1] + due;
+                // The last instalment settles the rounding residue
+                balance[m] = m == tenure ? 0L : Math.max(0L, balance[m - 1] + due - emi);
+            }
+        }
+
+        long totalInterest() {
+            return interest[tenure];
+        }
+    }
+
+    // Mutable tail of one scenario, picked up from the baseline at its first event
+    private static final class Schedule {
+        long balance;
+        long interestPaise;
+        long prepaidPaise;
+        long rateBps;
+        long emi;
+        int month;
+        // Instalment that must clear the balance, or -1 while the EMI alone decides the end
+        int lastMonth;
+
+        Schedule(Baseline baseline, int start) {
+            this.balance = baseline.balance[start];
+            this.interestPaise = baseline.interest[start];
+            this.rateBps = baseline.rateBps;
+            this.emi = baseline.emi;
+            this.month = start;
+            this.lastMonth = baseline.tenure;
+        }
+
+        void advanceTo(int target) {
+            while (month < target && balance > 0L) {
+                payInstalment();
+            }
+        }
+
+        private void payInstalment() {
+            long due = Money.monthlyInterestPaise(balance, rateBps);
+            interestPaise += due;
+            month++;
+            balance = month == lastMonth || balance + due <= emi ? 0L : balance + due - emi;
+        }
+
+        void apply(LoanScenario.Event event) {
+            if (event.getType() == null) {
+                throw new IllegalArgumentException("Event at month " + event.getMonth() + " has no type");
+            }
+            switch (event.getType()) {
+                case PREPAYMENT -> {
+                    long prepayment = Math.min(positivePaise(event), balance);
+                    balance -= prepayment;
+                    prepaidPaise += prepayment;
+                    rebalance(event.getAdjust());
+                }
+                case RATE_CHANGE -> {
+                    if (event.getInterestRate() == null) {
+                        throw new IllegalArgumentException("Rate change at month " + event.getMonth() + " needs an interestRate");
+                    }
+                    rateBps = Money.toBasisPoints(event.getInterestRate());
+                    if (rateBps < 0L || rateBps > 10_000L) {
+                        throw new IllegalArgumentException("Interest rate out of range at month " + event.getMonth());
+                    }
+                    rebalance(event.getAdjust());
+                }
+                case EMI_CHANGE -> {
+                    emi = positivePaise(event);
+                    lastMonth = -1;
+                }
+            }
+            if (balance > 0L && emi <= Money.monthlyInterestPaise(balance, rateBps)) {
+                throw new IllegalArgumentException("EMI after month " + event.getMonth() + " does not cover the monthly interest");
+            }
+        }
+
+        // Keeps the EMI and lets the tenure move, or re-amortizes over the remaining tenure
+        private void rebalance(LoanScenario.Adjust adjust) {
+            if (balance == 0L) {
+                return;
+            }
+            if (adjust == LoanScenario.Adjust.EMI) {
+                int end = lastMonth > 0 ? lastMonth : projectedLastMonth();
+                emi = end > month ? Money.emiPaise(balance, rateBps, end - month) : balance;
+                lastMonth = Math.max(end, month + 1);
+            } else {
+                lastMonth = -1;
+            }
+        }
+
+        // Month the balance would clear at under the current rate and EMI
+        private int projectedLastMonth() {
+            long remaining = balance;
+            int m = month;
+            while (remaining > 0L && m < MAX_MONTHS) {
+                long due = Money.monthlyInterestPaise(remaining, rateBps);
+                remaining = remaining + due <= emi ? 0L : remaining + due - emi;
+                m++;
+            }
+            return m;
+        }
+
+        private static long positivePaise(LoanScenario.Event event) {
+            if (event.getAmount() == null || event.getAmount().signum() <= 0) {
+                throw new IllegalArgumentException(event.getType() + " at month " + event.getMonth() + " needs a positive amount");
+            }
+            return Money.toPaise(event.getAmount());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.utils.ReadYourWrites;
+import com.example.bms.utils.ShardRouter;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Per-customer version of loan data, kept in {@code customers.loan_version} and served
+ * as a weak ETag by the loan endpoints. Every write to a customer's loans bumps the
+ * version in the same transaction. Living in the database keeps tags valid across
+ * restarts and instances.
+ *
+ * A response is tagged with the version read in the same read-only transaction as its
+ * data ({@link #readTagged}), so both come from the same database: a lagging replica
+ * gives an old body with its old tag, never an old body with the primary's new tag,
+ * which later If-None-Match checks would keep confirming. The version is read before the
+ * loans, so a tag is never newer than its data.
+ */
+@Component
+public class LoanVersionTracker {
+
+    private static final String BUMP_SQL = "UPDATE customers SET loan_version = loan_version + 1 WHERE id = ?";
+
+    // Data and the ETag of the version it was read at
+    public record Tagged<T>(String eTag, T value) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    // Call inside the transaction that changes the loans
+    public void customerChanged(String customerId) {
+        Long id = parseId(customerId);
+        if (id != null) {
+            jdbcTemplate.update(BUMP_SQL, id);
+        }
+    }
+
+    // Bumps in ascending id order so concurrent bulk writers lock rows in the same order
+    public void customersChanged(Collection<String> customerIds) {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (String customerId : customerIds) {
+            Long id = parseId(customerId);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (!ids.isEmpty()) {
+            List<Long> ordered = new ArrayList<>(ids);
+            jdbcTemplate.batchUpdate(BUMP_SQL, ordered, ordered.size(), (ps, id) -> ps.setLong(1, id));
+        }
+    }
+
+    // Returns null for an unknown customer, in which case no ETag is served. Read where the
+    // customer's loan reads go, to decide a 304 before reading the loans
+    public String currentETag(String customerId) {
+        return readTagged(customerId, () -> null).eTag();
+    }
+
+    // Runs read in one read-only transaction with the version read, both routed as the customer's reads
+    public <T> Tagged<T> readTagged(String customerId, Supplier<T> read) {
+        Long id = parseId(customerId);
+        if (id == null) {
+            return new Tagged<>(null, read.get());
+        }
+        return shardRouter.forCustomer(customerId, () -> readYourWrites.readFor(customerId, () -> readOnly.execute(status -> {
+            List<Long> version = jdbcTemplate.queryForList("SELECT loan_version FROM customers WHERE id = ?", Long.class, id);
+            return new Tagged<>(version.isEmpty() ? null : "W/\"" + version.get(0) + "\"", read.get());
+        })));
+    }
+
+    // Weak comparison as required for If-None-Match
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String opaque = stripWeak(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static Long parseId(String customerId) {
+        try {
+            return customerId == null ? null : Long.valueOf(customerId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
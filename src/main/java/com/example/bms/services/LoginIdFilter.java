@@ -0,0 +1,269 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.utils.BloomFilter;
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory Bloom filter of every registered loginId, so logins for IDs that were
+ * never registered are rejected without a database query.
+ *
+ * The filter is built from {@code customers} once the application is ready, updated
+ * on registration, and topped up every {@code bms.login-filter.refresh-interval-ms}
+ * with rows added by other instances (rescanning a trailing window of IDs, since
+ * identity values can commit out of order). It is rebuilt larger once the customer count outgrows the
+ * sizing; loginIds registered here while the rebuild scans are replayed into the new filter.
+ *
+ * A loginId registered on another instance since the last refresh is not in the filter
+ * yet, so before rejecting, a miss first scans the newest rows (at most once every
+ * {@code bms.login-filter.catch-up-interval-ms}, shared by every miss in that window).
+ *
+ * A rejected login waits as long as a randomly chosen recent lookup took, so rejections
+ * and wrong passwords come from the same distribution and timing does not reveal which
+ * loginIds exist. At most {@code bms.login-filter.max-delayed-rejections} wait at once;
+ * beyond that a flood of unknown loginIds is answered at once rather than holding request
+ * threads.
+ */
+// Built at startup even in fast-start mode so the first login doesn't pay for it
+@Lazy(false)
+@Service
+public class LoginIdFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginIdFilter.class);
+
+    // How far below the highest seen customer ID each refresh looks again
+    private static final long REFRESH_OVERLAP = 1000;
+    private static final int LATENCY_SAMPLES = 256;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.login-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bms.login-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${bms.login-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${bms.login-filter.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Value("${bms.login-filter.catch-up-interval-ms:100}")
+    private long catchUpIntervalMs;
+
+    @Value("${bms.login-filter.max-delayed-rejections:16}")
+    private int maxDelayedRejections;
+
+    private volatile BloomFilter filter;
+    private volatile long highestCustomerId;
+    private volatile long lastScanNanos = System.nanoTime();
+    // Refreshes, rebuilds and catch-ups scan one at a time
+    private final ReentrantLock scanning = new ReentrantLock();
+    // Registrations made here while a rebuild scans, replayed into the new filter; guarded by this
+    private List<String> registeredDuringRebuild;
+    private Semaphore delayedRejections;
+    private final AtomicLongArray lookupNanos = new AtomicLongArray(LATENCY_SAMPLES);
+    private final AtomicInteger lookupCursor = new AtomicInteger();
+    private Counter rejected;
+    private Counter passed;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void registerMetrics() {
+        delayedRejections = new Semaphore(maxDelayedRejections);
+        rejected = counter("rejected");
+        passed = counter("passed");
+        falsePositives = Counter.builder("bms.login.filter.false_positives")
+                .description("Logins that passed the loginId filter but matched no customer")
+                .register(meterRegistry);
+        Gauge.builder("bms.login.filter.expected_fpp", this, f -> f.filter == null ? 0.0 : f.filter.expectedFalsePositiveRate())
+                .description("False-positive rate the loginId filter expects at its current fill")
+                .register(meterRegistry);
+    }
+
+    // Once the schema is in place; until then every loginId passes through to the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (enabled) {
+            rebuild(expectedInsertions);
+        }
+    }
+
+    // False means the loginId was certainly never registered
+    public boolean mightExist(String loginId) {
+        BloomFilter current = filter;
+        if (current == null || loginId == null || current.mightContain(loginId)
+                || (catchUp() && filter.mightContain(loginId))) {
+            passed.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public synchronized void registered(String loginId) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(loginId);
+        }
+        if (registeredDuringRebuild != null) {
+            registeredDuringRebuild.add(loginId);
+        }
+    }
+
+    public void lookupMissed() {
+        falsePositives.increment();
+    }
+
+    public void recordLookup(long nanos) {
+        lookupNanos.set(Math.floorMod(lookupCursor.getAndIncrement(), LATENCY_SAMPLES), nanos);
+    }
+
+    // Sleeps for a randomly chosen recent lookup time, so rejections take as long as real lookups
+    public void delayLikeLookup() {
+        if (!delayedRejections.tryAcquire()) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(lookupNanos.get(ThreadLocalRandom.current().nextInt(LATENCY_SAMPLES)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            delayedRejections.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bms.login-filter.refresh-interval-ms:5000}")
+    public void refresh() {
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        if (current.insertions() > expectedInsertions) {
+            // Outgrown: size the next filter with headroom instead of letting the rate climb
+            expectedInsertions = current.insertions() * 2;
+            rebuild(expectedInsertions);
+            return;
+        }
+        scanning.lock();
+        try {
+            scan(current, Math.max(0L, highestCustomerId - REFRESH_OVERLAP));
+        } finally {
+            scanning.unlock();
+        }
+    }
+
+    // True once the newest rows have been scanned into the filter since this miss arrived,
+    // here or by a concurrent miss; false while it is too soon after the last scan, or when
+    // another scan (a rebuild) holds the lock for longer than the interval
+    private boolean catchUp() {
+        long arrived = System.nanoTime();
+        if (arrived - lastScanNanos < TimeUnit.MILLISECONDS.toNanos(catchUpIntervalMs)) {
+            return false;
+        }
+        try {
+            if (!scanning.tryLock(catchUpIntervalMs, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            if (lastScanNanos - arrived > 0) {
+                return true;
+            }
+            scan(filter, Math.max(0L, highestCustomerId - REFRESH_OVERLAP));
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("LoginId filter catch-up failed, rejecting from the last refresh: {}", e.getMessage());
+            return false;
+        } finally {
+            scanning.unlock();
+        }
+    }
+
+    private void rebuild(long insertions) {
+        long started = System.nanoTime();
+        BloomFilter next = BloomFilter.create(insertions, falsePositiveRate, maxBytes);
+        scanning.lock();
+        try {
+            synchronized (this) {
+                registeredDuringRebuild = new ArrayList<>();
+            }
+            scan(next, 0L);
+            synchronized (this) {
+                registeredDuringRebuild.forEach(next::add);
+                filter = next;
+            }
+        } finally {
+            synchronized (this) {
+                registeredDuringRebuild = null;
+            }
+            scanning.unlock();
+        }
+        log.info("LoginId filter built with {} IDs in {} ms ({} KB, {} hashes, expected false-positive rate {})",
+                next.insertions(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                next.bitSize() / 8 / 1024, next.hashCount(), String.format("%.4f", next.expectedFalsePositiveRate()));
+    }
+
+    // Customer IDs on all shards come from one sequence, so one high-water mark covers them all
+    private void scan(BloomFilter target, long afterId) {
+        long started = System.nanoTime();
+        long[] highest = {highestCustomerId};
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            shardRouter.runOnShard(shard, () -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement("SELECT id, login_id FROM customers WHERE id > ?");
+                statement.setLong(1, afterId);
+                statement.setFetchSize(1000);
+                return statement;
+            }, rs -> {
+                target.add(rs.getString(2));
+                highest[0] = Math.max(highest[0], rs.getLong(1));
+            }));
+        }
+        highestCustomerId = highest[0];
+        lastScanNanos = started;
+    }
+
+    private Counter counter(String outcome) {
+        return Counter.builder("bms.login.filter")
+                .description("Login attempts checked against the loginId filter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.bms.models.OutboxEvent;
+import com.example.bms.repositories.OutboxEventRepository;
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains {@code outbox_events} to the configured {@link OutboxSink} on a background
+ * thread, so request threads only pay for one extra insert.
+ *
+ * Each run keeps pulling batches until the backlog is empty or the sink fails; a
+ * failed batch stays pending and is retried on the next run. With sharding each event
+ * sits on its customer's shard and the shards are drained one after another.
+ *
+ * Every instance polls, but only the one holding the {@code outbox-dispatcher} lease from
+ * {@link JobLeases} drains: a second dispatcher reading the same batch would deliver it
+ * twice. The holder renews the lease on each run; if it stops, another instance takes
+ * over once {@code bms.outbox.lease-ms} has passed.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final String LEASE = "outbox-dispatcher";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxSink outboxSink;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Value("${bms.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${bms.outbox.lease-ms:30000}")
+    private long leaseMs;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong backlogAgeMillis = new AtomicLong();
+    private Counter dispatched;
+    private Counter failures;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        dispatched = Counter.builder("bms.outbox.dispatched")
+                .description("Outbox events delivered to the sink")
+                .register(meterRegistry);
+        failures = Counter.builder("bms.outbox.failures")
+                .description("Outbox batches the sink rejected")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("bms.outbox.batch")
+                .description("Time to publish and acknowledge one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("bms.outbox.backlog", backlog, AtomicLong::get)
+                .description("Undispatched outbox events at the end of the last run")
+                .register(meterRegistry);
+        Gauge.builder("bms.outbox.backlog.age", backlogAgeMillis, a -> a.get() / 1000.0)
+                .description("Age of the oldest undispatched outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${bms.outbox.poll-interval-ms:500}")
+    public synchronized void dispatch() {
+        if (!jobLeases.tryAcquire(LEASE, Duration.ofMillis(leaseMs))) {
+            return;
+        }
+        long pending = 0;
+        long oldestMillis = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            long[] shardBacklog = shardRouter.onShard(shard, () -> {
+                drain();
+                return backlogOnShard();
+            });
+            pending += shardBacklog[0];
+            oldestMillis = Math.max(oldestMillis, shardBacklog[1]);
+        }
+        backlog.set(pending);
+        backlogAgeMillis.set(oldestMillis);
+    }
+
+    private void drain() {
+        while (true) {
+            List<OutboxEvent> batch = outboxEventRepository.findByDispatchedAtIsNullOrderByIdAsc(
+                    PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            if (!publish(batch) || batch.size() < batchSize) {
+                break;
+            }
+        }
+    }
+
+    private boolean publish(List<OutboxEvent> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            outboxSink.publish(batch);
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (OutboxEvent event : batch) {
+                ids.add(event.getId());
+            }
+            outboxEventRepository.markDispatched(ids, LocalDateTime.now());
+            dispatched.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Outbox sink rejected a batch of {} events; will retry", batch.size(), e);
+            return false;
+        } finally {
+            sample.stop(batchTimer);
+        }
+    }
+
+    // Undispatched events on the bound shard and the age of the oldest, in milliseconds
+    private long[] backlogOnShard() {
+        return new long[] {
+                outboxEventRepository.countByDispatchedAtIsNull(),
+                outboxEventRepository.findFirstByDispatchedAtIsNullOrderByIdAsc()
+                        .map(e -> Duration.between(e.getCreatedAt(), LocalDateTime.now()).toMillis())
+                        .orElse(0L)
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.OutboxEvent;
+import com.example.bms.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Must join the caller's transaction so the event commits or rolls back with the loan
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent recordLoanStatusChange(Loan loan, Loan.LoanStatus fromStatus) {
+        return outboxEventRepository.save(loanStatusChanged(loan.getLoanId(), loan.getCustomerId().toString(),
+                fromStatus, loan.getLoanStatus(), LocalDateTime.now()));
+    }
+
+    public OutboxEvent loanStatusChanged(String loanId, String customerId,
+                                         Loan.LoanStatus fromStatus, Loan.LoanStatus toStatus,
+                                         LocalDateTime occurredAt) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("loanId", loanId);
+        payload.put("customerId", customerId);
+        payload.put("fromStatus", fromStatus != null ? fromStatus.name() : null);
+        payload.put("toStatus", toStatus.name());
+        payload.put("occurredAt", occurredAt.toString());
+        try {
+            return new OutboxEvent(OutboxEvent.LOAN_AGGREGATE, loanId, OutboxEvent.LOAN_STATUS_CHANGED,
+                    objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise outbox payload", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bms.services;
+
+import com.example.bms.models.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Downstream destination for outbox events. Delivery is at-least-once: a batch that
+ * throws is retried on the next dispatcher run, so implementations should tolerate
+ * seeing an event twice.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,78 @@
+package com.example.bms.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.models.Account;
+import com.example.bms.models.LoanSummary;
+import com.example.bms.repositories.AccountRepository;
+import com.example.bms.repositories.LoanRepository;
+import com.example.bms.utils.ShardRouter;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Queries across all customers. Each one runs on every shard in parallel and the
+ * per-shard results are merged into the order a single database would have returned.
+ * They expose every customer's data, so the API serves them only to the operators
+ * listed in {@code bms.portfolio.operator-login-ids}.
+ */
+@Service
+public class PortfolioService {
+
+    private static final Comparator<LoanSummary> LARGEST_FIRST =
+            Comparator.comparing(LoanSummary::getAmount, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    // Account ids are only unique within a shard, so ties are broken by account number
+    private static final Comparator<Account> BY_BALANCE =
+            Comparator.comparing(Account::getBalance).thenComparing(Account::getAccountNumber);
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Value("${bms.portfolio.operator-login-ids:}")
+    private Set<String> operatorLoginIds;
+
+    // Whether the authenticated customer may see the whole portfolio
+    public boolean isOperator(String customerId) {
+        if (operatorLoginIds.isEmpty()) {
+            return false;
+        }
+        try {
+            return customerService.getCustomerById(Long.valueOf(customerId))
+                    .map(customer -> operatorLoginIds.contains(customer.getLoginId()))
+                    .orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Loans above threshold, largest first
+    public List<LoanSummary> highValueLoans(BigDecimal threshold) {
+        return ShardRouter.mergeSorted(shardRouter.onEveryShard(() -> loanRepository.findHighValueLoanSummaries(threshold)),
+                LARGEST_FIRST);
+    }
+
+    // Accounts with a balance in [minBalance, maxBalance], lowest balance first
+    public List<Account> accountsByBalanceRange(BigDecimal minBalance, BigDecimal maxBalance) {
+        // The query itself is unordered, so each shard's rows are sorted before the merge
+        List<List<Account>> perShard = shardRouter.onEveryShard(() -> accountRepository.findByBalanceRange(minBalance, maxBalance)
+                .stream()
+                .sorted(BY_BALANCE)
+                .toList());
+        return ShardRouter.mergeSorted(perShard, BY_BALANCE);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.PricingRuleSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prices loan applications from the rule set at {@code bms.pricing.rules-location}.
+ *
+ * Rules are compiled once per load into a {@link CompiledPricingRules} table and
+ * published through an AtomicReference, so a reload never blocks or half-applies:
+ * each evaluation sees either the old table or the new one. When the rules come from
+ * a file, it is re-read whenever its modification time changes; a rule set that fails
+ * to parse or compile is logged and the current one stays in place.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Service
+public class PricingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingEngine.class);
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.pricing.rules-location:classpath:pricing-rules.json}")
+    private String rulesLocation;
+
+    private final AtomicReference<CompiledPricingRules> current = new AtomicReference<>();
+    private volatile long loadedModified = -1;
+    private Counter reloads;
+    private Counter reloadFailures;
+
+    @PostConstruct
+    void loadRules() throws IOException {
+        reloads = Counter.builder("bms.pricing.reloads")
+                .description("Pricing rule sets compiled and swapped in")
+                .register(meterRegistry);
+        reloadFailures = Counter.builder("bms.pricing.reload.failures")
+                .description("Pricing rule reloads rejected; the previous rules stay active")
+                .register(meterRegistry);
+        reload();
+    }
+
+    // Re-reads the configured location unconditionally; a failure leaves the current rules active
+    public void reload() throws IOException {
+        Resource resource = resourceLoader.getResource(rulesLocation);
+        long modified = lastModified(resource);
+        swap(read(resource));
+        loadedModified = modified;
+    }
+
+    public long offeredRateBps(Loan.LoanType loanType, long amountPaise, int tenureMonths,
+                               int customerTenureMonths, long exposurePaise) {
+        return current.get().offeredRateBps(loanType, amountPaise, tenureMonths, customerTenureMonths, exposurePaise);
+    }
+
+    // Compiles and atomically publishes a new rule set; in-flight evaluations finish on the old one
+    public CompiledPricingRules swap(PricingRuleSet ruleSet) {
+        CompiledPricingRules compiled = CompiledPricingRules.compile(ruleSet);
+        current.set(compiled);
+        reloads.increment();
+        log.info("Pricing rules {} active ({} rules)", compiled.getVersion(), compiled.getRuleCount());
+        return compiled;
+    }
+
+    public String getActiveVersion() {
+        return current.get().getVersion();
+    }
+
+    @Scheduled(fixedDelayString = "${bms.pricing.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        Resource resource = resourceLoader.getResource(rulesLocation);
+        long modified = lastModified(resource);
+        if (modified < 0 || modified == loadedModified) {
+            return;
+        }
+        try {
+            swap(read(resource));
+        } catch (IOException | RuntimeException e) {
+            reloadFailures.increment();
+            log.error("Rejected pricing rules from {}; keeping version {}", rulesLocation, getActiveVersion(), e);
+        }
+        // Remember the attempt either way so a broken file is reported once, not every poll
+        loadedModified = modified;
+    }
+
+    private PricingRuleSet read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return objectMapper.readValue(in, PricingRuleSet.class);
+        }
+    }
+
+    // Only plain files can change under us; classpath entries inside a jar report -1
+    private static long lastModified(Resource resource) {
+        if (!resource.isFile()) {
+            return -1;
+        }
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
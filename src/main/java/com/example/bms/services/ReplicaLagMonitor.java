@@ -0,0 +1,116 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.utils.ReplicaRoutingDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Measures replica lag with a heartbeat row: every run stamps the current time into
+ * {@code replica_heartbeat} on the primary, then reads the stamp back from each
+ * replica. A replica whose stamp is older than {@code bms.datasource.replicas.max-lag-ms},
+ * or that cannot be read, is taken out of rotation until it catches up.
+ *
+ * The age includes up to one heartbeat interval, so the lag limit should be well above
+ * {@code bms.datasource.replicas.heartbeat-interval-ms}. With several instances stamping
+ * the same row, clock skew between them adds to the measured lag.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Service
+@ConditionalOnProperty(name = "bms.datasource.replicas.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "bms.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.datasource.replicas.max-lag-ms:2000}")
+    private long maxLagMs;
+
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+    // Last measured lag per replica, -1 when it could not be read
+    private final Map<String, AtomicLong> lagMs = new LinkedHashMap<>();
+
+    @PostConstruct
+    void init() throws SQLException {
+        routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        primary = new JdbcTemplate(routing.getPrimary());
+        routing.getReplicas().forEach((name, replica) -> {
+            replicas.put(name, new JdbcTemplate(replica));
+            AtomicLong lag = new AtomicLong(-1);
+            lagMs.put(name, lag);
+            Gauge.builder("bms.datasource.replica.lag", lag, AtomicLong::get)
+                    .description("Age of the primary's heartbeat as seen on the replica, -1 if unreadable")
+                    .baseUnit("milliseconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${bms.datasource.replicas.heartbeat-interval-ms:500}")
+    public void checkReplicas() {
+        try {
+            beat(System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            // Replicas are still measured against the last stamp that made it
+            log.warn("Could not write the replica heartbeat", e);
+        }
+        replicas.forEach((name, replica) -> {
+            long lag;
+            try {
+                Long beatAt = replica.queryForObject("SELECT beat_at_ms FROM replica_heartbeat WHERE id = 1", Long.class);
+                lag = beatAt == null ? -1 : Math.max(0L, System.currentTimeMillis() - beatAt);
+            } catch (DataAccessException e) {
+                log.debug("Could not read the heartbeat on {}", name, e);
+                lag = -1;
+            }
+            boolean wasHealthy = withinLimit(lagMs.get(name).getAndSet(lag));
+            boolean healthy = withinLimit(lag);
+            if (healthy != wasHealthy) {
+                log.info("Replica {} {} (lag {} ms)", name, healthy ? "in rotation" : "out of rotation", lag);
+            }
+            routing.setHealthy(name, healthy);
+        });
+    }
+
+    private boolean withinLimit(long lag) {
+        return lag >= 0 && lag <= maxLagMs;
+    }
+
+    private void beat(long now) {
+        if (primary.update("UPDATE replica_heartbeat SET beat_at_ms = ? WHERE id = 1", now) == 0) {
+            try {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_at_ms) VALUES (1, ?)", now);
+            } catch (DuplicateKeyException e) {
+                // Another instance created the row first; its stamp is as good as ours
+            }
+        }
+    }
+}
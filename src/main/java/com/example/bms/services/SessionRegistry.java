@@ -0,0 +1,366 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.models.Customer;
+import com.example.bms.models.LoginRequest;
+import com.example.bms.repositories.LoginRequestRepository;
+import com.example.bms.utils.JwtUtil;
+import com.example.bms.utils.ShardRouter;
+import com.example.bms.utils.TimingWheel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active login sessions, held in memory so authenticated requests are checked without a
+ * query and nothing ever scans {@code login_requests} for live or expired sessions.
+ *
+ * Login writes a {@code login_requests} row and registers the session; its token carries
+ * the session id. Sessions leave the registry on logout, when a newer login pushes the
+ * customer over {@code bms.sessions.max-per-customer} (the oldest one goes), or when a
+ * {@link TimingWheel} tick finds them expired. Ended sessions are marked inactive in the
+ * table, which is read back once at startup.
+ *
+ * Each instance keeps its own registry. A session started on another instance is looked
+ * up in the table the first time it is seen here, but one ended elsewhere stays valid here
+ * until it expires, so deployments with several instances should route a customer to one.
+ *
+ * About 220 bytes of heap per session with one session per customer, measured with
+ * {@code SessionRegistryBenchmark} at a million sessions.
+ */
+// Never lazy: @Scheduled methods are only registered once the bean exists
+@Lazy(false)
+@Service
+public class SessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionRegistry.class);
+
+    private static final String END_SQL = "UPDATE login_requests SET is_token_active = false WHERE session_id = ?";
+    private static final String LOAD_SQL = "SELECT session_id, customer_ref, token_issued_at, token_expires_at "
+            + "FROM login_requests WHERE is_token_active = true AND token_expires_at > ? AND session_id IS NOT NULL";
+    private static final String FIND_SQL = "SELECT customer_ref, token_issued_at, token_expires_at FROM login_requests "
+            + "WHERE session_id = ? AND is_token_active = true AND token_expires_at > ?";
+
+    @Autowired
+    private LoginRequestRepository loginRequestRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Value("${bms.sessions.max-per-customer:5}")
+    private int maxPerCustomer;
+
+    @Value("${bms.sessions.tick-ms:1000}")
+    private long tickMs;
+
+    private final SecureRandom random = new SecureRandom();
+    // Read without locking; every change happens under the registry's lock
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    // Guarded by this: each customer's sessions, oldest first, linked through Session.nextOfCustomer
+    private final Map<String, Session> byCustomer = new HashMap<>();
+    private TimingWheel<Session> wheel;
+    private Counter loggedOut;
+    private Counter evicted;
+    private Counter expired;
+
+    /** One login; immutable apart from the registry's own links. */
+    public static final class Session extends TimingWheel.Node {
+        private final long id;
+        private final String customerId;
+        private final long issuedAtMs;
+        private final long expiresAtMs;
+        private Session nextOfCustomer;
+
+        public Session(long id, String customerId, long issuedAtMs, long expiresAtMs) {
+            this.id = id;
+            this.customerId = customerId;
+            this.issuedAtMs = issuedAtMs;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        public long getIssuedAtMs() {
+            return issuedAtMs;
+        }
+
+        public long getExpiresAtMs() {
+            return expiresAtMs;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        // 64 slots per level over four levels covers 194 days at one-second ticks
+        wheel = new TimingWheel<>(tickMs, 6, 4, System.currentTimeMillis());
+        loggedOut = endedCounter("logout");
+        evicted = endedCounter("evicted");
+        expired = endedCounter("expired");
+        Gauge.builder("bms.sessions.active", sessions, Map::size)
+                .description("Login sessions in the in-memory registry")
+                .register(meterRegistry);
+    }
+
+    // Once the schema is in place; until then sessions are found in the table as they are used
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] loaded = {0};
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            shardRouter.runOnShard(shard, () -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOAD_SQL);
+                statement.setTimestamp(1, now);
+                statement.setFetchSize(1000);
+                return statement;
+            }, rs -> {
+                if (adopt(new Session(rs.getLong(1), rs.getString(2), millis(rs.getTimestamp(3)), millis(rs.getTimestamp(4))))) {
+                    loaded[0]++;
+                }
+            }));
+        }
+        log.info("Session registry rebuilt with {} active sessions in {} ms",
+                loaded[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Starts a session for customer, lasting as long as a token does. If the customer
+     * already has {@code bms.sessions.max-per-customer} sessions, the oldest are ended.
+     */
+    public Session open(Customer customer, String loginId) {
+        long now = System.currentTimeMillis();
+        String customerId = customer.getId().toString();
+        Session session = new Session(newSessionId(), customerId, now, now + jwtUtil.getExpirationTimeMs());
+
+        LoginRequest row = new LoginRequest();
+        row.setLoginId(loginId);
+        // The column is required, but a session row has no business keeping the password
+        row.setPassword("");
+        row.setCustomerDetails(customer.getId(), customer.getName(), customer.getEmail(), "CUSTOMER");
+        row.setSessionId(session.id);
+        row.setTokenActive(true);
+        row.setLoginTimestamp(toLocal(now));
+        row.setTokenIssuedAt(toLocal(now));
+        row.setTokenExpiresAt(toLocal(session.expiresAtMs));
+        row.setLastActivity(toLocal(now));
+        shardRouter.forCustomer(customerId, () -> loginRequestRepository.save(row));
+
+        List<Session> overCap;
+        synchronized (this) {
+            overCap = oldestOverCap(customerId);
+            add(session);
+        }
+        for (Session old : overCap) {
+            markEnded(old);
+            evicted.increment();
+        }
+        return session;
+    }
+
+    /**
+     * True if the session is live and belongs to customerId. A session this instance has
+     * not seen is looked up once in the table, through the {@code session-lookup}
+     * bulkhead, and kept if it is still active there; a rejected lookup throws
+     * {@link com.example.bms.utils.RejectedCallException}.
+     */
+    public boolean isActive(long sessionId, String customerId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            session = databaseGuard.call("session-lookup", () -> shardRouter.forCustomer(customerId, () -> find(sessionId)));
+            if (session == null || !adopt(session)) {
+                return false;
+            }
+        }
+        return session.customerId.equals(customerId) && session.expiresAtMs > System.currentTimeMillis();
+    }
+
+    // Logout; returns false if the session had already ended
+    public boolean end(long sessionId) {
+        Session session;
+        synchronized (this) {
+            session = sessions.get(sessionId);
+            if (session == null) {
+                return false;
+            }
+            remove(session);
+        }
+        markEnded(session);
+        loggedOut.increment();
+        return true;
+    }
+
+    // The customer's live sessions, oldest first
+    public synchronized List<Session> sessionsOf(String customerId) {
+        long now = System.currentTimeMillis();
+        List<Session> live = new ArrayList<>();
+        for (Session session = byCustomer.get(customerId); session != null; session = session.nextOfCustomer) {
+            if (session.expiresAtMs > now) {
+                live.add(session);
+            }
+        }
+        return live;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // Only the sessions due by now are touched; their rows already carry the expiry, so none are written
+    @Scheduled(fixedDelayString = "${bms.sessions.tick-ms:1000}")
+    public synchronized void expireDue() {
+        wheel.advance(System.currentTimeMillis(), session -> {
+            unlink(session);
+            expired.increment();
+        });
+    }
+
+    // Registers a session found in the table; false if it has expired since
+    private synchronized boolean adopt(Session session) {
+        if (session.expiresAtMs <= System.currentTimeMillis()) {
+            return false;
+        }
+        Session known = sessions.get(session.id);
+        if (known == null) {
+            add(session);
+        }
+        return true;
+    }
+
+    // Caller holds the lock
+    private void add(Session session) {
+        sessions.put(session.id, session);
+        wheel.schedule(session, session.expiresAtMs);
+        Session head = byCustomer.get(session.customerId);
+        if (head == null || head.issuedAtMs > session.issuedAtMs) {
+            session.nextOfCustomer = head;
+            byCustomer.put(session.customerId, session);
+            return;
+        }
+        Session previous = head;
+        while (previous.nextOfCustomer != null && previous.nextOfCustomer.issuedAtMs <= session.issuedAtMs) {
+            previous = previous.nextOfCustomer;
+        }
+        session.nextOfCustomer = previous.nextOfCustomer;
+        previous.nextOfCustomer = session;
+    }
+
+    // Caller holds the lock
+    private void remove(Session session) {
+        wheel.cancel(session);
+        unlink(session);
+    }
+
+    // Caller holds the lock; drops the session from the maps once it is off the wheel
+    private void unlink(Session session) {
+        sessions.remove(session.id, session);
+        Session head = byCustomer.get(session.customerId);
+        if (head == session) {
+            if (session.nextOfCustomer == null) {
+                byCustomer.remove(session.customerId);
+            } else {
+                byCustomer.put(session.customerId, session.nextOfCustomer);
+            }
+        } else {
+            for (Session previous = head; previous != null; previous = previous.nextOfCustomer) {
+                if (previous.nextOfCustomer == session) {
+                    previous.nextOfCustomer = session.nextOfCustomer;
+                    break;
+                }
+            }
+        }
+        session.nextOfCustomer = null;
+    }
+
+    // Caller holds the lock; removes and returns the oldest sessions so one more fits under the cap
+    private List<Session> oldestOverCap(String customerId) {
+        List<Session> ended = new ArrayList<>();
+        int count = 0;
+        for (Session session = byCustomer.get(customerId); session != null; session = session.nextOfCustomer) {
+            count++;
+        }
+        while (count-- >= maxPerCustomer) {
+            Session oldest = byCustomer.get(customerId);
+            remove(oldest);
+            ended.add(oldest);
+        }
+        return ended;
+    }
+
+    private void markEnded(Session session) {
+        shardRouter.forCustomer(session.customerId, () -> jdbcTemplate.update(END_SQL, session.id));
+    }
+
+    private Session find(long sessionId) {
+        List<Session> found = jdbcTemplate.query(FIND_SQL,
+                (rs, rowNum) -> new Session(sessionId, rs.getString(1), millis(rs.getTimestamp(2)), millis(rs.getTimestamp(3))),
+                sessionId, Timestamp.valueOf(LocalDateTime.now()));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    // Random rather than sequential, so one session's id says nothing about another's
+    private long newSessionId() {
+        long id;
+        do {
+            id = random.nextLong() & Long.MAX_VALUE;
+        } while (id == 0 || sessions.containsKey(id));
+        return id;
+    }
+
+    private Counter endedCounter(String reason) {
+        return Counter.builder("bms.sessions.ended")
+                .description("Sessions that left the registry")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static long millis(Timestamp timestamp) {
+        return timestamp == null ? 0L : timestamp.getTime();
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bms.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.utils.ShardRouter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps customers' account numbers, emails and PAN numbers unique across shards.
+ *
+ * The unique constraints on {@code customers} only hold within one shard, and two
+ * customers with the same email or PAN would usually live on different ones. With
+ * sharding on, each value is first claimed in {@code unique_value_claims} on the home
+ * shard, whose primary key turns away a second claim wherever its customer would live.
+ * Claims are made before the customer row is written and released if that write fails.
+ * A claim left behind by a crash in between is taken over once it is older than
+ * {@code bms.unique-claims.takeover-after-ms} and its loginId has no customer.
+ *
+ * Without sharding there is one database, the column constraints already do this, and
+ * nothing is claimed.
+ */
+@Service
+public class UniqueValueClaims {
+
+    private static final Logger log = LoggerFactory.getLogger(UniqueValueClaims.class);
+
+    public static final String ACCOUNT_NUMBER = "account number";
+    public static final String EMAIL = "email";
+    public static final String PAN = "PAN";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Value("${bms.unique-claims.takeover-after-ms:60000}")
+    private long takeoverAfterMs;
+
+    // The customer's values by kind, in the order they are claimed
+    public static Map<String, String> of(String accountNumber, String email, String panNumber) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(ACCOUNT_NUMBER, accountNumber);
+        values.put(EMAIL, email);
+        values.put(PAN, panNumber);
+        return values;
+    }
+
+    /**
+     * Claims every non-null value for loginId, or none: throws naming the first value
+     * another customer holds, after releasing the ones it had claimed.
+     */
+    public void claim(String loginId, Map<String, String> values) {
+        if (shardRouter.shardCount() == 1) {
+            return;
+        }
+        Map<String, String> claimed = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                if (value.getValue() != null) {
+                    claimOne(loginId, value.getKey(), value.getValue());
+                    claimed.put(value.getKey(), value.getValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            release(loginId, claimed);
+            throw e;
+        }
+    }
+
+    // Best effort: a claim that stays behind is taken over later
+    public void release(String loginId, Map<String, String> values) {
+        if (shardRouter.shardCount() == 1) {
+            return;
+        }
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            if (value.getValue() == null) {
+                continue;
+            }
+            try {
+                shardRouter.onHomeShard(() -> jdbcTemplate.update("DELETE FROM unique_value_claims WHERE claim = ? AND login_id = ?",
+                        key(value.getKey(), value.getValue()), loginId));
+            } catch (RuntimeException e) {
+                log.warn("Could not release the {} claimed for {}: {}", value.getKey(), loginId, e.getMessage());
+            }
+        }
+    }
+
+    private void claimOne(String loginId, String kind, String value) {
+        String key = key(kind, value);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            shardRouter.onHomeShard(() -> jdbcTemplate.update(
+                    "INSERT INTO unique_value_claims (claim, login_id, claimed_at) VALUES (?, ?, ?)", key, loginId, now));
+            return;
+        } catch (DuplicateKeyException e) {
+            // Held already: by this loginId on a retry, a customer, or an abandoned registration
+        }
+        List<Map<String, Object>> holders = shardRouter.onHomeShard(() -> jdbcTemplate.queryForList(
+                "SELECT login_id, claimed_at FROM unique_value_claims WHERE claim = ?", key));
+        if (!holders.isEmpty()) {
+            String holder = (String) holders.get(0).get("login_id");
+            if (holder.equals(loginId)) {
+                return;
+            }
+            LocalDateTime claimedAt = ((Timestamp) holders.get(0).get("claimed_at")).toLocalDateTime();
+            if (claimedAt.isBefore(LocalDateTime.now().minusNanos(takeoverAfterMs * 1_000_000L)) && !customerExists(holder)) {
+                int taken = shardRouter.onHomeShard(() -> jdbcTemplate.update(
+                        "UPDATE unique_value_claims SET login_id = ?, claimed_at = ? WHERE claim = ? AND login_id = ?",
+                        loginId, now, key, holder));
+                if (taken == 1) {
+                    log.info("Took over the {} abandoned by {} for {}", kind, holder, loginId);
+                    return;
+                }
+            }
+        }
+        throw new RuntimeException("Customer with this " + kind + " already exists");
+    }
+
+    private boolean customerExists(String loginId) {
+        return shardRouter.onShard(shardRouter.shardOfLoginId(loginId), () -> customerRepository.existsByLoginId(loginId));
+    }
+
+    // Emails compare without case and PANs are upper case, as the database collation would treat them
+    private static String key(String kind, String value) {
+        String normalized = value.trim();
+        if (EMAIL.equals(kind)) {
+            normalized = normalized.toLowerCase(Locale.ROOT);
+        } else if (PAN.equals(kind)) {
+            normalized = normalized.toUpperCase(Locale.ROOT);
+        }
+        return kind + ":" + normalized;
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.bms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only audit log on memory-mapped segment files.
+ *
+ * Request threads only claim a slot in a lock-free ring (one CAS on the tail) and
+ * publish the entry into it; a single writer thread drains the ring into the current
+ * segment and forces it to disk once {@code syncBytes} are pending or the oldest pending
+ * entry is {@code syncIntervalMs} old, so one fsync covers every entry appended in that
+ * window. An entry is durable once a later {@link #flush()} returns or the next group
+ * sync has run; a crash loses at most the entries of the pending group.
+ *
+ * Segments are preallocated to {@code segmentBytes} and named by an increasing index;
+ * the writer moves to a new one when the next record does not fit, and every start
+ * begins a new one. Layout: header (magic, version, opened-at millis), then records of
+ * length, CRC-32C and body, until a zero length. The length is written last, so a reader
+ * racing the writer, or reading after a crash, stops at the first incomplete record.
+ * See {@link AuditLogReader} for searching.
+ *
+ * If the ring stays full for {@code maxStallMs} (the disk has stalled), appends give up
+ * and are counted as dropped rather than holding request threads indefinitely. An entry
+ * the writer fails to write {@value #MAX_WRITE_ATTEMPTS} times in a row is skipped and
+ * counted as failed, so one bad entry or a passing disk error cannot stop the log.
+ */
+public final class AuditLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    // Stored by ordinal: only ever append
+    public enum Action {
+        LOGIN, LOGOUT, PROFILE_UPDATE, LOAN_APPLY, LOAN_READ, LOAN_SIMULATE, LOAN_IMPORT, DASHBOARD_READ, SESSIONS_READ
+    }
+
+    public static final class Entry {
+        private final long timeMs;
+        private final long customerId;
+        private final Action action;
+        private final String detail;
+
+        public Entry(long timeMs, long customerId, Action action, String detail) {
+            this.timeMs = timeMs;
+            this.customerId = customerId;
+            this.action = action;
+            this.detail = detail;
+        }
+
+        public long getTimeMs() {
+            return timeMs;
+        }
+
+        public long getCustomerId() {
+            return customerId;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+
+    static final long MAGIC = 0x424D534155445431L; // "BMSAUDT1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    // Length and CRC ahead of each body
+    static final int RECORD_HEADER_BYTES = 8;
+    // Time, customer, action, detail length
+    static final int BODY_FIXED_BYTES = 19;
+    static final int MAX_DETAIL_BYTES = 1024;
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".log";
+    // A second apart
+    static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final Path directory;
+    private final int mask;
+    private final Entry[] slots;
+    // Sequence last published into each slot; the writer takes a slot once it holds the sequence it expects
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    // Next sequence the writer takes; slots below it are free again
+    private final AtomicLong head = new AtomicLong();
+    // Every sequence below this is on disk
+    private final AtomicLong durable = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final long segmentBytes;
+    private final long syncIntervalNanos;
+    private final int syncBytes;
+    private final long maxStallNanos;
+    private final Thread writer;
+    private volatile boolean syncRequested;
+    private volatile boolean closed;
+
+    // Writer thread only
+    private final ByteBuffer scratch = ByteBuffer.allocate(BODY_FIXED_BYTES + MAX_DETAIL_BYTES);
+    private final CRC32C crc = new CRC32C();
+    private long segmentIndex;
+    private MappedByteBuffer segment;
+    private int position;
+    private int syncedPosition;
+    private long pendingSince;
+
+    public AuditLog(Path directory, int capacity, long segmentBytes, long syncIntervalMs, int syncBytes, long maxStallMs)
+            throws IOException {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Audit ring capacity must be a power of two: " + capacity);
+        }
+        if (segmentBytes < HEADER_BYTES + RECORD_HEADER_BYTES + BODY_FIXED_BYTES + MAX_DETAIL_BYTES
+                || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Audit segment size out of range: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.mask = capacity - 1;
+        this.slots = new Entry[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.segmentBytes = segmentBytes;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMs);
+        this.syncBytes = syncBytes;
+        this.maxStallNanos = TimeUnit.MILLISECONDS.toNanos(maxStallMs);
+
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        segmentIndex = existing.isEmpty() ? 0 : indexOf(existing.get(existing.size() - 1));
+        openNextSegment();
+
+        writer = new Thread(this::drain, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues one entry and returns its sequence number, or -1 if it was dropped because
+     * the ring stayed full or the log is closed. Never waits for the disk otherwise.
+     */
+    public long append(long customerId, Action action, String detail) {
+        Entry entry = new Entry(System.currentTimeMillis(), customerId, action, detail);
+        long seq;
+        long stalledSince = 0;
+        while (true) {
+            seq = tail.get();
+            if (closed) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+            if (seq - head.get() >= slots.length) {
+                long now = System.nanoTime();
+                if (stalledSince == 0) {
+                    stalledSince = now;
+                } else if (now - stalledSince >= maxStallNanos) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                LockSupport.parkNanos(10_000);
+                continue;
+            }
+            if (tail.compareAndSet(seq, seq + 1)) {
+                break;
+            }
+        }
+        int slot = (int) (seq & mask);
+        slots[slot] = entry;
+        published.setRelease(slot, seq);
+        return seq;
+    }
+
+    /** Waits until everything appended before the call is on disk. */
+    public void flush() throws InterruptedException {
+        long target = tail.get();
+        while (durable.get() < target) {
+            if (!writer.isAlive()) {
+                throw new IllegalStateException("Audit writer has stopped");
+            }
+            syncRequested = true;
+            LockSupport.parkNanos(100_000);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    // Entries claimed but not yet written
+    public long backlog() {
+        return tail.get() - head.get();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    // Entries the writer gave up on after MAX_WRITE_ATTEMPTS
+    public long failed() {
+        return failed.get();
+    }
+
+    public long syncs() {
+        return syncs.get();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /** Stops accepting entries once the ring drains, forces the last group and stops the writer. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        long next = 0;
+        int attempts = 0;
+        while (true) {
+            int taken = 0;
+            boolean writing = false;
+            try {
+                int slot = (int) (next & mask);
+                while (published.getAcquire(slot) == next) {
+                    writing = true;
+                    write(slots[slot]);
+                    writing = false;
+                    attempts = 0;
+                    slots[slot] = null;
+                    next++;
+                    head.setRelease(next);
+                    if (++taken == slots.length) {
+                        break;
+                    }
+                    slot = (int) (next & mask);
+                }
+                if (position > syncedPosition) {
+                    long now = System.nanoTime();
+                    if (position - syncedPosition >= syncBytes || now - pendingSince >= syncIntervalNanos
+                            || syncRequested || closed) {
+                        sync();
+                    }
+                }
+                if (position == syncedPosition) {
+                    durable.set(next);
+                    syncRequested = false;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (writing && ++attempts >= MAX_WRITE_ATTEMPTS) {
+                    log.error("Audit writer skipped entry {} after {} failed attempts in {}", next, attempts, directory, e);
+                    slots[(int) (next & mask)] = null;
+                    next++;
+                    head.setRelease(next);
+                    failed.incrementAndGet();
+                    attempts = 0;
+                    continue;
+                }
+                // Entries stay in the ring until a segment can be opened again
+                log.error("Audit writer failed in {}; retrying", directory, e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                continue;
+            }
+            if (taken == 0) {
+                if (closed && tail.get() == next) {
+                    return;
+                }
+                LockSupport.parkNanos(syncRequested ? 10_000 : 1_000_000);
+            }
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        scratch.clear();
+        scratch.putLong(entry.timeMs);
+        scratch.putLong(entry.customerId);
+        scratch.put((byte) entry.action.ordinal());
+        byte[] detail = entry.detail == null ? null : truncate(entry.detail.getBytes(StandardCharsets.UTF_8));
+        scratch.putShort((short) (detail == null ? -1 : detail.length));
+        if (detail != null) {
+            scratch.put(detail);
+        }
+        int length = scratch.position();
+
+        if (position + RECORD_HEADER_BYTES + length > segmentBytes) {
+            sync();
+            openNextSegment();
+        }
+        if (position == syncedPosition) {
+            pendingSince = System.nanoTime();
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.put(position + RECORD_HEADER_BYTES, scratch.array(), 0, length);
+        segment.putInt(position, length);
+        position += RECORD_HEADER_BYTES + length;
+    }
+
+    private void sync() {
+        if (position > syncedPosition) {
+            segment.force(syncedPosition, position - syncedPosition);
+            syncedPosition = position;
+            syncs.incrementAndGet();
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        Path path = directory.resolve(segmentName(segmentIndex + 1));
+        MappedByteBuffer map;
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        map.putLong(0, MAGIC);
+        map.putInt(8, VERSION);
+        map.putLong(16, System.currentTimeMillis());
+        map.force(0, HEADER_BYTES);
+        segmentIndex++;
+        segment = map;
+        position = HEADER_BYTES;
+        syncedPosition = HEADER_BYTES;
+    }
+
+    // Cuts at a character boundary so the stored detail stays valid UTF-8
+    private static byte[] truncate(byte[] utf8) {
+        if (utf8.length <= MAX_DETAIL_BYTES) {
+            return utf8;
+        }
+        int end = MAX_DETAIL_BYTES;
+        while (end > 0 && (utf8[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        byte[] cut = new byte[end];
+        System.arraycopy(utf8, 0, cut, 0, end);
+        return cut;
+    }
+
+    static String segmentName(long index) {
+        return String.format("%s%012d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Segment files of a directory, oldest first
+    static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "[0-9]*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+}
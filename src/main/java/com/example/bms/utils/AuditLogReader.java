@@ -0,0 +1,123 @@
+package com.example.bms.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Searches the segments of an {@link AuditLog} directory by customer and time range.
+ * Safe to run against a directory the log is still writing: the open segment is read up
+ * to its last complete record.
+ *
+ * Each segment only holds entries made before the next one was opened, so segments whose
+ * successor opened before the range starts are skipped without being read.
+ *
+ * From the command line:
+ * {@code java -cp <classpath> com.example.bms.utils.AuditLogReader <directory> <customerId|-> <from> <to>},
+ * with ISO-8601 instants, prints one tab-separated line per entry.
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * Entries with fromMs <= time < toMs, for one customer or, with a null customerId,
+     * for all of them; in time order.
+     */
+    public static List<AuditLog.Entry> search(Path directory, Long customerId, long fromMs, long toMs) throws IOException {
+        List<Path> segments = AuditLog.segments(directory);
+        List<MappedByteBuffer> maps = new ArrayList<>(segments.size());
+        for (Path segment : segments) {
+            maps.add(map(segment));
+        }
+        List<AuditLog.Entry> found = new ArrayList<>();
+        for (int i = 0; i < maps.size(); i++) {
+            if (i + 1 < maps.size() && openedAtMs(maps.get(i + 1)) < fromMs) {
+                continue;
+            }
+            scan(maps.get(i), segments.get(i), customerId, fromMs, toMs, found);
+        }
+        // Entries are written in claim order, which can trail their timestamps by a little
+        found.sort(Comparator.comparingLong(AuditLog.Entry::getTimeMs));
+        return found;
+    }
+
+    private static void scan(MappedByteBuffer map, Path path, Long customerId, long fromMs, long toMs,
+                             List<AuditLog.Entry> found) throws IOException {
+        if (map.capacity() < AuditLog.HEADER_BYTES || map.getLong(0) != AuditLog.MAGIC) {
+            throw new IOException("Not an audit segment: " + path);
+        }
+        if (map.getInt(8) != AuditLog.VERSION) {
+            throw new IOException("Unsupported audit segment version " + map.getInt(8) + ": " + path);
+        }
+        CRC32C crc = new CRC32C();
+        int position = AuditLog.HEADER_BYTES;
+        while (position + AuditLog.RECORD_HEADER_BYTES <= map.capacity()) {
+            int length = map.getInt(position);
+            int body = position + AuditLog.RECORD_HEADER_BYTES;
+            if (length < AuditLog.BODY_FIXED_BYTES || body + length > map.capacity()) {
+                // Zero length is the end of the written part; anything else is a torn write
+                return;
+            }
+            crc.reset();
+            crc.update(map.slice(body, length));
+            if ((int) crc.getValue() != map.getInt(position + 4)) {
+                return;
+            }
+            long timeMs = map.getLong(body);
+            long customer = map.getLong(body + 8);
+            if (timeMs >= fromMs && timeMs < toMs && (customerId == null || customer == customerId)) {
+                found.add(decode(map, body, timeMs, customer));
+            }
+            position = body + length;
+        }
+    }
+
+    private static AuditLog.Entry decode(ByteBuffer map, int body, long timeMs, long customerId) {
+        AuditLog.Action[] actions = AuditLog.Action.values();
+        int action = map.get(body + 16);
+        int detailLength = map.getShort(body + 17);
+        String detail = null;
+        if (detailLength >= 0) {
+            byte[] bytes = new byte[detailLength];
+            map.get(body + AuditLog.BODY_FIXED_BYTES, bytes);
+            detail = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new AuditLog.Entry(timeMs, customerId, action < actions.length ? actions[action] : null, detail);
+    }
+
+    private static long openedAtMs(MappedByteBuffer map) {
+        return map.capacity() < AuditLog.HEADER_BYTES ? Long.MAX_VALUE : map.getLong(16);
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: AuditLogReader <directory> <customerId|-> <from> <to>  (instants as 2025-01-31T00:00:00Z)");
+            System.exit(2);
+        }
+        Long customerId = "-".equals(args[1]) ? null : Long.valueOf(args[1]);
+        long fromMs = Instant.parse(args[2]).toEpochMilli();
+        long toMs = Instant.parse(args[3]).toEpochMilli();
+        for (AuditLog.Entry entry : search(Paths.get(args[0]), customerId, fromMs, toMs)) {
+            System.out.println(Instant.ofEpochMilli(entry.getTimeMs()) + "\t" + entry.getCustomerId() + "\t"
+                    + entry.getAction() + "\t" + (entry.getDetail() == null ? "" : entry.getDetail()));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bms.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings: {@link #mightContain} never returns false
+ * for an added value, and returns true for other values at roughly the configured
+ * false-positive rate.
+ *
+ * Bit positions come from double hashing with two seeded 64-bit hashes. The seed is
+ * random per instance, so which strings collide differs on every build and cannot
+ * be precomputed from outside.
+ */
+public final class BloomFilter {
+
+    private static final int MAX_HASHES = 24;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long seed;
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long bitCount, int hashCount) {
+        long wordCount = (bitCount + 63) >>> 6;
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large: " + bitCount + " bits");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitCount = wordCount << 6;
+        this.hashCount = hashCount;
+        this.seed = ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Sizes a filter for {@code expectedInsertions} at {@code falsePositiveRate}. If that
+     * needs more than {@code maxBytes}, the filter is capped and the rate gets worse.
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate, long maxBytes) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0 || maxBytes < 8) {
+            throw new IllegalArgumentException("Bloom filter needs positive insertions, a rate in (0, 1) and at least 8 bytes");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        bits = Math.max(64, Math.min(bits, maxBytes * 8));
+        int hashes = (int) Math.round((double) bits / expectedInsertions * ln2);
+        return new BloomFilter(bits, Math.max(1, Math.min(MAX_HASHES, hashes)));
+    }
+
+    // Returns true if the value was not already (apparently) present
+    public boolean add(String value) {
+        long h1 = hash(value, seed);
+        long h2 = hash(value, ~seed) | 1L;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        if (changed) {
+            insertions.incrementAndGet();
+        }
+        return changed;
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value, seed);
+        long h2 = hash(value, ~seed) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    // Distinct values added so far; repeats and the rare full collision are not counted
+    public long insertions() {
+        return insertions.get();
+    }
+
+    // False-positive rate expected at the current fill: (1 - e^(-kn/m))^k
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+    }
+
+    // Seeded 64-bit hash of the UTF-8 bytes, finalized with the murmur3 fmix64 mixer
+    private static long hash(String value, long seed) {
+        long h = seed ^ 0x9E3779B97F4A7C15L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+            h = Long.rotateLeft(h, 29);
+        }
+        h ^= value.length();
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85B53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
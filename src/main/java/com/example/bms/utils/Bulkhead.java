@@ -0,0 +1,65 @@
+package com.example.bms.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many calls of one kind run at once, so a slow dependency can tie up at most
+ * maxConcurrent request threads instead of all of them. A call that finds no permit
+ * within maxWaitMs is rejected. Metrics: {@code bms.bulkhead.active} and
+ * {@code bms.bulkhead.rejected}, tagged with the bulkhead's name.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrent, long maxWaitMs, MeterRegistry meterRegistry) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " needs a positive concurrency limit");
+        }
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.rejected = Counter.builder("bms.bulkhead.rejected")
+                .description("Calls turned away because the bulkhead was full")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("bms.bulkhead.active", this, Bulkhead::active)
+                .description("Calls running inside the bulkhead")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = maxWaitMs <= 0 ? permits.tryAcquire() : permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new RejectedCallException("Too many concurrent " + name + " requests", 1000);
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+}
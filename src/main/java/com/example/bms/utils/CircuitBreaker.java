@@ -0,0 +1,180 @@
+package com.example.bms.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling a dependency that is failing or slow, so callers fail fast instead of
+ * queueing behind it.
+ *
+ * Closed, the breaker records whether each of the last windowSize calls failed; a call
+ * fails if it throws something isFailure accepts or takes longer than slowCallMs. Once
+ * at least minimumCalls are recorded and failurePercent of them failed, it opens and
+ * rejects every call for openMs. It then lets halfOpenCalls trial calls through: if they
+ * all succeed it closes with a fresh window, and any failure opens it again.
+ *
+ * Metrics, tagged with the breaker's name: {@code bms.circuit.state} (1 for the current
+ * state, 0 for the others) and {@code bms.circuit.calls}
+ * (outcome=success|failure|slow|rejected).
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failurePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> isFailure;
+    private final LongSupplier nanoClock;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter slow;
+    private final Counter rejected;
+
+    // Guarded by this: ring of the last calls' outcomes while closed
+    private final boolean[] window;
+    private int recorded;
+    private int next;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsLeft;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failurePercent, long slowCallMs, long openMs,
+                          int halfOpenCalls, Predicate<Throwable> isFailure, MeterRegistry meterRegistry) {
+        this(name, windowSize, minimumCalls, failurePercent, slowCallMs, openMs, halfOpenCalls, isFailure, meterRegistry,
+                System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, int failurePercent, long slowCallMs, long openMs,
+                   int halfOpenCalls, Predicate<Throwable> isFailure, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || halfOpenCalls <= 0
+                || failurePercent <= 0 || failurePercent > 100) {
+            throw new IllegalArgumentException("Invalid settings for circuit breaker " + name);
+        }
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failurePercent = failurePercent;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.halfOpenCalls = halfOpenCalls;
+        this.isFailure = isFailure;
+        this.nanoClock = nanoClock;
+        this.succeeded = callCounter(meterRegistry, "success", "Calls that completed in time");
+        this.failed = callCounter(meterRegistry, "failure", "Calls that failed");
+        this.slow = callCounter(meterRegistry, "slow", "Calls that completed but slower than the slow-call threshold");
+        this.rejected = callCounter(meterRegistry, "rejected", "Calls turned away while the breaker was open");
+        for (State each : State.values()) {
+            Gauge.builder("bms.circuit.state", this, breaker -> breaker.state() == each ? 1 : 0)
+                    .description("1 if the circuit breaker is in this state")
+                    .tag("name", name)
+                    .tag("state", each.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        long retryAfterNanos = acquire();
+        if (retryAfterNanos >= 0) {
+            rejected.increment();
+            throw new RejectedCallException("Circuit " + name + " is open",
+                    Math.max(1, TimeUnit.NANOSECONDS.toMillis(retryAfterNanos)));
+        }
+        long started = nanoClock.getAsLong();
+        try {
+            T result = call.get();
+            record(nanoClock.getAsLong() - started, false);
+            return result;
+        } catch (RuntimeException | Error e) {
+            record(nanoClock.getAsLong() - started, isFailure.test(e));
+            throw e;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    // -1 if the call may go ahead, otherwise how long until the breaker lets calls through again
+    private synchronized long acquire() {
+        if (state == State.OPEN) {
+            long elapsed = nanoClock.getAsLong() - openedAt;
+            if (elapsed < openNanos) {
+                return openNanos - elapsed;
+            }
+            state = State.HALF_OPEN;
+            trialsLeft = halfOpenCalls;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsLeft == 0) {
+                // Trials are still running; they decide soon
+                return 0;
+            }
+            trialsLeft--;
+        }
+        return -1;
+    }
+
+    private synchronized void record(long durationNanos, boolean threwFailure) {
+        boolean isSlow = !threwFailure && durationNanos >= slowCallNanos;
+        (threwFailure ? failed : isSlow ? slow : succeeded).increment();
+        boolean failure = threwFailure || isSlow;
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failure) {
+                    open();
+                } else if (++trialsSucceeded == halfOpenCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (recorded == window.length && window[next]) {
+                    failures--;
+                }
+                window[next] = failure;
+                next = (next + 1) % window.length;
+                recorded = Math.min(recorded + 1, window.length);
+                if (failure) {
+                    failures++;
+                }
+                if (recorded >= minimumCalls && failures * 100 >= failurePercent * recorded) {
+                    open();
+                }
+            }
+            // Calls that started before the breaker opened do not change it
+            case OPEN -> { }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    private Counter callCounter(MeterRegistry meterRegistry, String outcome, String description) {
+        return Counter.builder("bms.circuit.calls")
+                .description(description)
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
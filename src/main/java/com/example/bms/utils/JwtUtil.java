@@ -12,6 +12,7 @@ import java.util.Date;
 public class JwtUtil {
     private final String SECRET_KEY = "secret_key_for_bms_application_that_is_long_enough";
     private final long EXPIRATION_TIME = 1000 * 60 * 60; // 1 hour
+    private static final String SESSION_CLAIM = "sid";
     private final SecretKey key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
 
     public String generateToken(String username) {
@@ -23,10 +24,30 @@ public class JwtUtil {
                 .compact();
     }
 
+    // A token tied to a tracked session, which ends the token when it ends
+    public String generateToken(String username, long sessionId, long expiresAtMs) {
+        return Jwts.builder()
+                .subject(username)
+                .claim(SESSION_CLAIM, sessionId)
+                .issuedAt(new Date())
+                .expiration(new Date(expiresAtMs))
+                .signWith(key)
+                .compact();
+    }
+
+    public long getExpirationTimeMs() {
+        return EXPIRATION_TIME;
+    }
+
     public String extractUsername(String token) {
         return getClaims(token).getSubject();
     }
 
+    // Null for tokens that are not tied to a session
+    public Long extractSessionId(String token) {
+        return getClaims(token).get(SESSION_CLAIM, Long.class);
+    }
+
     public boolean validateToken(String token, String username) {
         final String extractedUsername = extractUsername(token);
         return (extractedUsername.equals(username) && !isTokenExpired(token));
@@ -0,0 +1,421 @@
+package com.example.bms.utils;
+
+import com.example.bms.models.Loan;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable file of archived loans, read through a memory map.
+ *
+ * Loans are sorted by customer and packed into Deflate-compressed blocks, so one
+ * customer's loans usually share a block. Two sorted indexes follow the blocks: loanId
+ * to record number, and customerId to the customer's first record and loan count. Keys
+ * are compared as unsigned UTF-8 bytes and binary-searched straight from the map; only
+ * the blocks holding a match are inflated.
+ *
+ * Layout: header, blocks, block offsets, loan index, customer index, key bytes. A block
+ * inflates to its record count, the offset of each record, then the records.
+ */
+public final class LoanSegment {
+
+    private static final long MAGIC = 0x424D534C4F414E31L; // "BMSLOAN1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    // Key offset, key length, record number
+    private static final int LOAN_ENTRY_BYTES = 12;
+    // Key offset, key length, first record number, record count
+    private static final int CUSTOMER_ENTRY_BYTES = 16;
+
+    private static final Comparator<byte[]> KEY_ORDER = Arrays::compareUnsigned;
+
+    private final Path path;
+    // Shared by all readers, so only absolute gets are used
+    private final MappedByteBuffer map;
+    private final int recordCount;
+    private final int recordsPerBlock;
+    private final int customerCount;
+    private final int blockTable;
+    private final int loanIndex;
+    private final int customerIndex;
+    private final int keys;
+
+    private LoanSegment(Path path, MappedByteBuffer map) throws IOException {
+        this.path = path;
+        this.map = map;
+        if (map.capacity() < HEADER_BYTES || map.getLong(0) != MAGIC) {
+            throw new IOException("Not a loan segment: " + path);
+        }
+        if (map.getInt(8) != VERSION) {
+            throw new IOException("Unsupported loan segment version " + map.getInt(8) + ": " + path);
+        }
+        this.recordCount = map.getInt(12);
+        this.recordsPerBlock = map.getInt(16);
+        this.customerCount = map.getInt(20);
+        this.blockTable = map.getInt(24);
+        this.loanIndex = map.getInt(28);
+        this.customerIndex = map.getInt(32);
+        this.keys = map.getInt(36);
+    }
+
+    public static LoanSegment open(Path path) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new LoanSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes loans to a new file at path and forces it to disk. Fails if the file
+     * exists; callers write to a temporary name and move it into place.
+     */
+    public static void write(Path path, List<Loan> loans, int recordsPerBlock) throws IOException {
+        if (recordsPerBlock <= 0) {
+            throw new IllegalArgumentException("recordsPerBlock must be positive");
+        }
+        List<Loan> sorted = new ArrayList<>(loans);
+        sorted.sort(Comparator.comparing((Loan loan) -> customerKey(loan.getCustomerId()), KEY_ORDER)
+                .thenComparing(Loan::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        List<byte[]> blocks = new ArrayList<>();
+        for (int start = 0; start < sorted.size(); start += recordsPerBlock) {
+            blocks.add(compressBlock(sorted.subList(start, Math.min(sorted.size(), start + recordsPerBlock))));
+        }
+
+        ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+        List<int[]> customerEntries = new ArrayList<>();
+        for (int record = 0; record < sorted.size(); record++) {
+            if (record > 0 && sorted.get(record).getCustomerId().equals(sorted.get(record - 1).getCustomerId())) {
+                customerEntries.get(customerEntries.size() - 1)[3]++;
+                continue;
+            }
+            byte[] key = customerKey(sorted.get(record).getCustomerId());
+            customerEntries.add(new int[] {keyBytes.size(), key.length, record, 1});
+            keyBytes.write(key);
+        }
+        Integer[] byLoanId = new Integer[sorted.size()];
+        for (int record = 0; record < byLoanId.length; record++) {
+            byLoanId[record] = record;
+        }
+        Arrays.sort(byLoanId, Comparator.comparing(record -> utf8(sorted.get(record).getLoanId()), KEY_ORDER));
+        List<int[]> loanEntries = new ArrayList<>(byLoanId.length);
+        for (int record : byLoanId) {
+            byte[] key = utf8(sorted.get(record).getLoanId());
+            loanEntries.add(new int[] {keyBytes.size(), key.length, record});
+            keyBytes.write(key);
+        }
+
+        long blockTable = HEADER_BYTES;
+        for (byte[] block : blocks) {
+            blockTable += block.length;
+        }
+        long loanIndex = blockTable + 4L * (blocks.size() + 1);
+        long customerIndex = loanIndex + (long) LOAN_ENTRY_BYTES * loanEntries.size();
+        long keys = customerIndex + (long) CUSTOMER_ENTRY_BYTES * customerEntries.size();
+        if (keys + keyBytes.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many loans for one segment: " + loans.size());
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.size());
+            out.writeInt(recordsPerBlock);
+            out.writeInt(customerEntries.size());
+            out.writeInt((int) blockTable);
+            out.writeInt((int) loanIndex);
+            out.writeInt((int) customerIndex);
+            out.writeInt((int) keys);
+            out.write(new byte[HEADER_BYTES - out.size()]);
+            for (byte[] block : blocks) {
+                out.write(block);
+            }
+            int offset = HEADER_BYTES;
+            for (byte[] block : blocks) {
+                out.writeInt(offset);
+                offset += block.length;
+            }
+            out.writeInt(offset);
+            for (int[] entry : loanEntries) {
+                out.writeInt(entry[0]);
+                out.writeInt(entry[1]);
+                out.writeInt(entry[2]);
+            }
+            for (int[] entry : customerEntries) {
+                out.writeInt(entry[0]);
+                out.writeInt(entry[1]);
+                out.writeInt(entry[2]);
+                out.writeInt(entry[3]);
+            }
+            keyBytes.writeTo(out);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public Optional<Loan> findByLoanId(String loanId) {
+        int entry = search(loanIndex, LOAN_ENTRY_BYTES, recordCount, utf8(loanId));
+        if (entry < 0) {
+            return Optional.empty();
+        }
+        int record = map.getInt(loanIndex + entry * LOAN_ENTRY_BYTES + 8);
+        return Optional.of(readRecords(record, 1).get(0));
+    }
+
+    // In record order, which is loan id order within a customer
+    public List<Loan> findByCustomerId(long customerId) {
+        int entry = search(customerIndex, CUSTOMER_ENTRY_BYTES, customerCount, customerKey(customerId));
+        if (entry < 0) {
+            return List.of();
+        }
+        int position = customerIndex + entry * CUSTOMER_ENTRY_BYTES;
+        return readRecords(map.getInt(position + 8), map.getInt(position + 12));
+    }
+
+    // Every loan in the segment; inflates the whole file
+    public List<Loan> readAll() {
+        return readRecords(0, recordCount);
+    }
+
+    private int search(int index, int entryBytes, int entries, byte[] key) {
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = index + mid * entryBytes;
+            int cmp = compareKey(map.getInt(position), map.getInt(position + 4), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKey(int keyOffset, int keyLength, byte[] key) {
+        int start = keys + keyOffset;
+        int common = Math.min(keyLength, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(map.get(start + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(keyLength, key.length);
+    }
+
+    private List<Loan> readRecords(int first, int count) {
+        List<Loan> loans = new ArrayList<>(count);
+        int record = first;
+        int end = first + count;
+        while (record < end) {
+            int block = record / recordsPerBlock;
+            byte[] raw = inflateBlock(block);
+            int blockStart = block * recordsPerBlock;
+            int stop = Math.min(end, blockStart + recordsPerBlock);
+            for (; record < stop; record++) {
+                int slot = record - blockStart;
+                int offset = readInt(raw, 4 + 4 * slot);
+                try {
+                    loans.add(decode(new DataInputStream(new ByteArrayInputStream(raw, offset, raw.length - offset))));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Corrupt record " + record + " in " + path, e);
+                }
+            }
+        }
+        return loans;
+    }
+
+    private byte[] inflateBlock(int block) {
+        int start = map.getInt(blockTable + 4 * block);
+        int end = map.getInt(blockTable + 4 * (block + 1));
+        byte[] compressed = new byte[end - start - 4];
+        map.get(start + 4, compressed);
+        byte[] raw = new byte[map.getInt(start)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = inflater.inflate(raw);
+            if (read != raw.length || !inflater.finished()) {
+                throw new UncheckedIOException(new IOException("Truncated block " + block + " in " + path));
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt block " + block + " in " + path, e));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Uncompressed length, then the Deflate stream
+    private static byte[] compressBlock(List<Loan> loans) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        int[] offsets = new int[loans.size()];
+        int header = 4 + 4 * loans.size();
+        for (int i = 0; i < loans.size(); i++) {
+            offsets[i] = header + out.size();
+            encode(out, loans.get(i));
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(header + out.size());
+        DataOutputStream rawOut = new DataOutputStream(raw);
+        rawOut.writeInt(loans.size());
+        for (int offset : offsets) {
+            rawOut.writeInt(offset);
+        }
+        records.writeTo(rawOut);
+
+        byte[] input = raw.toByteArray();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream block = new ByteArrayOutputStream(input.length / 2 + 16);
+            new DataOutputStream(block).writeInt(input.length);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                block.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return block.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void encode(DataOutputStream out, Loan loan) throws IOException {
+        out.writeLong(loan.getId() == null ? 0L : loan.getId());
+        out.writeUTF(loan.getLoanId());
+        writeString(out, loan.getLoanType() == null ? null : loan.getLoanType().name());
+        writeAmount(out, loan.getAmount());
+        writeAmount(out, loan.getOfferedInterestRate());
+        out.writeUTF(String.valueOf(loan.getCustomerId()));
+        writeString(out, loan.getLoanStatus() == null ? null : loan.getLoanStatus().name());
+        out.writeBoolean(loan.getTenureMonths() != null);
+        if (loan.getTenureMonths() != null) {
+            out.writeInt(loan.getTenureMonths());
+        }
+        writeString(out, loan.getPurpose());
+        writeAmount(out, loan.getMonthlyEmi());
+        writeTime(out, loan.getApplicationDate());
+        writeTime(out, loan.getApprovalDate());
+        writeTime(out, loan.getDisbursementDate());
+        writeTime(out, loan.getMaturityDate());
+        writeAmount(out, loan.getOutstandingAmount());
+        out.writeBoolean(loan.getLastAccrualDate() != null);
+        if (loan.getLastAccrualDate() != null) {
+            out.writeLong(loan.getLastAccrualDate().toEpochDay());
+        }
+        writeTime(out, loan.getCreatedAt());
+        writeTime(out, loan.getUpdatedAt());
+    }
+
+    // Setters with side effects (status, tenure) go first; the timestamps they touch are restored after
+    private static Loan decode(DataInputStream in) throws IOException {
+        Loan loan = new Loan();
+        loan.setId(in.readLong());
+        loan.setLoanId(in.readUTF());
+        String loanType = readString(in);
+        loan.setLoanType(loanType == null ? null : Loan.LoanType.valueOf(loanType));
+        loan.setAmount(readAmount(in));
+        loan.setOfferedInterestRate(readAmount(in));
+        loan.setCustomerId(Long.valueOf(in.readUTF()));
+        String status = readString(in);
+        loan.setLoanStatus(status == null ? null : Loan.LoanStatus.valueOf(status));
+        loan.setTenureMonths(in.readBoolean() ? in.readInt() : null);
+        loan.setPurpose(readString(in));
+        loan.setMonthlyEmi(readAmount(in));
+        loan.setApplicationDate(readTime(in));
+        loan.setApprovalDate(readTime(in));
+        loan.setDisbursementDate(readTime(in));
+        loan.setMaturityDate(readTime(in));
+        loan.setOutstandingAmount(readAmount(in));
+        loan.setLastAccrualDate(in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null);
+        loan.setCreatedAt(readTime(in));
+        loan.setUpdatedAt(readTime(in));
+        return loan;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Amounts and rates are stored with two decimals, so paise and basis points are exact
+    private static void writeAmount(DataOutputStream out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(Money.toPaise(value));
+        }
+    }
+
+    private static BigDecimal readAmount(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Money.fromPaise(in.readLong()) : null;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    // Customers are keyed by the decimal text of their id, as in segments written before the id was numeric
+    private static byte[] customerKey(Long customerId) {
+        return utf8(String.valueOf(customerId));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
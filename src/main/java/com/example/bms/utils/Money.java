@@ -0,0 +1,238 @@
+package com.example.bms.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money held as a {@code long} count of paise (1/100 rupee).
+ *
+ * Instances are immutable. Hot paths such as EMI calculation work on the raw
+ * {@code long} values through the static helpers so they do not allocate.
+ * Interest rates are carried as basis points (1% = 100 bps), which matches the
+ * scale-2 percentage columns used by the entities.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0L);
+    // The largest amount the scale-2, precision-15 money columns hold
+    public static final BigDecimal MAX_AMOUNT = new BigDecimal("9999999999999.99");
+    // 100% a year
+    public static final BigDecimal MAX_RATE_PERCENT = BigDecimal.valueOf(100);
+
+    // Q3.60 fixed point for the annuity maths; every intermediate stays below 4
+    private static final int FRAC_BITS = 60;
+    private static final long ONE = 1L << FRAC_BITS;
+    private static final long MAX_INTEGER_PART = 1L << (62 - FRAC_BITS);
+
+    // 12 months * 100 (percent) * 100 (bps)
+    private static final long BPS_PER_MONTHLY_UNIT = 120_000L;
+    // 365 days * 100 (percent) * 100 (bps), actual/365 day count
+    private static final long BPS_PER_DAILY_UNIT = 3_650_000L;
+    private static final long MAX_RATE_BPS = MAX_RATE_PERCENT.longValue() * 100L;
+
+    private final long paise;
+
+    private Money(long paise) {
+        this.paise = paise;
+    }
+
+    public static Money ofPaise(long paise) {
+        return paise == 0L ? ZERO : new Money(paise);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return amount == null ? ZERO : ofPaise(toPaise(amount));
+    }
+
+    public long getPaise() {
+        return paise;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return fromPaise(paise);
+    }
+
+    public Money plus(Money other) {
+        return ofPaise(Math.addExact(paise, other.paise));
+    }
+
+    public Money minus(Money other) {
+        return ofPaise(Math.subtractExact(paise, other.paise));
+    }
+
+    public boolean isPositive() {
+        return paise > 0L;
+    }
+
+    public boolean isNegative() {
+        return paise < 0L;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(paise, other.paise);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).paise == paise;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(paise);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    // Conversion helpers
+
+    public static long toPaise(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromPaise(long paise) {
+        return BigDecimal.valueOf(paise, SCALE);
+    }
+
+    public static long toBasisPoints(BigDecimal ratePercent) {
+        return ratePercent.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static long toBasisPoints(double ratePercent) {
+        return Math.round(ratePercent * 100.0);
+    }
+
+    public static BigDecimal fromBasisPoints(long basisPoints) {
+        return BigDecimal.valueOf(basisPoints, SCALE);
+    }
+
+    // Arithmetic helpers
+
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += Long.signum(dividend) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+
+    /**
+     * Interest for one month on {@code principalPaise} at {@code annualRateBps}, rounded half-up.
+     */
+    public static long monthlyInterestPaise(long principalPaise, long annualRateBps) {
+        return divideHalfUp(Math.multiplyExact(principalPaise, annualRateBps), BPS_PER_MONTHLY_UNIT);
+    }
+
+    /**
+     * Interest for one day (actual/365) on {@code principalPaise} at {@code annualRateBps}, rounded half-up.
+     */
+    public static long dailyInterestPaise(long principalPaise, long annualRateBps) {
+        return divideHalfUp(Math.multiplyExact(principalPaise, annualRateBps), BPS_PER_DAILY_UNIT);
+    }
+
+    /**
+     * Equated monthly instalment in paise, rounded half-up, using the standard
+     * reducing-balance formula {@code P * r * (1+r)^n / ((1+r)^n - 1)}.
+     */
+    public static long emiPaise(long principalPaise, long annualRateBps, int tenureMonths) {
+        if (principalPaise < 0L || tenureMonths <= 0) {
+            throw new IllegalArgumentException("Principal must be non-negative and tenure positive");
+        }
+        if (annualRateBps < 0L || annualRateBps > MAX_RATE_BPS) {
+            throw new IllegalArgumentException("Interest rate out of range: " + annualRateBps + " bps");
+        }
+        if (annualRateBps == 0L) {
+            return divideHalfUp(principalPaise, tenureMonths);
+        }
+        return applyFactor(principalPaise, annuityFactor(annualRateBps, tenureMonths));
+    }
+
+    /**
+     * Payment per unit of principal in Q3.60. Uses the discount form
+     * {@code r / (1 - (1+r)^-n)} so long tenures cannot overflow.
+     */
+    static long annuityFactor(long annualRateBps, int tenureMonths) {
+        long monthlyRate = divQ(annualRateBps, BPS_PER_MONTHLY_UNIT);
+        long discount = powQ(divQ(ONE, ONE + monthlyRate), tenureMonths);
+        return divQ(monthlyRate, ONE - discount);
+    }
+
+    /**
+     * Annuity factors for every tenure from 1 to {@code maxTenureMonths} at one rate, indexed
+     * by tenure (slot 0 is unused). Each discount power is the previous one times {@code 1/(1+r)},
+     * so the whole row costs one multiply and one divide per tenure. Pass a factor to
+     * {@link #emiPaise(long, long)}.
+     */
+    public static long[] annuityFactors(long annualRateBps, int maxTenureMonths) {
+        if (annualRateBps <= 0L || annualRateBps > MAX_RATE_BPS || maxTenureMonths <= 0) {
+            throw new IllegalArgumentException("Annuity factors need a positive rate and tenure");
+        }
+        long monthlyRate = divQ(annualRateBps, BPS_PER_MONTHLY_UNIT);
+        long perMonth = divQ(ONE, ONE + monthlyRate);
+        long[] factors = new long[maxTenureMonths + 1];
+        long discount = ONE;
+        for (int n = 1; n <= maxTenureMonths; n++) {
+            discount = mulQ(discount, perMonth);
+            factors[n] = divQ(monthlyRate, ONE - discount);
+        }
+        return factors;
+    }
+
+    // EMI in paise from a precomputed annuity factor
+    public static long emiPaise(long principalPaise, long annuityFactor) {
+        return applyFactor(principalPaise, annuityFactor);
+    }
+
+    // Multiplying a plain integer by a Q3.60 factor yields a plain integer, rounded half-up
+    static long applyFactor(long principalPaise, long factor) {
+        return mulQ(principalPaise, factor);
+    }
+
+    private static long mulQ(long a, long b) {
+        long hi = Math.multiplyHigh(a, b);
+        long lo = a * b;
+        if ((hi >>> (FRAC_BITS - 1)) != 0L) {
+            throw new ArithmeticException("Fixed-point overflow");
+        }
+        long result = (hi << (64 - FRAC_BITS)) | (lo >>> FRAC_BITS);
+        return result + ((lo >>> (FRAC_BITS - 1)) & 1L);
+    }
+
+    // Restoring division, one quotient bit per step, so the dividend never needs 128 bits
+    private static long divQ(long a, long b) {
+        long quotient = a / b;
+        long remainder = a % b;
+        if (quotient >= MAX_INTEGER_PART) {
+            throw new ArithmeticException("Fixed-point overflow");
+        }
+        for (int i = 0; i < FRAC_BITS; i++) {
+            remainder <<= 1;
+            quotient <<= 1;
+            if (Long.compareUnsigned(remainder, b) >= 0) {
+                remainder -= b;
+                quotient |= 1L;
+            }
+        }
+        return Long.compareUnsigned(remainder << 1, b) >= 0 ? quotient + 1 : quotient;
+    }
+
+    private static long powQ(long base, int exponent) {
+        long result = ONE;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result = mulQ(result, base);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                base = mulQ(base, base);
+            }
+        }
+        return result;
+    }
+}
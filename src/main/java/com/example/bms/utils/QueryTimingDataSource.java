@@ -0,0 +1,155 @@
+package com.example.bms.utils;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Wraps the pool so every statement execution is timed and reported to
+ * {@link SlowQueryRecorder}. Extends {@link DelegatingDataSource} so Spring Boot can
+ * still unwrap the Hikari pool for its connection-pool metrics.
+ */
+public class QueryTimingDataSource extends DelegatingDataSource {
+
+    private final SlowQueryRecorder recorder;
+
+    public QueryTimingDataSource(DataSource target, SlowQueryRecorder recorder) {
+        super(target);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryTimingDataSource.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("unwrap") && Connection.class.equals(args[0])) {
+                return target;
+            }
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof CallableStatement || result instanceof PreparedStatement) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+                return Proxy.newProxyInstance(QueryTimingDataSource.class.getClassLoader(),
+                        new Class<?>[] { type }, new StatementHandler((Statement) result, (String) args[0], proxy));
+            }
+            if (result instanceof Statement) {
+                return Proxy.newProxyInstance(QueryTimingDataSource.class.getClassLoader(),
+                        new Class<?>[] { Statement.class }, new StatementHandler((Statement) result, null, proxy));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private final Object connectionProxy;
+        private List<String> shapes = new ArrayList<>();
+        private List<String> firstRowShapes;
+        private int batchSize;
+
+        StatementHandler(Statement target, String preparedSql, Object connectionProxy) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.connectionProxy = connectionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                recordShape((Integer) args[0], name, args[1]);
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (firstRowShapes == null) {
+                    firstRowShapes = shapes;
+                }
+                shapes = new ArrayList<>();
+            } else if (name.equals("clearParameters")) {
+                shapes = new ArrayList<>();
+            } else if (name.equals("getConnection")) {
+                return connectionProxy;
+            } else if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                long started = System.nanoTime();
+                try {
+                    return invokeTarget(target, method, args);
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    if (sql != null) {
+                        List<String> reported = firstRowShapes != null ? firstRowShapes : shapes;
+                        recorder.record(sql, Collections.unmodifiableList(reported), batchSize, elapsed);
+                    }
+                    if (name.equals("executeBatch")) {
+                        batchSize = 0;
+                        firstRowShapes = null;
+                    }
+                }
+            }
+            return invokeTarget(target, method, args);
+        }
+
+        private void recordShape(int index, String setter, Object value) {
+            while (shapes.size() < index) {
+                shapes.add("?");
+            }
+            String shape;
+            if (setter.equals("setNull") || value == null) {
+                shape = "null";
+            } else if (setter.equals("setObject")) {
+                shape = value.getClass().getSimpleName();
+            } else {
+                shape = setter.substring(3);
+            }
+            shapes.set(index - 1, shape);
+        }
+    }
+}
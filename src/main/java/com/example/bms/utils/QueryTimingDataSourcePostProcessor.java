@@ -0,0 +1,29 @@
+package com.example.bms.utils;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Puts QueryTimingDataSource in front of every DataSource bean
+@Component
+@ConditionalOnProperty(name = "bms.jdbc.query-timing.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryTimingDataSourcePostProcessor implements BeanPostProcessor {
+
+    // Resolved lazily so the recorder and its MeterRegistry are not created during post-processor registration
+    private final ObjectProvider<SlowQueryRecorder> recorder;
+
+    public QueryTimingDataSourcePostProcessor(ObjectProvider<SlowQueryRecorder> recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof QueryTimingDataSource)) {
+            return new QueryTimingDataSource((DataSource) bean, recorder.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bms.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which customers wrote recently, so their own reads skip the replicas for
+ * {@code bms.datasource.replicas.read-your-writes-ms} and see what they just saved.
+ *
+ * Keys are customer IDs, or loginIds around registration and login; a collision between
+ * the two only sends a read to the primary. Writes are remembered per instance, so a
+ * read served by another instance can still lag without session affinity.
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final int PURGE_THRESHOLD = 100_000;
+
+    private static final ThreadLocal<String> READER = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    @Value("${bms.datasource.replicas.read-your-writes-ms:5000}")
+    private long windowMs;
+
+    public void wrote(String key) {
+        if (key == null) {
+            return;
+        }
+        lastWriteNanos.put(key, System.nanoTime());
+        if (lastWriteNanos.size() > PURGE_THRESHOLD) {
+            long now = System.nanoTime();
+            lastWriteNanos.values().removeIf(at -> now - at >= windowNanos());
+        }
+    }
+
+    // Runs a read on behalf of key; ReplicaRoutingDataSource checks it when picking a target
+    public <T> T readFor(String key, Supplier<T> read) {
+        String previous = READER.get();
+        READER.set(key);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                READER.remove();
+            } else {
+                READER.set(previous);
+            }
+        }
+    }
+
+    public boolean currentReaderWroteRecently() {
+        String key = READER.get();
+        if (key == null) {
+            return false;
+        }
+        Long at = lastWriteNanos.get(key);
+        return at != null && System.nanoTime() - at < windowNanos();
+    }
+
+    private long windowNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bms.utils;
+
+/**
+ * A call turned away without running, because its circuit breaker is open or its
+ * bulkhead is full. Callers answer 503, or serve last-known-good data, and the client
+ * may retry after {@link #getRetryAfterMs()}.
+ */
+public class RejectedCallException extends RuntimeException {
+
+    private final long retryAfterMs;
+
+    public RejectedCallException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bms.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured pool with a primary pool plus one read-only pool per
+ * {@code bms.datasource.replicas.urls} entry, routed by {@link ReplicaRoutingDataSource}.
+ * Replicas use the primary's driver and, unless overridden, its credentials.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "bms.datasource.replicas.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "bms.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, ReadYourWrites readYourWrites, MeterRegistry meterRegistry,
+                                 @Value("${bms.datasource.replicas.urls}") List<String> urls,
+                                 @Value("${bms.datasource.replicas.username:}") String username,
+                                 @Value("${bms.datasource.replicas.password:}") String password) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("bms-primary");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(StringUtils.hasText(username) ? username : properties.determineUsername())
+                    .password(StringUtils.hasText(username) ? password : properties.determinePassword())
+                    .build();
+            replica.setPoolName("bms-" + name);
+            replica.setReadOnly(true);
+            // Spring Boot only binds pool metrics for DataSource beans, which these pools are not
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, replica);
+        }
+        if (replicas.isEmpty()) {
+            throw new IllegalStateException("bms.datasource.replicas.enabled is set but bms.datasource.replicas.urls is empty");
+        }
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, readYourWrites, meterRegistry));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bms.utils;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+/**
+ * Sends connections for read-only transactions to a replica and everything else to the
+ * primary. Replicas take turns, and only those {@link #setHealthy marked healthy} by
+ * the lag monitor are used; until then, when all lag, or when the reader wrote recently
+ * ({@link ReadYourWrites}), reads stay on the primary.
+ *
+ * The key is chosen when a connection is taken, so this must sit behind a
+ * {@code LazyConnectionDataSourceProxy}: the transaction's read-only flag is only set
+ * after the transaction manager has asked for its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final Map<String, Boolean> health = new ConcurrentHashMap<>();
+    private volatile String[] healthyReplicas = new String[0];
+    private final AtomicInteger turn = new AtomicInteger();
+    private final Counter readWrite;
+    private final Counter sticky;
+    private final Counter lagging;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.readYourWrites = readYourWrites;
+        this.readWrite = routed(meterRegistry, PRIMARY, "read_write");
+        this.sticky = routed(meterRegistry, PRIMARY, "read_your_writes");
+        this.lagging = routed(meterRegistry, PRIMARY, "replica_lag");
+        this.replicaReads = routed(meterRegistry, "replica", "read_only");
+
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public void setHealthy(String replica, boolean healthy) {
+        Boolean previous = health.put(replica, healthy);
+        if (previous == null || previous != healthy) {
+            List<String> usable = new ArrayList<>();
+            for (String name : replicas.keySet()) {
+                if (Boolean.TRUE.equals(health.get(name))) {
+                    usable.add(name);
+                }
+            }
+            healthyReplicas = usable.toArray(new String[0]);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readWrite.increment();
+            return PRIMARY;
+        }
+        if (readYourWrites.currentReaderWroteRecently()) {
+            sticky.increment();
+            return PRIMARY;
+        }
+        String[] usable = healthyReplicas;
+        if (usable.length == 0) {
+            lagging.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return usable[Math.floorMod(turn.getAndIncrement(), usable.length)];
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("bms.datasource.routing")
+                .description("Connections taken, by the database they were routed to and why")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
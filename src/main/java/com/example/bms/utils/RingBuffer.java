@@ -0,0 +1,84 @@
+package com.example.bms.utils;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free queue for many producers and one consumer, on the same scheme as
+ * the ring inside {@link AuditLog}: a producer claims a sequence with one CAS on the tail
+ * and publishes its item into that slot; the consumer takes slots in sequence order once
+ * they are published. {@link #offer} never blocks: a full ring says no, and the caller
+ * decides whether to wait, shed or push back.
+ *
+ * Only one thread may call {@link #drainTo} at a time.
+ */
+public final class RingBuffer<T> {
+
+    private final int mask;
+    private final Object[] slots;
+    // Sequence last published into each slot; the consumer takes a slot once it holds the sequence it expects
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    // Next sequence the consumer takes; slots below it are free again
+    private final AtomicLong head = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, i - (long) capacity);
+        }
+    }
+
+    /** Adds item unless the ring is full; returns whether it was added. */
+    public boolean offer(T item) {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head.get() >= slots.length) {
+                return false;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                int index = (int) (sequence & mask);
+                slots[index] = item;
+                published.setRelease(index, sequence);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves up to max items, oldest first, into sink and returns how many. Stops early at
+     * a slot that is claimed but not yet published, so items always come out in claim order.
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> sink, int max) {
+        long next = head.get();
+        int taken = 0;
+        while (taken < max) {
+            int index = (int) (next & mask);
+            if (published.getAcquire(index) != next) {
+                break;
+            }
+            sink.add((T) slots[index]);
+            slots[index] = null;
+            next++;
+            taken++;
+            head.setRelease(next);
+        }
+        return taken;
+    }
+
+    /** Items offered but not yet drained; a snapshot that may already be stale. */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.bms.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+
+/**
+ * Decides which shard a customer's rows live on and runs work there.
+ *
+ * A customer lives on shard {@code id mod shards}; customer IDs are chosen so that this
+ * is also the shard their loginId hashes to, which lets login and registration go
+ * straight to one shard. Loans, accounts and login requests follow their customer.
+ * The shard count is fixed once data exists: changing it would move every customer.
+ *
+ * Work for one customer runs on the calling thread with its shard bound, and must
+ * start its transaction inside that binding. Queries spanning customers run on every
+ * shard in parallel and are merged by the caller. Without sharding there is one shard
+ * and every call runs as is.
+ */
+@Component
+public class ShardRouter {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${bms.sharding.workers:8}")
+    private int workers;
+
+    @Value("${bms.sharding.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${bms.sharding.query-timeout-ms:5000}")
+    private long queryTimeoutMs;
+
+    private int shardCount = 1;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() throws SQLException {
+        if (dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+            shardCount = dataSource.unwrap(ShardRoutingDataSource.class).getShardCount();
+        }
+        if (shardCount > 1) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "shard-query-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    // A full pool slows the caller down instead of failing a query that must see every shard
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(long customerId) {
+        return Math.floorMod(customerId, shardCount);
+    }
+
+    // Non-numeric IDs belong to no customer; they are looked up on the home shard and not found
+    public int shardOfCustomer(String customerId) {
+        try {
+            return customerId == null ? ShardRoutingDataSource.HOME_SHARD : shardOf(Long.parseLong(customerId));
+        } catch (NumberFormatException e) {
+            return ShardRoutingDataSource.HOME_SHARD;
+        }
+    }
+
+    // Must never change while data exists: String.hashCode is fixed by the language spec, the mixer by this code
+    public int shardOfLoginId(String loginId) {
+        int h = loginId == null ? 0 : loginId.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shardCount);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (shardCount == 1) {
+            return work.get();
+        }
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("No shard " + shard + " (have " + shardCount + ")");
+        }
+        Integer previous = ShardRoutingDataSource.bind(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardRoutingDataSource.restore(previous);
+        }
+    }
+
+    public void runOnShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T forCustomer(String customerId, Supplier<T> work) {
+        return onShard(shardOfCustomer(customerId), work);
+    }
+
+    public <T> T onHomeShard(Supplier<T> work) {
+        return onShard(ShardRoutingDataSource.HOME_SHARD, work);
+    }
+
+    /**
+     * Runs query once per shard, in parallel, and returns the results by shard number.
+     * All shards must answer within {@code bms.sharding.query-timeout-ms}; a partial
+     * answer would look like a complete one, so a slow or failing shard fails the call.
+     */
+    public <T> List<T> onEveryShard(Supplier<T> query) {
+        if (shardCount == 1) {
+            return Collections.singletonList(query.get());
+        }
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> onShard(target, query)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryTimeoutMs);
+        List<T> results = new ArrayList<>(shardCount);
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                try {
+                    results.add(futures.get(shard).get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    throw new QueryTimeoutException("Shard " + shard + " did not answer within " + queryTimeoutMs + " ms", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException failure) {
+                        throw failure;
+                    }
+                    throw new IllegalStateException("Query on shard " + shard + " failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for shard " + shard, e);
+                }
+            }
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    // K-way merge of per-shard lists that are each already sorted by order
+    public static <T> List<T> mergeSorted(List<? extends List<T>> perShard, Comparator<? super T> order) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) ->
+                order.compare(perShard.get(a[0]).get(a[1]), perShard.get(b[0]).get(b[1])));
+        int total = 0;
+        for (int shard = 0; shard < perShard.size(); shard++) {
+            total += perShard.get(shard).size();
+            if (!perShard.get(shard).isEmpty()) {
+                heads.add(new int[] {shard, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> rows = perShard.get(head[0]);
+            merged.add(rows.get(head[1]));
+            if (++head[1] < rows.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+}
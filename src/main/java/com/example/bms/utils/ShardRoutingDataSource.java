@@ -0,0 +1,71 @@
+package com.example.bms.utils;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Hands out connections from the shard bound to the current thread by
+ * {@link ShardRouter}, or from shard 0 (the home shard, which also keeps the
+ * unsharded tables) when nothing is bound.
+ *
+ * The shard is looked up when a connection is taken, so this sits behind a
+ * {@code LazyConnectionDataSourceProxy} and a transaction stays on whichever shard its
+ * first statement went to.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final int HOME_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < this.shards.size(); shard++) {
+            targets.put(shard, this.shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(this.shards.get(HOME_SHARD));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    // Binds shard for this thread and returns the previous binding, to be passed back to restore()
+    static Integer bind(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT.get();
+        return shard == null ? HOME_SHARD : shard;
+    }
+}
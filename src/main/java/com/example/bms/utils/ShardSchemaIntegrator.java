@@ -0,0 +1,63 @@
+package com.example.bms.utils;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the configured schema action ({@code spring.jpa.hibernate.ddl-auto}) on shards
+ * 1..n as well; Hibernate runs it on the home shard itself. Drops registered by
+ * {@code create-drop} run when the session factory closes, as on the home shard.
+ */
+class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+    private final List<ShardDrop> drops = new ArrayList<>();
+    private ServiceRegistry serviceRegistry;
+
+    ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        serviceRegistry = bootstrapContext.getServiceRegistry();
+        Map<String, Object> settings = serviceRegistry.requireService(ConfigurationService.class).getSettings();
+        for (int shard = 1; shard < shardCount; shard++) {
+            int target = shard;
+            Integer previous = ShardRoutingDataSource.bind(target);
+            try {
+                SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings,
+                        action -> drops.add(new ShardDrop(target, action)));
+            } finally {
+                ShardRoutingDataSource.restore(previous);
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry sessionFactoryServiceRegistry) {
+        for (ShardDrop drop : drops) {
+            Integer previous = ShardRoutingDataSource.bind(drop.shard);
+            try {
+                drop.action.perform(serviceRegistry);
+            } finally {
+                ShardRoutingDataSource.restore(previous);
+            }
+        }
+        drops.clear();
+    }
+
+    private record ShardDrop(int shard, DelayedDropAction action) {
+    }
+}
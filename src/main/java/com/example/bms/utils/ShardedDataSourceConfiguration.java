@@ -0,0 +1,75 @@
+package com.example.bms.utils;
+
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured pool with one pool per shard, routed by
+ * {@link ShardRoutingDataSource}. Shard 0 is {@code spring.datasource.*}; shards 1..n are
+ * {@code bms.sharding.urls} in order, with the same driver and, unless overridden, the
+ * same credentials. The order is part of the data layout and must not change.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "bms.sharding.enabled", havingValue = "true")
+public class ShardedDataSourceConfiguration {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, MeterRegistry meterRegistry,
+                                 @Value("${bms.sharding.urls}") List<String> urls,
+                                 @Value("${bms.sharding.username:}") String username,
+                                 @Value("${bms.sharding.password:}") String password,
+                                 @Value("${bms.datasource.replicas.enabled:false}") boolean replicasEnabled) {
+        if (replicasEnabled) {
+            throw new IllegalStateException("bms.datasource.replicas cannot be combined with bms.sharding");
+        }
+        HikariDataSource home = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        home.setPoolName("bms-shard-0");
+
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(home);
+        for (String url : urls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(StringUtils.hasText(username) ? username : properties.determineUsername())
+                    .password(StringUtils.hasText(username) ? password : properties.determinePassword())
+                    .build();
+            shard.setPoolName("bms-shard-" + shards.size());
+            // Spring Boot only binds pool metrics for DataSource beans, which these pools are not
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(shard);
+        }
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+    }
+
+    // Hibernate only applies ddl-auto through the default connection, which is the home shard
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(DataSource dataSource) throws SQLException {
+        int shardCount = dataSource.unwrap(ShardRoutingDataSource.class).getShardCount();
+        return hibernateProperties -> hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator(shardCount)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bms.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads. The first caller for a key runs the loader;
+ * callers arriving while it is in flight wait for and share its result or exception.
+ * Nothing is kept once the call finishes, so this is not a cache: the next caller
+ * always reads fresh data. Writers call {@link #forget} after committing so later
+ * readers never join a read that started before the write.
+ *
+ * Shared results are handed to several callers, so only use this for read-only paths.
+ * Metrics: {@code bms.singleflight.calls} (outcome=executed|coalesced),
+ * {@code bms.singleflight.in_flight} and {@code bms.singleflight.coalescing.ratio}.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.executed = Counter.builder("bms.singleflight.calls")
+                .description("Reads that went to the database")
+                .tag("name", name)
+                .tag("outcome", "executed")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("bms.singleflight.calls")
+                .description("Reads that shared another caller's in-flight database call")
+                .tag("name", name)
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("bms.singleflight.in_flight", inFlight, Map::size)
+                .description("Distinct keys with a database call in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("bms.singleflight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of reads served by another caller's call since startup")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Detaches any in-flight call for the key once the caller's transaction commits (or now,
+    // outside a transaction); callers already waiting on it still get its result
+    public void forget(K key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    inFlight.remove(key);
+                }
+            });
+        } else {
+            inFlight.remove(key);
+        }
+    }
+
+    double coalescingRatio() {
+        double total = executed.count() + coalesced.count();
+        return total == 0 ? 0.0 : coalesced.count() / total;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.bms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Receives timings from {@link QueryTimingDataSource}. Every statement feeds the
+ * {@code bms.jdbc.query} timer, tagged by operation and table. Statements slower than
+ * the threshold are logged to the {@code bms.slow-query} logger, which logback routes
+ * through an asynchronous appender. Logging is sampled and capped per second, and it
+ * records bind parameter types only, never values.
+ */
+@Component
+public class SlowQueryRecorder {
+
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("bms.slow-query");
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update|table)\\s+([a-z0-9_]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final int MAX_CACHED_STATEMENTS = 2048;
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bms.jdbc.slow-query.threshold-ms:200}")
+    private long thresholdMs;
+
+    @Value("${bms.jdbc.slow-query.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${bms.jdbc.slow-query.max-per-second:20}")
+    private int maxPerSecond;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final AtomicLong currentSecond = new AtomicLong();
+    private final AtomicLong loggedThisSecond = new AtomicLong();
+
+    public void record(String sql, List<String> parameterShapes, int batchSize, long elapsedNanos) {
+        timerFor(sql).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (elapsedNanos < TimeUnit.MILLISECONDS.toNanos(thresholdMs)) {
+            return;
+        }
+        boolean sampled = shouldLog();
+        Counter.builder("bms.jdbc.slow_queries")
+                .description("Statements over the slow-query threshold")
+                .tag("logged", Boolean.toString(sampled))
+                .register(meterRegistry)
+                .increment();
+        if (sampled) {
+            slowQueryLog.warn("Slow query {} ms caller={} batch={} params={} sql={}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), findCaller(), batchSize,
+                    parameterShapes, normalise(sql));
+        }
+    }
+
+    private Timer timerFor(String sql) {
+        Timer timer = timers.get(sql);
+        if (timer != null) {
+            return timer;
+        }
+        String normalised = normalise(sql);
+        String lower = normalised.toLowerCase(Locale.ROOT);
+        int space = lower.indexOf(' ');
+        String operation = (space > 0 ? lower.substring(0, space) : lower).toUpperCase(Locale.ROOT);
+        Matcher matcher = TABLE.matcher(lower);
+        String table = matcher.find() ? matcher.group(1) : "none";
+        timer = Timer.builder("bms.jdbc.query")
+                .description("JDBC statement execution time")
+                .tag("operation", operation)
+                .tag("table", table)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(25),
+                        Duration.ofMillis(100), Duration.ofMillis(thresholdMs))
+                .register(meterRegistry);
+        // Statements with variable IN lists would grow the cache without bound
+        if (timers.size() < MAX_CACHED_STATEMENTS) {
+            timers.put(sql, timer);
+        }
+        return timer;
+    }
+
+    private boolean shouldLog() {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long seen = currentSecond.get();
+        if (seen != second && currentSecond.compareAndSet(seen, second)) {
+            loggedThisSecond.set(0);
+        }
+        return loggedThisSecond.incrementAndGet() <= maxPerSecond;
+    }
+
+    // Only runs for slow statements, so the stack walk is off the fast path
+    private String findCaller() {
+        Optional<String> repositoryMethod = WALKER.walk(frames -> frames
+                .filter(f -> Proxy.isProxyClass(f.getDeclaringClass()))
+                .map(f -> repositoryName(f.getDeclaringClass()) + "." + f.getMethodName())
+                .filter(name -> !name.startsWith("?"))
+                .findFirst());
+        if (repositoryMethod.isPresent()) {
+            return repositoryMethod.get();
+        }
+        return WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("com.example.bms.")
+                        && !f.getClassName().startsWith("com.example.bms.utils."))
+                .map(f -> f.getDeclaringClass().getSimpleName() + "." + f.getMethodName())
+                .findFirst()
+                .orElse("unknown"));
+    }
+
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> iface : proxyClass.getInterfaces()) {
+            if (iface.getName().startsWith("com.example.bms.repositories.")) {
+                return iface.getSimpleName();
+            }
+        }
+        return "?";
+    }
+
+    static String normalise(String sql) {
+        return IN_LIST.matcher(sql.replaceAll("\\s+", " ").trim()).replaceAll("(?...)");
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.bms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs where startup time went when the JVM runs with {@code -Dbms.startup.report=true}.
+ * BmsApplication then buffers Spring's startup steps. On ready this prints the JVM launch,
+ * each top-level startup phase, the phases inside context refresh and the slowest bean
+ * creations. The first handled request is logged as time since JVM start.
+ */
+@Component
+public class StartupTimingReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimingReport.class);
+    private static final String REFRESH = "spring.context.refresh";
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+    private static final int SLOWEST_BEANS = 10;
+
+    @Value("${bms.startup.report:false}")
+    private boolean enabled;
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        StringBuilder report = new StringBuilder("Startup timing report");
+        ApplicationStartup startup = event.getSpringApplication().getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup buffering) {
+            StartupTimeline timeline = buffering.getBufferedTimeline();
+            appendLine(report, "jvm launch to main", timeline.getStartTime().toEpochMilli() - jvmStart);
+            appendSteps(report, timeline.getEvents());
+        }
+        appendLine(report, "spring application run", event.getTimeTaken().toMillis());
+        appendLine(report, "jvm start to ready", System.currentTimeMillis() - jvmStart);
+        log.info(report.toString());
+    }
+
+    @EventListener(ServletRequestHandledEvent.class)
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (enabled && !firstRequestSeen.get() && firstRequestSeen.compareAndSet(false, true)) {
+            log.info("First request {} served {} ms after JVM start ({} ms in handler)", event.getRequestUrl(),
+                    System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime(),
+                    event.getProcessingTimeMillis());
+        }
+    }
+
+    private void appendSteps(StringBuilder report, List<StartupTimeline.TimelineEvent> events) {
+        Set<Long> recordedIds = new HashSet<>();
+        events.forEach(e -> recordedIds.add(e.getStartupStep().getId()));
+        Long refreshId = null;
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            // Top level: no parent, or a parent that fell outside the buffer
+            boolean topLevel = step.getParentId() == null || !recordedIds.contains(step.getParentId());
+            if (topLevel && !BEAN_INSTANTIATE.equals(step.getName())) {
+                appendLine(report, step.getName(), event.getDuration().toMillis());
+                if (REFRESH.equals(step.getName())) {
+                    refreshId = step.getId();
+                }
+            }
+        }
+        if (refreshId != null) {
+            // Phases such as smart-initialize repeat once per bean, so they are summed by name
+            Map<String, long[]> phases = new LinkedHashMap<>();
+            for (StartupTimeline.TimelineEvent event : events) {
+                StartupStep step = event.getStartupStep();
+                if (refreshId.equals(step.getParentId()) && !BEAN_INSTANTIATE.equals(step.getName())) {
+                    long[] totals = phases.computeIfAbsent(step.getName(), name -> new long[2]);
+                    totals[0] += event.getDuration().toMillis();
+                    totals[1]++;
+                }
+            }
+            phases.forEach((name, totals) -> appendLine(report,
+                    "  " + name + (totals[1] > 1 ? " (x" + totals[1] + ")" : ""), totals[0]));
+        }
+        report.append("\n  slowest bean creations (inclusive of dependencies):");
+        events.stream()
+                .filter(e -> BEAN_INSTANTIATE.equals(e.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration, Comparator.reverseOrder()))
+                .limit(SLOWEST_BEANS)
+                .forEach(e -> appendLine(report, "  " + beanName(e.getStartupStep()), e.getDuration().toMillis()));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+
+    private static void appendLine(StringBuilder report, String phase, long millis) {
+        report.append(String.format("%n  %-60s %6d ms", phase, millis));
+    }
+}
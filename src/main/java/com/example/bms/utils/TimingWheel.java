@@ -0,0 +1,162 @@
+package com.example.bms.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: deadlines are bucketed into {@code levels} wheels of
+ * {@code 2^bits} slots, each level's slot spanning a whole turn of the level below.
+ * Scheduling and cancelling are O(1); advancing one tick fires the due slot and, once
+ * per turn, spreads the next slot of the level above over the levels below. Nothing
+ * ever walks entries that are not yet due.
+ *
+ * Entries are intrusive: callers extend {@link Node}, so a scheduled entry costs no
+ * allocation beyond itself. Deadlines are rounded up to the next tick, so an entry never
+ * fires early and fires at most one tick late. Deadlines beyond the top level's range
+ * are parked in its farthest slot and re-placed when that slot comes round.
+ *
+ * Not thread-safe; callers serialize access.
+ */
+public final class TimingWheel<T extends TimingWheel.Node> {
+
+    /** Base class for anything scheduled on a wheel; one wheel at a time. */
+    public static class Node {
+        private Node prev;
+        private Node next;
+        private long dueTick;
+
+        public final boolean isScheduled() {
+            return next != null;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final long maxSpan;
+    // One circular list per slot, headed by a sentinel; level l uses slots [l << bits, (l + 1) << bits)
+    private final Node[] slots;
+    private long nextTick;
+    private int size;
+
+    public TimingWheel(long tickMs, int bits, int levels, long nowMs) {
+        if (tickMs <= 0 || bits <= 0 || levels <= 0 || (long) bits * levels > 62) {
+            throw new IllegalArgumentException("Timing wheel needs a positive tick, bits and levels, with bits * levels <= 62");
+        }
+        this.tickMs = tickMs;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.maxSpan = (1L << (bits * levels)) - 1;
+        this.slots = new Node[levels << bits];
+        for (int i = 0; i < slots.length; i++) {
+            Node sentinel = new Node();
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            slots[i] = sentinel;
+        }
+        this.nextTick = nowMs / tickMs;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Longest delay that is placed exactly; later deadlines are re-placed on the way
+    public long rangeMs() {
+        return maxSpan * tickMs;
+    }
+
+    // Schedules node to fire at deadlineMs, moving it if it was already scheduled
+    public void schedule(T entry, long deadlineMs) {
+        Node node = entry;
+        if (node.isScheduled()) {
+            node.unlink();
+        } else {
+            size++;
+        }
+        node.dueTick = Math.floorDiv(deadlineMs + tickMs - 1, tickMs);
+        place(node);
+    }
+
+    // Returns false if node was not scheduled
+    public boolean cancel(T entry) {
+        Node node = entry;
+        if (!node.isScheduled()) {
+            return false;
+        }
+        node.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Fires every node due at or before nowMs, in tick order. Each node is unscheduled
+     * before expired sees it, so expired may schedule it again.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(long nowMs, Consumer<? super T> expired) {
+        long targetTick = Math.floorDiv(nowMs, tickMs);
+        while (nextTick <= targetTick) {
+            int index = (int) (nextTick & mask);
+            for (int level = 1; level < levels && index == 0; level++) {
+                index = (int) ((nextTick >>> (bits * level)) & mask);
+                cascade((level << bits) + index);
+            }
+            Node sentinel = slots[(int) (nextTick & mask)];
+            nextTick++;
+            while (sentinel.next != sentinel) {
+                Node node = sentinel.next;
+                node.unlink();
+                size--;
+                expired.accept((T) node);
+            }
+        }
+    }
+
+    private void cascade(int slot) {
+        Node sentinel = slots[slot];
+        Node node = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        while (node != sentinel) {
+            Node following = node.next;
+            node.prev = null;
+            node.next = null;
+            place(node);
+            node = following;
+        }
+    }
+
+    private void place(Node node) {
+        long due = node.dueTick;
+        long delta = due - nextTick;
+        int slot;
+        if (delta < 0) {
+            // Already due: fires on the next tick processed
+            slot = (int) (nextTick & mask);
+        } else {
+            if (delta > maxSpan) {
+                due = nextTick + maxSpan;
+                delta = maxSpan;
+            }
+            int level = 0;
+            while (level < levels - 1 && delta >= (1L << (bits * (level + 1)))) {
+                level++;
+            }
+            slot = (level << bits) + (int) ((due >>> (bits * level)) & mask);
+        }
+        Node sentinel = slots[slot];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+}
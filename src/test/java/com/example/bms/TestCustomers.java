@@ -0,0 +1,25 @@
+package com.example.bms;
+
+import com.example.bms.models.Customer;
+
+// Customers for tests to save; every unique column comes from the key, so keys must differ within a database
+public final class TestCustomers {
+
+	private TestCustomers() {
+	}
+
+	public static Customer customer(String key) {
+		Customer customer = new Customer();
+		customer.setName("Customer " + key);
+		customer.setAccountNumber("ACC-" + key);
+		customer.setEmail(key + "@example.com");
+		customer.setPhoneNumber("9000000000");
+		customer.setPanNumber("PAN-" + key);
+		customer.setDob("1990-01-01");
+		customer.setAccountType(Customer.AccountType.SAVINGS);
+		customer.setLoginId(key);
+		customer.setPassword("secret");
+		return customer;
+	}
+
+}
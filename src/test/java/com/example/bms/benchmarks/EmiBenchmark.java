@@ -0,0 +1,75 @@
+package com.example.bms.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.bms.utils.Money;
+
+/**
+ * Compares the previous BigDecimal/double EMI path with the fixed-point {@link Money} path.
+ *
+ * Run with {@code mvn test-compile} and then execute {@link #main} on the test classpath;
+ * the GC profiler reports bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmiBenchmark {
+
+	@Param({ "12", "60", "360" })
+	int tenureMonths;
+
+	BigDecimal amount;
+	BigDecimal rate;
+	long amountPaise;
+	long rateBps;
+
+	@Setup
+	public void setup() {
+		amount = new BigDecimal("2500000.00");
+		rate = new BigDecimal("8.50");
+		amountPaise = Money.toPaise(amount);
+		rateBps = Money.toBasisPoints(rate);
+	}
+
+	@Benchmark
+	public BigDecimal bigDecimalDoublePath() {
+		double principal = amount.doubleValue();
+		double monthlyRate = rate.doubleValue() / 12 / 100;
+		double emi = (principal * monthlyRate * Math.pow(1 + monthlyRate, tenureMonths))
+				/ (Math.pow(1 + monthlyRate, tenureMonths) - 1);
+		return BigDecimal.valueOf(emi).setScale(2, RoundingMode.HALF_UP);
+	}
+
+	@Benchmark
+	public long fixedPointPath() {
+		return Money.emiPaise(amountPaise, rateBps, tenureMonths);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(EmiBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+
+}
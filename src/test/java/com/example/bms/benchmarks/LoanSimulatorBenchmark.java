@@ -0,0 +1,88 @@
+package com.example.bms.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanScenario;
+import com.example.bms.services.LoanSimulator;
+
+/**
+ * One simulate call on a 360-month loan: the baseline schedule plus three scenarios
+ * (keep-EMI prepayment, keep-tenure prepayment, rate reset). The target is well under
+ * a millisecond per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanSimulatorBenchmark {
+
+	@Param({ "12", "180" })
+	int firstEventMonth;
+
+	LoanSimulator simulator;
+	Loan loan;
+	List<LoanScenario> scenarios;
+
+	@Setup
+	public void setup() {
+		simulator = new LoanSimulator();
+		loan = new Loan();
+		loan.setAmount(new BigDecimal("7500000"));
+		loan.setOfferedInterestRate(new BigDecimal("8.75"));
+		loan.setTenureMonths(360);
+		scenarios = List.of(
+				scenario("keep-emi", event(LoanScenario.EventType.PREPAYMENT, LoanScenario.Adjust.TENURE)),
+				scenario("keep-tenure", event(LoanScenario.EventType.PREPAYMENT, LoanScenario.Adjust.EMI)),
+				scenario("rate-reset", event(LoanScenario.EventType.RATE_CHANGE, LoanScenario.Adjust.EMI)));
+	}
+
+	@Benchmark
+	public Map<String, Object> simulateThreeScenarios() {
+		return simulator.simulate(loan, scenarios);
+	}
+
+	private LoanScenario.Event event(LoanScenario.EventType type, LoanScenario.Adjust adjust) {
+		LoanScenario.Event event = new LoanScenario.Event();
+		event.setMonth(firstEventMonth);
+		event.setType(type);
+		event.setAmount(new BigDecimal("500000"));
+		event.setInterestRate(new BigDecimal("9.40"));
+		event.setAdjust(adjust);
+		return event;
+	}
+
+	private static LoanScenario scenario(String name, LoanScenario.Event event) {
+		LoanScenario scenario = new LoanScenario();
+		scenario.setName(name);
+		scenario.setEvents(List.of(event));
+		return scenario;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(LoanSimulatorBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+
+}
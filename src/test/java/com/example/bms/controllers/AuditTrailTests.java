@@ -0,0 +1,84 @@
+package com.example.bms.controllers;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.services.AuditTrail;
+import com.example.bms.utils.AuditLog;
+import com.example.bms.utils.JwtUtil;
+
+import com.jayway.jsonpath.JsonPath;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditTrailTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private AuditTrail auditTrail;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Test
+	void authenticatedActionsAreAuditedInOrder() throws Exception {
+		long from = System.currentTimeMillis();
+		mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON).content("""
+				{"name":"Audit Test","accountNumber":"ACC-AUDIT","email":"audit@example.com",
+				 "phoneNumber":"9000000003","panNumber":"PANAUDIT","dob":"1990-01-01",
+				 "accountType":"SAVINGS","loginId":"audit","password":"pw"}"""))
+				.andExpect(status().isCreated());
+		String body = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"loginId\":\"audit\",\"password\":\"pw\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String token = JsonPath.read(body, "$.bearerToken");
+		String customerId = jwtUtil.extractUsername(token.substring(7));
+
+		String statusUrl = mockMvc.perform(post("/loans/apply").header("Authorization", token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"loanType\":\"PERSONAL_LOAN\",\"amount\":50000,\"tenureMonths\":12}"))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getHeader("Location");
+		String application = await().atMost(Duration.ofSeconds(10))
+				.until(() -> mockMvc.perform(get(statusUrl).header("Authorization", token))
+						.andReturn().getResponse().getContentAsString(),
+						json -> !"QUEUED".equals(JsonPath.read(json, "$.status")));
+		String loanId = JsonPath.read(application, "$.loanDetails.loanId");
+		mockMvc.perform(get("/loans/" + loanId).header("Authorization", token)).andExpect(status().isOk());
+		mockMvc.perform(get("/loans/types")).andExpect(status().isOk());
+		mockMvc.perform(post("/logout").header("Authorization", token)).andExpect(status().isOk());
+
+		auditTrail.flush();
+		List<AuditLog.Entry> entries = auditTrail.search(customerId, from, System.currentTimeMillis() + 1);
+		assertEquals(List.of(AuditLog.Action.LOGIN, AuditLog.Action.LOAN_APPLY, AuditLog.Action.LOAN_READ, AuditLog.Action.LOGOUT),
+				entries.stream().map(AuditLog.Entry::getAction).toList());
+		assertEquals(loanId, entries.get(1).getDetail());
+		assertEquals(loanId, entries.get(2).getDetail());
+		assertEquals(0, auditTrail.search(customerId, from - 60_000, from).size());
+	}
+
+	@Test
+	void searchingForACustomerIdThatIsNotANumberIsABadRequest() {
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> auditTrail.search("1 OR 1=1", 0, Long.MAX_VALUE));
+		assertEquals("customerId must be a number: 1 OR 1=1", error.getMessage());
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.example.bms.controllers;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.models.Account;
+import com.example.bms.models.Customer;
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.AccountRepository;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.services.CustomerService;
+import com.example.bms.services.DashboardService;
+import com.example.bms.utils.JwtUtil;
+
+@SpringBootTest(properties = "bms.dashboard.branch-timeout-ms=300")
+@AutoConfigureMockMvc
+class DashboardTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@MockitoSpyBean
+	private CustomerService customerService;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Test
+	void returnsProfileAccountAndLoansInOneResponse() throws Exception {
+		Customer customer = customerRepository.save(customer("dash1"));
+		String customerId = customer.getId().toString();
+		Loan loan = new Loan();
+		loan.setLoanType(Loan.LoanType.CAR_LOAN);
+		loan.setAmount(new BigDecimal("400000"));
+		loan.setTenureMonths(36);
+		customerService.applyForLoan(customerId, loan);
+
+		mockMvc.perform(get("/dashboard").header("Authorization", "Bearer " + jwtUtil.generateToken(customerId)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.partial").value(false))
+				.andExpect(jsonPath("$.customer.name").value("Customer dash1"))
+				.andExpect(jsonPath("$.customer.password").doesNotExist())
+				.andExpect(jsonPath("$.account.accountNumber").value("ACC-dash1"))
+				.andExpect(jsonPath("$.totalLoans").value(1))
+				.andExpect(jsonPath("$.loans[0].loanType").value("CAR_LOAN"));
+	}
+
+	@Test
+	void accountEndpointCountsAMissingBalanceAsZero() throws Exception {
+		Customer customer = customerRepository.save(customer("dash3"));
+		mockMvc.perform(get("/customers/" + customer.getId() + "/account"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.account.balance").value(DashboardService.DEMO_BALANCE));
+
+		Account funded = new Account("ACC-dash3-1", customer.getId(), Account.AccountType.SAVINGS);
+		funded.setBalance(new BigDecimal("2500.00"));
+		funded.setActive(true);
+		Account unknown = new Account("ACC-dash3-2", customer.getId(), Account.AccountType.CURRENT);
+		unknown.setBalance(null);
+		unknown.setActive(true);
+		accountRepository.saveAll(List.of(funded, unknown));
+
+		mockMvc.perform(get("/customers/" + customer.getId() + "/account"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.account.balance").value(2500.0))
+				.andExpect(jsonPath("$.account.accounts.length()").value(2));
+	}
+
+	@Test
+	void slowBranchIsReportedInsteadOfFailingThePage() throws Exception {
+		Customer customer = customerRepository.save(customer("dash2"));
+		doAnswer(invocation -> {
+			Thread.sleep(2_000);
+			return invocation.callRealMethod();
+		}).when(customerService).getLoanSummaries(anyString());
+
+		mockMvc.perform(get("/dashboard").header("Authorization", "Bearer " + jwtUtil.generateToken(customer.getId().toString())))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.partial").value(true))
+				.andExpect(jsonPath("$.unavailable[0]").value("loans"))
+				.andExpect(jsonPath("$.customer.name").value("Customer dash2"))
+				.andExpect(jsonPath("$.loans").doesNotExist());
+	}
+
+}
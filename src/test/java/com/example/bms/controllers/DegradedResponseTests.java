@@ -0,0 +1,93 @@
+package com.example.bms.controllers;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.models.Customer;
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.services.CustomerService;
+import com.example.bms.services.DatabaseGuard;
+import com.example.bms.utils.CircuitBreaker;
+import com.example.bms.utils.JwtUtil;
+
+@SpringBootTest(properties = {
+		"bms.circuit.database.window-size=4",
+		"bms.circuit.database.minimum-calls=4",
+		"bms.circuit.database.open-ms=60000"
+})
+@AutoConfigureMockMvc
+class DegradedResponseTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private DatabaseGuard databaseGuard;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@MockitoSpyBean
+	private CustomerService customerService;
+
+	@Test
+	void openBreakerServesLastKnownDataOrFailsFast() throws Exception {
+		Customer known = customerRepository.save(customer("degraded1"));
+		Customer unseen = customerRepository.save(customer("degraded2"));
+		mockMvc.perform(get("/customers/" + known.getId())).andExpect(status().isOk());
+		mockMvc.perform(get("/customers/" + known.getId())).andExpect(status().isOk());
+
+		// The database starts failing: errors as usual until the breaker opens
+		doThrow(new DataAccessResourceFailureException("Connection refused")).when(customerService).getCustomerById(anyLong());
+		mockMvc.perform(get("/customers/" + unseen.getId())).andExpect(status().isInternalServerError());
+		mockMvc.perform(get("/customers/" + unseen.getId())).andExpect(status().isInternalServerError());
+		assertEquals(CircuitBreaker.State.OPEN, databaseGuard.databaseState());
+
+		mockMvc.perform(get("/customers/" + known.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.degraded").value(true))
+				.andExpect(jsonPath("$.customer.name").value("Customer degraded1"));
+		mockMvc.perform(get("/customers/" + unseen.getId()))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().exists("Retry-After"));
+		// The catalog needs no database, so an open breaker does not touch it
+		mockMvc.perform(get("/loans/types"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.degraded").doesNotExist())
+				.andExpect(jsonPath("$.loanTypes.length()").value(Loan.LoanType.values().length));
+		mockMvc.perform(get("/customers/" + known.getId() + "/account")).andExpect(status().isServiceUnavailable());
+		// A session this instance has never seen cannot be looked up either
+		String unseenSession = "Bearer " + jwtUtil.generateToken(known.getId().toString(), 12345L,
+				System.currentTimeMillis() + 60_000);
+		mockMvc.perform(post("/loans/apply")
+						.header("Authorization", unseenSession)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"loanType\":\"CAR_LOAN\",\"amount\":100000,\"tenureMonths\":12}"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().exists("Retry-After"));
+		mockMvc.perform(get("/actuator/metrics/bms.circuit.state").param("tag", "name:database").param("tag", "state:open"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.measurements[0].value").value(1.0));
+	}
+
+}
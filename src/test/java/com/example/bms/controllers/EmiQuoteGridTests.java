@@ -0,0 +1,74 @@
+package com.example.bms.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.utils.Money;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class EmiQuoteGridTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void gridMatchesSingleLoanEmiForEveryCell() throws Exception {
+		String body = mockMvc.perform(get("/loans/quote-grid")
+				.param("amount", "750000")
+				.param("rates", "8.75", "10.5", "0"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.tenures.length()").value(355))
+				.andExpect(jsonPath("$.quotes.length()").value(3))
+				.andReturn().getResponse().getContentAsString();
+
+		JsonNode grid = objectMapper.readTree(body);
+		long principal = Money.toPaise(new BigDecimal("750000"));
+		for (JsonNode quote : grid.path("quotes")) {
+			long rateBps = Money.toBasisPoints(quote.path("interestRate").decimalValue());
+			for (int i = 0; i < grid.path("tenures").size(); i++) {
+				int months = grid.path("tenures").get(i).asInt();
+				assertEquals(Money.emiPaise(principal, rateBps, months),
+						Money.toPaise(quote.path("emis").get(i).decimalValue()), "rate=" + rateBps + " months=" + months);
+			}
+		}
+	}
+
+	@Test
+	void defaultsToLoanTypeBaseRatesAndRejectsBadRanges() throws Exception {
+		mockMvc.perform(get("/loans/quote-grid")
+				.param("amount", "100000")
+				.param("minTenureMonths", "12")
+				.param("maxTenureMonths", "60")
+				.param("stepMonths", "12"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.tenures.length()").value(5))
+				.andExpect(jsonPath("$.quotes.length()").value(5));
+
+		mockMvc.perform(get("/loans/quote-grid").param("amount", "100000").param("maxTenureMonths", "480"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/loans/quote-grid").param("amount", "100000").param("rates", "-1"))
+				.andExpect(status().isBadRequest());
+		// Too large for a long count of paise or basis points
+		mockMvc.perform(get("/loans/quote-grid").param("amount", "1e30"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/loans/quote-grid").param("amount", "100000").param("rates", "1e30"))
+				.andExpect(status().isBadRequest());
+	}
+
+}
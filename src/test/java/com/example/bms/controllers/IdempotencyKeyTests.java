@@ -0,0 +1,189 @@
+package com.example.bms.controllers;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.example.bms.models.LoanApplication;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.repositories.LoanApplicationRepository;
+import com.example.bms.repositories.LoanRepository;
+import com.example.bms.services.IdempotencyService;
+import com.example.bms.utils.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyKeyTests {
+
+	private static final String APPLICATION = "{\"loanType\":\"PERSONAL_LOAN\",\"amount\":200000,\"tenureMonths\":24}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private LoanApplicationRepository loanApplicationRepository;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void retriesWithTheSameKeyReturnTheOriginalApplication() throws Exception {
+		Long customerId = customerRepository.save(customer("idem-retry")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+
+		String first = mockMvc.perform(apply(bearer, "retry-1", APPLICATION))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString();
+		String applicationId = objectMapper.readTree(first).path("applicationId").asText();
+
+		mockMvc.perform(apply(bearer, "retry-1", APPLICATION))
+				.andExpect(status().isAccepted())
+				.andExpect(header().string("Idempotent-Replayed", "true"))
+				.andExpect(header().string("Location", "/loans/applications/" + applicationId))
+				.andExpect(jsonPath("$.applicationId").value(applicationId));
+		mockMvc.perform(apply(bearer, "retry-1", APPLICATION.replace("200000", "300000")))
+				.andExpect(status().isUnprocessableEntity());
+
+		assertEquals(1, awaitLoans(customerId));
+	}
+
+	@Test
+	void concurrentDuplicatesWaitForTheInFlightRequest() throws Exception {
+		Long customerId = customerRepository.save(customer("idem-burst")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		ExecutorService pool = Executors.newFixedThreadPool(6);
+		try {
+			List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+			for (int i = 0; i < 6; i++) {
+				Callable<MockHttpServletResponse> call = () -> mockMvc.perform(apply(bearer, "burst-1", APPLICATION))
+						.andReturn().getResponse();
+				responses.add(pool.submit(call));
+			}
+			Set<String> applicationIds = new HashSet<>();
+			for (Future<MockHttpServletResponse> response : responses) {
+				assertEquals(202, response.get().getStatus());
+				applicationIds.add(objectMapper.readTree(response.get().getContentAsString()).path("applicationId").asText());
+			}
+			assertEquals(1, applicationIds.size());
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals(1, awaitLoans(customerId));
+	}
+
+	@Test
+	void aRetryAfterTheStoredResponseWasLostGetsTheOriginalApplication() throws Exception {
+		Long customerId = customerRepository.save(customer("idem-lost")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		String first = mockMvc.perform(apply(bearer, "lost-1", APPLICATION))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString();
+		String applicationId = objectMapper.readTree(first).path("applicationId").asText();
+
+		// The application was saved but its COMPLETED response never was, and the lock has timed out
+		jdbcTemplate.update("UPDATE idempotency_keys SET status = 'PENDING', response_status = NULL, response_body = NULL, "
+				+ "created_at = ? WHERE id = ?", Timestamp.valueOf(LocalDateTime.now().minusHours(1)), customerId + ":lost-1");
+		forgetInMemoryResponses();
+
+		mockMvc.perform(apply(bearer, "lost-1", APPLICATION))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.applicationId").value(applicationId));
+		assertEquals(1, awaitLoans(customerId));
+	}
+
+	@Test
+	void responsesTooLargeToStoreAreReplayedAsTheirLocation() {
+		AtomicInteger runs = new AtomicInteger();
+		Supplier<ResponseEntity<Map<String, Object>>> create = () -> {
+			runs.incrementAndGet();
+			return ResponseEntity.status(HttpStatus.CREATED).header(HttpHeaders.LOCATION, "/loans/LARGE-1")
+					.body(Map.of("success", true, "padding", "x".repeat(10_000)));
+		};
+
+		assertEquals(201, idempotencyService.execute("large", "large-1", "hash", create).getStatusCode().value());
+		forgetInMemoryResponses();
+		ResponseEntity<Map<String, Object>> replayed = idempotencyService.execute("large", "large-1", "hash", create);
+
+		assertEquals(1, runs.get());
+		assertEquals(201, replayed.getStatusCode().value());
+		assertEquals("/loans/LARGE-1", replayed.getHeaders().getFirst(HttpHeaders.LOCATION));
+		assertEquals("/loans/LARGE-1", replayed.getBody().get("location"));
+	}
+
+	// As another instance would see it: only the table knows the key
+	private void forgetInMemoryResponses() {
+		((Map<?, ?>) ReflectionTestUtils.getField(idempotencyService, "entries")).clear();
+	}
+
+	// Applications are saved in the background: waits until every one of the customer's is decided, then counts the loans
+	private int awaitLoans(Long customerId) {
+		await().atMost(Duration.ofSeconds(10)).until(() -> applicationsOf(customerId).stream()
+				.noneMatch(application -> application.getStatus() == LoanApplication.Status.QUEUED));
+		assertEquals(1, applicationsOf(customerId).size());
+		return loanRepository.findByCustomerId(customerId).size();
+	}
+
+	private List<LoanApplication> applicationsOf(Long customerId) {
+		return loanApplicationRepository.findAll().stream()
+				.filter(application -> application.getCustomerId().equals(customerId.toString()))
+				.toList();
+	}
+
+	private static RequestBuilder apply(String bearer, String key, String body) {
+		return post("/loans/apply")
+				.header("Authorization", bearer)
+				.header("Idempotency-Key", key)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(body);
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.example.bms.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.models.Customer;
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.services.CustomerService;
+import com.example.bms.utils.JwtUtil;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LoanETagTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Test
+	void loanEndpointsAnswerNotModifiedUntilTheCustomersLoansChange() throws Exception {
+		Customer customer = new Customer();
+		customer.setName("ETag Test");
+		customer.setAccountNumber("ETAG-0001");
+		customer.setEmail("etag@example.com");
+		customer.setPhoneNumber("9000000001");
+		customer.setPanNumber("ETAGS0001X");
+		customer.setDob("1990-01-01");
+		customer.setLoginId("etag-test");
+		customer.setPassword("secret");
+		String customerId = customerRepository.save(customer).getId().toString();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId);
+
+		Loan application = new Loan();
+		application.setLoanType(Loan.LoanType.CAR_LOAN);
+		application.setAmount(new BigDecimal("500000"));
+		application.setTenureMonths(36);
+		String loanId = customerService.applyForLoan(customerId, application).getLoanId();
+
+		String listTag = mockMvc.perform(get("/loans/applied").header("Authorization", bearer))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", "no-cache, private"))
+				.andReturn().getResponse().getHeader("ETag");
+		assertNotNull(listTag);
+
+		mockMvc.perform(get("/loans/applied").header("Authorization", bearer).header("If-None-Match", listTag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", listTag))
+				.andExpect(content().string(""));
+		mockMvc.perform(get("/loans/" + loanId).header("Authorization", bearer).header("If-None-Match", listTag))
+				.andExpect(status().isNotModified());
+
+		customerService.changeLoanStatus(loanId, Loan.LoanStatus.APPROVED);
+
+		String changedTag = mockMvc.perform(get("/loans/applied").header("Authorization", bearer).header("If-None-Match", listTag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		assertNotEquals(listTag, changedTag);
+		mockMvc.perform(get("/loans/" + loanId).header("Authorization", bearer).header("If-None-Match", listTag))
+				.andExpect(status().isOk());
+	}
+
+}
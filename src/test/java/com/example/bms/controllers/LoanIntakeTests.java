@@ -0,0 +1,360 @@
+package com.example.bms.controllers;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanApplication;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.repositories.LoanApplicationRepository;
+import com.example.bms.repositories.LoanRepository;
+import com.example.bms.services.CustomerService;
+import com.example.bms.services.LoanIntakePipeline;
+import com.example.bms.utils.JwtUtil;
+import com.example.bms.utils.RingBuffer;
+import com.example.bms.utils.ShardRouter;
+import com.jayway.jsonpath.JsonPath;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = { "bms.loan-intake.ring-capacity=2", "bms.loan-intake.batch-size=2" })
+@AutoConfigureMockMvc
+class LoanIntakeTests {
+
+	private static final String APPLICATION = "{\"loanType\":\"HOME_LOAN\",\"amount\":2500000,\"tenureMonths\":240}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@MockitoSpyBean
+	private CustomerService customerService;
+
+	@MockitoSpyBean
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private LoanApplicationRepository loanApplicationRepository;
+
+	@Autowired
+	private LoanIntakePipeline loanIntakePipeline;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void acceptedApplicationsReportTheSavedLoan() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-accept")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+
+		String statusUrl = mockMvc.perform(apply(bearer, APPLICATION))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.status").value("QUEUED"))
+				.andReturn().getResponse().getHeader("Location");
+		String outcome = awaitOutcome(bearer, statusUrl);
+
+		assertEquals("ACCEPTED", JsonPath.read(outcome, "$.status"));
+		String loanId = JsonPath.read(outcome, "$.loanDetails.loanId");
+		assertEquals(loanId, loanRepository.findByCustomerId(customerId).get(0).getLoanId());
+		// Only its owner sees the application
+		String stranger = "Bearer " + jwtUtil.generateToken(customerRepository.save(customer("intake-stranger")).getId().toString());
+		mockMvc.perform(get(statusUrl).header("Authorization", stranger)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void invalidApplicationsAreRejectedWithTheReason() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-invalid")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+
+		String statusUrl = mockMvc.perform(apply(bearer, APPLICATION.replace("240", "0")))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getHeader("Location");
+		String outcome = awaitOutcome(bearer, statusUrl);
+
+		assertEquals("REJECTED", JsonPath.read(outcome, "$.status"));
+		assertTrue(JsonPath.<String>read(outcome, "$.message").contains("tenureMonths"));
+		assertTrue(loanRepository.findByCustomerId(customerId).isEmpty());
+	}
+
+	@Test
+	void amountsBeyondTheMoneyColumnsAreRefusedBeforeTheyAreQueued() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-huge")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+
+		mockMvc.perform(apply(bearer, APPLICATION.replace("2500000", "1000000000000000")))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value(containsString("amount must not exceed")));
+		assertTrue(loanApplicationRepository.findAll().stream().noneMatch(row -> row.getCustomerId().equals(customerId.toString())));
+	}
+
+	@Test
+	void fullBuffersPushBackUntilTheDatabaseCatchesUp() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-burst")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		CountDownLatch databaseStalled = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			databaseStalled.await();
+			return invocation.callRealMethod();
+		}).when(customerService).saveApplications(anyList());
+
+		List<String> queued = new ArrayList<>();
+		MockHttpServletResponse refused = null;
+		for (int i = 0; i < 50 && refused == null; i++) {
+			MockHttpServletResponse response = mockMvc.perform(apply(bearer, APPLICATION)).andReturn().getResponse();
+			if (response.getStatus() == 429) {
+				refused = response;
+			} else {
+				assertEquals(202, response.getStatus());
+				queued.add(response.getHeader("Location"));
+			}
+		}
+		assertTrue(refused != null, "the intake never pushed back");
+		assertEquals("1", refused.getHeader("Retry-After"));
+
+		databaseStalled.countDown();
+		for (String statusUrl : queued) {
+			assertEquals("ACCEPTED", JsonPath.read(awaitOutcome(bearer, statusUrl), "$.status"));
+		}
+		assertEquals(queued.size(), loanRepository.findByCustomerId(customerId).size());
+		mockMvc.perform(apply(bearer, APPLICATION))
+				.andExpect(status().isAccepted())
+				.andExpect(header().exists("Location"));
+	}
+
+	@Test
+	void applicationsAreSavedBeforeTheyAreAcknowledged() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-saved")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		CountDownLatch databaseStalled = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			databaseStalled.await();
+			return invocation.callRealMethod();
+		}).when(customerService).saveApplications(anyList());
+
+		String applicationId = JsonPath.read(mockMvc.perform(apply(bearer, APPLICATION))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString(), "$.applicationId");
+		// Still in the rings, but already on record
+		LoanApplication row = loanApplicationRepository.findById(applicationId).orElseThrow();
+		assertEquals(LoanApplication.Status.QUEUED, row.getStatus());
+		assertEquals(customerId.toString(), row.getCustomerId());
+
+		databaseStalled.countDown();
+		String outcome = awaitOutcome(bearer, "/loans/applications/" + applicationId);
+		assertEquals("ACCEPTED", JsonPath.read(outcome, "$.status"));
+		assertEquals(JsonPath.<String>read(outcome, "$.loanDetails.loanId"),
+				loanApplicationRepository.findById(applicationId).orElseThrow().getLoanId());
+	}
+
+	@Test
+	void applicationsLeftQueuedByAnotherInstanceAreRecovered() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-recover")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		// As an instance that died after its 202 would have left it
+		Timestamp longAgo = Timestamp.valueOf(LocalDateTime.now().minusHours(1));
+		jdbcTemplate.update("INSERT INTO loan_applications (application_id, customer_id, loan_type, amount, tenure_months, "
+				+ "status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+				"orphaned-application", customerId.toString(), "HOME_LOAN", 2500000, 240, "QUEUED", longAgo, longAgo);
+
+		loanIntakePipeline.recoverStalled();
+
+		String outcome = awaitOutcome(bearer, "/loans/applications/orphaned-application");
+		assertEquals("ACCEPTED", JsonPath.read(outcome, "$.status"));
+		assertEquals(1, loanRepository.findByCustomerId(customerId).size());
+	}
+
+	@Test
+	void failedApplicationsCanBeRetriedWithTheSameIdempotencyKey() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-retry")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		doThrow(new IllegalStateException("disk full")).when(customerService).saveApplications(anyList());
+
+		String first = JsonPath.read(mockMvc.perform(apply(bearer, APPLICATION).header("Idempotency-Key", "retry-1"))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString(), "$.statusUrl");
+		assertEquals("FAILED", JsonPath.read(awaitOutcome(bearer, first), "$.status"));
+
+		reset(customerService);
+		String second = JsonPath.read(mockMvc.perform(apply(bearer, APPLICATION).header("Idempotency-Key", "retry-1"))
+				.andExpect(status().isAccepted())
+				.andExpect(header().doesNotExist("Idempotent-Replayed"))
+				.andReturn().getResponse().getContentAsString(), "$.statusUrl");
+		assertNotEquals(first, second);
+		assertEquals("ACCEPTED", JsonPath.read(awaitOutcome(bearer, second), "$.status"));
+	}
+
+	@Test
+	void aStageThatThrowsFailsWhatItHeldAndReleasesItsExposure() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-stage")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		doAnswer(invocation -> {
+			if (Thread.currentThread().getName().equals("loan-intake-persist")) {
+				throw new IllegalStateException("shard map unavailable");
+			}
+			return invocation.callRealMethod();
+		}).when(shardRouter).shardOfCustomer(customerId.toString());
+
+		String statusUrl = mockMvc.perform(apply(bearer, APPLICATION))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getHeader("Location");
+		String outcome = awaitOutcome(bearer, statusUrl);
+
+		assertEquals("FAILED", JsonPath.read(outcome, "$.status"));
+		assertTrue(JsonPath.<String>read(outcome, "$.message").contains("shard map unavailable"));
+		Map<?, ?> pendingExposure = (Map<?, ?>) ReflectionTestUtils.getField(loanIntakePipeline, "pendingExposure");
+		assertFalse(pendingExposure.containsKey(customerId.toString()));
+	}
+
+	@Test
+	void anApplicationThatLosesTheLastSlotIsRefusedAndWithdrawn() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-last-slot")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		CountDownLatch databaseStalled = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			databaseStalled.await();
+			return invocation.callRealMethod();
+		}).when(customerService).saveApplications(anyList());
+		// Once the row is saved, other requests take every slot left in the intake ring
+		AtomicBoolean filled = new AtomicBoolean();
+		doAnswer(invocation -> {
+			Object result = invocation.callRealMethod();
+			if (!Thread.currentThread().getName().startsWith("loan-intake") && applicationRows(customerId) > 0
+					&& filled.compareAndSet(false, true)) {
+				fillIntakeRing(customerId.toString());
+			}
+			return result;
+		}).when(shardRouter).forCustomer(eq(customerId.toString()), any());
+
+		try {
+			mockMvc.perform(apply(bearer, APPLICATION))
+					.andExpect(status().isTooManyRequests())
+					.andExpect(header().string("Retry-After", "1"));
+			assertTrue(filled.get());
+			assertEquals(0, applicationRows(customerId));
+		} finally {
+			databaseStalled.countDown();
+		}
+	}
+
+	@Test
+	void anOutcomeAnotherInstanceWroteFirstIsNotPublishedAgain() throws Exception {
+		Long customerId = customerRepository.save(customer("intake-decided")).getId();
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId.toString());
+		// Another instance recovers the application and decides it while this one is about to
+		doAnswer(invocation -> {
+			if (Thread.currentThread().getName().equals("loan-intake-notify")) {
+				jdbcTemplate.update("UPDATE loan_applications SET status = 'REJECTED', message = 'decided elsewhere' "
+						+ "WHERE customer_id = ? AND status = 'QUEUED'", customerId.toString());
+			}
+			return invocation.callRealMethod();
+		}).when(shardRouter).shardOfCustomer(customerId.toString());
+		Counter rejected = meterRegistry.get("bms.loan-intake.applications").tag("outcome", "rejected").counter();
+		double rejectedBefore = rejected.count();
+
+		String applicationId = JsonPath.read(mockMvc.perform(apply(bearer, APPLICATION.replace("240", "0")))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString(), "$.applicationId");
+		Set<?> inFlight = (Set<?>) ReflectionTestUtils.getField(loanIntakePipeline, "inFlight");
+		await().atMost(Duration.ofSeconds(10)).until(() -> !inFlight.contains(applicationId));
+
+		LoanApplication row = loanApplicationRepository.findById(applicationId).orElseThrow();
+		assertEquals("decided elsewhere", row.getMessage());
+		assertEquals(rejectedBefore, rejected.count());
+	}
+
+	private long applicationRows(Long customerId) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_applications WHERE customer_id = ?", Long.class,
+				customerId.toString());
+	}
+
+	// Offers applications with no row behind them until the stalled stages leave the intake ring full;
+	// once the database is back they are dropped at the save, where the row is not found QUEUED
+	@SuppressWarnings("unchecked")
+	private void fillIntakeRing(String customerId) throws Exception {
+		Constructor<LoanIntakePipeline.Application> filler = LoanIntakePipeline.Application.class
+				.getDeclaredConstructor(String.class, String.class, Loan.class, String.class);
+		filler.setAccessible(true);
+		Object validator = ReflectionTestUtils.getField(loanIntakePipeline, "validator");
+		RingBuffer<LoanIntakePipeline.Application> intake = (RingBuffer<LoanIntakePipeline.Application>) ReflectionTestUtils
+				.getField(validator, "input");
+		long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+		while (System.nanoTime() < until) {
+			Loan loan = new Loan();
+			loan.setLoanType(Loan.LoanType.HOME_LOAN);
+			loan.setAmount(new BigDecimal("2500000"));
+			loan.setTenureMonths(240);
+			intake.offer(filler.newInstance(UUID.randomUUID().toString(), customerId, loan, null));
+			Thread.sleep(1);
+		}
+	}
+
+	private String awaitOutcome(String bearer, String statusUrl) {
+		return await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(25))
+				.until(() -> mockMvc.perform(get(statusUrl).header("Authorization", bearer))
+						.andExpect(status().isOk())
+						.andReturn().getResponse().getContentAsString(),
+						body -> !"QUEUED".equals(JsonPath.read(body, "$.status")));
+	}
+
+	private static MockHttpServletRequestBuilder apply(String bearer, String body) {
+		return post("/loans/apply")
+				.header("Authorization", bearer)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(body);
+	}
+
+}
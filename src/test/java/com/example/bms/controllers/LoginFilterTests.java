@@ -0,0 +1,62 @@
+package com.example.bms.controllers;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bms.repositories.CustomerRepository;
+
+@SpringBootTest(properties = "bms.login-filter.catch-up-interval-ms=0")
+@AutoConfigureMockMvc
+class LoginFilterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@MockitoSpyBean
+	private CustomerRepository customerRepository;
+
+	@Test
+	void registeredLoginIdsPassAndUnknownOnesSkipTheDatabase() throws Exception {
+		mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON).content("""
+				{"name":"Filter Test","accountNumber":"ACC-FILTER","email":"filter@example.com",
+				 "phoneNumber":"9000000001","panNumber":"PANFILTER1","dob":"1990-01-01",
+				 "accountType":"SAVINGS","loginId":"filter-user","password":"pw"}"""))
+				.andExpect(status().isCreated());
+
+		mockMvc.perform(login("filter-user", "pw")).andExpect(status().isOk());
+		mockMvc.perform(login("filter-user", "wrong")).andExpect(status().isUnauthorized());
+
+		mockMvc.perform(login("stuffed-credential", "pw")).andExpect(status().isUnauthorized());
+		verify(customerRepository, never()).findByLoginId("stuffed-credential");
+	}
+
+	@Test
+	void loginIdsRegisteredOnAnotherInstanceAreCaughtUpBeforeRejecting() throws Exception {
+		// Saved straight to the table, as another instance would, so this filter never heard of it
+		transactionTemplate.executeWithoutResult(status -> customerRepository.save(customer("registered-elsewhere")));
+
+		mockMvc.perform(login("registered-elsewhere", "secret")).andExpect(status().isOk());
+	}
+
+	private static RequestBuilder login(String loginId, String password) {
+		return post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"loginId\":\"" + loginId + "\",\"password\":\"" + password + "\"}");
+	}
+
+}
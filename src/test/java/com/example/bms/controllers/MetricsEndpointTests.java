@@ -0,0 +1,40 @@
+package com.example.bms.controllers;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void prometheusScrapeExposesEndpointRepositoryAndPoolMetrics() throws Exception {
+		mockMvc.perform(get("/loans/types")).andExpect(status().isOk());
+		mockMvc.perform(get("/customers/424242")).andExpect(status().isNotFound());
+
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+				.andExpect(content().string(containsString("outcome=\"CLIENT_ERROR\"")))
+				.andExpect(content().string(containsString("uri=\"/loans/types\"")))
+				.andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count{")))
+				.andExpect(content().string(containsString("repository=\"CustomerRepository\"")))
+				.andExpect(content().string(containsString("hikaricp_connections_active")))
+				.andExpect(content().string(containsString("jvm_gc_")))
+				.andExpect(content().string(containsString("bms_jdbc_query_seconds_count{operation=\"SELECT\",table=\"customers\"}")));
+	}
+
+}
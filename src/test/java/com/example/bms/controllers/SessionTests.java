@@ -0,0 +1,117 @@
+package com.example.bms.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.services.SessionRegistry;
+import com.example.bms.utils.JwtUtil;
+
+import com.jayway.jsonpath.JsonPath;
+
+@SpringBootTest(properties = "bms.sessions.max-per-customer=3")
+@AutoConfigureMockMvc
+class SessionTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private SessionRegistry sessionRegistry;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void logoutEndsTheSessionAndItsToken() throws Exception {
+		register("session-logout", "SESSLOGOUT");
+		String token = login("session-logout");
+		mockMvc.perform(get("/sessions").header("Authorization", token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.sessions.length()").value(1))
+				.andExpect(jsonPath("$.sessions[0].current").value(true));
+
+		mockMvc.perform(post("/logout").header("Authorization", token)).andExpect(status().isOk());
+		mockMvc.perform(get("/sessions").header("Authorization", token)).andExpect(status().isUnauthorized());
+		assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject(
+				"SELECT is_token_active FROM login_requests WHERE session_id = ?", Boolean.class, sessionOf(token)));
+	}
+
+	@Test
+	void loginsBeyondTheLimitEndTheOldestSession() throws Exception {
+		register("session-cap", "SESSCAP");
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			tokens.add(login("session-cap"));
+		}
+
+		mockMvc.perform(get("/sessions").header("Authorization", tokens.get(0))).andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/sessions").header("Authorization", tokens.get(3)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.sessions.length()").value(3))
+				.andExpect(jsonPath("$.sessions[2].current").value(true));
+	}
+
+	@Test
+	void sessionsAreRebuiltFromTheTable() throws Exception {
+		register("session-rebuild", "SESSREBUILD");
+		String token = login("session-rebuild");
+		long sessionId = sessionOf(token);
+		String customerId = jwtUtil.extractUsername(token.substring(7));
+
+		// A session this registry has not seen, as after a restart or a login on another instance
+		sessionRegistry.end(sessionId);
+		jdbcTemplate.update("UPDATE login_requests SET is_token_active = true WHERE session_id = ?", sessionId);
+		assertTrue(sessionRegistry.sessionsOf(customerId).isEmpty());
+		sessionRegistry.rebuild();
+		assertEquals(1, sessionRegistry.sessionsOf(customerId).size());
+		assertTrue(sessionRegistry.isActive(sessionId, customerId));
+		assertFalse(sessionRegistry.isActive(sessionId, "someone-else"));
+	}
+
+	@Test
+	void tokensWithoutASessionStillWork() throws Exception {
+		mockMvc.perform(get("/sessions").header("Authorization", "Bearer " + jwtUtil.generateToken("424242")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.sessions.length()").value(0));
+	}
+
+	private void register(String loginId, String suffix) throws Exception {
+		mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON).content("""
+				{"name":"Session Test","accountNumber":"ACC-%1$s","email":"%2$s@example.com",
+				 "phoneNumber":"9000000002","panNumber":"PAN%1$s","dob":"1990-01-01",
+				 "accountType":"SAVINGS","loginId":"%2$s","password":"pw"}""".formatted(suffix, loginId)))
+				.andExpect(status().isCreated());
+	}
+
+	private String login(String loginId) throws Exception {
+		String body = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"loginId\":\"" + loginId + "\",\"password\":\"pw\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return JsonPath.read(body, "$.bearerToken");
+	}
+
+	private long sessionOf(String bearerToken) {
+		return jwtUtil.extractSessionId(bearerToken.substring(7));
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.example.bms.services;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.bms.models.Account;
+import com.example.bms.models.Customer;
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.AccountRepository;
+import com.example.bms.repositories.CustomerRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class CustomerKeyBackfillTests {
+
+	private static final String LEGACY_INSERT = "INSERT INTO loans (loan_id, amount, loan_type, customer_id, loan_status, "
+			+ "created_at, updated_at) VALUES (?, 50000.00, 'PERSONAL_LOAN', ?, 'PENDING', ?, ?)";
+
+	@Autowired
+	private CustomerKeyBackfill customerKeyBackfill;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void rowsKeyedByTextIdGetTheirNumericKey() {
+		Long customerId = customerRepository.save(customer("backfill")).getId();
+		LocalDateTime now = LocalDateTime.now();
+		// As written by an instance that only knows the text column
+		for (int i = 0; i < 3; i++) {
+			jdbcTemplate.update(LEGACY_INSERT, "LEGACY-" + i, customerId.toString(), now, now);
+		}
+		jdbcTemplate.update(LEGACY_INSERT, "LEGACY-ORPHAN", "999999999", now, now);
+		assertTrue(customerService.getCustomerLoans(customerId.toString()).isEmpty());
+
+		assertEquals(3, customerKeyBackfill.backfill());
+		assertEquals(0, customerKeyBackfill.backfill());
+
+		List<Loan> loans = customerService.getCustomerLoans(customerId.toString());
+		assertEquals(List.of("LEGACY-0", "LEGACY-1", "LEGACY-2"), loans.stream().map(Loan::getLoanId).toList());
+		assertNull(jdbcTemplate.queryForObject("SELECT customer_ref FROM loans WHERE loan_id = 'LEGACY-ORPHAN'", Long.class));
+	}
+
+	@Test
+	void sweepsResumeAboveTheRowsAlreadyReadAndCountEachOrphanOnce() {
+		Long customerId = customerRepository.save(customer("backfill-mark")).getId();
+		LocalDateTime now = LocalDateTime.now();
+		// Leave a free id below the orphan, for a row that commits late
+		jdbcTemplate.update(LEGACY_INSERT, "LEGACY-GAP", customerId.toString(), now, now);
+		long gapId = jdbcTemplate.queryForObject("SELECT id FROM loans WHERE loan_id = 'LEGACY-GAP'", Long.class);
+		jdbcTemplate.update("DELETE FROM loans WHERE id = ?", gapId);
+		jdbcTemplate.update(LEGACY_INSERT, "LEGACY-MARK-ORPHAN", "888888888", now, now);
+		double orphanedBefore = orphaned();
+
+		customerKeyBackfill.backfill();
+		customerKeyBackfill.backfill();
+		assertEquals(orphanedBefore + 1, orphaned());
+
+		jdbcTemplate.update("INSERT INTO loans (id, loan_id, amount, loan_type, customer_id, loan_status, created_at, updated_at) "
+				+ "VALUES (?, 'LEGACY-LATE', 50000.00, 'PERSONAL_LOAN', ?, 'PENDING', ?, ?)", gapId, customerId.toString(), now, now);
+		assertEquals(0, customerKeyBackfill.backfill());
+
+		// The next full sweep goes back for it, without counting the orphan again
+		ReflectionTestUtils.setField(customerKeyBackfill, "fullSweepIntervalMs", 0L);
+		try {
+			assertEquals(1, customerKeyBackfill.backfill());
+		} finally {
+			ReflectionTestUtils.setField(customerKeyBackfill, "fullSweepIntervalMs", 3600000L);
+		}
+		assertEquals(customerId, jdbcTemplate.queryForObject("SELECT customer_ref FROM loans WHERE id = ?", Long.class, gapId));
+		assertEquals(orphanedBefore + 1, orphaned());
+	}
+
+	private double orphaned() {
+		Counter counter = meterRegistry.find("bms.backfill.customer_key").tag("table", "loans").tag("outcome", "orphaned").counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	@Test
+	void fetchPlansLoadTheCustomersRowsWithTheCustomer() {
+		Customer saved = customerRepository.save(customer("plans"));
+		Account account = new Account("ACC-PLANS-1", saved.getId(), Account.AccountType.SAVINGS);
+		account.setBalance(new BigDecimal("1500.00"));
+		accountRepository.save(account);
+		Loan loan = new Loan();
+		loan.setLoanType(Loan.LoanType.HOME_LOAN);
+		loan.setAmount(new BigDecimal("2500000"));
+		loan.setTenureMonths(240);
+		customerService.applyForLoan(saved.getId().toString(), loan);
+
+		Customer withAccounts = customerRepository.findWithAccountsById(saved.getId()).orElseThrow();
+		assertTrue(Hibernate.isInitialized(withAccounts.getAccounts()));
+		assertEquals(List.of("ACC-PLANS-1"), withAccounts.getAccounts().stream().map(Account::getAccountNumber).toList());
+
+		Customer withLoans = customerRepository.findWithLoansById(saved.getId()).orElseThrow();
+		assertTrue(Hibernate.isInitialized(withLoans.getLoans()));
+		assertEquals(List.of(loan.getLoanId()), withLoans.getLoans().stream().map(Loan::getLoanId).toList());
+		assertEquals(saved.getId(), withLoans.getLoans().get(0).getCustomerId());
+	}
+
+}
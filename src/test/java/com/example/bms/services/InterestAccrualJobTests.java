@@ -0,0 +1,161 @@
+package com.example.bms.services;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.bms.models.AccrualCheckpoint;
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.repositories.LoanRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class InterestAccrualJobTests {
+
+	@Autowired
+	private InterestAccrualJob interestAccrualJob;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private JobLeases jobLeases;
+
+	@Test
+	void accruesEachDisbursedLoanOncePerDay() {
+		Long customerId = customerRepository.save(customer("accrual-test")).getId();
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			Loan loan = new Loan();
+			loan.setLoanId("ACCRUAL-" + i);
+			loan.setCustomerId(customerId);
+			loan.setLoanType(Loan.LoanType.PERSONAL_LOAN);
+			loan.setAmount(new BigDecimal("365000.00"));
+			loan.setOfferedInterestRate(new BigDecimal("10.00"));
+			loan.setLoanStatus(i % 4 == 0 ? Loan.LoanStatus.PENDING : Loan.LoanStatus.DISBURSED);
+			ids.add(loanRepository.save(loan).getId());
+		}
+		LocalDate day = LocalDate.of(2026, 1, 15);
+
+		List<AccrualCheckpoint> first = interestAccrualJob.run(day);
+		List<AccrualCheckpoint> again = interestAccrualJob.run(day);
+
+		assertTrue(first.stream().allMatch(c -> c.getStatus() == AccrualCheckpoint.Status.COMPLETED));
+		assertEquals(first.stream().mapToLong(AccrualCheckpoint::getLoansProcessed).sum(),
+				again.stream().mapToLong(AccrualCheckpoint::getLoansProcessed).sum());
+		for (Long id : ids) {
+			Loan loan = loanRepository.findById(id).orElseThrow();
+			if (loan.getLoanStatus() == Loan.LoanStatus.DISBURSED) {
+				// 365000.00 * 10% / 365 = 100.00 for the day
+				assertEquals(new BigDecimal("365100.00"), loan.getOutstandingAmount());
+				assertEquals(day, loan.getLastAccrualDate());
+			} else {
+				assertEquals(null, loan.getOutstandingAmount());
+			}
+		}
+	}
+
+	@Test
+	void laterDisbursalsAreAccruedOnTheNextRunAndMissingOutstandingIsSkipped() {
+		Long customerId = customerRepository.save(customer("accrual-late")).getId();
+		LocalDate day = LocalDate.of(2026, 2, 10);
+		Long early = loanRepository.save(disbursed("ACCRUAL-EARLY", customerId)).getId();
+		interestAccrualJob.run(day);
+
+		// Disbursed after the day's plan was made, one of them with no outstanding amount
+		Long late = loanRepository.save(disbursed("ACCRUAL-LATE", customerId)).getId();
+		Long unknown = loanRepository.save(disbursed("ACCRUAL-UNKNOWN", customerId)).getId();
+		jdbcTemplate.update("UPDATE loans SET outstanding_amount = NULL WHERE id = ?", unknown);
+		double skippedBefore = meterRegistry.counter("bms.accrual.skipped").count();
+
+		List<AccrualCheckpoint> rerun = interestAccrualJob.run(day);
+
+		assertTrue(rerun.stream().allMatch(c -> c.getStatus() == AccrualCheckpoint.Status.COMPLETED));
+		assertEquals(new BigDecimal("365100.00"), loanRepository.findById(early).orElseThrow().getOutstandingAmount());
+		assertEquals(new BigDecimal("365100.00"), loanRepository.findById(late).orElseThrow().getOutstandingAmount());
+		Loan skipped = loanRepository.findById(unknown).orElseThrow();
+		assertNull(skipped.getOutstandingAmount());
+		assertNull(skipped.getLastAccrualDate());
+		assertEquals(skippedBefore + 1, meterRegistry.counter("bms.accrual.skipped").count());
+	}
+
+	@Test
+	void theDailyRunAccruesOnlyOnTheInstanceHoldingTheLease() {
+		Long customerId = customerRepository.save(customer("accrual-lease")).getId();
+		Long loanId = loanRepository.save(disbursed("ACCRUAL-LEASED", customerId)).getId();
+		// Another instance took today's lease
+		jdbcTemplate.update("DELETE FROM job_leases WHERE job = 'interest-accrual'");
+		assertTrue(jobLeases.tryAcquire("interest-accrual", "other-instance", Duration.ofHours(1)));
+
+		interestAccrualJob.runDaily();
+
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM accrual_checkpoints WHERE run_date = ?",
+				Long.class, Date.valueOf(LocalDate.now())));
+		assertNull(loanRepository.findById(loanId).orElseThrow().getLastAccrualDate());
+	}
+
+	@Test
+	void aCheckpointCountsOnlyTheLoansItsChunkUpdated() {
+		Long customerId = customerRepository.save(customer("accrual-overlap")).getId();
+		LocalDate day = LocalDate.of(2026, 3, 5);
+		Long first = loanRepository.save(disbursed("ACCRUAL-OVERLAP-0", customerId)).getId();
+		Long second = loanRepository.save(disbursed("ACCRUAL-OVERLAP-1", customerId)).getId();
+		AccrualCheckpoint checkpoint = interestAccrualJob.run(day).stream()
+				.filter(c -> c.getRangeStart() <= first && first <= c.getRangeEnd())
+				.findFirst().orElseThrow();
+		jdbcTemplate.update("UPDATE loans SET last_accrual_date = NULL, outstanding_amount = 365000.00 WHERE id = ?", second);
+
+		// A chunk read before another run accrued the first loan: only the second is still due
+		List<long[]> chunk = new ArrayList<>();
+		chunk.add(new long[] { first, 36500000L, 10000L });
+		chunk.add(new long[] { second, 36500000L, 10000L });
+		interestAccrualJob.accrueChunk(checkpoint.getId(), chunk, second, Date.valueOf(day), Set.of(customerId.toString()));
+
+		Map<String, Object> advanced = jdbcTemplate.queryForMap(
+				"SELECT last_processed_id, loans_processed, interest_accrued_paise FROM accrual_checkpoints WHERE id = ?",
+				checkpoint.getId());
+		assertEquals(second, ((Number) advanced.get("last_processed_id")).longValue());
+		assertEquals(checkpoint.getLoansProcessed() + 1, ((Number) advanced.get("loans_processed")).longValue());
+		assertEquals(checkpoint.getInterestAccruedPaise() + 10000L, ((Number) advanced.get("interest_accrued_paise")).longValue());
+		assertEquals(new BigDecimal("365100.00"), loanRepository.findById(first).orElseThrow().getOutstandingAmount());
+		assertEquals(new BigDecimal("365100.00"), loanRepository.findById(second).orElseThrow().getOutstandingAmount());
+	}
+
+	private static Loan disbursed(String loanId, Long customerId) {
+		Loan loan = new Loan();
+		loan.setLoanId(loanId);
+		loan.setCustomerId(customerId);
+		loan.setLoanType(Loan.LoanType.PERSONAL_LOAN);
+		loan.setAmount(new BigDecimal("365000.00"));
+		loan.setOfferedInterestRate(new BigDecimal("10.00"));
+		loan.setLoanStatus(Loan.LoanStatus.DISBURSED);
+		return loan;
+	}
+
+}
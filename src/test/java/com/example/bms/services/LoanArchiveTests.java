@@ -0,0 +1,140 @@
+package com.example.bms.services;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.repositories.LoanRepository;
+
+@SpringBootTest
+class LoanArchiveTests {
+
+	@Autowired
+	private LoanArchive loanArchive;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private JobLeases jobLeases;
+
+	@Test
+	void closedLoansMoveToTheArchiveAndStayReadable() {
+		String customerId = customerRepository.save(customer("archive-test")).getId().toString();
+		for (int i = 0; i < 6; i++) {
+			Loan loan = new Loan();
+			loan.setLoanId("COLD-" + i);
+			loan.setCustomerId(Long.valueOf(customerId));
+			loan.setLoanType(Loan.LoanType.CAR_LOAN);
+			loan.setAmount(new BigDecimal("120000.00").add(BigDecimal.valueOf(i)));
+			loan.setOfferedInterestRate(new BigDecimal("9.50"));
+			loan.setTenureMonths(36);
+			loan.setPurpose("car " + i);
+			loan.setLoanStatus(Loan.LoanStatus.APPROVED);
+			loan.setLoanStatus(i < 4 ? Loan.LoanStatus.CLOSED : Loan.LoanStatus.DISBURSED);
+			loan.updateEmi();
+			loanRepository.save(loan);
+		}
+		// Closed long ago, except COLD-3 which closed recently
+		jdbcTemplate.update("UPDATE loans SET updated_at = ? WHERE customer_ref = ? AND loan_id <> 'COLD-3'",
+				LocalDateTime.now().minusDays(400), Long.valueOf(customerId));
+		List<Loan> before = customerService.getCustomerLoans(customerId);
+		assertEquals(6, before.size());
+
+		assertEquals(3, loanArchive.archive(LocalDateTime.now().minusDays(365)));
+		// Copied but not yet purged: both tiers hold the loans and reads are unchanged
+		assertEquals(6, hotRows(customerId));
+		assertEquals(loanIds(before), loanIds(customerService.getCustomerLoans(customerId)));
+
+		loanArchive.refresh();
+		assertEquals(3, hotRows(customerId));
+
+		List<Loan> after = customerService.getCustomerLoans(customerId);
+		assertEquals(loanIds(before), loanIds(after));
+		for (int i = 0; i < before.size(); i++) {
+			Loan expected = before.get(i);
+			Loan actual = after.get(i);
+			assertEquals(expected.getId(), actual.getId());
+			assertEquals(expected.getAmount(), actual.getAmount());
+			assertEquals(expected.getMonthlyEmi(), actual.getMonthlyEmi());
+			assertEquals(expected.getPurpose(), actual.getPurpose());
+			assertEquals(expected.getLoanStatus(), actual.getLoanStatus());
+			assertEquals(expected.getApprovalDate(), actual.getApprovalDate());
+			assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+		}
+
+		Loan archived = customerService.getLoanDetails(customerId, "COLD-0");
+		assertNotNull(archived);
+		assertEquals(Loan.LoanStatus.CLOSED, archived.getLoanStatus());
+		assertNull(customerService.getLoanDetails("88002", "COLD-0"));
+		RuntimeException e = assertThrows(RuntimeException.class,
+				() -> customerService.changeLoanStatus("COLD-0", Loan.LoanStatus.DISBURSED));
+		assertTrue(e.getMessage().contains("archived"));
+		// The recently closed loan is still hot and can change
+		assertEquals(Loan.LoanStatus.DISBURSED, customerService.changeLoanStatus("COLD-3", Loan.LoanStatus.DISBURSED).getLoanStatus());
+	}
+
+	@Test
+	void theNightlyRunArchivesOnlyOnTheInstanceHoldingTheLease() {
+		String customerId = customerRepository.save(customer("archive-lease")).getId().toString();
+		Loan loan = new Loan();
+		loan.setLoanId("LEASED-0");
+		loan.setCustomerId(Long.valueOf(customerId));
+		loan.setLoanType(Loan.LoanType.PERSONAL_LOAN);
+		loan.setAmount(new BigDecimal("50000.00"));
+		loan.setOfferedInterestRate(new BigDecimal("12.00"));
+		loan.setTenureMonths(12);
+		loan.setLoanStatus(Loan.LoanStatus.CLOSED);
+		loan.updateEmi();
+		loanRepository.save(loan);
+		jdbcTemplate.update("UPDATE loans SET updated_at = ? WHERE loan_id = 'LEASED-0'", LocalDateTime.now().minusDays(400));
+		// Another instance took tonight's lease
+		jdbcTemplate.update("DELETE FROM job_leases WHERE job = 'loan-archive'");
+		assertTrue(jobLeases.tryAcquire("loan-archive", "other-instance", Duration.ofHours(1)));
+
+		loanArchive.runNightly();
+		assertFalse(loanArchive.contains("LEASED-0"));
+
+		// Its lease ran out without a run, as if it had crashed
+		jdbcTemplate.update("UPDATE job_leases SET leased_until = ? WHERE job = 'loan-archive'", LocalDateTime.now().minusMinutes(1));
+		loanArchive.runNightly();
+		assertTrue(loanArchive.contains("LEASED-0"));
+		assertFalse(jobLeases.tryAcquire("loan-archive", "other-instance", Duration.ofHours(1)));
+		loanArchive.refresh();
+		assertEquals(0, hotRows(customerId));
+	}
+
+	private long hotRows(String customerId) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loans WHERE customer_ref = ?", Long.class, Long.valueOf(customerId));
+	}
+
+	private static List<String> loanIds(List<Loan> loans) {
+		return loans.stream().map(Loan::getLoanId).toList();
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.example.bms.services;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.bms.models.Customer;
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.repositories.LoanRepository;
+import com.example.bms.utils.Money;
+
+@SpringBootTest
+class LoanImportServiceTests {
+
+	@Autowired
+	private LoanImportService loanImportService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private PricingEngine pricingEngine;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void importsValidRowsInBatchesAndReportsFailures() throws Exception {
+		Customer customer = new Customer();
+		customer.setName("Import Test");
+		customer.setAccountNumber("IMP-0001");
+		customer.setEmail("import@example.com");
+		customer.setPhoneNumber("9000000000");
+		customer.setPanNumber("IMPRT0001X");
+		customer.setDob("1990-01-01");
+		customer.setLoginId("import-test");
+		customer.setPassword("secret");
+		String customerId = customerRepository.save(customer).getId().toString();
+
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < 120; i++) {
+			ndjson.append("{\"customerId\":\"").append(customerId)
+					.append("\",\"loanType\":\"HOME_LOAN\",\"amount\":2500000,\"tenureMonths\":360}\n");
+		}
+		// Someone else's customerId
+		ndjson.append("{\"customerId\":\"999999\",\"loanType\":\"CAR_LOAN\",\"amount\":10000,\"tenureMonths\":12}\n");
+		ndjson.append("{\"customerId\":\"").append(customerId).append("\",\"loanType\":\"CAR_LOAN\",\"amount\":-5,\"tenureMonths\":12}\n");
+		ndjson.append("not json\n");
+
+		Map<String, Object> report = loanImportService.importLoans(
+				new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), customerId);
+
+		assertEquals(123, report.get("totalRows"));
+		assertEquals(120, report.get("imported"));
+		assertEquals(3, report.get("failed"));
+		// Only the failed rows are listed
+		List<Map<String, Object>> failures = (List<Map<String, Object>>) report.get("failures");
+		assertEquals(List.of(121, 122, 123), failures.stream().map(f -> f.get("line")).toList());
+		assertTrue(((String) failures.get(0).get("error")).contains("not the authenticated customer"));
+		assertFalse((Boolean) report.get("failuresTruncated"));
+
+		List<Loan> loans = loanRepository.findByCustomerId(Long.valueOf(customerId));
+		assertEquals(120, loans.size());
+		assertEquals(120, loans.stream().map(Loan::getLoanId).distinct().count());
+
+		// Priced by the rule set: the first loan on no exposure, later ones on the loans before them
+		loans.sort(Comparator.comparing(Loan::getId));
+		long amountPaise = Money.toPaise(new BigDecimal("2500000"));
+		assertEquals(Money.fromBasisPoints(pricingEngine.offeredRateBps(Loan.LoanType.HOME_LOAN, amountPaise, 360, 0, 0)),
+				loans.get(0).getOfferedInterestRate());
+		assertEquals(Money.fromBasisPoints(pricingEngine.offeredRateBps(Loan.LoanType.HOME_LOAN, amountPaise, 360, 0,
+				119 * amountPaise)), loans.get(119).getOfferedInterestRate());
+		assertEquals(loans.get(0).calculateEmi(), loans.get(0).getMonthlyEmi());
+	}
+
+	@Test
+	void rowsWithTheirOwnRateKeepIt() throws Exception {
+		String customerId = customerRepository.save(customer("import-own-rate")).getId().toString();
+		String ndjson = "{\"customerId\":\"" + customerId
+				+ "\",\"loanType\":\"CAR_LOAN\",\"amount\":400000,\"tenureMonths\":48,\"offeredInterestRate\":8.75}\n";
+
+		Map<String, Object> report = loanImportService.importLoans(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), customerId);
+
+		assertEquals(1, report.get("imported"));
+		Loan loan = loanRepository.findByCustomerId(Long.valueOf(customerId)).get(0);
+		assertEquals(0, new BigDecimal("8.75").compareTo(loan.getOfferedInterestRate()));
+		assertEquals(loan.calculateEmi(), loan.getMonthlyEmi());
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.example.bms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanScenario;
+
+class LoanSimulatorTests {
+
+	private final LoanSimulator simulator = new LoanSimulator();
+
+	@Test
+	void comparesScenariosAgainstTheOriginalSchedule() {
+		Loan loan = loan("2500000", "8.50", 240);
+		Map<String, Object> simulation = simulator.simulate(loan, List.of(
+				scenario("as-is"),
+				scenario("prepay-keep-emi", prepayment(24, "300000", LoanScenario.Adjust.TENURE)),
+				scenario("prepay-lower-emi", prepayment(24, "300000", LoanScenario.Adjust.EMI)),
+				scenario("reset-keep-tenure", rateChange(60, "9.50", LoanScenario.Adjust.EMI))));
+
+		Map<String, Object> baseline = result(simulation, "baseline");
+		assertEquals(loan.calculateEmi(), baseline.get("emi"));
+		assertEquals(240, baseline.get("tenureMonths"));
+
+		Map<String, Object> asIs = scenarioResult(simulation, 0);
+		assertEquals(baseline.get("totalInterest"), asIs.get("totalInterest"));
+		assertEquals(0, asIs.get("monthsSaved"));
+
+		// Same EMI, fewer months
+		Map<String, Object> keepEmi = scenarioResult(simulation, 1);
+		assertEquals(baseline.get("emi"), keepEmi.get("emi"));
+		assertTrue((int) keepEmi.get("monthsSaved") > 40);
+		assertEquals(new BigDecimal("300000.00"), keepEmi.get("totalPrepaid"));
+
+		// Same end date, lower EMI, and less interest saved than shortening the loan
+		Map<String, Object> lowerEmi = scenarioResult(simulation, 2);
+		assertEquals(240, lowerEmi.get("tenureMonths"));
+		assertTrue(((BigDecimal) lowerEmi.get("emi")).compareTo((BigDecimal) baseline.get("emi")) < 0);
+		assertTrue(((BigDecimal) lowerEmi.get("interestSaved")).compareTo((BigDecimal) keepEmi.get("interestSaved")) < 0);
+
+		Map<String, Object> reset = scenarioResult(simulation, 3);
+		assertEquals(240, reset.get("tenureMonths"));
+		assertTrue(((BigDecimal) reset.get("emi")).compareTo((BigDecimal) baseline.get("emi")) > 0);
+		assertTrue(((BigDecimal) reset.get("interestSaved")).signum() < 0);
+	}
+
+	@Test
+	void fullPrepaymentClosesTheLoanAndLaterEventsAreIgnored() {
+		Loan loan = loan("100000", "12.00", 12);
+		Map<String, Object> simulation = simulator.simulate(loan, List.of(scenario("foreclose",
+				prepayment(6, "1000000", LoanScenario.Adjust.TENURE),
+				rateChange(9, "20.00", LoanScenario.Adjust.EMI))));
+
+		Map<String, Object> foreclose = scenarioResult(simulation, 0);
+		assertEquals(6, foreclose.get("tenureMonths"));
+		assertEquals(6, foreclose.get("monthsSaved"));
+		assertTrue(((BigDecimal) foreclose.get("totalPrepaid")).compareTo(new BigDecimal("60000")) < 0);
+	}
+
+	@Test
+	void rejectsAnEmiThatNeverRepaysTheLoan() {
+		Loan loan = loan("1000000", "10.00", 120);
+		LoanScenario.Event tooSmall = new LoanScenario.Event();
+		tooSmall.setMonth(12);
+		tooSmall.setType(LoanScenario.EventType.EMI_CHANGE);
+		tooSmall.setAmount(new BigDecimal("5000"));
+		assertThrows(IllegalArgumentException.class,
+				() -> simulator.simulate(loan, List.of(scenario("underwater", tooSmall))));
+	}
+
+	private static Loan loan(String amount, String rate, int tenureMonths) {
+		Loan loan = new Loan();
+		loan.setLoanId("LOAN_SIM");
+		loan.setAmount(new BigDecimal(amount));
+		loan.setOfferedInterestRate(new BigDecimal(rate));
+		loan.setTenureMonths(tenureMonths);
+		return loan;
+	}
+
+	private static LoanScenario scenario(String name, LoanScenario.Event... events) {
+		LoanScenario scenario = new LoanScenario();
+		scenario.setName(name);
+		scenario.setEvents(List.of(events));
+		return scenario;
+	}
+
+	private static LoanScenario.Event prepayment(int month, String amount, LoanScenario.Adjust adjust) {
+		LoanScenario.Event event = new LoanScenario.Event();
+		event.setMonth(month);
+		event.setType(LoanScenario.EventType.PREPAYMENT);
+		event.setAmount(new BigDecimal(amount));
+		event.setAdjust(adjust);
+		return event;
+	}
+
+	private static LoanScenario.Event rateChange(int month, String rate, LoanScenario.Adjust adjust) {
+		LoanScenario.Event event = new LoanScenario.Event();
+		event.setMonth(month);
+		event.setType(LoanScenario.EventType.RATE_CHANGE);
+		event.setInterestRate(new BigDecimal(rate));
+		event.setAdjust(adjust);
+		return event;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> result(Map<String, Object> simulation, String key) {
+		return (Map<String, Object>) simulation.get(key);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> scenarioResult(Map<String, Object> simulation, int index) {
+		return ((List<Map<String, Object>>) simulation.get("scenarios")).get(index);
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.example.bms.services;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.OutboxEvent;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.repositories.OutboxEventRepository;
+import com.example.bms.utils.ShardRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+class OutboxDispatcherTests {
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private OutboxDispatcher outboxDispatcher;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private InMemoryOutboxSink sink;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Test
+	void statusChangesAreRecordedAndDrainedToTheSink() {
+		String customerId = customerRepository.save(customer("outbox-test")).getId().toString();
+		Loan application = new Loan();
+		application.setLoanType(Loan.LoanType.CAR_LOAN);
+		application.setAmount(new BigDecimal("750000.00"));
+		application.setTenureMonths(60);
+		Loan loan = customerService.applyForLoan(customerId, application);
+		customerService.changeLoanStatus(loan.getLoanId(), Loan.LoanStatus.APPROVED);
+		customerService.changeLoanStatus(loan.getLoanId(), Loan.LoanStatus.DISBURSED);
+
+		outboxDispatcher.dispatch();
+
+		List<OutboxEvent> forLoan = sink.getPublished().stream()
+				.filter(e -> e.getAggregateId().equals(loan.getLoanId()))
+				.toList();
+		assertEquals(3, forLoan.size());
+		assertTrue(forLoan.get(2).getPayload().contains("\"toStatus\":\"DISBURSED\""));
+		assertEquals(0, outboxEventRepository.countByDispatchedAtIsNull());
+	}
+
+	@Test
+	void twoInstancesDispatchingAtOnceDeliverEachEventOnce() throws Exception {
+		String customerId = customerRepository.save(customer("outbox-two")).getId().toString();
+		Set<String> loanIds = new HashSet<>();
+		for (int i = 0; i < 30; i++) {
+			Loan application = new Loan();
+			application.setLoanType(Loan.LoanType.PERSONAL_LOAN);
+			application.setAmount(new BigDecimal("50000.00"));
+			application.setTenureMonths(12);
+			loanIds.add(customerService.applyForLoan(customerId, application).getLoanId());
+		}
+		OutboxDispatcher otherInstance = otherInstance();
+
+		ExecutorService instances = Executors.newFixedThreadPool(2);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> runs = new ArrayList<>();
+			for (OutboxDispatcher dispatcher : List.of(outboxDispatcher, otherInstance)) {
+				runs.add(instances.submit(() -> {
+					start.await();
+					for (int i = 0; i < 5; i++) {
+						dispatcher.dispatch();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> run : runs) {
+				run.get(30, TimeUnit.SECONDS);
+			}
+
+			List<Long> delivered = sink.getPublished().stream()
+					.filter(e -> loanIds.contains(e.getAggregateId()))
+					.map(OutboxEvent::getId)
+					.toList();
+			assertEquals(loanIds.size(), delivered.size());
+			assertEquals(delivered.size(), new HashSet<>(delivered).size());
+		} finally {
+			instances.shutdownNow();
+			// Whichever instance won keeps the lease; hand it back to this context's dispatcher
+			jdbcTemplate.update("DELETE FROM job_leases WHERE job = 'outbox-dispatcher'");
+		}
+	}
+
+	// A dispatcher as another instance on the same database would run it: its own leases, small batches
+	private OutboxDispatcher otherInstance() {
+		JobLeases leases = new JobLeases();
+		ReflectionTestUtils.setField(leases, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(leases, "shardRouter", shardRouter);
+		OutboxDispatcher dispatcher = new OutboxDispatcher();
+		ReflectionTestUtils.setField(dispatcher, "outboxEventRepository", outboxEventRepository);
+		ReflectionTestUtils.setField(dispatcher, "outboxSink", sink);
+		ReflectionTestUtils.setField(dispatcher, "shardRouter", shardRouter);
+		ReflectionTestUtils.setField(dispatcher, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(dispatcher, "jobLeases", leases);
+		ReflectionTestUtils.setField(dispatcher, "batchSize", 5);
+		ReflectionTestUtils.setField(dispatcher, "leaseMs", 30000L);
+		dispatcher.registerMetrics();
+		return dispatcher;
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.example.bms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.bms.models.Loan;
+import com.example.bms.models.PricingRule;
+import com.example.bms.models.PricingRuleSet;
+import com.example.bms.utils.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+class PricingEngineTests {
+
+	private static final long LAKH = Money.toPaise(new BigDecimal("100000"));
+
+	@Autowired
+	private PricingEngine pricingEngine;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void defaultRulesAdjustTheBaseRate() {
+		// Personal loan base 15.00%: small ticket +1.00, short tenure -0.50, new customer +0.50
+		assertEquals(1600, pricingEngine.offeredRateBps(Loan.LoanType.PERSONAL_LOAN, 40_000_00L, 12, 1, 0));
+		// Unknown customer tenure: neither customer-tenure rule applies
+		assertEquals(1500, pricingEngine.offeredRateBps(Loan.LoanType.PERSONAL_LOAN, 2 * LAKH, 24, -1, 0));
+		// Home loan base 9.00%: large ticket -0.25, long tenure +0.15, loyal -0.25, high exposure +0.50
+		assertEquals(915, pricingEngine.offeredRateBps(Loan.LoanType.HOME_LOAN, 60 * LAKH, 300, 36, 30 * LAKH));
+		// Upper bounds are exclusive: three months in, a customer is no longer new
+		assertEquals(1050, pricingEngine.offeredRateBps(Loan.LoanType.CAR_LOAN, 5 * LAKH, 60, 3, 0));
+	}
+
+	@Test
+	void compiledTableAgreesWithRuleByRuleEvaluation() throws Exception {
+		Random random = new Random(37);
+		List<PricingRuleSet> ruleSets = new ArrayList<>();
+		try (InputStream in = getClass().getResourceAsStream("/pricing-rules.json")) {
+			ruleSets.add(objectMapper.readValue(in, PricingRuleSet.class));
+		}
+		for (int ruleCount : new int[] { 1, 40, 130 }) {
+			ruleSets.add(randomRuleSet(random, ruleCount));
+		}
+		for (PricingRuleSet ruleSet : ruleSets) {
+			CompiledPricingRules compiled = CompiledPricingRules.compile(ruleSet);
+			for (int i = 0; i < 5_000; i++) {
+				Loan.LoanType type = Loan.LoanType.values()[random.nextInt(Loan.LoanType.values().length)];
+				long amount = random.nextInt(100) * LAKH / 2;
+				int tenure = 1 + random.nextInt(360);
+				int customerTenure = random.nextInt(80) - 1;
+				long exposure = random.nextInt(80) * LAKH / 2;
+				assertEquals(interpreted(ruleSet, type, amount, tenure, customerTenure, exposure),
+						compiled.offeredRateBps(type, amount, tenure, customerTenure, exposure));
+			}
+		}
+	}
+
+	@Test
+	void swapReplacesTheActiveRulesAtomically() throws Exception {
+		String defaultVersion = pricingEngine.getActiveVersion();
+		PricingRuleSet flat = new PricingRuleSet();
+		flat.setVersion("flat-surcharge");
+		flat.setRules(List.of(rule("surcharge", 200)));
+		try {
+			pricingEngine.swap(flat);
+			assertEquals("flat-surcharge", pricingEngine.getActiveVersion());
+			assertEquals(1250, pricingEngine.offeredRateBps(Loan.LoanType.CAR_LOAN, 5 * LAKH, 60, 3, 0));
+
+			PricingRuleSet broken = new PricingRuleSet();
+			broken.setVersion("broken");
+			broken.setRules(List.of(rule(" ", 0)));
+			assertThrows(IllegalArgumentException.class, () -> pricingEngine.swap(broken));
+			assertEquals("flat-surcharge", pricingEngine.getActiveVersion());
+		} finally {
+			pricingEngine.reload();
+		}
+		assertEquals(defaultVersion, pricingEngine.getActiveVersion());
+	}
+
+	private static long interpreted(PricingRuleSet ruleSet, Loan.LoanType type, long amount, int tenure,
+			int customerTenure, long exposure) {
+		long rate = Money.toBasisPoints(type.getBaseInterestRate());
+		for (PricingRule rule : ruleSet.getRules()) {
+			if (rule.matches(type, amount, tenure, customerTenure, exposure)) {
+				rate += rule.getAdjustmentBps();
+			}
+		}
+		return Math.max(ruleSet.getMinRateBps(), Math.min(ruleSet.getMaxRateBps(), rate));
+	}
+
+	static PricingRuleSet randomRuleSet(Random random, int ruleCount) {
+		PricingRuleSet ruleSet = new PricingRuleSet();
+		ruleSet.setVersion("random-" + ruleCount);
+		ruleSet.setMinRateBps(600);
+		ruleSet.setMaxRateBps(2400);
+		List<PricingRule> rules = new ArrayList<>();
+		for (int i = 0; i < ruleCount; i++) {
+			PricingRule rule = rule("rule-" + i, random.nextInt(201) - 100);
+			if (random.nextBoolean()) {
+				rule.setLoanTypes(List.of(Loan.LoanType.values()[random.nextInt(Loan.LoanType.values().length)]));
+			}
+			if (random.nextInt(3) == 0) {
+				rule.setMinAmount(BigDecimal.valueOf(random.nextInt(50) * 50_000L));
+			}
+			if (random.nextInt(3) == 0) {
+				rule.setMaxAmount(BigDecimal.valueOf(random.nextInt(50) * 100_000L));
+			}
+			if (random.nextInt(3) == 0) {
+				rule.setMinTenureMonths(random.nextInt(240));
+			}
+			if (random.nextInt(3) == 0) {
+				rule.setMaxTenureMonths(random.nextInt(361));
+			}
+			if (random.nextInt(3) == 0) {
+				rule.setMinCustomerTenureMonths(random.nextInt(40));
+			}
+			if (random.nextInt(4) == 0) {
+				rule.setMaxCustomerTenureMonths(random.nextInt(60));
+			}
+			if (random.nextInt(4) == 0) {
+				rule.setMinExposure(BigDecimal.valueOf(random.nextInt(40) * 50_000L));
+			}
+			rules.add(rule);
+		}
+		ruleSet.setRules(rules);
+		return ruleSet;
+	}
+
+	private static PricingRule rule(String name, int adjustmentBps) {
+		PricingRule rule = new PricingRule();
+		rule.setName(name);
+		rule.setAdjustmentBps(adjustmentBps);
+		return rule;
+	}
+
+}
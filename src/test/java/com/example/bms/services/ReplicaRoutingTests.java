@@ -0,0 +1,144 @@
+package com.example.bms.services;
+
+import static com.example.bms.TestCustomers.customer;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.models.Loan;
+import com.example.bms.repositories.CustomerRepository;
+import com.example.bms.utils.JwtUtil;
+import com.example.bms.utils.ReplicaRoutingDataSource;
+
+// Two embedded databases; "replication" is a snapshot copied from the primary by hand
+@SpringBootTest(properties = {
+		"bms.datasource.replicas.enabled=true",
+		"bms.datasource.replicas.urls=jdbc:h2:mem:bms-replica-${random.uuid};MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"bms.datasource.replicas.heartbeat-interval-ms=3600000",
+		"bms.datasource.replicas.max-lag-ms=1000",
+		"bms.datasource.replicas.read-your-writes-ms=2000"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ReplicaLagMonitor replicaLagMonitor;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void readsUseFreshReplicasExceptRightAfterTheCustomersOwnWrite() throws Exception {
+		ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+		JdbcTemplate primary = new JdbcTemplate(routing.getPrimary());
+		JdbcTemplate replica = new JdbcTemplate(routing.getReplicas().get("replica-1"));
+
+		String customerId = customerRepository.save(customer("replica1")).getId().toString();
+		Loan loan = new Loan();
+		loan.setLoanType(Loan.LoanType.PERSONAL_LOAN);
+		loan.setAmount(new BigDecimal("50000"));
+		loan.setTenureMonths(12);
+		customerService.applyForLoan(customerId, loan);
+
+		replicaLagMonitor.checkReplicas();
+		copy(primary, replica);
+		// Marks the replica's copy so the test can tell which database answered
+		replica.update("UPDATE loans SET purpose = 'from replica'");
+		replicaLagMonitor.checkReplicas();
+
+		// The customer just wrote: their reads stay on the primary for the window
+		assertEquals(null, onlyLoan(customerId).getPurpose());
+
+		// Then they move to the replica, whenever the window ends on a slow machine
+		await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(50))
+				.until(() -> onlyLoan(customerId).getPurpose(), "from replica"::equals);
+
+		// A replica whose heartbeat is stale is skipped
+		replica.update("UPDATE replica_heartbeat SET beat_at_ms = ?", System.currentTimeMillis() - 60_000);
+		replicaLagMonitor.checkReplicas();
+		assertEquals(null, onlyLoan(customerId).getPurpose());
+	}
+
+	@Test
+	void loanListsAreTaggedWithTheVersionOfTheDatabaseThatAnswered() throws Exception {
+		ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+		JdbcTemplate primary = new JdbcTemplate(routing.getPrimary());
+		JdbcTemplate replica = new JdbcTemplate(routing.getReplicas().get("replica-1"));
+
+		String customerId = customerRepository.save(customer("replica-etag")).getId().toString();
+		Loan loan = new Loan();
+		loan.setLoanType(Loan.LoanType.PERSONAL_LOAN);
+		loan.setAmount(new BigDecimal("50000"));
+		loan.setTenureMonths(12);
+		customerService.applyForLoan(customerId, loan);
+		copy(primary, replica);
+		replicaLagMonitor.checkReplicas();
+
+		// A write the replica has not seen yet, made where this instance's read-your-writes cannot know of it
+		primary.update("UPDATE loans SET amount = 70000 WHERE customer_ref = ?", Long.valueOf(customerId));
+		primary.update("UPDATE customers SET loan_version = loan_version + 1 WHERE id = ?", Long.valueOf(customerId));
+		String replicaTag = "W/\"" + replica.queryForObject("SELECT loan_version FROM customers WHERE id = ?", Long.class,
+				Long.valueOf(customerId)) + "\"";
+		String bearer = "Bearer " + jwtUtil.generateToken(customerId);
+
+		// Once the customer's own write has aged out, reads go to the replica: its data with its version
+		AtomicReference<MockHttpServletResponse> stale = new AtomicReference<>();
+		await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(50)).until(() -> {
+			stale.set(mockMvc.perform(get("/loans/applied").header("Authorization", bearer)).andReturn().getResponse());
+			return stale.get().getContentAsString().contains("50000");
+		});
+		assertEquals(replicaTag, stale.get().getHeader("ETag"));
+		mockMvc.perform(get("/loans/applied").header("Authorization", bearer).header("If-None-Match", replicaTag))
+				.andExpect(status().isNotModified());
+
+		// The replica catches up: the old tag no longer matches and the new data comes with the new tag
+		copy(primary, replica);
+		replicaLagMonitor.checkReplicas();
+		String fresh = mockMvc.perform(get("/loans/applied").header("Authorization", bearer).header("If-None-Match", replicaTag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertTrue(fresh.contains("70000"), fresh);
+	}
+
+	private Loan onlyLoan(String customerId) {
+		List<Loan> loans = customerService.getCustomerLoans(customerId);
+		assertEquals(1, loans.size());
+		return loans.get(0);
+	}
+
+	private static void copy(JdbcTemplate primary, JdbcTemplate replica) {
+		List<String> script = primary.queryForList("SCRIPT", String.class);
+		replica.execute("DROP ALL OBJECTS");
+		script.forEach(replica::execute);
+	}
+
+}
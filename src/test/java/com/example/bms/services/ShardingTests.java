@@ -0,0 +1,237 @@
+package com.example.bms.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.bms.models.Account;
+import com.example.bms.models.Customer;
+import com.example.bms.models.Loan;
+import com.example.bms.models.LoanSummary;
+import com.example.bms.models.LoginRequest;
+import com.example.bms.models.RegisterRequest;
+import com.example.bms.repositories.AccountRepository;
+import com.example.bms.utils.JwtUtil;
+import com.example.bms.utils.ShardRouter;
+import com.example.bms.utils.ShardRoutingDataSource;
+
+// Three embedded databases: shard 0 is spring.datasource, shards 1 and 2 come from bms.sharding.urls
+@SpringBootTest(properties = {
+		"bms.sharding.enabled=true",
+		"bms.sharding.urls=jdbc:h2:mem:bms-shard1-${random.uuid};MODE=MySQL;DB_CLOSE_DELAY=-1,"
+				+ "jdbc:h2:mem:bms-shard2-${random.uuid};MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"bms.portfolio.operator-login-ids=portfolio-operator"
+})
+@AutoConfigureMockMvc
+class ShardingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private PortfolioService portfolioService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private JwtUtil jwtUtil;
+
+	@Test
+	void customersAndTheirLoansLiveOnTheShardTheirLoginIdHashesTo() throws Exception {
+		assertEquals(3, shardRouter.shardCount());
+
+		Set<Integer> used = new HashSet<>();
+		for (int i = 0; i < 12; i++) {
+			String loginId = "shardcust" + i;
+			Customer customer = customerService.registerCustomer(register(loginId));
+			int shard = shardRouter.shardOfLoginId(loginId);
+			assertEquals(shard, shardRouter.shardOf(customer.getId()));
+			used.add(shard);
+
+			assertEquals(1, count(shard, "SELECT COUNT(*) FROM customers WHERE id = ?", customer.getId()));
+			for (int other = 0; other < 3; other++) {
+				if (other != shard) {
+					assertEquals(0, count(other, "SELECT COUNT(*) FROM customers WHERE id = ?", customer.getId()));
+				}
+			}
+
+			Loan loan = customerService.applyForLoan(customer.getId().toString(), loan("10000"));
+			assertEquals(1, count(shard, "SELECT COUNT(*) FROM loans WHERE loan_id = ?", loan.getLoanId()));
+			assertEquals(1, count(shard, "SELECT COUNT(*) FROM outbox_events WHERE aggregate_id = ?", loan.getLoanId()));
+			assertEquals(1, customerService.getCustomerLoans(customer.getId().toString()).size());
+
+			Loan approved = customerService.changeLoanStatus(loan.getLoanId(), Loan.LoanStatus.APPROVED);
+			assertEquals(Loan.LoanStatus.APPROVED, approved.getLoanStatus());
+			assertNotNull(customerService.authenticateCustomer(login(loginId, "secret")));
+		}
+		assertEquals(3, used.size(), "twelve loginIds should cover every shard");
+
+		// Duplicates are caught on the loginId's own shard
+		assertThrows(RuntimeException.class, () -> customerService.registerCustomer(register("shardcust0")));
+		assertNull(customerService.authenticateCustomer(login("shardcust0", "wrong")));
+	}
+
+	@Test
+	void crossCustomerQueriesMergeEveryShard() throws Exception {
+		BigDecimal[] amounts = { new BigDecimal("700000"), new BigDecimal("650000"), new BigDecimal("900000"),
+				new BigDecimal("800000"), new BigDecimal("750000"), new BigDecimal("600500") };
+		for (int i = 0; i < amounts.length; i++) {
+			Customer customer = customerService.registerCustomer(register("portfolio" + i));
+			customerService.applyForLoan(customer.getId().toString(), loan(amounts[i].toPlainString()));
+			Account account = new Account();
+			account.setAccountNumber("SHACC-" + i);
+			account.setCustomerId(customer.getId());
+			account.setAccountType(Account.AccountType.SAVINGS);
+			account.setBalance(new BigDecimal(1000 * (i + 1)));
+			shardRouter.forCustomer(customer.getId().toString(), () -> accountRepository.save(account));
+		}
+
+		List<LoanSummary> highValue = portfolioService.highValueLoans(new BigDecimal("600000"));
+		assertTrue(highValue.stream().map(LoanSummary::getCustomerId).distinct().count() > 1);
+		List<BigDecimal> merged = highValue.stream().map(LoanSummary::getAmount).toList();
+		assertEquals(amounts.length, merged.size());
+		for (int i = 1; i < merged.size(); i++) {
+			assertTrue(merged.get(i - 1).compareTo(merged.get(i)) >= 0, "merged list must stay largest first");
+		}
+		assertEquals(0, new BigDecimal("900000").compareTo(merged.get(0)));
+
+		List<Account> accounts = portfolioService.accountsByBalanceRange(new BigDecimal("2000"), new BigDecimal("5000"));
+		assertEquals(4, accounts.size());
+		for (int i = 1; i < accounts.size(); i++) {
+			assertTrue(accounts.get(i - 1).getBalance().compareTo(accounts.get(i).getBalance()) < 0);
+		}
+
+		// Anonymous callers and ordinary customers cannot see every customer's data
+		mockMvc.perform(get("/portfolio/high-value-loans").param("threshold", "600000"))
+				.andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/portfolio/accounts").param("minBalance", "2000").param("maxBalance", "5000"))
+				.andExpect(status().isUnauthorized());
+		String customer = "Bearer " + jwtUtil.generateToken(customerService.registerCustomer(register("portfolio-customer")).getId().toString());
+		mockMvc.perform(get("/portfolio/high-value-loans").header("Authorization", customer).param("threshold", "600000"))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/portfolio/accounts").header("Authorization", customer)
+						.param("minBalance", "2000").param("maxBalance", "5000"))
+				.andExpect(status().isForbidden());
+
+		String operator = "Bearer " + jwtUtil.generateToken(customerService.registerCustomer(register("portfolio-operator")).getId().toString());
+		mockMvc.perform(get("/portfolio/high-value-loans").header("Authorization", operator).param("threshold", "600000"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalLoans").value(amounts.length))
+				.andExpect(jsonPath("$.loans[0].amount").value(900000));
+		mockMvc.perform(get("/portfolio/accounts").header("Authorization", operator)
+						.param("minBalance", "2000").param("maxBalance", "5000"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalAccounts").value(4))
+				.andExpect(jsonPath("$.accounts[0].accountNumber").value("SHACC-1"));
+		mockMvc.perform(get("/portfolio/accounts").header("Authorization", operator)
+						.param("minBalance", "5000").param("maxBalance", "2000"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void accountNumbersEmailsAndPansStayUniqueAcrossShards() throws Exception {
+		String first = "uniq-first";
+		String second = loginIdOnAnotherShard(first);
+		customerService.registerCustomer(register(first));
+
+		RegisterRequest sameEmail = register(second);
+		sameEmail.setEmail(first.toUpperCase() + "@example.com");
+		assertEquals("Customer with this email already exists",
+				assertThrows(RuntimeException.class, () -> customerService.registerCustomer(sameEmail)).getMessage());
+		RegisterRequest samePan = register(second);
+		samePan.setPanNumber("PAN-" + first);
+		assertEquals("Customer with this PAN already exists",
+				assertThrows(RuntimeException.class, () -> customerService.registerCustomer(samePan)).getMessage());
+		RegisterRequest sameAccount = register(second);
+		sameAccount.setAccountNumber("ACC-" + first);
+		assertEquals("Customer with this account number already exists",
+				assertThrows(RuntimeException.class, () -> customerService.registerCustomer(sameAccount)).getMessage());
+		assertEquals(0, count(shardRouter.shardOfLoginId(second), "SELECT COUNT(*) FROM customers WHERE login_id = ?", second));
+
+		// The refused attempts released what they had claimed, so the second customer's own values are free
+		Customer registered = customerService.registerCustomer(register(second));
+		Customer emailTaken = new Customer();
+		emailTaken.setEmail(first + "@example.com");
+		assertThrows(RuntimeException.class, () -> customerService.updateCustomerDetails(registered.getId(), emailTaken));
+
+		// A changed email frees the old one
+		Customer moved = new Customer();
+		moved.setEmail("moved-" + second + "@example.com");
+		customerService.updateCustomerDetails(registered.getId(), moved);
+		RegisterRequest third = register(loginIdOnAnotherShard(second));
+		third.setEmail(second + "@example.com");
+		assertNotNull(customerService.registerCustomer(third));
+	}
+
+	private String loginIdOnAnotherShard(String loginId) {
+		for (int i = 0; ; i++) {
+			if (shardRouter.shardOfLoginId(loginId + i) != shardRouter.shardOfLoginId(loginId)) {
+				return loginId + i;
+			}
+		}
+	}
+
+	private long count(int shard, String sql, Object arg) throws Exception {
+		DataSource raw = dataSource.unwrap(ShardRoutingDataSource.class).getShard(shard);
+		return new JdbcTemplate(raw).queryForObject(sql, Long.class, arg);
+	}
+
+	private static Loan loan(String amount) {
+		Loan loan = new Loan();
+		loan.setLoanType(Loan.LoanType.PERSONAL_LOAN);
+		loan.setAmount(new BigDecimal(amount));
+		loan.setTenureMonths(24);
+		return loan;
+	}
+
+	private static LoginRequest login(String loginId, String password) {
+		LoginRequest request = new LoginRequest();
+		request.setLoginId(loginId);
+		request.setPassword(password);
+		return request;
+	}
+
+	private static RegisterRequest register(String loginId) {
+		RegisterRequest request = new RegisterRequest();
+		request.setName("Shard " + loginId);
+		request.setAccountNumber("ACC-" + loginId);
+		request.setEmail(loginId + "@example.com");
+		request.setPhoneNumber("9000000000");
+		request.setPanNumber("PAN-" + loginId);
+		request.setDob("1990-01-01");
+		request.setAccountType(RegisterRequest.AccountType.SAVINGS);
+		request.setLoginId(loginId);
+		request.setPassword("secret");
+		return request;
+	}
+
+}
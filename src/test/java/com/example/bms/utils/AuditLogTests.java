@@ -0,0 +1,155 @@
+package com.example.bms.utils;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AuditLogTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void concurrentAppendsAreAllWrittenAcrossSegments() throws Exception {
+		int threads = 8;
+		int perThread = 2_000;
+		try (AuditLog log = new AuditLog(dir, 256, 8192, 5, 4096, 1_000)) {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Thread> producers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				long customerId = t + 1;
+				Thread producer = new Thread(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < perThread; i++) {
+						log.append(customerId, AuditLog.Action.LOAN_READ, Integer.toString(i));
+					}
+				});
+				producer.start();
+				producers.add(producer);
+			}
+			start.countDown();
+			for (Thread producer : producers) {
+				producer.join();
+			}
+			log.flush();
+			assertEquals(0, log.dropped());
+			assertTrue(log.syncs() > 0);
+		}
+
+		assertTrue(AuditLog.segments(dir).size() > 1);
+		assertEquals(threads * perThread, AuditLogReader.search(dir, null, 0, Long.MAX_VALUE).size());
+		for (long customerId = 1; customerId <= threads; customerId++) {
+			List<AuditLog.Entry> entries = AuditLogReader.search(dir, customerId, 0, Long.MAX_VALUE);
+			assertEquals(perThread, entries.size());
+			// One producer's entries keep their order
+			for (int i = 0; i < perThread; i++) {
+				assertEquals(Integer.toString(i), entries.get(i).getDetail());
+			}
+		}
+	}
+
+	@Test
+	void searchesByCustomerAndTimeRangeAcrossRestarts() throws Exception {
+		long before = System.currentTimeMillis();
+		try (AuditLog log = new AuditLog(dir, 64, 4096, 5, 4096, 1_000)) {
+			log.append(7, AuditLog.Action.LOGIN, "session 1");
+			log.append(8, AuditLog.Action.LOGIN, null);
+			log.flush();
+		}
+		Thread.sleep(5);
+		long restarted = System.currentTimeMillis();
+		try (AuditLog log = new AuditLog(dir, 64, 4096, 5, 4096, 1_000)) {
+			log.append(7, AuditLog.Action.LOAN_APPLY, "LN-1");
+			log.flush();
+		}
+
+		assertEquals(2, AuditLog.segments(dir).size());
+		List<AuditLog.Entry> all = AuditLogReader.search(dir, 7L, before, Long.MAX_VALUE);
+		assertEquals(List.of(AuditLog.Action.LOGIN, AuditLog.Action.LOAN_APPLY), all.stream().map(AuditLog.Entry::getAction).toList());
+		assertEquals("session 1", all.get(0).getDetail());
+
+		List<AuditLog.Entry> later = AuditLogReader.search(dir, 7L, restarted, Long.MAX_VALUE);
+		assertEquals(1, later.size());
+		assertEquals("LN-1", later.get(0).getDetail());
+
+		List<AuditLog.Entry> other = AuditLogReader.search(dir, 8L, before, Long.MAX_VALUE);
+		assertEquals(1, other.size());
+		assertNull(other.get(0).getDetail());
+		assertTrue(AuditLogReader.search(dir, 9L, before, Long.MAX_VALUE).isEmpty());
+	}
+
+	@Test
+	void readingStopsAtATornRecord() throws Exception {
+		try (AuditLog log = new AuditLog(dir, 64, 4096, 5, 4096, 1_000)) {
+			for (int i = 0; i < 3; i++) {
+				log.append(1, AuditLog.Action.LOAN_READ, "loan " + i);
+			}
+			log.flush();
+		}
+
+		// Corrupts the last record's body, as if the crash hit mid-write
+		Path segment = AuditLog.segments(dir).get(0);
+		int firstLength = AuditLog.RECORD_HEADER_BYTES + AuditLog.BODY_FIXED_BYTES + "loan 0".length();
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}),
+					AuditLog.HEADER_BYTES + 2L * firstLength + AuditLog.RECORD_HEADER_BYTES + 2);
+		}
+		List<AuditLog.Entry> entries = AuditLogReader.search(dir, 1L, 0, Long.MAX_VALUE);
+		assertEquals(List.of("loan 0", "loan 1"), entries.stream().map(AuditLog.Entry::getDetail).toList());
+	}
+
+	@Test
+	void longDetailsAreCutAtACharacterBoundary() throws IOException, InterruptedException {
+		String detail = "€".repeat(AuditLog.MAX_DETAIL_BYTES);
+		try (AuditLog log = new AuditLog(dir, 64, 8192, 5, 4096, 1_000)) {
+			log.append(1, AuditLog.Action.PROFILE_UPDATE, detail);
+			log.flush();
+		}
+		String stored = AuditLogReader.search(dir, 1L, 0, Long.MAX_VALUE).get(0).getDetail();
+		assertEquals(AuditLog.MAX_DETAIL_BYTES / 3, stored.length());
+		assertTrue(detail.startsWith(stored));
+	}
+
+	@Test
+	void anEntryThatKeepsFailingIsSkippedAndCounted() throws Exception {
+		long smallestSegment = AuditLog.HEADER_BYTES + AuditLog.RECORD_HEADER_BYTES + AuditLog.BODY_FIXED_BYTES
+				+ AuditLog.MAX_DETAIL_BYTES;
+		try (AuditLog log = new AuditLog(dir, 8, smallestSegment, 5, 4096, 1_000)) {
+			log.append(1, AuditLog.Action.LOGIN, "x".repeat(AuditLog.MAX_DETAIL_BYTES));
+			log.flush();
+			// A directory where the second segment would go, so rolling over to it fails
+			Path blocked = Files.createDirectory(dir.resolve(AuditLog.segmentName(2)));
+			log.append(2, AuditLog.Action.LOGIN, "needs the second segment");
+			await().atMost(Duration.ofSeconds(10)).until(() -> log.failed() == 1);
+			assertEquals(0, log.backlog());
+
+			Files.delete(blocked);
+			log.append(3, AuditLog.Action.LOGIN, "after the disk recovered");
+			log.flush();
+			assertEquals(1, log.failed());
+		}
+
+		assertEquals(1, AuditLogReader.search(dir, 1L, 0, Long.MAX_VALUE).size());
+		assertTrue(AuditLogReader.search(dir, 2L, 0, Long.MAX_VALUE).isEmpty());
+		assertEquals("after the disk recovered", AuditLogReader.search(dir, 3L, 0, Long.MAX_VALUE).get(0).getDetail());
+	}
+}
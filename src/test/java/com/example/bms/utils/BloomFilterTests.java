@@ -0,0 +1,49 @@
+package com.example.bms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	private static final int REGISTERED = 100_000;
+	private static final int PROBES = 200_000;
+
+	@Test
+	void neverMissesAnAddedValueAndStaysNearTheTargetRate() {
+		BloomFilter filter = BloomFilter.create(REGISTERED, 0.01, 1 << 24);
+		for (int i = 0; i < REGISTERED; i++) {
+			filter.add("customer" + i);
+		}
+		for (int i = 0; i < REGISTERED; i++) {
+			assertTrue(filter.mightContain("customer" + i));
+		}
+		double rate = falsePositiveRate(filter);
+		assertTrue(rate < 0.015, "false-positive rate " + rate);
+		assertTrue(filter.expectedFalsePositiveRate() < 0.011);
+		assertFalse(filter.add("customer42"));
+	}
+
+	@Test
+	void memoryCapTradesAccuracyForSize() {
+		BloomFilter capped = BloomFilter.create(REGISTERED, 0.001, 32 * 1024);
+		assertTrue(capped.bitSize() <= 32 * 1024 * 8);
+		for (int i = 0; i < REGISTERED; i++) {
+			capped.add("customer" + i);
+		}
+		assertTrue(capped.mightContain("customer7"));
+		assertTrue(falsePositiveRate(capped) > 0.01);
+	}
+
+	private static double falsePositiveRate(BloomFilter filter) {
+		int hits = 0;
+		for (int i = 0; i < PROBES; i++) {
+			if (filter.mightContain("stuffed-" + i)) {
+				hits++;
+			}
+		}
+		return hits / (double) PROBES;
+	}
+
+}
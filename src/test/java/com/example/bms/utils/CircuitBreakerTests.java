@@ -0,0 +1,122 @@
+package com.example.bms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CircuitBreakerTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private long now;
+
+	// Window of 4, opens at half failed once 4 calls are in, 100 ms slow, open 1 s, 2 trial calls
+	private CircuitBreaker breaker() {
+		return new CircuitBreaker("test", 4, 4, 50, 100, 1_000, 2,
+				error -> error instanceof IllegalStateException, registry, () -> now);
+	}
+
+	@Test
+	void opensOnFailuresAndClosesAfterSuccessfulTrials() {
+		CircuitBreaker breaker = breaker();
+		succeed(breaker);
+		fail(breaker);
+		succeed(breaker);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+		fail(breaker);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+		now += TimeUnit.MILLISECONDS.toNanos(400);
+		RejectedCallException rejected = assertThrows(RejectedCallException.class, () -> succeed(breaker));
+		assertEquals(600, rejected.getRetryAfterMs());
+		assertEquals(1.0, registry.get("bms.circuit.state").tag("state", "open").gauge().value());
+
+		now += TimeUnit.MILLISECONDS.toNanos(600);
+		succeed(breaker);
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+		succeed(breaker);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+		assertEquals(1.0, registry.get("bms.circuit.state").tag("state", "closed").gauge().value());
+		assertEquals(1.0, registry.get("bms.circuit.calls").tag("outcome", "rejected").counter().count());
+	}
+
+	@Test
+	void aFailedTrialOpensItAgain() {
+		CircuitBreaker breaker = breaker();
+		for (int i = 0; i < 4; i++) {
+			fail(breaker);
+		}
+		now += TimeUnit.SECONDS.toNanos(1);
+		fail(breaker);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+		assertThrows(RejectedCallException.class, () -> succeed(breaker));
+	}
+
+	@Test
+	void slowCallsCountAsFailuresAndRequestErrorsDoNot() {
+		CircuitBreaker breaker = breaker();
+		for (int i = 0; i < 4; i++) {
+			assertThrows(IllegalArgumentException.class, () -> breaker.execute(() -> {
+				throw new IllegalArgumentException("bad request");
+			}));
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+		for (int i = 0; i < 2; i++) {
+			breaker.execute(() -> now += TimeUnit.MILLISECONDS.toNanos(150));
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+		assertEquals(2.0, registry.get("bms.circuit.calls").tag("outcome", "slow").counter().count());
+	}
+
+	@Test
+	void bulkheadRejectsCallsBeyondItsLimit() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("test", 1, 0, registry);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> first = pool.submit(() -> bulkhead.execute(() -> {
+				running.countDown();
+				await(release);
+				return "done";
+			}));
+			assertTrue(running.await(5, TimeUnit.SECONDS));
+			assertEquals(1, bulkhead.active());
+			assertThrows(RejectedCallException.class, () -> bulkhead.execute(() -> "second"));
+			release.countDown();
+			assertEquals("done", first.get(5, TimeUnit.SECONDS));
+			assertEquals("third", bulkhead.execute(() -> "third"));
+			assertEquals(1.0, registry.get("bms.bulkhead.rejected").counter().count());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static void succeed(CircuitBreaker breaker) {
+		breaker.execute(() -> "ok");
+	}
+
+	private static void fail(CircuitBreaker breaker) {
+		assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+			throw new IllegalStateException("database down");
+		}));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.example.bms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.bms.models.Loan;
+
+class LoanSegmentTests {
+
+	// Mixed lengths and a non-ASCII key, so the index order is byte order rather than numeric or char order
+	// Keys are the ids' decimal text, so 10 sorts before 9 and 100 before 42
+	private static final long[] CUSTOMERS = { 9, 10, 100, 42, 7, 1_000_000_007L, Long.MAX_VALUE, 1 };
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void findsEveryLoanByLoanIdAndByCustomer() throws IOException {
+		List<Loan> loans = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			loans.add(loan(i, CUSTOMERS[(i * 7) % CUSTOMERS.length]));
+		}
+		Path path = dir.resolve("loans-0-1.seg");
+		LoanSegment.write(path, loans, 8);
+		LoanSegment segment = LoanSegment.open(path);
+
+		assertEquals(200, segment.size());
+		assertEquals(200, segment.readAll().size());
+		for (Loan loan : loans) {
+			assertSameLoan(loan, segment.findByLoanId(loan.getLoanId()).orElseThrow());
+		}
+		for (long customer : CUSTOMERS) {
+			List<Loan> expected = loans.stream().filter(l -> l.getCustomerId() == customer).toList();
+			List<Loan> found = segment.findByCustomerId(customer);
+			assertEquals(expected.size(), found.size(), Long.toString(customer));
+			for (int i = 0; i < expected.size(); i++) {
+				assertSameLoan(expected.get(i), found.get(i));
+			}
+		}
+		assertTrue(segment.findByLoanId("ARCH-999").isEmpty());
+		assertTrue(segment.findByCustomerId(8).isEmpty());
+		assertTrue(segment.findByCustomerId(0).isEmpty());
+	}
+
+	@Test
+	void rejectsFilesThatAreNotSegments() throws IOException {
+		Path path = dir.resolve("not-a-segment.seg");
+		Files.write(path, new byte[128]);
+		assertThrows(IOException.class, () -> LoanSegment.open(path));
+		assertThrows(IOException.class, () -> LoanSegment.write(path, List.of(), 8));
+	}
+
+	private static Loan loan(int i, long customerId) {
+		Loan loan = new Loan();
+		loan.setId(1000L + i);
+		loan.setLoanId("ARCH-" + i);
+		loan.setCustomerId(customerId);
+		loan.setLoanType(Loan.LoanType.values()[i % Loan.LoanType.values().length]);
+		loan.setAmount(new BigDecimal("25000.50").add(BigDecimal.valueOf(i)));
+		loan.setOfferedInterestRate(new BigDecimal("11.25"));
+		loan.setTenureMonths(12 + i % 48);
+		loan.setLoanStatus(Loan.LoanStatus.DISBURSED);
+		loan.setLoanStatus(Loan.LoanStatus.CLOSED);
+		loan.setPurpose(i % 3 == 0 ? null : "purpose " + i);
+		loan.updateEmi();
+		loan.setOutstandingAmount(BigDecimal.ZERO.setScale(2));
+		loan.setLastAccrualDate(i % 2 == 0 ? null : LocalDate.of(2025, 3, 1 + i % 28));
+		loan.setUpdatedAt(LocalDateTime.of(2025, 6, 1, 12, 0, 0, i * 1000));
+		return loan;
+	}
+
+	private static void assertSameLoan(Loan expected, Loan actual) {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getLoanId(), actual.getLoanId());
+		assertEquals(expected.getCustomerId(), actual.getCustomerId());
+		assertEquals(expected.getLoanType(), actual.getLoanType());
+		assertEquals(expected.getAmount(), actual.getAmount());
+		assertEquals(expected.getOfferedInterestRate(), actual.getOfferedInterestRate());
+		assertEquals(expected.getLoanStatus(), actual.getLoanStatus());
+		assertEquals(expected.getTenureMonths(), actual.getTenureMonths());
+		assertEquals(expected.getPurpose(), actual.getPurpose());
+		assertEquals(expected.getMonthlyEmi(), actual.getMonthlyEmi());
+		assertEquals(expected.getApplicationDate(), actual.getApplicationDate());
+		assertEquals(expected.getApprovalDate(), actual.getApprovalDate());
+		assertEquals(expected.getDisbursementDate(), actual.getDisbursementDate());
+		assertEquals(expected.getMaturityDate(), actual.getMaturityDate());
+		assertEquals(expected.getOutstandingAmount(), actual.getOutstandingAmount());
+		assertEquals(expected.getLastAccrualDate(), actual.getLastAccrualDate());
+		assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+		assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+	}
+
+}
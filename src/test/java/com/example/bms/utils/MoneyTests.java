@@ -0,0 +1,86 @@
+package com.example.bms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class MoneyTests {
+
+	// Reference EMIs from the reducing-balance formula evaluated at 60 significant digits
+	@ParameterizedTest
+	@CsvSource({
+		"100000.00, 10.00, 12, 8791.59",
+		"500000.00, 9.00, 240, 4498.63",
+		"2500000.00, 8.50, 360, 19222.84",
+		"750000.00, 10.50, 60, 16120.43",
+		"50000.00, 15.00, 6, 8701.69",
+		"1000000.00, 12.00, 36, 33214.31",
+		"300000.00, 9.50, 84, 4903.19",
+		"12345678.90, 7.25, 180, 112699.12"
+	})
+	void emiMatchesReferenceTable(String principal, String rate, int months, String expected) {
+		long emi = Money.emiPaise(Money.toPaise(new BigDecimal(principal)),
+				Money.toBasisPoints(new BigDecimal(rate)), months);
+		assertEquals(new BigDecimal(expected), Money.fromPaise(emi));
+	}
+
+	@Test
+	void emiMatchesHighPrecisionAcrossGrid() {
+		long principal = 98_765_432_10L;
+		for (long bps = 25; bps <= 3600; bps += 25) {
+			for (int months = 1; months <= 360; months += 7) {
+				assertEquals(referenceEmi(principal, bps, months), Money.emiPaise(principal, bps, months),
+						"bps=" + bps + " months=" + months);
+			}
+		}
+	}
+
+	@Test
+	void incrementalAnnuityFactorsMatchDirectEmi() {
+		long principal = 98_765_432_10L;
+		for (long bps = 25; bps <= 3600; bps += 25) {
+			long[] factors = Money.annuityFactors(bps, 360);
+			for (int months = 1; months <= 360; months++) {
+				assertEquals(Money.emiPaise(principal, bps, months), Money.emiPaise(principal, factors[months]),
+						"bps=" + bps + " months=" + months);
+			}
+		}
+	}
+
+	@Test
+	void zeroRateSplitsPrincipalEvenly() {
+		assertEquals(8333_33L, Money.emiPaise(100_000_00L, 0, 12));
+	}
+
+	@Test
+	void roundsHalfUpToPaise() {
+		assertEquals(1001L, Money.toPaise(new BigDecimal("10.005")));
+		assertEquals(-1001L, Money.toPaise(new BigDecimal("-10.005")));
+		assertEquals(3L, Money.divideHalfUp(5, 2));
+		assertEquals(-3L, Money.divideHalfUp(-5, 2));
+		assertEquals(833L, Money.monthlyInterestPaise(100_000L, 1000));
+	}
+
+	@Test
+	void rejectsOutOfRangeInputs() {
+		assertThrows(IllegalArgumentException.class, () -> Money.emiPaise(100L, 100, 0));
+		assertThrows(IllegalArgumentException.class, () -> Money.emiPaise(100L, -1, 12));
+	}
+
+	private static long referenceEmi(long principalPaise, long bps, int months) {
+		MathContext mc = new MathContext(60);
+		BigDecimal r = BigDecimal.valueOf(bps).divide(BigDecimal.valueOf(120_000), mc);
+		BigDecimal growth = BigDecimal.ONE.add(r).pow(months, mc);
+		BigDecimal emi = BigDecimal.valueOf(principalPaise).multiply(r, mc).multiply(growth, mc)
+				.divide(growth.subtract(BigDecimal.ONE), mc);
+		return emi.setScale(0, RoundingMode.HALF_UP).longValueExact();
+	}
+
+}
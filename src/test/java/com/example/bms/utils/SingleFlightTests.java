@@ -0,0 +1,89 @@
+package com.example.bms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTests {
+
+	private static final int CALLERS = 8;
+
+	@Test
+	void concurrentCallersForOneKeyShareASingleLoad() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		SingleFlight<String, List<String>> flight = new SingleFlight<>("test", registry);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> result = List.of("LOAN1");
+
+		ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<>();
+			futures.add(pool.submit(() -> flight.execute("42", () -> {
+				loads.incrementAndGet();
+				loading.countDown();
+				await(release);
+				return result;
+			})));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			for (int i = 1; i < CALLERS; i++) {
+				futures.add(pool.submit(() -> flight.execute("42", () -> {
+					loads.incrementAndGet();
+					return List.of("unexpected");
+				})));
+			}
+			// Joiners register before the leader is released
+			while (registry.get("bms.singleflight.calls").tag("outcome", "coalesced").counter().count() < CALLERS - 1) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+			for (Future<List<String>> future : futures) {
+				assertSame(result, future.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(1, loads.get());
+		assertEquals(1.0, registry.get("bms.singleflight.calls").tag("outcome", "executed").counter().count());
+		assertEquals((CALLERS - 1) / (double) CALLERS,
+				registry.get("bms.singleflight.coalescing.ratio").gauge().value(), 1e-9);
+		assertEquals(0.0, registry.get("bms.singleflight.in_flight").gauge().value());
+
+		// Nothing is retained: the next call loads again
+		assertEquals(List.of("fresh"), flight.execute("42", () -> List.of("fresh")));
+	}
+
+	@Test
+	void failuresAreSharedAndNotRemembered() {
+		SingleFlight<String, String> flight = new SingleFlight<>("failing", new SimpleMeterRegistry());
+		assertThrows(IllegalStateException.class, () -> flight.execute("k", () -> {
+			throw new IllegalStateException("database down");
+		}));
+		assertEquals("ok", flight.execute("k", () -> "ok"));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.example.bms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SlowQueryRecorderTests {
+
+	private static final String SQL = "select * from loans where customer_id in (?, ?, ?)";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+	private final Logger slowQueryLog = (Logger) LoggerFactory.getLogger("bms.slow-query");
+
+	@BeforeEach
+	void captureSlowQueryLog() {
+		logged.start();
+		slowQueryLog.addAppender(logged);
+	}
+
+	@AfterEach
+	void releaseSlowQueryLog() {
+		slowQueryLog.detachAppender(logged);
+	}
+
+	// 200 ms threshold, as configured
+	private SlowQueryRecorder recorder(double sampleRate, int maxPerSecond) {
+		SlowQueryRecorder recorder = new SlowQueryRecorder();
+		ReflectionTestUtils.setField(recorder, "meterRegistry", registry);
+		ReflectionTestUtils.setField(recorder, "thresholdMs", 200L);
+		ReflectionTestUtils.setField(recorder, "sampleRate", sampleRate);
+		ReflectionTestUtils.setField(recorder, "maxPerSecond", maxPerSecond);
+		return recorder;
+	}
+
+	@Test
+	void slowQueriesAreLoggedWithParameterTypesOnly() {
+		recorder(1.0, 20).record(SQL, List.of("Long", "Long", "Long"), 1, TimeUnit.MILLISECONDS.toNanos(350));
+
+		assertEquals(1, logged.list.size());
+		String line = logged.list.get(0).getFormattedMessage();
+		assertTrue(line.startsWith("Slow query 350 ms"), line);
+		assertTrue(line.contains("params=[Long, Long, Long]"), line);
+		assertTrue(line.contains("sql=select * from loans where customer_id in (?...)"), line);
+		assertEquals(1.0, registry.get("bms.jdbc.slow_queries").tag("logged", "true").counter().count());
+		assertEquals(1, registry.get("bms.jdbc.query").tag("operation", "SELECT").tag("table", "loans").timer().count());
+	}
+
+	@Test
+	void fastQueriesAreTimedButNotLogged() {
+		recorder(1.0, 20).record(SQL, List.of("Long", "Long", "Long"), 1, TimeUnit.MILLISECONDS.toNanos(5));
+
+		assertTrue(logged.list.isEmpty());
+		assertTrue(registry.find("bms.jdbc.slow_queries").counters().isEmpty());
+		assertEquals(1, registry.get("bms.jdbc.query").timer().count());
+	}
+
+	@Test
+	void onlyTheSampledShareOfSlowQueriesIsLogged() {
+		SlowQueryRecorder recorder = recorder(0.25, Integer.MAX_VALUE);
+		int slow = 4_000;
+		for (int i = 0; i < slow; i++) {
+			recorder.record(SQL, List.of(), 1, TimeUnit.MILLISECONDS.toNanos(250));
+		}
+
+		// A quarter, within about six standard deviations
+		int expected = slow / 4;
+		assertTrue(Math.abs(logged.list.size() - expected) < 170, "logged " + logged.list.size());
+		double loggedCount = registry.get("bms.jdbc.slow_queries").tag("logged", "true").counter().count();
+		double skippedCount = registry.get("bms.jdbc.slow_queries").tag("logged", "false").counter().count();
+		assertEquals(logged.list.size(), (int) loggedCount);
+		assertEquals(slow, (int) (loggedCount + skippedCount));
+
+		logged.list.clear();
+		SlowQueryRecorder silent = recorder(0.0, Integer.MAX_VALUE);
+		for (int i = 0; i < 100; i++) {
+			silent.record(SQL, List.of(), 1, TimeUnit.MILLISECONDS.toNanos(250));
+		}
+		assertTrue(logged.list.isEmpty());
+	}
+
+	@Test
+	void loggingIsCappedPerSecond() {
+		SlowQueryRecorder recorder = recorder(1.0, 5);
+		for (int i = 0; i < 50; i++) {
+			recorder.record(SQL, List.of(), 1, TimeUnit.MILLISECONDS.toNanos(250));
+		}
+
+		// Five a second; a second boundary during the loop allows five more
+		assertTrue(logged.list.size() >= 5 && logged.list.size() <= 10, "logged " + logged.list.size());
+		assertEquals(50.0, registry.get("bms.jdbc.slow_queries").counters().stream().mapToDouble(c -> c.count()).sum());
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.example.bms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+	private static final class Entry extends TimingWheel.Node {
+		final long deadline;
+
+		Entry(long deadline) {
+			this.deadline = deadline;
+		}
+	}
+
+	@Test
+	void entriesFireInDeadlineOrderAndNeverEarly() {
+		// 4 slots per level over three levels covers 64 ticks; later deadlines are re-placed on the way
+		TimingWheel<Entry> wheel = new TimingWheel<>(10, 2, 3, 0);
+		Random random = new Random(7);
+		List<Entry> entries = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Entry entry = new Entry(1 + random.nextInt(2_000));
+			entries.add(entry);
+			wheel.schedule(entry, entry.deadline);
+		}
+		assertEquals(500, wheel.size());
+
+		List<Entry> fired = new ArrayList<>();
+		for (long now = 0; now <= 2_010; now += 7) {
+			long at = now;
+			wheel.advance(now, entry -> {
+				assertTrue(entry.deadline <= at, "fired early");
+				// At most one tick, plus the 7 ms between advances, late
+				assertTrue(at - entry.deadline < 10 + 7, "fired late");
+				assertFalse(entry.isScheduled());
+				fired.add(entry);
+			});
+		}
+		assertEquals(500, fired.size());
+		assertEquals(0, wheel.size());
+		for (int i = 1; i < fired.size(); i++) {
+			// Same tick in any order, otherwise in deadline order
+			assertTrue((fired.get(i - 1).deadline + 9) / 10 <= (fired.get(i).deadline + 9) / 10);
+		}
+	}
+
+	@Test
+	void cancelledAndRescheduledEntriesFireOnlyWhenDue() {
+		TimingWheel<Entry> wheel = new TimingWheel<>(1_000, 6, 4, 0);
+		Entry cancelled = new Entry(5_000);
+		Entry moved = new Entry(400_000);
+		wheel.schedule(cancelled, cancelled.deadline);
+		wheel.schedule(moved, 3_000);
+		wheel.schedule(moved, moved.deadline);
+		assertEquals(2, wheel.size());
+		assertTrue(wheel.cancel(cancelled));
+		assertFalse(wheel.cancel(cancelled));
+
+		List<Entry> fired = new ArrayList<>();
+		wheel.advance(399_000, fired::add);
+		assertTrue(fired.isEmpty());
+		wheel.advance(400_000, fired::add);
+		assertEquals(List.of(moved), fired);
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void pastDeadlinesFireOnTheNextAdvance() {
+		TimingWheel<Entry> wheel = new TimingWheel<>(1_000, 6, 4, 100_000);
+		Entry late = new Entry(50_000);
+		wheel.schedule(late, late.deadline);
+
+		List<Entry> fired = new ArrayList<>();
+		wheel.advance(100_000, fired::add);
+		assertEquals(List.of(late), fired);
+	}
+
+}